@@ -0,0 +1,162 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.SortsPositions;
+import com.tramchester.graph.NodeContentsRepository;
+import com.tramchester.graph.NodeTypeRepository;
+import com.tramchester.graph.PreviousSuccessfulVisits;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.graph.search.*;
+import com.tramchester.graph.search.states.NotStartedState;
+import com.tramchester.repository.ReachabilityRepository;
+import com.tramchester.repository.RunningServicesRepository;
+import com.tramchester.testSupport.reference.TramStations;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Evaluation of a single path by the TramRouteEvaluator, with and without diagnostics, the path ends at a query
+ * node so goes through the non node specific checks. Run via ./gradlew jmh -PjmhInclude=EvaluatorAllocation,
+ * gc.alloc.rate.norm from the gc profiler gives the bytes allocated per evaluated node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluatorAllocationBenchmark {
+
+    private static final int MAX_CHANGES = 3;
+
+    @Param({"false", "true"})
+    public boolean diagnostics;
+
+    private final TramTime queryTime = TramTime.of(8, 15);
+
+    private JourneyRequest journeyRequest;
+    private ServiceHeuristics serviceHeuristics;
+    private NodeTypeRepository nodeTypeRepository;
+    private TramTestDataConfig config;
+    private NodeContentsRepository nodeContents;
+    private Set<Long> destinationNodeIds;
+    private Path path;
+    private BranchState<JourneyState> branchState;
+    private TramRouteEvaluator evaluator;
+
+    @Setup(Level.Trial)
+    public void createPath(TramContainerState state) {
+        config = state.getConfig();
+        Station dest = state.getTransportData().getLast();
+        Set<Station> destinations = Collections.singleton(dest);
+
+        journeyRequest = new JourneyRequest(state.getQueryDate(), queryTime, false,
+                MAX_CHANGES, config.getMaxJourneyDuration()).setDiag(diagnostics);
+
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, state.get(RunningServicesRepository.class),
+                journeyRequest, destinations);
+        nodeContents = state.get(NodeContentsRepository.class);
+        serviceHeuristics = new ServiceHeuristics(state.getStationRepository(), nodeContents,
+                state.get(ReachabilityRepository.class), journeyConstraints, queryTime, MAX_CHANGES);
+        nodeTypeRepository = state.get(NodeTypeRepository.class);
+
+        WalkingOverlay overlay = new WalkingOverlay();
+        Node start = overlay.createWalkingNode(TramStations.Altrincham.getLatLong(), UUID.randomUUID());
+        Node end = overlay.createWalkingNode(TramStations.NavigationRoad.getLatLong(), UUID.randomUUID());
+        path = new SingleRelationshipPath(overlay.addFinishWalk(start, end));
+
+        destinationNodeIds = Collections.singleton(Long.MAX_VALUE);
+        NotStartedState traversalState = new NotStartedState(state.get(SortsPositions.class), nodeContents,
+                destinationNodeIds, destinations, dest.getLatLong(), config, overlay);
+        JourneyState journeyState = new JourneyState(queryTime, traversalState);
+        branchState = new BranchState<>() {
+            @Override
+            public JourneyState getState() {
+                return journeyState;
+            }
+
+            @Override
+            public void setState(JourneyState state) {
+                // fixed
+            }
+        };
+    }
+
+    // reasons are kept when diagnostics are enabled, so start again each iteration
+    @Setup(Level.Iteration)
+    public void createEvaluator() {
+        ServiceReasons reasons = new ServiceReasons(journeyRequest, queryTime, new ProvidesLocalNow(),
+                MAX_CHANGES);
+        evaluator = new TramRouteEvaluator(serviceHeuristics, destinationNodeIds, nodeTypeRepository, reasons,
+                new PreviousSuccessfulVisits(nodeContents, config.getMaxWait()), LowestCostsForQuery.disabled().forSearch(queryTime, MAX_CHANGES),
+                SearchBudget.unlimited(), config);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        blackhole.consume(evaluator.evaluate(path, branchState));
+    }
+
+    private static class SingleRelationshipPath implements Path {
+        private final Relationship relationship;
+
+        private SingleRelationshipPath(Relationship relationship) {
+            this.relationship = relationship;
+        }
+
+        @Override
+        public Node startNode() {
+            return relationship.getStartNode();
+        }
+
+        @Override
+        public Node endNode() {
+            return relationship.getEndNode();
+        }
+
+        @Override
+        public Relationship lastRelationship() {
+            return relationship;
+        }
+
+        @Override
+        public Iterable<Relationship> relationships() {
+            return Collections.singletonList(relationship);
+        }
+
+        @Override
+        public Iterable<Relationship> reverseRelationships() {
+            return relationships();
+        }
+
+        @Override
+        public Iterable<Node> nodes() {
+            return Arrays.asList(startNode(), endNode());
+        }
+
+        @Override
+        public Iterable<Node> reverseNodes() {
+            return Arrays.asList(endNode(), startNode());
+        }
+
+        @Override
+        public int length() {
+            return 1;
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            return Arrays.<Entity>asList(startNode(), relationship, endNode()).iterator();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.places.Station;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/***
+ * Retained heap of a set of ids before and after interning. Before is ids that hash their string held in a HashSet,
+ * as IdSet did, after is interned ids in an IdSet and includes the ids themselves and their intern table entries.
+ * Heap is not something JMH reports, run via ./gradlew idHeapReport
+ */
+public class IdHeapReport {
+
+    private static final int[] SIZES = {1000, 100000, 1000000};
+
+    public static void main(String[] args) {
+        System.out.println("ids, before (bytes per id), after (bytes per id)");
+        for (int size : SIZES) {
+            long before = retained(() -> notInterned(size));
+            long after = retained(() -> interned(size));
+            System.out.println(format("%s, %s, %s", size, before / size, after / size));
+        }
+    }
+
+    private static Set<IdFor<Station>> notInterned(int size) {
+        Set<IdFor<Station>> ids = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            // never interned, so the same as ids were before
+            ids.add(StringIdFor.forLookup("9400ZZMABEFORE" + size + "_" + i));
+        }
+        return ids;
+    }
+
+    private static IdSet<Station> interned(int size) {
+        IdSet<Station> ids = new IdSet<>();
+        for (int i = 0; i < size; i++) {
+            ids.add(StringIdFor.createId("9400ZZMAAFTER" + size + "_" + i));
+        }
+        return ids;
+    }
+
+    private static long retained(Creates creates) {
+        long start = usedAfterGC();
+        Object held = creates.create();
+        long used = usedAfterGC() - start;
+        Reference.reachabilityFence(held);
+        return used;
+    }
+
+    private static long usedAfterGC() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private interface Creates {
+        Object create();
+    }
+}
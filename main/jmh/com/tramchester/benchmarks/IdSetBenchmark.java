@@ -0,0 +1,66 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.places.Station;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * IdSet.contains against a HashSet of the same ids, which is how IdSet held them before ids were interned, half
+ * the probes are present. Run via ./gradlew jmh -PjmhInclude=IdSetBenchmark, and on an earlier build for the
+ * string hashed numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdSetBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private IdSet<Station> idSet;
+    private Set<IdFor<Station>> hashSet;
+    private IdFor<Station>[] probes;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void createSets() {
+        idSet = new IdSet<>();
+        hashSet = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            StringIdFor<Station> id = StringIdFor.createId("9400ZZMASTATION" + i);
+            idSet.add(id);
+            hashSet.add(id);
+        }
+        probes = new IdFor[1024];
+        for (int i = 0; i < probes.length; i++) {
+            String text = (i % 2 == 0) ? "9400ZZMASTATION" + (i % size) : "9400ZZMAMISSING" + i;
+            probes[i] = StringIdFor.createId(text);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void idSetContains(Blackhole blackhole) {
+        for (IdFor<Station> probe : probes) {
+            blackhole.consume(idSet.contains(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void hashSetContains(Blackhole blackhole) {
+        for (IdFor<Station> probe : probes) {
+            blackhole.consume(hashSet.contains(probe));
+        }
+    }
+}
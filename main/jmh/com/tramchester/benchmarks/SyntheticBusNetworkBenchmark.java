@@ -0,0 +1,115 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.testSupport.TestEnv;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/***
+ * Same queries as TramJourneyPlanningBenchmark but over a generated bus grid, gridSize x gridSize stops,
+ * to show how search cost grows with the size of the network
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class SyntheticBusNetworkBenchmark {
+
+    private static final int MAX_CHANGES = 3;
+
+    @Param({"10", "20"})
+    public int gridSize;
+
+    @Param({"corners", "edgeToCentre", "adjacentRows"})
+    public String journey;
+
+    private SyntheticBusNetworkConfig config;
+    private ComponentContainer componentContainer;
+    private GraphDatabase database;
+    private Station start;
+    private Station dest;
+    private JourneyRequest journeyRequest;
+    private JourneyRequest arriveByRequest;
+
+    @Setup(Level.Trial)
+    public void createContainer() throws IOException {
+        config = new SyntheticBusNetworkConfig(gridSize);
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder<SyntheticBusNetworkFactory>().
+                overrideProvider(SyntheticBusNetworkFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+        database = componentContainer.get(GraphDatabase.class);
+
+        StationRepository stationRepository = componentContainer.get(StationRepository.class);
+        int last = gridSize - 1;
+        int middle = gridSize / 2;
+        switch (journey) {
+            case "corners" -> {
+                start = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(0, 0));
+                dest = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(last, last));
+            }
+            case "edgeToCentre" -> {
+                start = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(0, middle));
+                dest = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(middle, middle));
+            }
+            case "adjacentRows" -> {
+                start = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(middle, 0));
+                dest = stationRepository.getStationById(SyntheticBusNetworkFactory.stationId(middle + 1, last));
+            }
+            default -> throw new RuntimeException("Unknown journey " + journey);
+        }
+
+        TramServiceDate queryDate = new TramServiceDate(TestEnv.testDay());
+        journeyRequest = new JourneyRequest(queryDate, TramTime.of(9, 5), false, MAX_CHANGES,
+                config.getMaxJourneyDuration());
+        arriveByRequest = new JourneyRequest(queryDate, TramTime.of(10, 30), true, MAX_CHANGES,
+                config.getMaxJourneyDuration());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContainer() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @Benchmark
+    public void calculateRoute(Blackhole blackhole) {
+        RouteCalculator calculator = componentContainer.get(RouteCalculator.class);
+        try (Transaction txn = database.beginTx()) {
+            consume(calculator.calculateRoute(txn, start, dest, journeyRequest), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void calculateRouteArriveBy(Blackhole blackhole) {
+        RouteCalculatorArriveBy calculator = componentContainer.get(RouteCalculatorArriveBy.class);
+        try (Transaction txn = database.beginTx()) {
+            consume(calculator.calculateRoute(txn, start, dest, arriveByRequest), blackhole);
+        }
+    }
+
+    private void consume(Stream<Journey> journeys, Blackhole blackhole) {
+        try (journeys) {
+            journeys.limit(config.getMaxNumResults()).forEach(blackhole::consume);
+        }
+    }
+}
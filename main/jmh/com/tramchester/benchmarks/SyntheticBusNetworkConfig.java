@@ -0,0 +1,43 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.integration.testSupport.GraphDBTestConfig;
+import com.tramchester.integration.testSupport.IntegrationTestConfig;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SyntheticBusNetworkConfig extends IntegrationTestConfig {
+    private final int gridSize;
+
+    public SyntheticBusNetworkConfig(int gridSize) {
+        super(new GraphDBTestConfig("jmhSyntheticBus", "synthetic_bus_" + gridSize + ".db"));
+        this.gridSize = gridSize;
+    }
+
+    @Override
+    protected List<DataSourceConfig> getDataSourceFORTESTING() {
+        TFGMTestDataSourceConfig dataSourceConfig = new TFGMTestDataSourceConfig("data/bus",
+                Collections.singleton(GTFSTransportationType.bus), Collections.emptySet());
+        return Collections.singletonList(dataSourceConfig);
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public int getNumberQueries() { return 1; }
+
+    @Override
+    public int getMaxWait() {
+        return 25;
+    }
+
+    @Override
+    public boolean getCreateNeighbours() {
+        return false;
+    }
+}
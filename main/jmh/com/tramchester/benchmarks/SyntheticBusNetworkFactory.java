@@ -0,0 +1,181 @@
+package com.tramchester.benchmarks;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.dataimport.data.StopTimeData;
+import com.tramchester.domain.*;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.input.NoPlatformStopCall;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.GTFSPickupDropoffType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.GridPosition;
+import com.tramchester.repository.TransportData;
+import com.tramchester.repository.TransportDataContainer;
+import com.tramchester.repository.TransportDataFactory;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.TestNoPlatformStation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/***
+ * Square grid of bus stops with a route along every row and column in both directions, scaled by
+ * SyntheticBusNetworkConfig.getGridSize(), so that search cost can be measured on a network much bigger than
+ * the tram data, without downloading anything. Every stop is served by 4 routes, so changes are possible everywhere.
+ */
+@LazySingleton
+public class SyntheticBusNetworkFactory implements TransportDataFactory {
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticBusNetworkFactory.class);
+
+    public static final String PREFIX = "SYN";
+
+    private static final int MAX_GRID_SIZE = 50;
+    private static final int STOP_SPACING_METERS = 400;
+    private static final int MINS_BETWEEN_STOPS = 2;
+    private static final int HEADWAY_MINS = 10;
+    private static final int FIRST_DEPART = 6 * 60;
+    private static final int LAST_DEPART = 22 * 60;
+
+    private final TransportDataContainer container;
+    private final ProvidesNow providesNow;
+    private final int gridSize;
+
+    @Inject
+    public SyntheticBusNetworkFactory(ProvidesNow providesNow, TramchesterConfig config) {
+        if (!(config instanceof SyntheticBusNetworkConfig)) {
+            throw new RuntimeException("Needs a SyntheticBusNetworkConfig, got " + config.getClass().getSimpleName());
+        }
+        this.providesNow = providesNow;
+        this.gridSize = ((SyntheticBusNetworkConfig) config).getGridSize();
+        if (gridSize > MAX_GRID_SIZE) {
+            throw new RuntimeException(format("Grid size %s too large, trips would run past midnight", gridSize));
+        }
+        container = new TransportDataContainer(providesNow, "SyntheticBusNetwork");
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        populate();
+        logger.info(container.toString());
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stop");
+        container.dispose();
+        logger.info("stopped");
+    }
+
+    @Override
+    public TransportData getData() {
+        return container;
+    }
+
+    public static StringIdFor<Station> stationId(int row, int column) {
+        return StringIdFor.createId(format("%s_%s_%s", PREFIX, row, column));
+    }
+
+    private void populate() {
+        Agency agency = new Agency(DataSourceID.TFGM(), PREFIX, "Synthetic Buses");
+        container.addAgency(agency);
+
+        LocalDate today = providesNow.getDate();
+        ServiceCalendar calendar = new ServiceCalendar(today.minusDays(7), today.plusYears(1), EnumSet.allOf(DayOfWeek.class));
+
+        Station[][] stations = createStations();
+
+        for (int row = 0; row < gridSize; row++) {
+            List<Station> calling = new ArrayList<>(gridSize);
+            for (int column = 0; column < gridSize; column++) {
+                calling.add(stations[row][column]);
+            }
+            addRoute(agency, calendar, "R" + row + "E", calling);
+            Collections.reverse(calling);
+            addRoute(agency, calendar, "R" + row + "W", calling);
+        }
+
+        for (int column = 0; column < gridSize; column++) {
+            List<Station> calling = new ArrayList<>(gridSize);
+            for (int row = 0; row < gridSize; row++) {
+                calling.add(stations[row][column]);
+            }
+            addRoute(agency, calendar, "C" + column + "N", calling);
+            Collections.reverse(calling);
+            addRoute(agency, calendar, "C" + column + "S", calling);
+        }
+
+        container.updateTimesForServices();
+    }
+
+    private Station[][] createStations() {
+        GridPosition origin = TestEnv.nearAltrinchamGrid;
+        Station[][] stations = new Station[gridSize][gridSize];
+        for (int row = 0; row < gridSize; row++) {
+            for (int column = 0; column < gridSize; column++) {
+                GridPosition position = new GridPosition(origin.getEastings() + ((long) column * STOP_SPACING_METERS),
+                        origin.getNorthings() + ((long) row * STOP_SPACING_METERS));
+                Station station = new TestNoPlatformStation(stationId(row, column).forDTO(), "synthetic",
+                        format("Synthetic %s %s", row, column), CoordinateTransforms.getLatLong(position), position,
+                        TransportMode.Bus);
+                container.addStation(station);
+                stations[row][column] = station;
+            }
+        }
+        return stations;
+    }
+
+    private void addRoute(Agency agency, ServiceCalendar calendar, String name, List<Station> calling) {
+        Route route = new Route(StringIdFor.createId(PREFIX + ":" + name), name, "Synthetic " + name, agency, TransportMode.Bus);
+        agency.addRoute(route);
+        container.addRoute(route);
+
+        Service service = new Service(PREFIX + "_SVC_" + name, route);
+        service.setCalendar(calendar);
+        route.addService(service);
+
+        calling.forEach(station -> {
+            container.addRouteStation(new RouteStation(station, route));
+            station.addRoute(route);
+        });
+
+        for (int depart = FIRST_DEPART; depart <= LAST_DEPART; depart += HEADWAY_MINS) {
+            Trip trip = new Trip(format("%s_TRIP_%s_%s", PREFIX, name, depart), "Synthetic " + name, service, route);
+            for (int index = 0; index < calling.size(); index++) {
+                int minuteOfDay = depart + (index * MINS_BETWEEN_STOPS);
+                TramTime time = TramTime.of(minuteOfDay / 60, minuteOfDay % 60);
+                trip.addStop(createStop(trip, calling.get(index), time, index + 1));
+            }
+            service.addTrip(trip);
+            route.addTrip(trip);
+            container.addTrip(trip);
+        }
+
+        container.addService(service);
+    }
+
+    private static NoPlatformStopCall createStop(Trip trip, Station station, TramTime time, int sequenceNum) {
+        StopTimeData stopTimeData = new StopTimeData(trip.getId().forDTO(), time, time, station.forDTO(),
+                sequenceNum, GTFSPickupDropoffType.Regular, GTFSPickupDropoffType.Regular);
+        return new NoPlatformStopCall(station, stopTimeData);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/***
+ * Shared container over the tram test network from TramTransportDataForTestFactory, the same data as the unit
+ * tests, so the benchmarks need no downloaded data and run offline. Built once per trial so graph creation is
+ * not included in any of the measurements. The synthetic bus benchmarks cover larger networks.
+ */
+@State(Scope.Benchmark)
+public class TramContainerState {
+
+    // services in the test data only run on mondays
+    private static final LocalDate QUERY_DATE = LocalDate.of(2014, 6, 30);
+
+    private ComponentContainer componentContainer;
+    private TramTestDataConfig config;
+
+    @Setup(Level.Trial)
+    public void createContainer() throws IOException {
+        config = new TramTestDataConfig();
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder<TramTransportDataForTestFactory>().
+                overrideProvider(TramTransportDataForTestFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContainer() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    public <T> T get(Class<T> klass) {
+        return componentContainer.get(klass);
+    }
+
+    public GraphDatabase getDatabase() {
+        return get(GraphDatabase.class);
+    }
+
+    public StationRepository getStationRepository() {
+        return get(StationRepository.class);
+    }
+
+    public TramTransportDataForTestFactory.TramTransportDataForTest getTransportData() {
+        return (TramTransportDataForTestFactory.TramTransportDataForTest) get(TransportData.class);
+    }
+
+    public TramServiceDate getQueryDate() {
+        return new TramServiceDate(QUERY_DATE);
+    }
+
+    public TramTestDataConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.BoundingBox;
+import com.tramchester.geo.BoundingBoxWithStations;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/***
+ * Journeys from every grid box to a single destination, as used by the fastest routes for boxes map view
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1750m"})
+public class TramGridBenchmark {
+
+    @Param({"2", "5"})
+    public int gridDivisions;
+
+    private List<BoundingBoxWithStations> grouped;
+    private Set<Station> destinations;
+    private JourneyRequest journeyRequest;
+
+    @Setup(Level.Trial)
+    public void createGrid(TramContainerState state) {
+        StationLocations stationLocations = state.get(StationLocations.class);
+        BoundingBox bounds = stationLocations.getBounds();
+        long gridSize = (bounds.getMaxNorthings()-bounds.getMinNorthings()) / gridDivisions;
+        grouped = stationLocations.getGroupedStations(gridSize).collect(Collectors.toList());
+
+        destinations = Collections.singleton(state.getTransportData().getFifthStation());
+        journeyRequest = new JourneyRequest(state.getQueryDate(), TramTime.of(7,57),
+                false, 3, state.getConfig().getMaxJourneyDuration());
+    }
+
+    @Benchmark
+    public void calculateRoutes(TramContainerState state, Blackhole blackhole) {
+        RouteCalculator calculator = state.get(RouteCalculator.class);
+        calculator.calculateRoutes(destinations, journeyRequest, grouped, 3).forEach(blackhole::consume);
+    }
+}
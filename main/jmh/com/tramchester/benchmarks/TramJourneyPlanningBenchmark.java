@@ -0,0 +1,102 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/***
+ * Station to station and location to station queries against the tram test network, one set of results per
+ * pair of stations, first to fourth and first to fifth need a change at the interchange. Run via ./gradlew jmh, the gc profiler is enabled by the task to give allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1750m"})
+public class TramJourneyPlanningBenchmark {
+
+    private static final int MAX_CHANGES = 3;
+
+    @Param({"first:second", "first:last", "first:fourth", "first:fifth", "second:fourth"})
+    public String stationPair;
+
+    private Station start;
+    private Station dest;
+    private TramServiceDate queryDate;
+    private int maxJourneyDuration;
+    private long maxNumResults;
+
+    @Setup(Level.Trial)
+    public void findStations(TramContainerState state) {
+        String[] names = stationPair.split(":");
+        start = getStation(state.getTransportData(), names[0]);
+        dest = getStation(state.getTransportData(), names[1]);
+        queryDate = state.getQueryDate();
+        maxJourneyDuration = state.getConfig().getMaxJourneyDuration();
+        maxNumResults = state.getConfig().getMaxNumResults();
+    }
+
+    @Benchmark
+    public void calculateRoute(TramContainerState state, Blackhole blackhole) {
+        JourneyRequest journeyRequest = createRequest(false);
+        RouteCalculator calculator = state.get(RouteCalculator.class);
+        try (Transaction txn = state.getDatabase().beginTx()) {
+            consume(calculator.calculateRoute(txn, start, dest, journeyRequest), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void calculateRouteArriveBy(TramContainerState state, Blackhole blackhole) {
+        JourneyRequest journeyRequest = createRequest(true);
+        RouteCalculatorArriveBy calculator = state.get(RouteCalculatorArriveBy.class);
+        try (Transaction txn = state.getDatabase().beginTx()) {
+            consume(calculator.calculateRoute(txn, start, dest, journeyRequest), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void quickestRouteForLocation(TramContainerState state, Blackhole blackhole) {
+        JourneyRequest journeyRequest = createRequest(false);
+        LocationJourneyPlanner planner = state.get(LocationJourneyPlanner.class);
+        try (Transaction txn = state.getDatabase().beginTx()) {
+            consume(planner.quickestRouteForLocation(txn, start.getLatLong(), dest, journeyRequest), blackhole);
+        }
+    }
+
+    private static Station getStation(TramTransportDataForTestFactory.TramTransportDataForTest transportData, String name) {
+        return switch (name) {
+            case "first" -> transportData.getFirst();
+            case "second" -> transportData.getSecond();
+            case "last" -> transportData.getLast();
+            case "fourth" -> transportData.getFourthStation();
+            case "fifth" -> transportData.getFifthStation();
+            default -> throw new RuntimeException("Unknown station " + name);
+        };
+    }
+
+    private JourneyRequest createRequest(boolean arriveBy) {
+        // arrive by is for the end of the test network's services
+        TramTime time = arriveBy ? TramTime.of(8, 45) : TramTime.of(7, 57);
+        return new JourneyRequest(queryDate, time, arriveBy, MAX_CHANGES, maxJourneyDuration);
+    }
+
+    private void consume(Stream<Journey> journeys, Blackhole blackhole) {
+        try (journeys) {
+            journeys.limit(maxNumResults).forEach(blackhole::consume);
+        }
+    }
+
+}
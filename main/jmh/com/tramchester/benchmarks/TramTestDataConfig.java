@@ -0,0 +1,34 @@
+package com.tramchester.benchmarks;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.integration.testSupport.GraphDBTestConfig;
+import com.tramchester.integration.testSupport.IntegrationTestConfig;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+
+import java.util.Collections;
+import java.util.List;
+
+public class TramTestDataConfig extends IntegrationTestConfig {
+
+    public TramTestDataConfig() {
+        super(new GraphDBTestConfig("jmhTram", "tram_test_data.db"));
+    }
+
+    @Override
+    protected List<DataSourceConfig> getDataSourceFORTESTING() {
+        // data comes from TramTransportDataForTestFactory, nothing is loaded from here
+        TFGMTestDataSourceConfig dataSourceConfig = new TFGMTestDataSourceConfig("unused",
+                GTFSTransportationType.tram, TransportMode.Tram);
+        return Collections.singletonList(dataSourceConfig);
+    }
+
+    @Override
+    public int getNumberQueries() { return 3; }
+
+    @Override
+    public int getQueryInterval() {
+        return 6;
+    }
+}
@@ -9,8 +9,9 @@ import com.tramchester.config.TramchesterConfig;
 import com.tramchester.dataimport.FetchDataFromUrl;
 import com.tramchester.graph.CachedNodeOperations;
 import com.tramchester.graph.NodeContentsRepository;
-import com.tramchester.graph.NodeIdLabelMap;
+import com.tramchester.graph.NodeIdLabelMask;
 import com.tramchester.graph.NodeTypeRepository;
+import com.tramchester.graph.PreloadedNodeOperations;
 import com.tramchester.graph.graphbuild.GraphFilter;
 import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
 import com.tramchester.graph.graphbuild.StationsAndLinksGraphBuilder;
@@ -45,8 +46,12 @@ public class Module<T extends TransportDataFactory>  extends AbstractModule {
     @Override
     protected void configure() {
         parent.registerComponents(config, filter, registersCacheMetrics);
-        bindClass(NodeContentsRepository.class, CachedNodeOperations.class);
-        bindClass(NodeTypeRepository.class, NodeIdLabelMap.class);
+        if (config.getPreloadNodeContents()) {
+            bindClass(NodeContentsRepository.class, PreloadedNodeOperations.class);
+        } else {
+            bindClass(NodeContentsRepository.class, CachedNodeOperations.class);
+        }
+        bindClass(NodeTypeRepository.class, NodeIdLabelMask.class);
         bindClass(TransportDataFactory.class, factoryType);
     }
 
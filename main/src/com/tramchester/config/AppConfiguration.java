@@ -131,6 +131,42 @@ public class AppConfiguration extends TramchesterConfig {
     @JsonProperty("bounds")
     private BoundingBox bounds;
 
+    @JsonProperty("planningEngine")
+    private PlanningEngine planningEngine;
+
+    @JsonProperty("preloadNodeContents")
+    private Boolean preloadNodeContents;
+
+    @JsonProperty("parallelSearchThreads")
+    private Integer parallelSearchThreads;
+
+    @JsonProperty("incrementalSearch")
+    private Boolean incrementalSearch;
+
+    @JsonProperty("bestFirstSearch")
+    private Boolean bestFirstSearch;
+
+    @JsonProperty("precomputeStationCosts")
+    private Boolean precomputeStationCosts;
+
+    @JsonProperty("journeyCacheSize")
+    private Integer journeyCacheSize;
+
+    @JsonProperty("journeyCacheBucketMinutes")
+    private Integer journeyCacheBucketMinutes;
+
+    @JsonProperty("searchBudgetMillis")
+    private Long searchBudgetMillis;
+
+    @JsonProperty("searchBudgetNodes")
+    private Long searchBudgetNodes;
+
+    @JsonProperty("batchPlanningThreads")
+    private Integer batchPlanningThreads;
+
+    @JsonProperty("maxBatchSize")
+    private Integer maxBatchSize;
+
     @Override
     public String getInstanceDataUrl() {
         return instanceDataUrl;
@@ -276,4 +312,77 @@ public class AppConfiguration extends TramchesterConfig {
         return bounds;
     }
 
+    // optional
+    @Override
+    public PlanningEngine getPlanningEngine() {
+        return planningEngine==null ? PlanningEngine.Graph : planningEngine;
+    }
+
+    // optional
+    @Override
+    public boolean getPreloadNodeContents() {
+        return preloadNodeContents!=null && preloadNodeContents;
+    }
+
+    // optional
+    @Override
+    public int getParallelSearchThreads() {
+        return parallelSearchThreads==null ? 0 : parallelSearchThreads;
+    }
+
+    // optional
+    @Override
+    public boolean getIncrementalSearch() {
+        return incrementalSearch!=null && incrementalSearch;
+    }
+
+    // optional
+    @Override
+    public boolean getBestFirstSearch() {
+        return bestFirstSearch!=null && bestFirstSearch;
+    }
+
+    // optional
+    @Override
+    public boolean getPrecomputeStationCosts() {
+        return precomputeStationCosts!=null && precomputeStationCosts;
+    }
+
+    // optional
+    @Override
+    public int getJourneyCacheSize() {
+        return journeyCacheSize==null ? 0 : journeyCacheSize;
+    }
+
+    // optional
+    @Override
+    public int getJourneyCacheBucketMinutes() {
+        return journeyCacheBucketMinutes==null ? 1 : journeyCacheBucketMinutes;
+    }
+
+    // optional
+    @Override
+    public long getSearchBudgetMillis() {
+        return searchBudgetMillis==null ? 0 : searchBudgetMillis;
+    }
+
+    // optional
+    @Override
+    public long getSearchBudgetNodes() {
+        return searchBudgetNodes==null ? 0 : searchBudgetNodes;
+    }
+
+    // optional, default leaves most cores for interactive requests
+    @Override
+    public int getBatchPlanningThreads() {
+        return batchPlanningThreads==null ? Math.max(1, Runtime.getRuntime().availableProcessors() / 4) :
+                batchPlanningThreads;
+    }
+
+    // optional
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize==null ? 100 : maxBatchSize;
+    }
+
 }
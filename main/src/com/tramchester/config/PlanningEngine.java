@@ -0,0 +1,13 @@
+package com.tramchester.config;
+
+/***
+ * Which implementation plans station to station journeys
+ */
+public enum PlanningEngine {
+    // traversal of the neo4j graph
+    Graph,
+    // round based search over the in memory timetable
+    Raptor,
+    // stored transfer patterns checked against the timetable for station to station, as Raptor otherwise
+    TransferPatterns
+}
@@ -99,6 +99,42 @@ public abstract class TramchesterConfig extends Configuration {
     // bounding box for stations to include
     public abstract BoundingBox getBounds();
 
+    // engine used to plan station to station journeys
+    public abstract PlanningEngine getPlanningEngine();
+
+    // load node and relationship properties into arrays at start up, instead of caching them on demand
+    public abstract boolean getPreloadNodeContents();
+
+    // threads used to run the sub-searches for a journey in parallel, zero to run them in sequence
+    public abstract int getParallelSearchThreads();
+
+    // bound searches allowing more changes by the journeys found with fewer
+    public abstract boolean getIncrementalSearch();
+
+    // expand lowest cost plus estimated remaining cost first, instead of breadth first
+    public abstract boolean getBestFirstSearch();
+
+    // build (or load) a station to station min cost matrix, for arrive by and as a lower bound during searches
+    public abstract boolean getPrecomputeStationCosts();
+
+    // max number of station to station results to cache, zero to disable the cache
+    public abstract int getJourneyCacheSize();
+
+    // query times are rounded down to this many minutes to share cached results
+    public abstract int getJourneyCacheBucketMinutes();
+
+    // max milliseconds a journey planning request may search for, zero for no limit
+    public abstract long getSearchBudgetMillis();
+
+    // max nodes a journey planning request may expand, zero for no limit
+    public abstract long getSearchBudgetNodes();
+
+    // threads used to plan the journeys of batch requests, shared by all batches
+    public abstract int getBatchPlanningThreads();
+
+    // max journeys in a single batch request
+    public abstract int getMaxBatchSize();
+
     public Set<TransportMode> getTransportModes() {
         return getDataSourceConfig().stream().
                 map(DataSourceConfig::getTransportModes).
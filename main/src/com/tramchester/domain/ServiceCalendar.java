@@ -6,6 +6,7 @@ import java.io.PrintStream;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -122,6 +123,18 @@ public class ServiceCalendar {
         return days.isEmpty();
     }
 
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public Set<LocalDate> getAdditional() {
+        return Collections.unmodifiableSet(additional);
+    }
+
     @Override
     public String toString() {
         return "ServiceCalendar{" +
@@ -11,64 +11,96 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.function.*;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/***
+ * Interned string ids are held in an int keyed open addressing set, any other ids (composite, lookups that
+ * were not interned) in a HashSet. Lookup ids are swapped for the interned id of the same text when there is one,
+ * and a lookup id held in the HashSet is replaced if the interned id for its text is added later.
+ */
 public class IdSet<T extends GraphProperty> implements Iterable<IdFor<T>> {
-    private final Set<IdFor<T>> theSet;
+    private final IndexedIdSet<T> interned;
+    private Set<IdFor<T>> others;
 
     public IdSet() {
-        theSet = new HashSet<>();
+        this(0);
     }
 
     public IdSet(Set<IdFor<T>> set) {
-        theSet = new HashSet<>(set);
+        this(set.size());
+        set.forEach(this::add);
     }
 
     public IdSet(int initialCapabicity) {
-        theSet = new HashSet<>(initialCapabicity);
+        interned = new IndexedIdSet<>(initialCapabicity);
+        others = Collections.emptySet();
     }
 
     public static <T extends GraphProperty> IdSet<T> singleton(IdFor<T> id) {
-        IdSet<T> result = new IdSet<>();
+        IdSet<T> result = new IdSet<>(1);
         result.add(id);
         return result;
     }
 
     public static <T extends GraphProperty> IdSet<T> emptySet() {
-        return new IdSet<>(Collections.emptySet());
+        return new IdSet<>();
     }
 
     public IdSet<T> addAll(IdSet<T> other) {
-        theSet.addAll(other.theSet);
+        other.forEach(this::add);
         return this;
     }
 
     public void add(IdFor<T> id) {
-        theSet.add(id);
+        id = resolve(id);
+        if (isInterned(id)) {
+            interned.add((StringIdFor<T>) id);
+            if (!others.isEmpty()) {
+                others.remove(id);
+            }
+        } else {
+            if (others.isEmpty()) {
+                others = new HashSet<>();
+            }
+            others.add(id);
+        }
     }
 
     public int size() {
-        return theSet.size();
+        return interned.size() + others.size();
     }
 
     public boolean contains(IdFor<T> id) {
-        return theSet.contains(id);
+        id = resolve(id);
+        if (isInterned(id) && interned.contains((StringIdFor<T>) id)) {
+            return true;
+        }
+        return !others.isEmpty() && others.contains(id);
     }
 
     public void clear() {
-        theSet.clear();
+        interned.clear();
+        others = Collections.emptySet();
     }
 
     public boolean isEmpty() {
-        return theSet.isEmpty();
+        return size() == 0;
     }
 
     public void remove(IdFor<T> id) {
-        theSet.remove(id);
+        id = resolve(id);
+        if (isInterned(id)) {
+            interned.remove((StringIdFor<T>) id);
+        }
+        if (!others.isEmpty()) {
+            others.remove(id);
+        }
     }
 
     public Stream<IdFor<T>> stream() {
-        return theSet.stream();
+        Stream<IdFor<T>> internedIds = interned.stream().map(id -> id);
+        return others.isEmpty() ? internedIds : Stream.concat(internedIds, others.stream());
     }
 
     public static <T extends HasId<T> & GraphProperty> Collector<T, IdSet<T>, IdSet<T>> collector() {
@@ -132,17 +164,17 @@ public class IdSet<T extends GraphProperty> implements Iterable<IdFor<T>> {
     @NotNull
     @Override
     public Iterator<IdFor<T>> iterator() {
-        return theSet.iterator();
+        return stream().iterator();
     }
 
     @Override
     public void forEach(Consumer<? super IdFor<T>> action) {
-        theSet.forEach(action);
+        stream().forEach(action);
     }
 
     @Override
     public String toString() {
-        return "IdSet{" + theSet + '}';
+        return "IdSet{" + stream().collect(Collectors.toList()) + '}';
     }
 
     @Override
@@ -152,15 +184,40 @@ public class IdSet<T extends GraphProperty> implements Iterable<IdFor<T>> {
 
         IdSet<?> idSet = (IdSet<?>) o;
 
-        return theSet.equals(idSet.theSet);
+        if (size() != idSet.size()) return false;
+        return stream().allMatch(idSet::containsUnchecked);
+    }
+
+    private static <Z extends GraphProperty> IdFor<Z> resolve(IdFor<Z> id) {
+        return id instanceof StringIdFor ? StringIdFor.resolve((StringIdFor<Z>) id) : id;
+    }
+
+    private static boolean isInterned(IdFor<?> id) {
+        return id instanceof StringIdFor && ((StringIdFor<?>) id).isInterned();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean containsUnchecked(IdFor<?> id) {
+        return contains((IdFor<T>) id);
     }
 
     @Override
     public int hashCode() {
-        return theSet.hashCode();
+        // same as java.util.Set, sum of the element hashes
+        return stream().mapToInt(Object::hashCode).sum();
+    }
+
+    /***
+     * Approximate heap used by this set, not including the ids themselves as those are shared
+     * @return estimate in bytes
+     */
+    public long estimateBytes() {
+        // hash set entry is roughly 32 bytes plus the table slot
+        long othersBytes = others.isEmpty() ? 0 : 64 + (others.size() * 36L);
+        return 24 + interned.estimateBytes() + othersBytes;
     }
 
     public boolean containsAll(IdSet<T> other) {
-        return theSet.containsAll(other.theSet);
+        return other.stream().allMatch(this::contains);
     }
 }
@@ -0,0 +1,133 @@
+package com.tramchester.domain.id;
+
+import com.tramchester.domain.GraphProperty;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/***
+ * Open addressing (linear probing) set of interned ids keyed on their int index, so contains never touches the
+ * id strings. Used by IdSet, not thread safe.
+ */
+class IndexedIdSet<T extends GraphProperty> {
+    private static final int MIN_CAPACITY = 4;
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private StringIdFor<T>[] ids;
+    private int size;
+    private int mask;
+    private int shift;
+
+    IndexedIdSet(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    private static int capacityFor(int expected) {
+        // keep load factor at or below 0.5
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) {
+            capacity = capacity << 1;
+        }
+        return capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        ids = (StringIdFor<T>[]) new StringIdFor[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        size = 0;
+    }
+
+    private int slotFor(int index) {
+        // fibonacci hashing, spreads the dense indexes across the table
+        return (index * 0x9E3779B9) >>> shift;
+    }
+
+    private int find(int index) {
+        int slot = slotFor(index);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == index) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    boolean add(StringIdFor<T> id) {
+        int slot = find(id.getIndex());
+        if (slot >= 0) {
+            return false;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+            slot = find(id.getIndex());
+        }
+        int insertAt = -(slot + 1);
+        keys[insertAt] = id.getIndex();
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    boolean contains(StringIdFor<T> id) {
+        return find(id.getIndex()) >= 0;
+    }
+
+    boolean remove(StringIdFor<T> id) {
+        int slot = find(id.getIndex());
+        if (slot < 0) {
+            return false;
+        }
+        size--;
+        // shift back following entries of the same run so probing never hits a gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotFor(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                ids[gap] = ids[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        ids[gap] = null;
+        return true;
+    }
+
+    private void resize(int capacity) {
+        StringIdFor<T>[] existing = ids;
+        allocate(capacity);
+        for (StringIdFor<T> id : existing) {
+            if (id != null) {
+                add(id);
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(ids, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimateBytes() {
+        // object header and fields, plus both arrays at 4 bytes a slot with compressed oops
+        return 32 + (2L * (16 + (4L * keys.length)));
+    }
+
+    Stream<StringIdFor<T>> stream() {
+        return Arrays.stream(ids).filter(Objects::nonNull);
+    }
+}
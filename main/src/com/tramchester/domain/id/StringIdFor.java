@@ -1,23 +1,93 @@
 package com.tramchester.domain.id;
 
+import com.google.common.collect.MapMaker;
 import com.tramchester.domain.GraphProperty;
 import com.tramchester.graph.GraphPropertyKey;
 import org.jetbrains.annotations.NotNull;
 import org.neo4j.graphdb.Entity;
 
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Ids are interned, each distinct id string has a single instance with an int index, so equals between interned ids
+ * does not need to touch the string. The intern table holds its ids weakly, entries go when the loaded data that
+ * refers to them is released, and while an id is reachable its text always maps to that same instance.
+ * Equality and hashCode are those of the id text, so ids from forLookup equal the interned id for the same text.
+ */
 public class StringIdFor<T extends GraphProperty> implements Comparable<StringIdFor<T>>, IdFor<T> {
+    private static final ConcurrentMap<String, StringIdFor<?>> interned = new MapMaker().weakValues().makeMap();
+    private static final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    // index of ids created by forLookup that were not already interned
+    private static final int NOT_INTERNED = -1;
+
     private final String theId;
+    private final int index;
 
-    private StringIdFor(String theId) {
+    private StringIdFor(String theId, int index) {
         this.theId = theId;
+        this.index = index;
     }
 
     public static <C extends HasId<C> & GraphProperty> StringIdFor<C> createId(String id) {
-        return new StringIdFor<>(id);
+        return intern(id);
+    }
+
+    /***
+     * For ids from outside of the loaded data, such as request parameters. Gives the interned id if there is one,
+     * otherwise an id that is not added to the intern table, it still equals any id with the same text.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C extends HasId<C> & GraphProperty> StringIdFor<C> forLookup(String id) {
+        StringIdFor<?> existing = interned.get(id);
+        if (existing == null) {
+            return new StringIdFor<>(id, NOT_INTERNED);
+        }
+        return (StringIdFor<C>) existing;
     }
 
     public static <CLASS extends GraphProperty> StringIdFor<CLASS> invalid() {
-        return new StringIdFor<>("");
+        return intern("");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Z extends GraphProperty> StringIdFor<Z> intern(String id) {
+        StringIdFor<?> existing = interned.get(id);
+        if (existing == null) {
+            existing = interned.computeIfAbsent(id, text -> new StringIdFor<>(text, nextIndex.getAndIncrement()));
+        }
+        return (StringIdFor<Z>) existing;
+    }
+
+    /***
+     * @return number of distinct ids seen so far, an upper bound for getIndex()
+     */
+    public static int numberInterned() {
+        return nextIndex.get();
+    }
+
+    /***
+     * @return the interned id for the same text if there is one, otherwise the id given
+     */
+    @SuppressWarnings("unchecked")
+    static <Z extends GraphProperty> StringIdFor<Z> resolve(StringIdFor<Z> id) {
+        if (id.isInterned()) {
+            return id;
+        }
+        StringIdFor<?> existing = interned.get(id.theId);
+        return existing == null ? id : (StringIdFor<Z>) existing;
+    }
+
+    /***
+     * @return index for this id, unique across all id types and reachable ids, only valid if isInterned()
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isInterned() {
+        return index != NOT_INTERNED;
     }
 
     @Override
@@ -27,7 +97,10 @@ public class StringIdFor<T extends GraphProperty> implements Comparable<StringId
 
         StringIdFor<?> idFor = (StringIdFor<?>) o;
 
-        // interned strings, so == is ok here
+        if (index != NOT_INTERNED && idFor.index != NOT_INTERNED) {
+            // both interned and reachable, so same text means same instance and index
+            return index == idFor.index;
+        }
         return theId.equals(idFor.theId);
     }
 
@@ -38,6 +111,7 @@ public class StringIdFor<T extends GraphProperty> implements Comparable<StringId
 
     @Override
     public int hashCode() {
+        // string caches its hash, same for interned and lookup ids
         return theId.hashCode();
     }
 
@@ -58,7 +132,7 @@ public class StringIdFor<T extends GraphProperty> implements Comparable<StringId
 
     public static <Z extends GraphProperty> IdFor<Z> getIdFromGraphEntity(Entity entity, GraphPropertyKey propertyKey) {
         String value =  entity.getProperty(propertyKey.getText()).toString();
-        return new StringIdFor<>(value);
+        return intern(value);
     }
 
     public static <Z extends GraphProperty> IdFor<Z> getCompositeIdFromGraphEntity(Entity entity, GraphPropertyKey propertyKey) {
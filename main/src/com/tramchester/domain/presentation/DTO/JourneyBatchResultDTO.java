@@ -0,0 +1,75 @@
+package com.tramchester.domain.presentation.DTO;
+
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * Result for one journey of a batch request, error is set if it could not be planned
+ */
+public class JourneyBatchResultDTO {
+    private String id;
+    private String start;
+    private String end;
+    private List<JourneyDTO> journeys;
+    private boolean partial;
+    private String error;
+
+    public JourneyBatchResultDTO() {
+        // deserialisation
+    }
+
+    private JourneyBatchResultDTO(JourneyQueryDTO query, List<JourneyDTO> journeys, boolean partial, String error) {
+        this.id = query.getId();
+        this.start = query.getStart();
+        this.end = query.getEnd();
+        this.journeys = journeys;
+        this.partial = partial;
+        this.error = error;
+    }
+
+    public static JourneyBatchResultDTO found(JourneyQueryDTO query, List<JourneyDTO> journeys, boolean partial) {
+        return new JourneyBatchResultDTO(query, journeys, partial, null);
+    }
+
+    public static JourneyBatchResultDTO failed(JourneyQueryDTO query, String error) {
+        return new JourneyBatchResultDTO(query, Collections.emptyList(), false, error);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    public List<JourneyDTO> getJourneys() {
+        return journeys;
+    }
+
+    /***
+     * @return true if the search ran out of time or nodes, see JourneyPlanRepresentation
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "JourneyBatchResultDTO{" +
+                "id='" + id + '\'' +
+                ", start='" + start + '\'' +
+                ", end='" + end + '\'' +
+                ", partial=" + partial +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -5,17 +5,30 @@ import java.util.Set;
 public class JourneyPlanRepresentation {
 
     private Set<JourneyDTO> journeys;
+    private boolean partial;
 
     public JourneyPlanRepresentation() {
         // deserialisation
     }
 
     public JourneyPlanRepresentation(Set<JourneyDTO> journeys) {
+        this(journeys, false);
+    }
+
+    public JourneyPlanRepresentation(Set<JourneyDTO> journeys, boolean partial) {
         this.journeys = journeys;
+        this.partial = partial;
     }
 
     public Set<JourneyDTO> getJourneys() {
         return journeys;
     }
 
+    /***
+     * @return true if the search ran out of time or nodes, so journeys are the best found before it stopped
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
 }
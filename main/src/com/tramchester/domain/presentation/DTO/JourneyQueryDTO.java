@@ -0,0 +1,88 @@
+package com.tramchester.domain.presentation.DTO;
+
+/***
+ * One journey of a batch request, fields as for the query parameters of a single journey request
+ */
+public class JourneyQueryDTO {
+    private String id;
+    private String start;
+    private String end;
+    private String departureTime;
+    private String departureDate;
+    private String lat;
+    private String lon;
+    private boolean arriveBy;
+    private int maxChanges;
+
+    public JourneyQueryDTO() {
+        // deserialisation
+        lat = "0";
+        lon = "0";
+        arriveBy = false;
+        maxChanges = 3;
+    }
+
+    public JourneyQueryDTO(String id, String start, String end, String departureTime, String departureDate,
+                           boolean arriveBy, int maxChanges) {
+        this();
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.departureTime = departureTime;
+        this.departureDate = departureDate;
+        this.arriveBy = arriveBy;
+        this.maxChanges = maxChanges;
+    }
+
+    /***
+     * @return chosen by the client to match up results, which are returned in the order they complete
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public String getDepartureDate() {
+        return departureDate;
+    }
+
+    public String getLat() {
+        return lat;
+    }
+
+    public String getLon() {
+        return lon;
+    }
+
+    public boolean getArriveBy() {
+        return arriveBy;
+    }
+
+    public int getMaxChanges() {
+        return maxChanges;
+    }
+
+    @Override
+    public String toString() {
+        return "JourneyQueryDTO{" +
+                "id='" + id + '\'' +
+                ", start='" + start + '\'' +
+                ", end='" + end + '\'' +
+                ", departureTime='" + departureTime + '\'' +
+                ", departureDate='" + departureDate + '\'' +
+                ", arriveBy=" + arriveBy +
+                ", maxChanges=" + maxChanges +
+                '}';
+    }
+}
@@ -11,6 +11,7 @@ import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.input.Trip;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.repository.ReportsCacheStats;
 import org.apache.commons.lang3.tuple.Pair;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -107,6 +108,10 @@ public class CachedNodeOperations implements ReportsCacheStats, NodeContentsRepo
     }
 
     public int getCost(Relationship relationship) {
+        if (WalkingOverlay.isVirtual(relationship)) {
+            // only live for one query, so don't cache
+            return GraphProps.getCost(relationship);
+        }
         long relationshipId = relationship.getId();
         //noinspection ConstantConditions
         return relationshipCostCache.get(relationshipId, id ->  GraphProps.getCost(relationship));
@@ -1,8 +1,11 @@
 package com.tramchester.graph;
 
 import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.graphbuild.GraphProps;
 import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
@@ -11,43 +14,91 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 
-
+/***
+ * Hour for each HOUR node, held in an open addressing map from node id to hour built in one pass over the nodes
+ */
 @LazySingleton
 public class HourNodeCache {
     private static final Logger logger = LoggerFactory.getLogger(HourNodeCache.class);
-    private static final int HOURS = 24;
+    private static final long EMPTY = -1L;
 
     private final GraphDatabase graphDatabaseService;
-    private final ArrayList<Set<Long>> forEachHour;
+
+    private long[] nodeIds;
+    private byte[] hours;
+    private int mask;
+    private int shift;
+    private long buildTimeMillis;
 
     @Inject
     public HourNodeCache(GraphDatabase graphDatabaseService, StagedTransportGraphBuilder.Ready ready) {
         this.graphDatabaseService = graphDatabaseService;
-        forEachHour = new ArrayList<>(HOURS);
+        nodeIds = new long[0];
+        hours = new byte[0];
     }
 
     @PostConstruct
     public void start() {
         logger.info("Starting");
-        for (int hour = 0; hour < HOURS; hour++) {
-            forEachHour.add(getRelationshipsFor(hour));
-            logger.info("Added " + forEachHour.get(hour).size() + " nodes for hour " + hour);
-        }
+        Instant begin = Instant.now();
+        build();
+        buildTimeMillis = Duration.between(begin, Instant.now()).toMillis();
+        logger.info("Built hour node index in " + buildTimeMillis + " ms");
         logger.info("Started");
     }
 
     @PreDestroy
     public void stop() {
         logger.info("Stopping");
-        for (int hour = 0; hour < HOURS; hour++) {
-            forEachHour.get(hour).clear();
-        }
-        forEachHour.clear();
+        nodeIds = new long[0];
+        hours = new byte[0];
         logger.info("Stopped");
     }
 
+    private void build() {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> hourForId = new ArrayList<>();
+        try (Transaction txn = graphDatabaseService.beginTx()) {
+            ResourceIterator<Node> hourNodes = graphDatabaseService.findNodes(txn, GraphBuilder.Labels.HOUR);
+            hourNodes.forEachRemaining(node -> {
+                ids.add(node.getId());
+                hourForId.add(GraphProps.getHour(node));
+            });
+            hourNodes.close();
+        }
+
+        // keep load factor at or below 0.5
+        int capacity = Integer.highestOneBit(Math.max(2, ids.size() * 2) - 1) << 1;
+        nodeIds = new long[capacity];
+        hours = new byte[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(mask);
+        Arrays.fill(nodeIds, EMPTY);
+
+        for (int i = 0; i < ids.size(); i++) {
+            int slot = find(ids.get(i));
+            nodeIds[slot] = ids.get(i);
+            hours[slot] = hourForId.get(i).byteValue();
+        }
+        logger.info("Added " + ids.size() + " hour nodes");
+    }
+
+    private int find(long nodeId) {
+        int slot = (int) ((nodeId * 0x9E3779B97F4A7C15L) >>> shift);
+        while (nodeIds[slot] != EMPTY && nodeIds[slot] != nodeId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    public long getBuildTimeMillis() {
+        return buildTimeMillis;
+    }
+
     public Set<Long> getRelationshipsFor(int hour) {
 
         Map<String, Object> params = new HashMap<>();
@@ -69,12 +120,13 @@ public class HourNodeCache {
         return results;
     }
 
-    public int getHourFor(long relationshipId) {
-        for (int hour = 0; hour < HOURS; hour++) {
-            if (forEachHour.get(hour).contains(relationshipId)) {
-                return hour;
+    public int getHourFor(long nodeId) {
+        if (nodeId != EMPTY && nodeIds.length > 0) {
+            int slot = find(nodeId);
+            if (nodeIds[slot] == nodeId) {
+                return hours[slot];
             }
         }
-        throw new RuntimeException("Missing relationshipId " + relationshipId);
+        throw new RuntimeException("Missing hour node " + nodeId);
     }
 }
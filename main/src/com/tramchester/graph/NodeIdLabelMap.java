@@ -107,6 +107,11 @@ public class NodeIdLabelMap implements NodeTypeRepository {
 
     public boolean isBusStation(Node node) { return has(BUS_STATION, node.getId()); }
 
+    @Override
+    public Set<GraphBuilder.Labels> getLabels(Node node) {
+        return GraphBuilder.Labels.from(node.getLabels());
+    }
+
     private boolean has(final GraphBuilder.Labels label, final long nodeId) {
         if (label == GraphBuilder.Labels.QUERY_NODE) {
             return queryNodes.containsKey(nodeId);
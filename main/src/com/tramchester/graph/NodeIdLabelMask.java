@@ -0,0 +1,199 @@
+package com.tramchester.graph;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.tramchester.graph.graphbuild.GraphBuilder.Labels.*;
+import static java.lang.String.format;
+
+/***
+ * Primitive alternative to NodeIdLabelMap, holds a bit mask of labels per node id in a single short array so
+ * every type check is one array read with no boxing of the node id. Also supplies the full label set for a node
+ * without going to the store.
+ */
+@LazySingleton
+public class NodeIdLabelMask implements NodeTypeRepository {
+    private static final Logger logger = LoggerFactory.getLogger(NodeIdLabelMask.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final GraphBuilder.Labels[] LABELS = GraphBuilder.Labels.values();
+
+    // labels sets are shared between nodes with the same mask, few distinct combinations exist
+    @SuppressWarnings("unchecked")
+    private final Set<GraphBuilder.Labels>[] labelSets = (Set<GraphBuilder.Labels>[]) new Set[1 << LABELS.length];
+
+    private volatile short[] masks;
+
+    public NodeIdLabelMask() {
+        if (LABELS.length > Short.SIZE) {
+            throw new RuntimeException(format("Too many labels (%s) for a short mask", LABELS.length));
+        }
+        masks = new short[INITIAL_CAPACITY];
+    }
+
+    // called when DB loaded from disc, instead of rebuild
+    @Override
+    public void populateNodeLabelMap(GraphDatabase graphDatabase) {
+        logger.info("Rebuilding node->label masks");
+        int count = 0;
+        try (Transaction tx = graphDatabase.beginTx()) {
+            for (Node node : tx.getAllNodes()) {
+                put(node.getId(), GraphBuilder.Labels.from(node.getLabels()));
+                count++;
+            }
+        }
+        logger.info(format("Loaded labels for %s nodes using %s KB, boxed sets would need approx. %s KB", count,
+                getFootprintBytes() / 1024, getBoxedEstimateBytes() / 1024));
+        logger.info("Finished populating masks");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        masks = new short[0];
+        Arrays.fill(labelSets, null);
+    }
+
+    private static int bitFor(GraphBuilder.Labels label) {
+        return 1 << label.ordinal();
+    }
+
+    @Override
+    public void put(long id, GraphBuilder.Labels label) {
+        set(id, bitFor(label));
+    }
+
+    @Override
+    public void put(long id, Set<GraphBuilder.Labels> labels) {
+        int mask = 0;
+        for (GraphBuilder.Labels label : labels) {
+            mask = mask | bitFor(label);
+        }
+        set(id, mask);
+    }
+
+    private synchronized void set(long id, int mask) {
+        int index = Math.toIntExact(id);
+        if (index >= masks.length) {
+            masks = Arrays.copyOf(masks, Math.max(index + 1, masks.length * 2));
+        }
+        masks[index] = (short) (masks[index] | mask);
+    }
+
+    private synchronized void clear(long id) {
+        if (id < masks.length) {
+            masks[(int) id] = 0;
+        }
+    }
+
+    private int maskFor(Node node) {
+        final short[] current = masks;
+        final long id = node.getId();
+        // virtual query nodes have negative ids
+        return id >= 0 && id < current.length ? current[(int) id] & 0xFFFF : 0;
+    }
+
+    private boolean has(GraphBuilder.Labels label, Node node) {
+        return (maskFor(node) & bitFor(label)) != 0;
+    }
+
+    @Override
+    public Set<GraphBuilder.Labels> getLabels(Node node) {
+        int mask = maskFor(node);
+        if (mask == 0) {
+            // not seen, i.e. created outside of the graph builders
+            return GraphBuilder.Labels.from(node.getLabels());
+        }
+        Set<GraphBuilder.Labels> labels = labelSets[mask];
+        if (labels == null) {
+            labels = createLabelSet(mask);
+            labelSets[mask] = labels;
+        }
+        return labels;
+    }
+
+    private static Set<GraphBuilder.Labels> createLabelSet(int mask) {
+        EnumSet<GraphBuilder.Labels> result = EnumSet.noneOf(GraphBuilder.Labels.class);
+        for (GraphBuilder.Labels label : LABELS) {
+            if ((mask & bitFor(label)) != 0) {
+                result.add(label);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public boolean isTime(Node node) {
+        return has(MINUTE, node);
+    }
+
+    @Override
+    public boolean isHour(Node node) {
+        return has(HOUR, node);
+    }
+
+    @Override
+    public boolean isBusStation(Node node) {
+        return has(BUS_STATION, node);
+    }
+
+    @Override
+    public boolean isRouteStation(Node node) {
+        return has(ROUTE_STATION, node);
+    }
+
+    @Override
+    public boolean isService(Node node) {
+        return has(SERVICE, node);
+    }
+
+    @Override
+    public boolean isTrainStation(Node node) {
+        return has(TRAIN_STATION, node);
+    }
+
+    // for creating query nodes, to support MyLocation journeys
+    @Override
+    public Node createQueryNode(GraphDatabase graphDatabase, Transaction txn) {
+        Node result = graphDatabase.createNode(txn, QUERY_NODE);
+        put(result.getId(), QUERY_NODE);
+        return result;
+    }
+
+    // for deleting query nodes, to support MyLocation journeys
+    @Override
+    public void deleteQueryNode(Node node) {
+        long id = node.getId();
+        node.delete();
+        // neo4j reuses ids of deleted nodes
+        clear(id);
+    }
+
+    public long getFootprintBytes() {
+        return (long) masks.length * Short.BYTES;
+    }
+
+    /***
+     * Approx. heap for the same entries held as boxed Longs in HashSets, as NodeIdLabelMap does
+     * @return size in bytes
+     */
+    public long getBoxedEstimateBytes() {
+        // per entry: hash map node 32, Long 16, table slot 4
+        final short[] current = masks;
+        long entries = 0;
+        for (short mask : current) {
+            entries = entries + Integer.bitCount(mask & 0xFFFF);
+        }
+        return entries * (32 + 16 + 4);
+    }
+}
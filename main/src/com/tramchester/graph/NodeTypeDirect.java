@@ -38,6 +38,11 @@ public class NodeTypeDirect implements NodeTypeRepository {
         return node.hasLabel(GraphBuilder.Labels.TRAIN_STATION);
     }
 
+    @Override
+    public Set<GraphBuilder.Labels> getLabels(Node node) {
+        return GraphBuilder.Labels.from(node.getLabels());
+    }
+
     // for creating query nodes, to support MyLocation journeys
     public Node createQueryNode(GraphDatabase graphDatabase, Transaction txn) {
         return graphDatabase.createNode(txn, GraphBuilder.Labels.QUERY_NODE);
@@ -14,6 +14,8 @@ public interface NodeTypeRepository {
     boolean isService(Node node);
     boolean isTrainStation(Node node);
 
+    Set<GraphBuilder.Labels> getLabels(Node node);
+
     Node createQueryNode(GraphDatabase graphDatabase, Transaction txn);
     void deleteQueryNode(Node queryNode);
 
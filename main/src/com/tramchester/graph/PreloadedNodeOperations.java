@@ -0,0 +1,272 @@
+package com.tramchester.graph;
+
+import com.codahale.metrics.MetricRegistry;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.GraphProperty;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.repository.CompactTimetable;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static com.tramchester.graph.GraphPropertyKey.*;
+import static java.lang.String.format;
+
+/***
+ * Alternative to CachedNodeOperations, the node and relationship properties needed during traversal are loaded
+ * once the graph is ready into arrays indexed by neo4j id, so each lookup is a single read with no eviction.
+ * Large arrays are held off heap. Anything not loaded, such as walks added for a query, is read from the graph.
+ * Selected via config preloadNodeContents.
+ */
+@LazySingleton
+public class PreloadedNodeOperations implements NodeContentsRepository {
+    private static final Logger logger = LoggerFactory.getLogger(PreloadedNodeOperations.class);
+
+    private static final int NOT_LOADED = -1;
+    private static final int OFF_HEAP_THRESHOLD = 1_000_000;
+
+    private final GraphDatabase graphDatabase;
+    private final CacheMetrics.RegistersCacheMetrics registersMetrics;
+
+    private IntBuffer costs;
+    private IntBuffer times;
+    private ByteBuffer hours;
+    private IdFor<Service>[] serviceIds;
+    private IdFor<Trip>[] tripIds;
+    private IdSet<Trip>[] trips;
+
+    private long memoryBytes;
+    private long loadTimeMillis;
+
+    @Inject
+    public PreloadedNodeOperations(GraphDatabase graphDatabase, StagedTransportGraphBuilder.Ready ready,
+                                   CacheMetrics.RegistersCacheMetrics registersMetrics) {
+        this.graphDatabase = graphDatabase;
+        this.registersMetrics = registersMetrics;
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        Instant begin = Instant.now();
+        try (Transaction txn = graphDatabase.beginTx()) {
+            loadNodes(txn);
+            loadRelationships(txn);
+        }
+        loadTimeMillis = Duration.between(begin, Instant.now()).toMillis();
+        memoryBytes = calculateMemory();
+
+        registersMetrics.register(MetricRegistry.name(PreloadedNodeOperations.class, "memoryBytes"), () -> memoryBytes);
+        registersMetrics.register(MetricRegistry.name(PreloadedNodeOperations.class, "loadTimeMillis"), () -> loadTimeMillis);
+
+        logger.info(format("Loaded %s nodes and %s relationships in %s ms using %s KB", hours.capacity(),
+                costs.capacity(), loadTimeMillis, memoryBytes / 1024));
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        costs = IntBuffer.allocate(0);
+        times = IntBuffer.allocate(0);
+        hours = ByteBuffer.allocate(0);
+        serviceIds = createIds(0);
+        tripIds = createIds(0);
+        trips = createTripSets(0);
+        logger.info("disposed");
+    }
+
+    private void loadNodes(Transaction txn) {
+        long highest = -1;
+        for (Node node : txn.getAllNodes()) {
+            highest = Math.max(highest, node.getId());
+        }
+        int size = (int) (highest + 1);
+
+        times = createInts(size);
+        hours = createBytes(size);
+        serviceIds = createIds(size);
+
+        for (Node node : txn.getAllNodes()) {
+            int id = (int) node.getId();
+            if (node.hasLabel(GraphBuilder.Labels.HOUR)) {
+                hours.put(id, GraphProps.getHour(node).byteValue());
+            }
+            if (node.hasLabel(GraphBuilder.Labels.MINUTE)) {
+                times.put(id, CompactTimetable.asMinutes(GraphProps.getTime(node)));
+            }
+            if (GraphProps.hasProperty(SERVICE_ID, node)) {
+                serviceIds[id] = GraphProps.getServiceIdFrom(node);
+            }
+        }
+    }
+
+    private void loadRelationships(Transaction txn) {
+        long highest = -1;
+        for (Relationship relationship : txn.getAllRelationships()) {
+            highest = Math.max(highest, relationship.getId());
+        }
+        int size = (int) (highest + 1);
+
+        costs = createInts(size);
+        tripIds = createIds(size);
+        trips = createTripSets(size);
+
+        for (Relationship relationship : txn.getAllRelationships()) {
+            int id = (int) relationship.getId();
+            if (GraphProps.hasProperty(COST, relationship)) {
+                costs.put(id, GraphProps.getCost(relationship));
+            }
+            if (GraphProps.hasProperty(TRIP_ID, relationship)) {
+                tripIds[id] = GraphProps.getTripId(relationship);
+            }
+            if (GraphProps.hasProperty(TRIPS, relationship)) {
+                trips[id] = GraphProps.getTrips(relationship);
+            }
+        }
+    }
+
+    private static IntBuffer createInts(int size) {
+        IntBuffer buffer = size > OFF_HEAP_THRESHOLD ?
+                ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer() :
+                IntBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(i, NOT_LOADED);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer createBytes(int size) {
+        ByteBuffer buffer = size > OFF_HEAP_THRESHOLD ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(i, (byte) NOT_LOADED);
+        }
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends GraphProperty> IdFor<T>[] createIds(int size) {
+        return (IdFor<T>[]) new IdFor[size];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IdSet<Trip>[] createTripSets(int size) {
+        return (IdSet<Trip>[]) new IdSet[size];
+    }
+
+    private long calculateMemory() {
+        // compressed oops, ids are interned so only the references count
+        long references = (long) serviceIds.length + tripIds.length + trips.length;
+        long tripSets = Arrays.stream(trips).filter(Objects::nonNull).mapToLong(IdSet::estimateBytes).sum();
+        return ((long) costs.capacity() * Integer.BYTES) + ((long) times.capacity() * Integer.BYTES) +
+                hours.capacity() + (references * 4) + tripSets;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    // virtual nodes and relationships added for a query have negative ids, so were not loaded
+    private static boolean inRange(long id, int size) {
+        return id >= 0 && id < size;
+    }
+
+    @Override
+    public IdFor<Service> getServiceId(Node node) {
+        long id = node.getId();
+        if (inRange(id, serviceIds.length) && serviceIds[(int) id] != null) {
+            return serviceIds[(int) id];
+        }
+        return GraphProps.getServiceIdFrom(node);
+    }
+
+    @Override
+    public TramTime getTime(Node node) {
+        long id = node.getId();
+        if (inRange(id, times.capacity())) {
+            int minutes = times.get((int) id);
+            if (minutes != NOT_LOADED) {
+                return CompactTimetable.asTramTime(minutes);
+            }
+        }
+        return GraphProps.getTime(node);
+    }
+
+    @Override
+    public int getHour(Node node) {
+        long id = node.getId();
+        if (inRange(id, hours.capacity())) {
+            byte hour = hours.get((int) id);
+            if (hour != NOT_LOADED) {
+                return hour;
+            }
+        }
+        return GraphProps.getHour(node);
+    }
+
+    @Override
+    public IdFor<Trip> getTrip(Relationship relationship) {
+        long id = relationship.getId();
+        if (inRange(id, tripIds.length) && tripIds[(int) id] != null) {
+            return tripIds[(int) id];
+        }
+        return GraphProps.getTripId(relationship);
+    }
+
+    @Override
+    public IdSet<Trip> getTrips(Relationship relationship) {
+        long id = relationship.getId();
+        if (inRange(id, trips.length) && trips[(int) id] != null) {
+            return trips[(int) id];
+        }
+        return GraphProps.getTrips(relationship);
+    }
+
+    @Override
+    public int getCost(Relationship relationship) {
+        long id = relationship.getId();
+        if (inRange(id, costs.capacity())) {
+            int cost = costs.get((int) id);
+            if (cost != NOT_LOADED) {
+                return cost;
+            }
+        }
+        return GraphProps.getCost(relationship);
+    }
+
+    @Override
+    public void deleteFromCostCache(Relationship relationship) {
+        // neo4j reuses ids of deleted relationships
+        long id = relationship.getId();
+        if (inRange(id, costs.capacity())) {
+            costs.put((int) id, NOT_LOADED);
+            tripIds[(int) id] = null;
+            trips[(int) id] = null;
+        }
+    }
+}
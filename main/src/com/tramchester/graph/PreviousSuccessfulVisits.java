@@ -3,55 +3,140 @@ package com.tramchester.graph;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.search.ServiceReason;
 import org.neo4j.graphdb.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.lang.String.format;
+
+/***
+ * Shared between the query time sub-searches for a request that have the same changes limit. A visit to a time or
+ * hour node is pruned if an earlier visit dominates it, i.e. that visit had no more changes and could catch everything
+ * the new visit could, so anything found from here would arrive no earlier. The departure of the visits is not
+ * compared, as the baseline did not within a single query time, so a later query time reaching a node the earlier
+ * ones already covered is pruned rather than finding the same arrival again. Not shared with a higher limit, a visit
+ * pruned by a lower limit search may go on to find journeys with more changes than that search allowed.
+ */
 public class PreviousSuccessfulVisits {
-    private final ConcurrentMap<Long, TramTime> hourVisits;
-    private final Set<Long> timeVisits;
+    private static final Logger logger = LoggerFactory.getLogger(PreviousSuccessfulVisits.class);
+
+    private final NodeContentsRepository nodeOperations;
+    private final int maxWait;
+
+    private final ConcurrentMap<Long, Visit> hourVisits;
+    private final ConcurrentMap<Long, Visit> timeVisits;
+    private final ConcurrentMap<Long, TramTime> tooEarlyVisits;
+
+    private final AtomicInteger prunedHour;
+    private final AtomicInteger prunedTime;
+    private final AtomicInteger prunedTooEarly;
 
-    public PreviousSuccessfulVisits() {
+    public PreviousSuccessfulVisits(NodeContentsRepository nodeOperations, int maxWait) {
+        this.nodeOperations = nodeOperations;
+        this.maxWait = maxWait;
         hourVisits = new ConcurrentHashMap<>();
-        timeVisits = ConcurrentHashMap.newKeySet();
+        timeVisits = new ConcurrentHashMap<>();
+        tooEarlyVisits = new ConcurrentHashMap<>();
+        prunedHour = new AtomicInteger(0);
+        prunedTime = new AtomicInteger(0);
+        prunedTooEarly = new AtomicInteger(0);
     }
 
     public void clear() {
         timeVisits.clear();
         hourVisits.clear();
+        tooEarlyVisits.clear();
     }
 
-    public boolean hasUsableResult(Node node, TramTime journeyClock) {
+    public boolean hasUsableResult(Node node, TramTime journeyClock, int numChanges) {
         // NOTE: We only cache previous for certain node types: Time and Hour
         // as we can *only* safely exclude previous nodes if there is only one outbound path and hence no variation
         // in results
 
         long nodeId = node.getId();
 
-        if (timeVisits.contains(nodeId)) {
-            // Time nodes encode a specific time, so the previous time *must* match for this node id
+        // Time nodes encode a specific time, so once boarded the clock is the same whenever it was reached
+        Visit previousTime = timeVisits.get(nodeId);
+        if (previousTime!=null && previousTime.dominates(numChanges)) {
+            prunedTime.incrementAndGet();
             return true;
         }
 
-        TramTime previousTime = hourVisits.getOrDefault(nodeId, null);
+        // too early depends only on the clock
+        TramTime tooEarly = tooEarlyVisits.get(nodeId);
+        if (tooEarly!=null && journeyClock.compareTo(tooEarly) <= 0) {
+            prunedTooEarly.incrementAndGet();
+            return true;
+        }
 
-        if (previousTime==null) {
-            return false;
+        Visit previousHour = hourVisits.get(nodeId);
+        if (previousHour!=null && previousHour.dominates(numChanges) &&
+                canReachSameMinutes(previousHour.journeyClock, journeyClock, node)) {
+            prunedHour.incrementAndGet();
+            return true;
         }
 
-        return previousTime.equals(journeyClock); // been here before at exact same time, so no need to continue
+        return false;
     }
 
-    public void recordVisitIfUseful(ServiceReason.ReasonCode result, Node endNode, TramTime journeyClock) {
+    // minutes of the hour reachable are those within maxWait of the clock, so an earlier clock only covers a
+    // later one if it can already reach the end of the hour
+    private boolean canReachSameMinutes(TramTime previousClock, TramTime journeyClock, Node hourNode) {
+        int comparison = previousClock.compareTo(journeyClock);
+        if (comparison == 0) {
+            return true;
+        }
+        if (comparison > 0) {
+            return false;
+        }
+        return previousClock.getHourOfDay() == nodeOperations.getHour(hourNode) &&
+                previousClock.getMinuteOfHour() + maxWait >= 59;
+    }
+
+    public void recordVisitIfUseful(ServiceReason.ReasonCode result, Node endNode, TramTime journeyClock, int numChanges) {
         switch (result) {
-            case NotAtQueryTime:
             case TimeOk:
-                timeVisits.add(endNode.getId());
+                timeVisits.merge(endNode.getId(), new Visit(journeyClock, numChanges), Visit::best);
+                break;
+            case NotAtQueryTime:
+                tooEarlyVisits.merge(endNode.getId(), journeyClock, (a, b) -> a.compareTo(b) >= 0 ? a : b);
                 break;
             case HourOk:
-                hourVisits.putIfAbsent(endNode.getId(), journeyClock);
+                hourVisits.merge(endNode.getId(), new Visit(journeyClock, numChanges), Visit::best);
                 break;
         }
     }
+
+    public void reportStats() {
+        logger.info(format("Pruned by previous visits: time %s hour %s too early %s, nodes seen: time %s hour %s",
+                prunedTime.get(), prunedHour.get(), prunedTooEarly.get(), timeVisits.size(), hourVisits.size()));
+    }
+
+    public int getPrunedCount() {
+        return prunedTime.get() + prunedHour.get() + prunedTooEarly.get();
+    }
+
+    private static class Visit {
+        private final TramTime journeyClock;
+        private final int numChanges;
+
+        private Visit(TramTime journeyClock, int numChanges) {
+            this.journeyClock = journeyClock;
+            this.numChanges = numChanges;
+        }
+
+        // no more changes, for hour nodes the clock is checked separately
+        private boolean dominates(int otherNumChanges) {
+            return numChanges <= otherNumChanges;
+        }
+
+        // only one visit kept per node, replace if the new visit is at least as good
+        private static Visit best(Visit current, Visit candidate) {
+            boolean noLater = candidate.journeyClock.compareTo(current.journeyClock) <= 0;
+            return noLater && candidate.dominates(current.numChanges) ? candidate : current;
+        }
+    }
 }
@@ -1,14 +1,19 @@
 package com.tramchester.graph;
 
 import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.places.Station;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.repository.StationCostMatrix;
 import org.neo4j.graphalgo.EvaluationContext;
 import org.neo4j.graphalgo.GraphAlgoFactory;
 import org.neo4j.graphalgo.PathFinder;
 import org.neo4j.graphalgo.WeightedPath;
 import org.neo4j.graphdb.*;
+import org.neo4j.graphdb.traversal.BranchState;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import static com.tramchester.graph.GraphPropertyKey.COST;
 import static com.tramchester.graph.TransportRelationshipTypes.*;
@@ -17,25 +22,37 @@ import static com.tramchester.graph.TransportRelationshipTypes.*;
 public class RouteCostCalculator {
     private final GraphQuery graphQuery;
     private final GraphDatabase graphDatabaseService;
+    private final TramchesterConfig config;
+    private final Provider<StationCostMatrix> costMatrix;
 
     @Inject
-    public RouteCostCalculator(GraphQuery graphQuery, GraphDatabase graphDatabaseService) {
+    public RouteCostCalculator(GraphQuery graphQuery, GraphDatabase graphDatabaseService, TramchesterConfig config,
+                               Provider<StationCostMatrix> costMatrix) {
         this.graphQuery = graphQuery;
         this.graphDatabaseService = graphDatabaseService;
+        this.config = config;
+        // provider so the matrix is only built if in use
+        this.costMatrix = costMatrix;
     }
 
-    public int getApproxCostBetween(Transaction txn, Station station, Node endNode) {
+    public int getApproxCostBetween(Transaction txn, WalkingOverlay walks, Station station, Node endNode) {
         Node startNode = graphQuery.getStationNode(txn, station);
-        return getApproxCostBetween(txn, startNode, endNode);
+        return getApproxCostBetween(txn, walks, startNode, endNode);
     }
 
     // startNode must have been found within supplied txn
-    public int getApproxCostBetween(Transaction txn, Node startNode, Station endStation) {
+    public int getApproxCostBetween(Transaction txn, WalkingOverlay walks, Node startNode, Station endStation) {
         Node endNode = graphQuery.getStationNode(txn, endStation);
-        return getApproxCostBetween(txn, startNode, endNode);
+        return getApproxCostBetween(txn, walks, startNode, endNode);
     }
 
     public int getApproxCostBetween(Transaction txn, Station startStation, Station endStation) {
+        if (config.getPrecomputeStationCosts()) {
+            int cost = costMatrix.get().getMinCost(startStation, endStation);
+            if (cost != StationCostMatrix.UNKNOWN) {
+                return cost;
+            }
+        }
         Node startNode = graphQuery.getStationNode(txn, startStation);
         Node endNode = graphQuery.getStationNode(txn, endStation);
         return getApproxCostBetween(txn, startNode, endNode);
@@ -43,8 +60,13 @@ public class RouteCostCalculator {
 
     // startNode and endNode must have been found within supplied txn
     public int getApproxCostBetween(Transaction txn, Node startNode, Node endNode) {
+        return getApproxCostBetween(txn, WalkingOverlay.empty(), startNode, endNode);
+    }
+
+    // startNode and endNode must have been found within supplied txn or be part of walks
+    public int getApproxCostBetween(Transaction txn, WalkingOverlay walks, Node startNode, Node endNode) {
         // follow the ON_ROUTE relationships to quickly find a route without any timing information or check
-        PathExpander<Double> forTypesAndDirections = fullExpanderForRoutes();
+        PathExpander<Double> forTypesAndDirections = withWalks(walks, fullExpanderForRoutes(), false);
 
         EvaluationContext context = graphDatabaseService.createContext(txn);
         PathFinder<WeightedPath> finder = GraphAlgoFactory.dijkstra(context, forTypesAndDirections, COST.getText());
@@ -53,6 +75,23 @@ public class RouteCostCalculator {
         return (int) weight;
     }
 
+    // dijkstra searches from both ends, so the reverse expander needs the incoming walks
+    private PathExpander<Double> withWalks(WalkingOverlay walks, PathExpander<Double> expander, boolean reversed) {
+        return new PathExpander<>() {
+            @Override
+            public Iterable<Relationship> expand(Path path, BranchState<Double> state) {
+                Iterable<Relationship> relationships = expander.expand(path, state);
+                return reversed ? walks.withOverlayIncoming(path.endNode(), relationships) :
+                        walks.withOverlay(path.endNode(), relationships);
+            }
+
+            @Override
+            public PathExpander<Double> reverse() {
+                return withWalks(walks, expander.reverse(), !reversed);
+            }
+        };
+    }
+
     private PathExpander<Double> fullExpanderForRoutes() {
         return PathExpanders.forTypesAndDirections(
                 ON_ROUTE, Direction.OUTGOING,
@@ -0,0 +1,74 @@
+package com.tramchester.graph.overlay;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.NotFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * In memory properties for nodes and relationships that are never written to the graph
+ */
+abstract class VirtualEntity implements Entity {
+    private final long id;
+    private final Map<String, Object> properties;
+
+    protected VirtualEntity(long id) {
+        this.id = id;
+        properties = new HashMap<>();
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        if (!properties.containsKey(key)) {
+            throw new NotFoundException("No property " + key + " for " + this);
+        }
+        return properties.get(key);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        properties.put(key, value);
+    }
+
+    @Override
+    public Object removeProperty(String key) {
+        return properties.remove(key);
+    }
+
+    @Override
+    public Iterable<String> getPropertyKeys() {
+        return properties.keySet();
+    }
+
+    @Override
+    public Map<String, Object> getProperties(String... keys) {
+        Map<String, Object> results = new HashMap<>();
+        for (String key : keys) {
+            if (properties.containsKey(key)) {
+                results.put(key, properties.get(key));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Object> getAllProperties() {
+        return new HashMap<>(properties);
+    }
+}
@@ -0,0 +1,144 @@
+package com.tramchester.graph.overlay;
+
+import org.neo4j.graphdb.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+public class VirtualNode extends VirtualEntity implements Node {
+    private final Set<Label> labels;
+    private final List<Relationship> relationships;
+
+    VirtualNode(long id, Label label) {
+        super(id);
+        labels = Collections.singleton(label);
+        relationships = new ArrayList<>();
+    }
+
+    void add(Relationship relationship) {
+        relationships.add(relationship);
+    }
+
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Virtual nodes are not in the graph " + this);
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships() {
+        return Collections.unmodifiableList(relationships);
+    }
+
+    @Override
+    public boolean hasRelationship() {
+        return !relationships.isEmpty();
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(RelationshipType... types) {
+        return getRelationships(Direction.BOTH, types);
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
+        return relationships.stream().
+                filter(relationship -> matches(relationship, direction, types)).
+                collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean hasRelationship(RelationshipType... types) {
+        return hasRelationship(Direction.BOTH, types);
+    }
+
+    @Override
+    public boolean hasRelationship(Direction direction, RelationshipType... types) {
+        return relationships.stream().anyMatch(relationship -> matches(relationship, direction, types));
+    }
+
+    @Override
+    public Relationship getSingleRelationship(RelationshipType type, Direction direction) {
+        List<Relationship> matched = relationships.stream().
+                filter(relationship -> matches(relationship, direction, type)).
+                collect(Collectors.toList());
+        if (matched.size() > 1) {
+            throw new NotFoundException(format("More than one %s relationship %s for %s", type, direction, this));
+        }
+        return matched.isEmpty() ? null : matched.get(0);
+    }
+
+    @Override
+    public Relationship createRelationshipTo(Node otherNode, RelationshipType type) {
+        throw new UnsupportedOperationException("Create virtual relationships via the WalkingOverlay");
+    }
+
+    @Override
+    public Iterable<RelationshipType> getRelationshipTypes() {
+        return relationships.stream().map(Relationship::getType).distinct().collect(Collectors.toList());
+    }
+
+    @Override
+    public int getDegree() {
+        return relationships.size();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type) {
+        return getDegree(type, Direction.BOTH);
+    }
+
+    @Override
+    public int getDegree(Direction direction) {
+        return (int) relationships.stream().filter(relationship -> matches(relationship, direction)).count();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type, Direction direction) {
+        return (int) relationships.stream().filter(relationship -> matches(relationship, direction, type)).count();
+    }
+
+    @Override
+    public void addLabel(Label label) {
+        throw new UnsupportedOperationException("Labels of virtual nodes are fixed " + this);
+    }
+
+    @Override
+    public void removeLabel(Label label) {
+        throw new UnsupportedOperationException("Labels of virtual nodes are fixed " + this);
+    }
+
+    @Override
+    public boolean hasLabel(Label label) {
+        return labels.stream().anyMatch(existing -> existing.name().equals(label.name()));
+    }
+
+    @Override
+    public Iterable<Label> getLabels() {
+        return labels;
+    }
+
+    private boolean matches(Relationship relationship, Direction direction, RelationshipType... types) {
+        boolean directionMatches = switch (direction) {
+            case OUTGOING -> relationship.getStartNode() == this;
+            case INCOMING -> relationship.getEndNode() == this;
+            case BOTH -> true;
+        };
+        if (!directionMatches) {
+            return false;
+        }
+        if (types.length == 0) {
+            return true;
+        }
+        return Arrays.stream(types).anyMatch(relationship::isType);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualNode{" +
+                "id=" + getId() +
+                ", labels=" + labels +
+                '}';
+    }
+}
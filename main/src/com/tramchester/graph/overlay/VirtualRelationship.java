@@ -0,0 +1,69 @@
+package com.tramchester.graph.overlay;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+public class VirtualRelationship extends VirtualEntity implements Relationship {
+    private final Node startNode;
+    private final Node endNode;
+    private final RelationshipType type;
+
+    VirtualRelationship(long id, Node startNode, Node endNode, RelationshipType type) {
+        super(id);
+        this.startNode = startNode;
+        this.endNode = endNode;
+        this.type = type;
+    }
+
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Virtual relationships are not in the graph " + this);
+    }
+
+    @Override
+    public Node getStartNode() {
+        return startNode;
+    }
+
+    @Override
+    public Node getEndNode() {
+        return endNode;
+    }
+
+    @Override
+    public Node getOtherNode(Node node) {
+        if (startNode.equals(node)) {
+            return endNode;
+        }
+        if (endNode.equals(node)) {
+            return startNode;
+        }
+        throw new IllegalArgumentException(node + " is not part of " + this);
+    }
+
+    @Override
+    public Node[] getNodes() {
+        return new Node[]{startNode, endNode};
+    }
+
+    @Override
+    public RelationshipType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isType(RelationshipType type) {
+        return this.type.name().equals(type.name());
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualRelationship{" +
+                "id=" + getId() +
+                ", type=" + type +
+                ", startNode=" + startNode.getId() +
+                ", endNode=" + endNode.getId() +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+package com.tramchester.graph.overlay;
+
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.graphbuild.GraphProps;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/***
+ * Walking nodes and relationships for a location based query, held in memory for the query instead of being
+ * written to the graph so the query stays read only. Relationships out of nodes in the graph are supplied to the
+ * traversal via withOverlay. Ids are negative so cannot clash with those of the graph.
+ */
+public class WalkingOverlay {
+    private static final Logger logger = LoggerFactory.getLogger(WalkingOverlay.class);
+
+    // -1 is used by HowIGotHere.None
+    private static final AtomicLong nextId = new AtomicLong(-2);
+
+    private final Map<Long, List<Relationship>> fromGraphNodes;
+    private final Map<Long, List<Relationship>> toGraphNodes;
+
+    public WalkingOverlay() {
+        fromGraphNodes = new HashMap<>();
+        toGraphNodes = new HashMap<>();
+    }
+
+    public static WalkingOverlay empty() {
+        return new WalkingOverlay();
+    }
+
+    public static boolean isVirtual(Entity entity) {
+        return isVirtual(entity.getId());
+    }
+
+    public static boolean isVirtual(long id) {
+        return id < -1;
+    }
+
+    public Node createWalkingNode(LatLong latLong, UUID uid) {
+        VirtualNode node = new VirtualNode(nextId.getAndDecrement(), GraphBuilder.Labels.QUERY_NODE);
+        GraphProps.setLatLong(node, latLong);
+        GraphProps.setWalkId(node, latLong, uid);
+        logger.info(format("Added walking node at %s as %s", latLong, node));
+        return node;
+    }
+
+    public Relationship addWalkTo(Node walkNode, Node stationNode, StationWalk stationWalk) {
+        return addWalk(walkNode, stationNode, stationWalk, TransportRelationshipTypes.WALKS_TO);
+    }
+
+    public Relationship addWalkFrom(Node stationNode, Node walkNode, StationWalk stationWalk) {
+        return addWalk(stationNode, walkNode, stationWalk, TransportRelationshipTypes.WALKS_FROM);
+    }
+
+    public Relationship addFinishWalk(Node from, Node to) {
+        Relationship relationship = add(from, to, TransportRelationshipTypes.FINISH_WALK);
+        GraphProps.setCostProp(relationship, 0);
+        return relationship;
+    }
+
+    /***
+     * @return outgoing relationships from the graph plus any outgoing from the overlay for node
+     */
+    public Iterable<Relationship> withOverlay(Node node, Iterable<Relationship> relationships) {
+        return combine(fromGraphNodes.get(node.getId()), relationships);
+    }
+
+    /***
+     * @return incoming relationships from the graph plus any incoming from the overlay for node
+     */
+    public Iterable<Relationship> withOverlayIncoming(Node node, Iterable<Relationship> relationships) {
+        return combine(toGraphNodes.get(node.getId()), relationships);
+    }
+
+    private Iterable<Relationship> combine(List<Relationship> added, Iterable<Relationship> relationships) {
+        if (added == null) {
+            return relationships;
+        }
+        List<Relationship> results = new ArrayList<>(added);
+        relationships.forEach(results::add);
+        return results;
+    }
+
+    private Relationship addWalk(Node from, Node to, StationWalk stationWalk, TransportRelationshipTypes type) {
+        Station walkStation = stationWalk.getStation();
+        int cost = stationWalk.getCost();
+        logger.info(format("Add %s relationship between %s (%s) and %s cost %s",
+                type, walkStation.getId(), walkStation.getName(), type == TransportRelationshipTypes.WALKS_TO ? from : to,
+                cost));
+
+        Relationship relationship = add(from, to, type);
+        GraphProps.setCostProp(relationship, cost);
+        GraphProps.setProperty(relationship, walkStation);
+        return relationship;
+    }
+
+    private Relationship add(Node from, Node to, TransportRelationshipTypes type) {
+        VirtualRelationship relationship = new VirtualRelationship(nextId.getAndDecrement(), from, to, type);
+        if (from instanceof VirtualNode) {
+            ((VirtualNode) from).add(relationship);
+        } else {
+            fromGraphNodes.computeIfAbsent(from.getId(), id -> new ArrayList<>()).add(relationship);
+        }
+        if (to instanceof VirtualNode) {
+            ((VirtualNode) to).add(relationship);
+        } else {
+            toGraphNodes.computeIfAbsent(to.getId(), id -> new ArrayList<>()).add(relationship);
+        }
+        return relationship;
+    }
+}
@@ -0,0 +1,139 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphPropertyKey;
+import com.tramchester.graph.NodeContentsRepository;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.repository.StationRepository;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicy;
+import org.neo4j.graphdb.traversal.BranchSelector;
+import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.graphdb.traversal.TraversalContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/***
+ * Goal directed alternative to PREORDER_BREADTH_FIRST, the branch expanded next is the one with the lowest elapsed
+ * time so far, including waits, plus a lower bound on the cost remaining, so the quickest arrival tends to be found
+ * first and the lowest cost pruning in TramRouteEvaluator applies sooner.
+ */
+public class BestFirstOrdering implements BranchOrderingPolicy {
+
+    private final NodeContentsRepository nodeContents;
+    private final StationRepository stationRepository;
+    private final RemainingCostEstimator estimator;
+    private final Set<Station> destinations;
+    private final TramTime queryTime;
+
+    public BestFirstOrdering(NodeContentsRepository nodeContents, StationRepository stationRepository,
+                             RemainingCostEstimator estimator, Set<Station> destinations, TramTime queryTime) {
+        this.nodeContents = nodeContents;
+        this.stationRepository = stationRepository;
+        this.estimator = estimator;
+        this.destinations = destinations;
+        this.queryTime = queryTime;
+    }
+
+    @Override
+    public BranchSelector create(TraversalBranch startBranch, PathExpander expander) {
+        return new Selector(startBranch, expander);
+    }
+
+    private class Selector implements BranchSelector {
+        private final PathExpander<?> expander;
+        private final PriorityQueue<Entry> queue;
+        // node id to lower bound, only for nodes with a station
+        private final Map<Long, Integer> lowerBounds;
+        private Entry current;
+        private long sequence;
+
+        private Selector(TraversalBranch startBranch, PathExpander<?> expander) {
+            this.expander = expander;
+            queue = new PriorityQueue<>();
+            lowerBounds = new HashMap<>();
+            sequence = 0;
+            current = new Entry(startBranch, 0, lowerBoundFor(startBranch.endNode(), 0), sequence++);
+        }
+
+        @Override
+        public TraversalBranch next(TraversalContext metadata) {
+            while (current != null) {
+                TraversalBranch child = current.branch.next(expander, metadata);
+                if (child != null) {
+                    queue.add(createEntry(child, current));
+                    return child;
+                }
+                current = queue.poll();
+            }
+            return null;
+        }
+
+        private Entry createEntry(TraversalBranch child, Entry parent) {
+            Relationship last = child.lastRelationship();
+            int lastCost = last == null ? 0 : nodeContents.getCost(last);
+            int cost = elapsedAt(child, parent) + lastCost;
+            int lowerBound = lowerBoundFor(child.endNode(), parent.lowerBound);
+            return new Entry(child, cost, lowerBound, sequence++);
+        }
+
+        // a new branch has the state of its parent, so the journey clock as of the parent's end node, relationship
+        // costs alone would leave out the waits for boarding
+        private int elapsedAt(TraversalBranch child, Entry parent) {
+            Object state = child.state();
+            if (state instanceof ImmutableJourneyState) {
+                TramTime journeyClock = ((ImmutableJourneyState) state).getJourneyClock();
+                return TramTime.diffenceAsMinutes(queryTime, journeyClock);
+            }
+            return parent.cost;
+        }
+
+        private int lowerBoundFor(Node node, int parentLowerBound) {
+            long nodeId = node.getId();
+            Integer existing = lowerBounds.get(nodeId);
+            if (existing != null) {
+                return existing;
+            }
+            if (!GraphProps.hasProperty(GraphPropertyKey.STATION_ID, node)) {
+                // minute, hour, service etc. are all on the way from the last station seen
+                return parentLowerBound;
+            }
+            IdFor<Station> stationId = GraphProps.getStationIdFrom(node);
+            int lowerBound = stationRepository.hasStationId(stationId) ?
+                    estimator.lowerBound(stationRepository.getStationById(stationId), destinations) : 0;
+            lowerBounds.put(nodeId, lowerBound);
+            return lowerBound;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final TraversalBranch branch;
+        private final int cost;
+        private final int lowerBound;
+        private final long sequence;
+
+        private Entry(TraversalBranch branch, int cost, int lowerBound, long sequence) {
+            this.branch = branch;
+            this.cost = cost;
+            this.lowerBound = lowerBound;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int comparison = Integer.compare(cost + lowerBound, other.cost + other.lowerBound);
+            if (comparison != 0) {
+                return comparison;
+            }
+            // ties in the order found, as breadth first would
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.tramchester.graph.search;
+
+import com.codahale.metrics.MetricRegistry;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.metrics.CacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * Budgets for journey requests from the configured limits, counts how often each limit is reached
+ */
+@LazySingleton
+public class CreateSearchBudget {
+    private static final Logger logger = LoggerFactory.getLogger(CreateSearchBudget.class);
+
+    private final TramchesterConfig config;
+    private final Map<SearchBudget.Reason, AtomicLong> exhausted;
+
+    @Inject
+    public CreateSearchBudget(TramchesterConfig config, CacheMetrics.RegistersCacheMetrics registersMetrics) {
+        this.config = config;
+        exhausted = new EnumMap<>(SearchBudget.Reason.class);
+        for (SearchBudget.Reason reason : SearchBudget.Reason.values()) {
+            AtomicLong count = new AtomicLong(0);
+            exhausted.put(reason, count);
+            registersMetrics.register(MetricRegistry.name(CreateSearchBudget.class, "exhausted", reason.name()),
+                    count::get);
+        }
+    }
+
+    public SearchBudget create() {
+        return new SearchBudget(config.getSearchBudgetMillis(), config.getSearchBudgetNodes(), this::exhausted);
+    }
+
+    private void exhausted(SearchBudget.Reason reason) {
+        logger.warn("Search budget exhausted, reason " + reason);
+        exhausted.get(reason).incrementAndGet();
+    }
+
+    public long getExhausted(SearchBudget.Reason reason) {
+        return exhausted.get(reason).get();
+    }
+}
@@ -10,13 +10,16 @@ import com.tramchester.geo.BoundingBoxWithStations;
 import com.tramchester.geo.GridPosition;
 import com.tramchester.geo.StationLocations;
 import com.tramchester.mappers.JourneyToDTOMapper;
+import com.tramchester.router.raptor.EarliestArrivalSearch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -31,12 +34,41 @@ public class FastestRoutesForBoxes {
     private final StationLocations stationLocations;
     private final RouteCalculator calculator;
     private final JourneyToDTOMapper dtoMapper;
+    private final Provider<EarliestArrivalSearch> earliestArrivalSearch;
 
     @Inject
-    public FastestRoutesForBoxes(StationLocations stationLocations, RouteCalculator calculator, JourneyToDTOMapper dtoMapper) {
+    public FastestRoutesForBoxes(StationLocations stationLocations, RouteCalculator calculator, JourneyToDTOMapper dtoMapper,
+                                 Provider<EarliestArrivalSearch> earliestArrivalSearch) {
         this.stationLocations = stationLocations;
         this.calculator = calculator;
         this.dtoMapper = dtoMapper;
+        // provider so the timetable is only built if searching from an origin
+        this.earliestArrivalSearch = earliestArrivalSearch;
+    }
+
+    /***
+     * Cost to each box from origin, a single one to all search instead of a search per box. Boxes get the quickest
+     * arrival at any of their stations, or -1 if none are reached.
+     */
+    public Stream<BoundingBoxWithCost> findForGridFrom(Station origin, long gridSize, JourneyRequest journeyRequest) {
+        logger.info("Creating station groups for gridsize " + gridSize);
+        List<BoundingBoxWithStations> grouped = stationLocations.getGroupedStations(gridSize).collect(Collectors.toList());
+
+        Map<Station, Integer> arrivals = earliestArrivalSearch.get().fromStation(origin, journeyRequest);
+
+        logger.info(format("Using %s groups and %s reached stations", grouped.size(), arrivals.size()));
+        return grouped.stream().map(box -> quickest(box, origin.getGridPosition(), arrivals));
+    }
+
+    private BoundingBoxWithCost quickest(BoundingBoxWithStations box, GridPosition origin, Map<Station, Integer> arrivals) {
+        if (box.contained(origin)) {
+            return new BoundingBoxWithCost(box, 0, null);
+        }
+        int lowest = box.getStaions().stream().
+                filter(arrivals::containsKey).
+                mapToInt(arrivals::get).
+                min().orElse(-1);
+        return new BoundingBoxWithCost(box, lowest, null);
     }
 
     public Stream<BoundingBoxWithCost> findForGrid(Station destination, long gridSize,
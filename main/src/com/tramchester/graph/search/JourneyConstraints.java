@@ -1,18 +1,18 @@
 package com.tramchester.graph.search;
 
 import com.tramchester.config.TramchesterConfig;
-import com.tramchester.domain.*;
+import com.tramchester.domain.Service;
 import com.tramchester.domain.id.IdFor;
 import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.repository.RunningServices;
-import com.tramchester.repository.TransportData;
+import com.tramchester.repository.RunningServicesRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDate;
+import java.util.BitSet;
 import java.util.Set;
 
 public class JourneyConstraints {
@@ -34,10 +34,10 @@ public class JourneyConstraints {
 //    private final boolean tramOnlyDestinations;
     private final int maxJourneyDuration;
 
-    public JourneyConstraints(TramchesterConfig config, TransportData transportData, JourneyRequest journeyRequest,
-                              Set<Station> endStations) {
+    public JourneyConstraints(TramchesterConfig config, RunningServicesRepository runningServicesRepository,
+                              JourneyRequest journeyRequest, Set<Station> endStations) {
         this.config = config;
-        this.runningServices = new RunningServices(journeyRequest.getDate(), transportData, config);
+        this.runningServices = runningServicesRepository.getRunningServices(journeyRequest.getDate());
         this.maxPathLength = computeMaxPathLength();
 
         this.endStations = endStations;
@@ -48,17 +48,7 @@ public class JourneyConstraints {
 //        tramOnlyDestinations = (this.endStations.size() == endStations.size());
         this.maxJourneyDuration = journeyRequest.getMaxJourneyDuration();
 
-        LocalDate date = journeyRequest.getDate().getDate();
-
-        this.closedStations = config.getStationClosures().stream().
-                filter(closure -> date.isAfter(closure.getBegin()) || date.isEqual(closure.getBegin()) ).
-                filter(closure -> date.isBefore(closure.getEnd()) || date.isEqual(closure.getEnd())).
-                map(StationClosure::getStation).
-                collect(IdSet.idCollector());
-
-        if (!closedStations.isEmpty()) {
-            logger.info("Have closed stationed " + closedStations);
-        }
+        this.closedStations = runningServicesRepository.getClosedStations(journeyRequest.getDate());
 
 //        if (tramOnlyDestinations) {
 //            logger.info("Checking only for tram destinations");
@@ -84,6 +74,13 @@ public class JourneyConstraints {
         return runningServices.isRunning(serviceId);
     }
 
+    /***
+     * @return indexes of the running services in the CompactTimetable, must not be modified
+     */
+    public BitSet getRunningServiceIndexes() {
+        return runningServices.getRunningIndexes();
+    }
+
     public TramTime getServiceEarliest(IdFor<Service> serviceId) {
         return runningServices.getServiceEarliest(serviceId);
     }
@@ -15,6 +15,7 @@ public class JourneyRequest {
     private boolean diagnostics;
     private final int maxJourneyDuration;
     private boolean warnIfNoResults;
+    private SearchBudget budget;
 
     public JourneyRequest(LocalDate date, TramTime time, boolean arriveBy, int maxChanges, int maxJourneyDuration) {
         this(new TramServiceDate(date), time, arriveBy, maxChanges, maxJourneyDuration);
@@ -30,6 +31,7 @@ public class JourneyRequest {
         
         diagnostics = false;
         warnIfNoResults = true;
+        budget = SearchBudget.unlimited();
     }
 
     @Override
@@ -106,6 +108,18 @@ public class JourneyRequest {
         warnIfNoResults = flag;
     }
 
+    /***
+     * @return shared by the searches for the request, requests derived from this one should use the same budget
+     */
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    public JourneyRequest setBudget(SearchBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     public UUID getUid() {
         return uid;
     }
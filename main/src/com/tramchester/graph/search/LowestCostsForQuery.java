@@ -0,0 +1,97 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.time.TramTime;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/***
+ * Lowest cost to the destination found so far for each query time, by the changes limit of the search that found it.
+ * Shared across the numChanges searches of one request, so a search with a higher limit can prune anything that
+ * cannot beat a journey already found with fewer changes, i.e. journeys that are not pareto optimal on
+ * (arrival, changes).
+ */
+public class LowestCostsForQuery {
+    private static final LowestCostsForQuery DISABLED = new LowestCostsForQuery(-1);
+
+    private final int maxChanges;
+    private final ConcurrentMap<TramTime, AtomicIntegerArray> lowestCosts;
+
+    public LowestCostsForQuery(int maxChanges) {
+        this.maxChanges = maxChanges;
+        lowestCosts = new ConcurrentHashMap<>();
+    }
+
+    public static LowestCostsForQuery disabled() {
+        return DISABLED;
+    }
+
+    private boolean isEnabled() {
+        return maxChanges >= 0;
+    }
+
+    public ForSearch forSearch(TramTime queryTime, int changesLimit) {
+        return new ForSearch(this, queryTime, changesLimit);
+    }
+
+    public void recordCost(TramTime queryTime, int changesLimit, int cost) {
+        if (!isEnabled()) {
+            return;
+        }
+        AtomicIntegerArray costs = lowestCosts.computeIfAbsent(queryTime, unused -> createCosts());
+        costs.accumulateAndGet(changesLimit, cost, Math::min);
+    }
+
+    /***
+     * @return true if a search with a lower changes limit, for the same query time, has already found a journey
+     * costing the same or less
+     */
+    public boolean isDominated(TramTime queryTime, int changesLimit, int cost) {
+        if (!isEnabled()) {
+            return false;
+        }
+        AtomicIntegerArray costs = lowestCosts.get(queryTime);
+        if (costs == null) {
+            return false;
+        }
+        int upTo = Math.min(changesLimit, costs.length());
+        for (int fewerChanges = 0; fewerChanges < upTo; fewerChanges++) {
+            if (costs.get(fewerChanges) <= cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AtomicIntegerArray createCosts() {
+        AtomicIntegerArray costs = new AtomicIntegerArray(maxChanges + 1);
+        for (int i = 0; i < costs.length(); i++) {
+            costs.set(i, Integer.MAX_VALUE);
+        }
+        return costs;
+    }
+
+    /***
+     * View for a single search, i.e. one query time and changes limit
+     */
+    public static class ForSearch {
+        private final LowestCostsForQuery lowestCosts;
+        private final TramTime queryTime;
+        private final int changesLimit;
+
+        private ForSearch(LowestCostsForQuery lowestCosts, TramTime queryTime, int changesLimit) {
+            this.lowestCosts = lowestCosts;
+            this.queryTime = queryTime;
+            this.changesLimit = changesLimit;
+        }
+
+        public void recordCost(int cost) {
+            lowestCosts.recordCost(queryTime, changesLimit, cost);
+        }
+
+        public boolean isDominated(int cost) {
+            return lowestCosts.isDominated(queryTime, changesLimit, cost);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.tramchester.domain.places.Station;
 import com.tramchester.graph.GraphPropertyKey;
 import com.tramchester.graph.graphbuild.GraphBuilder;
 import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.states.HowIGotHere;
 import com.tramchester.repository.TransportData;
 import org.apache.commons.lang3.tuple.Pair;
@@ -44,6 +45,10 @@ public class ReasonsToGraphViz {
         HowIGotHere howIGotHere = reason.getHowIGotHere();
 
         long endNodeId = howIGotHere.getEndNodeId();
+        if (WalkingOverlay.isVirtual(endNodeId)) {
+            // walks for location queries are not in the graph
+            return;
+        }
         String reasonId = reason.getReasonCode().name() + endNodeId;
         Node currentNode = transaction.getNodeById(endNodeId);
 
@@ -63,7 +68,7 @@ public class ReasonsToGraphViz {
             }
         }
 
-        if (!howIGotHere.atStart()) {
+        if (!howIGotHere.atStart() && !WalkingOverlay.isVirtual(howIGotHere.getRelationshipId())) {
             Relationship relationship = transaction.getRelationshipById(howIGotHere.getRelationshipId());
             Node fromNode = relationship.getStartNode();
             addNodeToDiagram(fromNode);
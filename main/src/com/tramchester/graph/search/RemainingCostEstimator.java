@@ -0,0 +1,109 @@
+package com.tramchester.graph.search;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.geo.GridPosition;
+import com.tramchester.geo.GridPositions;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.repository.StationCostMatrix;
+import com.tramchester.repository.TransportData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/***
+ * Lower bound, in minutes, on the time left to reach a destination: straight line distance over the fastest speed
+ * seen between any two consecutive calls in the timetable, or walking if that is faster. If the station cost matrix
+ * is enabled the higher of that and the matrix cost is used.
+ */
+@LazySingleton
+public class RemainingCostEstimator {
+    private static final Logger logger = LoggerFactory.getLogger(RemainingCostEstimator.class);
+
+    private static final double METERS_PER_MILE = 1609.34D;
+    // matrix costs include boarding at the start, which may already have happened
+    private static final int MAX_BOARDING_COST = Math.max(GraphBuilder.BOARDING_COST,
+            GraphBuilder.INTERCHANGE_BOARD_COST);
+
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+    private final Provider<StationCostMatrix> costMatrix;
+
+    private double metersPerMinute;
+    private StationCostMatrix matrix;
+
+    @Inject
+    public RemainingCostEstimator(TransportData transportData, TramchesterConfig config,
+                                  Provider<StationCostMatrix> costMatrix) {
+        this.transportData = transportData;
+        this.config = config;
+        this.costMatrix = costMatrix;
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        double walking = (config.getWalkingMPH() * METERS_PER_MILE) / 60D;
+        double fastest = walking;
+        for (Trip trip : transportData.getTrips()) {
+            for (StopCalls.StopLeg leg : trip.getStopCalls().getLegs()) {
+                long distance = distanceBetween(leg.getFirstStation(), leg.getSecondStation());
+                if (distance > 0) {
+                    // zero minute legs are rounding in the timetable, treat as one
+                    double speed = distance / (double) Math.max(1, leg.getCost());
+                    fastest = Math.max(fastest, speed);
+                }
+            }
+        }
+        metersPerMinute = fastest;
+        if (config.getPrecomputeStationCosts()) {
+            matrix = costMatrix.get();
+        }
+        logger.info(format("Max network speed %.1f meters per minute", metersPerMinute));
+        logger.info("started");
+    }
+
+    private static long distanceBetween(Station first, Station second) {
+        GridPosition firstPosition = first.getGridPosition();
+        GridPosition secondPosition = second.getGridPosition();
+        if (!firstPosition.isValid() || !secondPosition.isValid()) {
+            return 0;
+        }
+        return GridPositions.distanceTo(firstPosition, secondPosition);
+    }
+
+    public int lowerBound(Station from, Set<Station> destinations) {
+        long nearest = Long.MAX_VALUE;
+        int lowestMatrixCost = Integer.MAX_VALUE;
+        for (Station destination : destinations) {
+            nearest = Math.min(nearest, distanceBetween(from, destination));
+            if (matrix != null) {
+                int cost = matrix.getMinCost(from, destination);
+                // unknown could mean walking only, so no bound from the matrix
+                lowestMatrixCost = Math.min(lowestMatrixCost, cost == StationCostMatrix.UNKNOWN ? 0 : cost);
+            }
+        }
+        if (nearest == Long.MAX_VALUE) {
+            return 0;
+        }
+        // round down so never over estimates
+        int byDistance = (int) Math.floor(nearest / metersPerMinute);
+        if (lowestMatrixCost == Integer.MAX_VALUE) {
+            return byDistance;
+        }
+        return Math.max(byDistance, lowestMatrixCost - MAX_BOARDING_COST);
+    }
+
+    public double getMetersPerMinute() {
+        return metersPerMinute;
+    }
+}
@@ -11,20 +11,29 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.BoundingBoxWithStations;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.*;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.repository.ReachabilityRepository;
+import com.tramchester.repository.RunningServicesRepository;
 import com.tramchester.repository.TransportData;
 import org.jetbrains.annotations.NotNull;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicies;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import javax.inject.Provider;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -42,24 +51,31 @@ public class RouteCalculator implements TramRouteCalculator {
 
     private final TransportData transportData;
     private final ReachabilityRepository reachabilityRepository;
+    private final RunningServicesRepository runningServicesRepository;
     private final CreateQueryTimes createQueryTimes;
     private final GraphDatabase graphDatabaseService;
     private final ProvidesLocalNow providesLocalNow;
     private final GraphQuery graphQuery;
     private final SortsPositions sortsPosition;
     private final MapPathToLocations mapPathToLocations;
+    private final Provider<RemainingCostEstimator> remainingCostEstimator;
+
+    private ExecutorService executor;
 
     @Inject
     public RouteCalculator(TransportData transportData, NodeContentsRepository nodeOperations, MapPathToStages pathToStages,
                            TramchesterConfig config, ReachabilityRepository reachabilityRepository,
                            CreateQueryTimes createQueryTimes, GraphDatabase graphDatabaseService,
                            ProvidesLocalNow providesLocalNow, GraphQuery graphQuery, NodeTypeRepository nodeTypeRepository,
-                           SortsPositions sortsPosition, MapPathToLocations mapPathToLocations) {
+                           SortsPositions sortsPosition, MapPathToLocations mapPathToLocations,
+                           Provider<RemainingCostEstimator> remainingCostEstimator,
+                           RunningServicesRepository runningServicesRepository) {
         this.transportData = transportData;
         this.nodeOperations = nodeOperations;
         this.pathToStages = pathToStages;
         this.config = config;
         this.reachabilityRepository = reachabilityRepository;
+        this.runningServicesRepository = runningServicesRepository;
         this.createQueryTimes = createQueryTimes;
         this.graphDatabaseService = graphDatabaseService;
         this.providesLocalNow = providesLocalNow;
@@ -68,6 +84,32 @@ public class RouteCalculator implements TramRouteCalculator {
 
         this.sortsPosition = sortsPosition;
         this.mapPathToLocations = mapPathToLocations;
+        // provider so the estimates are only built if best first search is in use
+        this.remainingCostEstimator = remainingCostEstimator;
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = config.getParallelSearchThreads();
+        if (threads>0) {
+            logger.info("starting with " + threads + " search threads");
+            AtomicInteger count = new AtomicInteger(0);
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "routeCalculator-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            logger.info("started");
+        }
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (executor!=null) {
+            logger.info("dispose");
+            executor.shutdownNow();
+            executor = null;
+        }
     }
 
     @Override
@@ -80,7 +122,12 @@ public class RouteCalculator implements TramRouteCalculator {
 
         Set<Station> destinations = Collections.singleton(destination);
 
-        return getJourneyStream(txn, startNode, endNode, journeyRequest, destinations, false);
+        if (executor!=null) {
+            // station nodes are committed, so visible to the transactions of the sub-searches
+            return getJourneyStreamParallel(startNode.getId(), endNode.getId(), journeyRequest, destinations);
+        }
+
+        return getJourneyStream(txn, WalkingOverlay.empty(), startNode, endNode, journeyRequest, destinations, false);
     }
 
     private Node getStationNodeSafe(Transaction txn, Station station) {
@@ -93,42 +140,160 @@ public class RouteCalculator implements TramRouteCalculator {
         return stationNode;
     }
 
-    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Station start, Node endOfWalk, Set<Station> desinationStations,
-                                                   JourneyRequest journeyRequest)
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, WalkingOverlay walks, Station start, Node endOfWalk,
+                                                   Set<Station> desinationStations, JourneyRequest journeyRequest)
     {
         Node startNode = getStationNodeSafe(txn, start);
-        return getJourneyStream(txn, startNode, endOfWalk, journeyRequest, desinationStations, false);
+        return getJourneyStream(txn, walks, startNode, endOfWalk, journeyRequest, desinationStations, false);
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, Node startOfWalkNode, Station destination,
-                                                     JourneyRequest journeyRequest) {
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, WalkingOverlay walks, Node startOfWalkNode,
+                                                     Station destination, JourneyRequest journeyRequest) {
         Node endNode = getStationNodeSafe(txn, destination);
         Set<Station> destinations = Collections.singleton(destination);
-        return getJourneyStream(txn, startOfWalkNode, endNode, journeyRequest, destinations, true);
+        return getJourneyStream(txn, walks, startOfWalkNode, endNode, journeyRequest, destinations, true);
     }
 
-    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, Node startNode, Node endNode,
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, WalkingOverlay walks, Node startNode, Node endNode,
                                                            Set<Station> destinationStations, JourneyRequest journeyRequest) {
-        return getJourneyStream(txn, startNode, endNode, journeyRequest, destinationStations, true);
+        return getJourneyStream(txn, walks, startNode, endNode, journeyRequest, destinationStations, true);
     }
 
-    private Stream<Journey> getJourneyStream(Transaction txn, Node startNode, Node endNode, JourneyRequest journeyRequest,
-                                             Set<Station> destinations, boolean walkAtStart) {
+    private Stream<Journey> getJourneyStream(Transaction txn, WalkingOverlay walks, Node startNode, Node endNode,
+                                             JourneyRequest journeyRequest, Set<Station> destinations, boolean walkAtStart) {
 
         List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getTime(), walkAtStart);
         Set<Long> destinationNodeIds = Collections.singleton(endNode.getId());
 
         // can only be shared as same date and same set of destinations, will eliminate previously seen paths/results
-        PreviousSuccessfulVisits previousSuccessfulVisit = new PreviousSuccessfulVisits();
-        JourneyConstraints journeyConstraints = new JourneyConstraints(config, transportData, journeyRequest, destinations);
+        Map<Integer, PreviousSuccessfulVisits> previousSuccessfulVisits = createPreviousVisits(journeyRequest);
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                destinations);
+        LowestCostsForQuery lowestCosts = createLowestCosts(journeyRequest);
 
-        return numChangesRange(journeyRequest).
+        Stream<Journey> journeys = numChangesRange(journeyRequest).
                 flatMap(numChanges -> queryTimes.stream().
-                        map(queryTime-> new PathRequest(startNode, queryTime, numChanges, journeyConstraints))).
-                flatMap(pathRequest -> findShortestPath(txn, destinationNodeIds, destinations, previousSuccessfulVisit,
+                        map(queryTime-> new PathRequest(startNode, queryTime, numChanges, journeyConstraints, lowestCosts,
+                                journeyRequest.getBudget()))).
+                flatMap(pathRequest -> findShortestPath(txn, walks, destinationNodeIds, destinations,
+                        previousSuccessfulVisits.get(pathRequest.numChanges),
                         createServiceReasons(journeyRequest, pathRequest.queryTime, pathRequest.numChanges), pathRequest)).
                 map(path -> createJourney(journeyRequest, path));
+        //noinspection ResultOfMethodCallIgnored
+        journeys.onClose(() -> previousSuccessfulVisits.values().forEach(PreviousSuccessfulVisits::reportStats));
+        return journeys;
+    }
+
+    /***
+     * Runs each (numChanges, queryTime) sub-search on the executor in its own transaction. Results are streamed by
+     * number of changes then cost, each number of changes as soon as its sub-searches have finished. Once the searches
+     * up to some number of changes have all finished with enough journeys between them those with more changes cannot
+     * improve the results, so are cancelled if not started or stopped if running. Closing the stream stops the rest.
+     */
+    private Stream<Journey> getJourneyStreamParallel(long startNodeId, long endNodeId, JourneyRequest journeyRequest,
+                                                     Set<Station> destinations) {
+        List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getTime(), false);
+        Set<Long> destinationNodeIds = Collections.singleton(endNodeId);
+
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                destinations);
+        LowestCostsForQuery lowestCosts = createLowestCosts(journeyRequest);
+        final int maxResults = config.getMaxNumResults();
+        ParallelResults results = new ParallelResults(maxResults, journeyRequest.getMaxChanges(), queryTimes.size());
+
+        // lowest costs are bounded by the searches with fewer changes for the same query time, so those have to finish
+        // first for the results to be the same as searching in sequence
+        boolean inOrderOfChanges = config.getIncrementalSearch();
+        List<CompletableFuture<Void>> previousForQueryTime = new ArrayList<>(Collections.nCopies(queryTimes.size(), null));
+        numChangesRange(journeyRequest).forEach(numChanges -> {
+            for (int queryIndex = 0; queryIndex < queryTimes.size(); queryIndex++) {
+                TramTime queryTime = queryTimes.get(queryIndex);
+                int slot = results.slotFor(numChanges, queryIndex);
+                Runnable search = () -> subSearch(startNodeId, destinationNodeIds, destinations, journeyRequest,
+                        queryTime, numChanges, slot, journeyConstraints, lowestCosts, results);
+
+                CompletableFuture<Void> previous = previousForQueryTime.get(queryIndex);
+                CompletableFuture<Void> subSearch = (inOrderOfChanges && previous != null) ?
+                        previous.thenRunAsync(search, executor) : CompletableFuture.runAsync(search, executor);
+                previousForQueryTime.set(queryIndex, subSearch);
+                results.submitted(numChanges, subSearch);
+            }
+        });
+
+        Stream<Journey> journeys = numChangesRange(journeyRequest).
+                takeWhile(results::isNeeded).
+                flatMap(numChanges -> {
+                    results.getSubSearches(numChanges).forEach(this::waitFor);
+                    return results.inOrder(numChanges);
+                }).
+                limit(maxResults);
+        //noinspection ResultOfMethodCallIgnored
+        journeys.onClose(results::stopAll);
+        return journeys;
+    }
+
+    private void waitFor(Future<?> subSearch) {
+        try {
+            subSearch.get();
+        } catch (CancellationException cancelled) {
+            logger.debug("Sub-search was cancelled");
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for sub-search", interrupted);
+        } catch (ExecutionException failed) {
+            if (failed.getCause() instanceof CancellationException) {
+                // ran after a search with fewer changes that was cancelled
+                logger.debug("Sub-search was cancelled");
+                return;
+            }
+            logger.error("Sub-search failed", failed.getCause());
+            throw new RuntimeException("Sub-search failed", failed.getCause());
+        }
+    }
+
+    private void subSearch(long startNodeId, Set<Long> destinationNodeIds, Set<Station> destinations,
+                           JourneyRequest journeyRequest, TramTime queryTime, int numChanges, int slot,
+                           JourneyConstraints journeyConstraints, LowestCostsForQuery lowestCosts, ParallelResults results) {
+        try {
+            if (!results.isNeeded(numChanges) || journeyRequest.getBudget().isExhausted()) {
+                return;
+            }
+            // not shared, concurrent sub-searches would prune each other depending on which got to a node first
+            PreviousSuccessfulVisits previousSuccessfulVisit = createPreviousVisits();
+            try (Transaction txn = graphDatabaseService.beginTx()) {
+                results.opened(txn, numChanges);
+                try {
+                    if (!results.isNeeded(numChanges)) {
+                        // stopped being needed before the transaction was registered, so would not be terminated
+                        return;
+                    }
+                    PathRequest pathRequest = new PathRequest(txn.getNodeById(startNodeId), queryTime, numChanges,
+                            journeyConstraints, lowestCosts, journeyRequest.getBudget());
+                    ServiceReasons reasons = createServiceReasons(journeyRequest, queryTime, numChanges);
+                    try (Stream<TimedPath> paths = findShortestPath(txn, WalkingOverlay.empty(), destinationNodeIds,
+                            destinations, previousSuccessfulVisit, reasons, pathRequest)) {
+                        paths.takeWhile(path -> results.isNeeded(numChanges)).
+                                forEach(path -> results.add(slot, getTotalCost(path), createJourney(journeyRequest, path)));
+                    }
+                } catch (TransactionTerminatedException terminated) {
+                    logger.info(format("Sub-search for %s with %s changes cancelled", queryTime, numChanges));
+                } finally {
+                    results.closed(txn);
+                }
+            }
+            previousSuccessfulVisit.reportStats();
+        } finally {
+            results.finished(numChanges);
+        }
+    }
+
+    private int getTotalCost(TimedPath timedPath) {
+        int total = 0;
+        for (Relationship relationship : timedPath.getPath().relationships()) {
+            total = total + nodeOperations.getCost(relationship);
+        }
+        return total;
     }
 
     public Stream<JourneysForBox> calculateRoutes(Set<Station> destinations, JourneyRequest journeyRequest,
@@ -137,7 +302,8 @@ public class RouteCalculator implements TramRouteCalculator {
 
         final TramTime time = journeyRequest.getTime();
 
-        JourneyConstraints journeyConstraints = new JourneyConstraints(config, transportData, journeyRequest, destinations);
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                destinations);
 
         Set<Long> destinationNodeIds = getDestinationNodeIds(destinations);
 
@@ -145,7 +311,7 @@ public class RouteCalculator implements TramRouteCalculator {
 
             // can only be shared as same date and same set of destinations, will eliminate previously seen paths/results
             // trying to share across boxes causes RouteCalulcatorForBoundingBoxTest tests to fail
-            final PreviousSuccessfulVisits previousSuccessfulVisit = new PreviousSuccessfulVisits();
+            final Map<Integer, PreviousSuccessfulVisits> previousSuccessfulVisits = createPreviousVisits(journeyRequest);
 
             logger.info(format("Finding shortest path for %s --> %s for %s", box, destinations, journeyRequest));
             Set<Station> startingStations = box.getStaions();
@@ -155,13 +321,15 @@ public class RouteCalculator implements TramRouteCalculator {
                         filter(start -> !destinations.contains(start)).
                         map(start -> getStationNodeSafe(txn, start)).
                         flatMap(startNode -> numChangesRange(journeyRequest).
-                                map(numChanges -> new PathRequest(startNode, time, numChanges, journeyConstraints))).
-                        flatMap(pathRequest -> findShortestPath(txn, destinationNodeIds, destinations,
-                                previousSuccessfulVisit, createServiceReasons(journeyRequest, time, pathRequest.numChanges), pathRequest)).
+                                map(numChanges -> new PathRequest(startNode, time, numChanges, journeyConstraints,
+                                        LowestCostsForQuery.disabled(), journeyRequest.getBudget()))).
+                        flatMap(pathRequest -> findShortestPath(txn, WalkingOverlay.empty(), destinationNodeIds, destinations,
+                                previousSuccessfulVisits.get(pathRequest.numChanges), createServiceReasons(journeyRequest, time, pathRequest.numChanges), pathRequest)).
                         map(timedPath -> createJourney(journeyRequest, timedPath));
 
                 // TODO Limit here, or return the stream?
                 List<Journey> collect = journeys.limit(numberToFind).collect(Collectors.toList());
+                previousSuccessfulVisits.values().forEach(PreviousSuccessfulVisits::reportStats);
 
                 // yielding
                 return new JourneysForBox(box, collect);
@@ -175,6 +343,23 @@ public class RouteCalculator implements TramRouteCalculator {
         return IntStream.rangeClosed(0, journeyRequest.getMaxChanges()).boxed();
     }
 
+    // a visit only prunes searches allowing no more changes than the one that made it, and searches run in order of
+    // increasing changes, so one per changes limit
+    private Map<Integer, PreviousSuccessfulVisits> createPreviousVisits(JourneyRequest journeyRequest) {
+        return numChangesRange(journeyRequest).
+                collect(Collectors.toMap(numChanges -> numChanges, numChanges -> createPreviousVisits()));
+    }
+
+    private PreviousSuccessfulVisits createPreviousVisits() {
+        return new PreviousSuccessfulVisits(nodeOperations, config.getMaxWait());
+    }
+
+    private LowestCostsForQuery createLowestCosts(JourneyRequest journeyRequest) {
+        // lower change count searches bound the higher ones, only valid when they share a start and destination
+        return config.getIncrementalSearch() ? new LowestCostsForQuery(journeyRequest.getMaxChanges()) :
+                LowestCostsForQuery.disabled();
+    }
+
     @NotNull
     private ServiceReasons createServiceReasons(JourneyRequest journeyRequest, TramTime time, int numChanges) {
         return new ServiceReasons(journeyRequest, time, providesLocalNow, numChanges);
@@ -192,19 +377,28 @@ public class RouteCalculator implements TramRouteCalculator {
         return destinationNodeIds;
     }
 
-    private Stream<TimedPath> findShortestPath(Transaction txn, Set<Long> destinationNodeIds,
+    private Stream<TimedPath> findShortestPath(Transaction txn, WalkingOverlay walks, Set<Long> destinationNodeIds,
                                                final Set<Station> endStations, PreviousSuccessfulVisits previousSuccessfulVisit,
                                                ServiceReasons reasons, PathRequest pathRequest) {
 
         TramNetworkTraverser tramNetworkTraverser = new TramNetworkTraverser(graphDatabaseService, transportData,
                 pathRequest.serviceHeuristics,
-                sortsPosition, nodeOperations, endStations, config, nodeTypeRepository, destinationNodeIds, reasons);
+                sortsPosition, nodeOperations, endStations, config, nodeTypeRepository, destinationNodeIds, reasons,
+                createBranchOrdering(endStations, pathRequest.queryTime), walks);
 
         return tramNetworkTraverser.
-                findPaths(txn, pathRequest.startNode, previousSuccessfulVisit).
+                findPaths(txn, pathRequest.startNode, previousSuccessfulVisit, pathRequest.lowestCosts, pathRequest.budget).
                 map(path -> new TimedPath(path, pathRequest.queryTime));
     }
 
+    private BranchOrderingPolicy createBranchOrdering(Set<Station> endStations, TramTime queryTime) {
+        if (config.getBestFirstSearch()) {
+            return new BestFirstOrdering(nodeOperations, transportData, remainingCostEstimator.get(), endStations,
+                    queryTime);
+        }
+        return BranchOrderingPolicies.PREORDER_BREADTH_FIRST;
+    }
+
     @NotNull
     private Journey createJourney(JourneyRequest journeyRequest, TimedPath path) {
         return new Journey(pathToStages.mapDirect(path, journeyRequest),
@@ -222,17 +416,171 @@ public class RouteCalculator implements TramRouteCalculator {
         protected final TramTime queryTime;
         protected final int numChanges;
         private final ServiceHeuristics serviceHeuristics;
+        private final LowestCostsForQuery.ForSearch lowestCosts;
+        private final SearchBudget budget;
 
-
-        private PathRequest(Node startNode, TramTime queryTime, int numChanges, JourneyConstraints journeyConstraints) {
+        private PathRequest(Node startNode, TramTime queryTime, int numChanges, JourneyConstraints journeyConstraints,
+                            LowestCostsForQuery lowestCosts, SearchBudget budget) {
             this.startNode = startNode;
             this.queryTime = queryTime;
             this.numChanges = numChanges;
             this.serviceHeuristics = createHeuristics(queryTime, journeyConstraints, numChanges);
+            this.lowestCosts = lowestCosts.forSearch(queryTime, numChanges);
+            this.budget = budget;
         }
     }
 
 
+    /***
+     * Journeys found by each sub-search, and the most changes still worth searching for
+     */
+    private static class ParallelResults {
+        private final int maxResults;
+        private final int numQueryTimes;
+        private final List<List<CostedJourney>> journeys;
+        private final List<List<CompletableFuture<Void>>> subSearches;
+        private final int[] outstanding;
+        private final Map<Transaction, Integer> openTransactions;
+        private volatile int mostChanges;
+
+        private ParallelResults(int maxResults, int maxChanges, int numQueryTimes) {
+            this.maxResults = maxResults;
+            this.numQueryTimes = numQueryTimes;
+            journeys = new ArrayList<>();
+            for (int slot = 0; slot < (maxChanges + 1) * numQueryTimes; slot++) {
+                journeys.add(new ArrayList<>());
+            }
+            subSearches = new ArrayList<>();
+            for (int numChanges = 0; numChanges <= maxChanges; numChanges++) {
+                subSearches.add(new ArrayList<>());
+            }
+            outstanding = new int[maxChanges + 1];
+            Arrays.fill(outstanding, numQueryTimes);
+            openTransactions = new ConcurrentHashMap<>();
+            mostChanges = maxChanges;
+        }
+
+        private int slotFor(int numChanges, int queryIndex) {
+            return (numChanges * numQueryTimes) + queryIndex;
+        }
+
+        private void submitted(int numChanges, CompletableFuture<Void> subSearch) {
+            List<CompletableFuture<Void>> forChanges = subSearches.get(numChanges);
+            synchronized (forChanges) {
+                forChanges.add(subSearch);
+            }
+        }
+
+        private List<CompletableFuture<Void>> getSubSearches(int numChanges) {
+            List<CompletableFuture<Void>> forChanges = subSearches.get(numChanges);
+            synchronized (forChanges) {
+                return new ArrayList<>(forChanges);
+            }
+        }
+
+        private void opened(Transaction txn, int numChanges) {
+            openTransactions.put(txn, numChanges);
+        }
+
+        private void closed(Transaction txn) {
+            openTransactions.remove(txn);
+        }
+
+        private boolean isNeeded(int numChanges) {
+            return numChanges <= mostChanges;
+        }
+
+        private void add(int slot, int cost, Journey journey) {
+            List<CostedJourney> forSlot = journeys.get(slot);
+            synchronized (forSlot) {
+                forSlot.add(new CostedJourney(cost, journey));
+            }
+        }
+
+        private void finished(int numChanges) {
+            int before = mostChanges;
+            synchronized (outstanding) {
+                outstanding[numChanges]--;
+                // fewest changes for which every search up to then has finished with enough journeys between them
+                int found = 0;
+                for (int changes = 0; changes < mostChanges && outstanding[changes] == 0; changes++) {
+                    found = found + numberFound(changes);
+                    if (found >= maxResults) {
+                        mostChanges = changes;
+                    }
+                }
+            }
+            if (mostChanges < before) {
+                stopAbove(mostChanges);
+            }
+        }
+
+        private void stopAll() {
+            synchronized (outstanding) {
+                mostChanges = -1;
+            }
+            stopAbove(-1);
+        }
+
+        private void stopAbove(int changesLimit) {
+            // not yet started, those waiting on them are cancelled as well
+            for (int numChanges = changesLimit + 1; numChanges < subSearches.size(); numChanges++) {
+                getSubSearches(numChanges).forEach(subSearch -> subSearch.cancel(false));
+            }
+            // stop the traversals that cannot improve the results, they will see a TransactionTerminatedException
+            openTransactions.forEach((txn, changes) -> {
+                if (changes > changesLimit) {
+                    txn.terminate();
+                }
+            });
+        }
+
+        private int numberFound(int numChanges) {
+            int count = 0;
+            for (int queryIndex = 0; queryIndex < numQueryTimes; queryIndex++) {
+                List<CostedJourney> forSlot = journeys.get(slotFor(numChanges, queryIndex));
+                synchronized (forSlot) {
+                    count = count + forSlot.size();
+                }
+            }
+            return count;
+        }
+
+        private Stream<Journey> inOrder(int numChanges) {
+            if (!isNeeded(numChanges)) {
+                return Stream.empty();
+            }
+            List<CostedJourney> forChanges = new ArrayList<>();
+            for (int queryIndex = 0; queryIndex < numQueryTimes; queryIndex++) {
+                List<CostedJourney> forSlot = journeys.get(slotFor(numChanges, queryIndex));
+                synchronized (forSlot) {
+                    forChanges.addAll(forSlot);
+                }
+            }
+            // stable, so equal costs keep the order of the query times then the order they were found in
+            forChanges.sort(Comparator.comparingInt(CostedJourney::getCost));
+            return forChanges.stream().map(CostedJourney::getJourney);
+        }
+    }
+
+    private static class CostedJourney {
+        private final int cost;
+        private final Journey journey;
+
+        private CostedJourney(int cost, Journey journey) {
+            this.cost = cost;
+            this.journey = journey;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public Journey getJourney() {
+            return journey;
+        }
+    }
+
     public static class TimedPath {
         private final Path path;
         private final TramTime queryTime;
@@ -1,17 +1,21 @@
 package com.tramchester.graph.search;
 
 import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.PlanningEngine;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.Journey;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.RouteCostCalculator;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -24,16 +28,24 @@ public class RouteCalculatorArriveBy implements TramRouteCalculator {
     private final RouteCostCalculator costCalculator;
     private final RouteCalculator routeCalculator;
     private final TramchesterConfig config;
+    private final Provider<RaptorRouteCalculator> raptorRouteCalculator;
 
     @Inject
-    public RouteCalculatorArriveBy(RouteCostCalculator costCalculator, RouteCalculator routeCalculator, TramchesterConfig config) {
+    public RouteCalculatorArriveBy(RouteCostCalculator costCalculator, RouteCalculator routeCalculator, TramchesterConfig config,
+                                   Provider<RaptorRouteCalculator> raptorRouteCalculator) {
         this.costCalculator = costCalculator;
         this.routeCalculator = routeCalculator;
         this.config = config;
+        // provider so the timetable is only built if the engine is in use
+        this.raptorRouteCalculator = raptorRouteCalculator;
     }
 
     @Override
     public Stream<Journey> calculateRoute(Transaction txn, Station startStation, Station destination, JourneyRequest journeyRequest) {
+        if (config.getPlanningEngine() != PlanningEngine.Graph) {
+            // backwards from the arrival time, so no need to guess a departure time
+            return raptorRouteCalculator.get().calculateRouteArriveBy(startStation, destination, journeyRequest);
+        }
         int costToDest = costCalculator.getApproxCostBetween(txn, startStation, destination);
         JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest);
         logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
@@ -41,29 +53,30 @@ public class RouteCalculatorArriveBy implements TramRouteCalculator {
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Station start, Node endOfWalk, Set<Station> destStations,
-                                                   JourneyRequest journeyRequest) {
-        int costToDest = costCalculator.getApproxCostBetween(txn, start, endOfWalk);
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, WalkingOverlay walks, Station start, Node endOfWalk,
+                                                   Set<Station> destStations, JourneyRequest journeyRequest) {
+        int costToDest = costCalculator.getApproxCostBetween(txn, walks, start, endOfWalk);
         JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest);
         logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-        return routeCalculator.calculateRouteWalkAtEnd(txn, start, endOfWalk, destStations, departureTime);
+        return routeCalculator.calculateRouteWalkAtEnd(txn, walks, start, endOfWalk, destStations, departureTime);
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, Node origin, Station destination, JourneyRequest journeyRequest) {
-        int costToDest = costCalculator.getApproxCostBetween(txn, origin, destination);
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, WalkingOverlay walks, Node origin, Station destination,
+                                                     JourneyRequest journeyRequest) {
+        int costToDest = costCalculator.getApproxCostBetween(txn, walks, origin, destination);
         JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest);
         logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-        return routeCalculator.calculateRouteWalkAtStart(txn, origin, destination, departureTime);
+        return routeCalculator.calculateRouteWalkAtStart(txn, walks, origin, destination, departureTime);
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, Node startNode, Node endNode, Set<Station> destinationStations,
-                                                           JourneyRequest journeyRequest) {
-        int costToDest = costCalculator.getApproxCostBetween(txn, startNode, endNode);
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, WalkingOverlay walks, Node startNode, Node endNode,
+                                                           Set<Station> destinationStations, JourneyRequest journeyRequest) {
+        int costToDest = costCalculator.getApproxCostBetween(txn, walks, startNode, endNode);
         JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest);
         logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-        return routeCalculator.calculateRouteWalkAtStartAndEnd(txn, startNode, endNode, destinationStations, departureTime);
+        return routeCalculator.calculateRouteWalkAtStartAndEnd(txn, walks, startNode, endNode, destinationStations, departureTime);
     }
 
     private JourneyRequest calcDepartTime(JourneyRequest originalRequest, int costToDest) {
@@ -72,6 +85,7 @@ public class RouteCalculatorArriveBy implements TramRouteCalculator {
         TramTime queryTime = originalRequest.getTime();
         TramTime computedDepartTime = queryTime.minusMinutes(costToDest).minusMinutes(config.getMaxWait() / 2);
         return new JourneyRequest(originalRequest.getDate(), computedDepartTime, true,
-                originalRequest.getMaxChanges(), originalRequest.getMaxJourneyDuration());
+                originalRequest.getMaxChanges(), originalRequest.getMaxJourneyDuration()).
+                setBudget(originalRequest.getBudget());
     }
 }
@@ -0,0 +1,122 @@
+package com.tramchester.graph.search;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/***
+ * Limits the time and number of nodes a journey request may use, shared by all the sub-searches for the request so
+ * is thread safe. Once used up, or cancelled, searches stop expanding and return the journeys found so far.
+ * See CreateSearchBudget.
+ */
+public class SearchBudget {
+
+    public enum Reason {
+        Time, Nodes, Cancelled
+    }
+
+    public interface Listener {
+        void exhausted(Reason reason);
+    }
+
+    // reading the clock for every node is measurable, nodes are cheap so check every so often instead
+    private static final int CHECK_TIME_EVERY = 256;
+
+    private final long deadline;
+    private final long maxNodes;
+    private final Listener listener;
+    private final AtomicLong expanded;
+    private final AtomicReference<Reason> exhausted;
+
+    /***
+     * @param maxMillis from now, zero for no limit
+     * @param maxNodes zero for no limit
+     */
+    public SearchBudget(long maxMillis, long maxNodes, Listener listener) {
+        this.deadline = maxMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis) : 0;
+        this.maxNodes = maxNodes;
+        this.listener = listener;
+        expanded = new AtomicLong(0);
+        exhausted = new AtomicReference<>(null);
+    }
+
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0, reason -> {});
+    }
+
+    /***
+     * @return false if the budget is used up or was cancelled, in which case the node should not be expanded
+     */
+    public boolean tryExpand() {
+        if (exhausted.get() != null) {
+            return false;
+        }
+        long count = expanded.incrementAndGet();
+        if (maxNodes > 0 && count > maxNodes) {
+            return exhaust(Reason.Nodes);
+        }
+        if (deadline != 0 && (count % CHECK_TIME_EVERY) == 0 && System.nanoTime() - deadline > 0) {
+            return exhaust(Reason.Time);
+        }
+        return true;
+    }
+
+    /***
+     * Stop the search, for example because the client has gone away
+     */
+    public void cancel() {
+        exhaust(Reason.Cancelled);
+    }
+
+    /***
+     * The results for this request came from another search that ran out of budget, so are also partial. Not
+     * reported to the listener as this request did not search.
+     */
+    public void sharedPartialResults(Reason reason) {
+        exhausted.compareAndSet(null, reason);
+    }
+
+    private boolean exhaust(Reason reason) {
+        if (exhausted.compareAndSet(null, reason)) {
+            listener.exhausted(reason);
+        }
+        return false;
+    }
+
+    /***
+     * @return true if the search stopped early, so journeys found are only the best so far
+     */
+    public boolean isExhausted() {
+        return exhausted.get() != null;
+    }
+
+    /***
+     * @return why the search stopped early, null if it did not
+     */
+    public Reason getReason() {
+        return exhausted.get();
+    }
+
+    /***
+     * @return millis left before the time limit, Long.MAX_VALUE if there is no time limit
+     */
+    public long getRemainingMillis() {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    public long getExpanded() {
+        return expanded.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchBudget{" +
+                "maxNodes=" + maxNodes +
+                ", expanded=" + expanded.get() +
+                ", exhausted=" + exhausted.get() +
+                '}';
+    }
+}
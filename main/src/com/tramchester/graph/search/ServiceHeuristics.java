@@ -11,9 +11,14 @@ import com.tramchester.graph.search.states.HowIGotHere;
 import com.tramchester.repository.ReachabilityRepository;
 import com.tramchester.repository.StationRepository;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/***
+ * Checks return a plain reason code, the ServiceReason and HowIGotHere are only created from the path when
+ * diagnostics are enabled, so nothing is allocated per evaluated node otherwise
+ */
 public class ServiceHeuristics {
 
     private static final Logger logger;
@@ -42,19 +47,22 @@ public class ServiceHeuristics {
         this.changesLimit = changesLimit;
     }
     
-    public ServiceReason checkServiceDate(Node node, HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkServiceDate(Node node, Path path, ServiceReasons reasons) {
         reasons.incrementTotalChecked();
 
         IdFor<Service> nodeServiceId = nodeOperations.getServiceId(node);
 
         if (journeyConstraints.isRunning(nodeServiceId)) {
-            return valid(ServiceReason.ReasonCode.ServiceDateOk, howIGotHere, reasons);
+            return valid(ServiceReason.ReasonCode.ServiceDateOk, path, reasons);
         }
 
-        return reasons.recordReason(ServiceReason.DoesNotRunOnQueryDate(howIGotHere, nodeServiceId));
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.DoesNotRunOnQueryDate(new HowIGotHere(path), nodeServiceId));
+        }
+        return reasons.record(ServiceReason.ReasonCode.NotOnQueryDate);
     }
 
-    public ServiceReason checkServiceTime(HowIGotHere howIGotHere, Node node, TramTime currentClock, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkServiceTime(Path path, Node node, TramTime currentClock, ServiceReasons reasons) {
         reasons.incrementTotalChecked();
 
         IdFor<Service> serviceId = nodeOperations.getServiceId(node);
@@ -67,42 +75,57 @@ public class ServiceHeuristics {
         TramTime serviceEnd = journeyConstraints.getServiceLatest(serviceId);
 
         if (!currentClock.between(serviceStart, serviceEnd)) {
-            return reasons.recordReason(ServiceReason.ServiceNotRunningAtTime(currentClock, howIGotHere));
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.ServiceNotRunningAtTime(currentClock, new HowIGotHere(path)));
+            }
+            return reasons.record(ServiceReason.ReasonCode.ServiceNotRunningAtTime);
         }
 
-        return valid(ServiceReason.ReasonCode.ServiceTimeOk, howIGotHere, reasons);
+        return valid(ServiceReason.ReasonCode.ServiceTimeOk, path, reasons);
     }
 
-    public ServiceReason checkNumberChanges(int currentNumChanges, HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkNumberChanges(int currentNumChanges, Path path, ServiceReasons reasons) {
        reasons.incrementTotalChecked();
 
        if (currentNumChanges>changesLimit) {
-         return reasons.recordReason(ServiceReason.TooManyChanges(howIGotHere));
+           if (reasons.isDiagnosticsEnabled()) {
+               return reasons.recordReason(ServiceReason.TooManyChanges(new HowIGotHere(path)));
+           }
+           return reasons.record(ServiceReason.ReasonCode.TooManyChanges);
        }
-       return valid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere, reasons);
+       return valid(ServiceReason.ReasonCode.NumChangesOK, path, reasons);
     }
 
-    public ServiceReason checkNumberConnections(int currentNumConnections, HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkNumberConnections(int currentNumConnections, Path path, ServiceReasons reasons) {
         reasons.incrementTotalChecked();
 
         if (currentNumConnections>changesLimit) {
-            return reasons.recordReason(ServiceReason.TooManyConnections(howIGotHere));
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.TooManyConnections(new HowIGotHere(path)));
+            }
+            return reasons.record(ServiceReason.ReasonCode.TooManyConnections);
         }
-        return valid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere, reasons);
+        return valid(ServiceReason.ReasonCode.NumConnectionsOk, path, reasons);
     }
 
-    public ServiceReason checkTime(HowIGotHere howIGotHere, Node node, TramTime currentElapsed, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkTime(Path path, Node node, TramTime currentElapsed, ServiceReasons reasons) {
         reasons.incrementTotalChecked();
 
         TramTime nodeTime = nodeOperations.getTime(node);
         if (currentElapsed.isAfter(nodeTime)) { // already departed
-            return reasons.recordReason(ServiceReason.AlreadyDeparted(currentElapsed, howIGotHere));
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.AlreadyDeparted(currentElapsed, new HowIGotHere(path)));
+            }
+            return reasons.record(ServiceReason.ReasonCode.AlreadyDeparted);
         }
 
         if (operatesWithinTime(nodeTime, currentElapsed)) {
-            return valid(ServiceReason.ReasonCode.TimeOk, howIGotHere, reasons);
+            return valid(ServiceReason.ReasonCode.TimeOk, path, reasons);
+        }
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.DoesNotOperateOnTime(currentElapsed, new HowIGotHere(path)));
         }
-        return reasons.recordReason(ServiceReason.DoesNotOperateOnTime(currentElapsed, howIGotHere));
+        return reasons.record(ServiceReason.ReasonCode.NotAtQueryTime);
     }
 
     private boolean operatesWithinTime(TramTime nodeTime, TramTime elapsedTimed) {
@@ -111,7 +134,7 @@ public class ServiceHeuristics {
         return elapsedTimed.between(earliest, nodeTime);
     }
 
-    public ServiceReason interestedInHour(HowIGotHere howIGotHere, Node node, TramTime journeyClockTime, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode interestedInHour(Path path, Node node, TramTime journeyClockTime, ServiceReasons reasons) {
         int hour = nodeOperations.getHour(node);
 
         reasons.incrementTotalChecked();
@@ -119,7 +142,7 @@ public class ServiceHeuristics {
         int queryTimeHour = journeyClockTime.getHourOfDay();
         if (hour == queryTimeHour) {
             // quick win
-            return valid(ServiceReason.ReasonCode.HourOk, howIGotHere, reasons);
+            return valid(ServiceReason.ReasonCode.HourOk, path, reasons);
         }
 
         // this only works if maxWaitMinutes<60
@@ -131,29 +154,35 @@ public class ServiceHeuristics {
             // TODO Breaks if max wait > 60
             int timeUntilNextHour = 60 - journeyConstraints.getMaxWait();
             if (journeyClockTime.getMinuteOfHour() >= timeUntilNextHour) {
-                return valid(ServiceReason.ReasonCode.HourOk, howIGotHere, reasons);
+                return valid(ServiceReason.ReasonCode.HourOk, path, reasons);
             }
         }
 
-        return reasons.recordReason(ServiceReason.DoesNotOperateAtHour(journeyClockTime, howIGotHere));
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.DoesNotOperateAtHour(journeyClockTime, new HowIGotHere(path)));
+        }
+        return reasons.record(ServiceReason.ReasonCode.NotAtHour);
     }
 
 
-    public ServiceReason checkStationOpen(Node node, HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode checkStationOpen(Node node, Path path, ServiceReasons reasons) {
         IdFor<RouteStation> routeStationId = GraphProps.getRouteStationIdFrom(node);
         RouteStation routeStation = stationRepository.getRouteStationById(routeStationId);
 
         Station associatedStation = routeStation.getStation();
 
         if (journeyConstraints.isClosed(associatedStation)) {
-           return reasons.recordReason(ServiceReason.StationClosed(howIGotHere, associatedStation));
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.StationClosed(new HowIGotHere(path), associatedStation));
+            }
+            return reasons.record(ServiceReason.ReasonCode.StationClosed);
         }
 
-        return valid(ServiceReason.ReasonCode.StationOpen, howIGotHere, reasons);
+        return valid(ServiceReason.ReasonCode.StationOpen, path, reasons);
 
     }
 
-    public ServiceReason canReachDestination(Node endNode, HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode canReachDestination(Node endNode, Path path, ServiceReasons reasons) {
 
         // can only safely does this if uniquely looking at tram journeys
         // TODO Build full reachability matrix??
@@ -170,25 +199,34 @@ public class ServiceHeuristics {
         for(Station endStation : journeyConstraints.getEndStations()) {
             // TODO Verison of below that takes the list of end stations
             if (reachabilityRepository.stationReachable(routeStation, endStation)) {
-                return valid(ServiceReason.ReasonCode.Reachable, howIGotHere, reasons);
+                return valid(ServiceReason.ReasonCode.Reachable, path, reasons);
             }
         }
-        return reasons.recordReason(ServiceReason.StationNotReachable(howIGotHere));
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.StationNotReachable(new HowIGotHere(path)));
+        }
+        return reasons.record(ServiceReason.ReasonCode.NotReachable);
 
 
         // TODO can't exclude unless we know for sure not reachable, so include all for buses
-        //return valid(ServiceReason.ReasonCode.ReachableNoCheck, howIGotHere, reasons);
+        //return valid(ServiceReason.ReasonCode.ReachableNoCheck, path, reasons);
     }
 
-    public ServiceReason journeyDurationUnderLimit(final int totalCost, final HowIGotHere howIGotHere, ServiceReasons reasons) {
+    public ServiceReason.ReasonCode journeyDurationUnderLimit(final int totalCost, final Path path, ServiceReasons reasons) {
         if (totalCost>journeyConstraints.getMaxJourneyDuration()) {
-            return reasons.recordReason(ServiceReason.TookTooLong(queryTime.plusMinutes(totalCost), howIGotHere));
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.TookTooLong(queryTime.plusMinutes(totalCost), new HowIGotHere(path)));
+            }
+            return reasons.record(ServiceReason.ReasonCode.TookTooLong);
         }
-        return valid(ServiceReason.ReasonCode.DurationOk, howIGotHere, reasons);
+        return valid(ServiceReason.ReasonCode.DurationOk, path, reasons);
     }
 
-    private ServiceReason valid(ServiceReason.ReasonCode code, final HowIGotHere howIGotHere, ServiceReasons reasons) {
-        return reasons.recordReason(ServiceReason.IsValid(code, howIGotHere));
+    private ServiceReason.ReasonCode valid(ServiceReason.ReasonCode code, final Path path, ServiceReasons reasons) {
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.IsValid(code, new HowIGotHere(path)));
+        }
+        return reasons.record(code);
     }
 
     public TramTime getQueryTime() {
@@ -16,8 +16,8 @@ public abstract class ServiceReason {
 
     public enum ReasonCode {
 
-        ServiceDateOk, ServiceTimeOk, NumChangesOK, TimeOk, HourOk, Reachable, ReachableNoCheck, DurationOk,
-        WalkOk, StationOpen, Continue, NumConnectionsOk,
+        ServiceDateOk(true), ServiceTimeOk(true), NumChangesOK(true), TimeOk(true), HourOk(true), Reachable(true),
+        ReachableNoCheck(true), DurationOk(true), WalkOk(true), StationOpen(true), Continue(true), NumConnectionsOk(true),
 
         NotOnQueryDate,
         NotAtQueryTime,
@@ -38,7 +38,21 @@ public abstract class ServiceReason {
         TooManyConnections,
         StationClosed,
 
-        Arrived
+        Arrived;
+
+        private final boolean valid;
+
+        ReasonCode() {
+            this(false);
+        }
+
+        ReasonCode(boolean valid) {
+            this.valid = valid;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
     }
 
     private final HowIGotHere howIGotHere;
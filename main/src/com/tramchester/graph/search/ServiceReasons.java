@@ -12,7 +12,6 @@ import org.slf4j.LoggerFactory;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
 
@@ -29,9 +28,9 @@ public class ServiceReasons {
     private final JourneyRequest journeyRequest;
     private final int numChanges;
     private final List<ServiceReason> reasons;
-    // stats
-    private final Map<ServiceReason.ReasonCode, AtomicInteger> statistics;
-    private final AtomicInteger totalChecked = new AtomicInteger(0);
+    // stats, indexed by ReasonCode ordinal, single threaded as one per search
+    private final int[] statistics;
+    private int totalChecked;
     private final boolean diagnosticsEnabled;
 
     private boolean success;
@@ -42,16 +41,15 @@ public class ServiceReasons {
         this.journeyRequest = journeyRequest;
         this.numChanges = numChanges;
         reasons = new ArrayList<>();
-        statistics = new EnumMap<>(ServiceReason.ReasonCode.class);
-        Arrays.asList(ServiceReason.ReasonCode.values()).forEach(code -> statistics.put(code, new AtomicInteger(0)));
+        statistics = new int[ServiceReason.ReasonCode.values().length];
+        totalChecked = 0;
         success = false;
         diagnosticsEnabled = journeyRequest.getDiagnosticsEnabled();
     }
 
     private void reset() {
         reasons.clear();
-        statistics.clear();
-        Arrays.asList(ServiceReason.ReasonCode.values()).forEach(code -> statistics.put(code, new AtomicInteger(0)));
+        Arrays.fill(statistics, 0);
     }
 
     public void reportReasons(Transaction transaction, TransportData transportData) {
@@ -70,26 +68,44 @@ public class ServiceReasons {
         if ((!success) && journeyRequest.getWarnIfNoResults()) {
             logger.warn("No result found for " + journeyRequest.toString() + " at " + queryTime + " max changes " + numChanges);
         }
-        logger.info("Total checked: " + totalChecked.get() + " for " + journeyRequest.toString());
+        logger.info("Total checked: " + totalChecked + " for " + journeyRequest.toString());
         Arrays.asList(ServiceReason.ReasonCode.values()).forEach(
-                code -> logger.info(format("%s: %s", code, statistics.get(code))));
+                code -> logger.info(format("%s: %s", code, statistics[code.ordinal()])));
 
     }
 
-    public ServiceReason recordReason(final ServiceReason serviceReason) {
+    /***
+     * Diagnostics path, the reason is kept for the graph file
+     */
+    public ServiceReason.ReasonCode recordReason(final ServiceReason serviceReason) {
         if (diagnosticsEnabled) {
             reasons.add(serviceReason);
         }
-        incrementStat(serviceReason.getReasonCode());
-        return serviceReason;
+        return record(serviceReason.getReasonCode());
+    }
+
+    /***
+     * Counts the code only, so nothing is allocated per evaluated node when diagnostics are disabled
+     */
+    public ServiceReason.ReasonCode record(final ServiceReason.ReasonCode reasonCode) {
+        statistics[reasonCode.ordinal()]++;
+        return reasonCode;
+    }
+
+    public boolean isDiagnosticsEnabled() {
+        return diagnosticsEnabled;
     }
 
     public void incrementTotalChecked() {
-        totalChecked.incrementAndGet();
+        totalChecked++;
+    }
+
+    public int getTotalChecked() {
+        return totalChecked;
     }
 
-    private void incrementStat(ServiceReason.ReasonCode reasonCode) {
-        statistics.get(reasonCode).incrementAndGet();
+    public int getCount(ServiceReason.ReasonCode reasonCode) {
+        return statistics[reasonCode.ordinal()];
     }
 
     public void recordSuccess() {
@@ -97,8 +113,7 @@ public class ServiceReasons {
     }
 
     public void recordStat(final ImmutableJourneyState journeyState) {
-        ServiceReason.ReasonCode reason = getReasonCode(journeyState.getTransportMode());
-        incrementStat(reason);
+        record(getReasonCode(journeyState.getTransportMode()));
     }
 
     private ServiceReason.ReasonCode getReasonCode(TransportMode transportMode) {
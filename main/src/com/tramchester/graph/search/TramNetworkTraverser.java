@@ -10,6 +10,7 @@ import com.tramchester.graph.NodeContentsRepository;
 import com.tramchester.graph.NodeTypeRepository;
 import com.tramchester.graph.PreviousSuccessfulVisits;
 import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.states.ImmuatableTraversalState;
 import com.tramchester.graph.search.states.NotStartedState;
 import com.tramchester.graph.search.states.TraversalState;
@@ -41,11 +42,14 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
     private final ServiceReasons reasons;
     private final SortsPositions sortsPosition;
     private final TransportData transportData;
+    private final BranchOrderingPolicy branchOrdering;
+    private final WalkingOverlay walkingOverlay;
 
     public TramNetworkTraverser(GraphDatabase graphDatabaseService, TransportData transportData, ServiceHeuristics serviceHeuristics,
                                 SortsPositions sortsPosition, NodeContentsRepository nodeContentsRepository,
                                 Set<Station> endStations, TramchesterConfig config, NodeTypeRepository nodeTypeRepository,
-                                Set<Long> destinationNodeIds, ServiceReasons reasons) {
+                                Set<Long> destinationNodeIds, ServiceReasons reasons, BranchOrderingPolicy branchOrdering,
+                                WalkingOverlay walkingOverlay) {
         this.graphDatabaseService = graphDatabaseService;
         this.transportData = transportData;
         this.serviceHeuristics = serviceHeuristics;
@@ -57,16 +61,19 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
         this.config = config;
         this.nodeTypeRepository = nodeTypeRepository;
         this.reasons = reasons;
+        this.branchOrdering = branchOrdering;
+        this.walkingOverlay = walkingOverlay;
     }
 
-    public Stream<Path> findPaths(Transaction txn, Node startNode, PreviousSuccessfulVisits previousSuccessfulVisit) {
+    public Stream<Path> findPaths(Transaction txn, Node startNode, PreviousSuccessfulVisits previousSuccessfulVisit,
+                                  LowestCostsForQuery.ForSearch lowestCosts, SearchBudget budget) {
 
         final TramRouteEvaluator tramRouteEvaluator = new TramRouteEvaluator(serviceHeuristics,
-                destinationNodeIds, nodeTypeRepository, reasons, previousSuccessfulVisit, config );
+                destinationNodeIds, nodeTypeRepository, reasons, previousSuccessfulVisit, lowestCosts, budget, config );
 
         LatLong destinationLatLon = sortsPosition.midPointFrom(endStations);
         final NotStartedState traversalState = new NotStartedState(sortsPosition, nodeContentsRepository,
-                destinationNodeIds, endStations, destinationLatLon, config);
+                destinationNodeIds, endStations, destinationLatLon, config, walkingOverlay);
         final InitialBranchState<JourneyState> initialJourneyState = JourneyState.initialState(queryTime, traversalState);
 
         logger.info("Create traversal");
@@ -95,7 +102,7 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
                 expand(this, initialJourneyState).
                 evaluator(tramRouteEvaluator).
                 uniqueness(NONE).
-                order(BranchOrderingPolicies.PREORDER_BREADTH_FIRST); // TODO Breadth first hits shortest trips sooner??
+                order(branchOrdering);
 
         Traverser traverse = traversalDesc.traverse(startNode);
         Spliterator<Path> spliterator = traverse.spliterator();
@@ -105,8 +112,6 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
         //noinspection ResultOfMethodCallIgnored
         stream.onClose(() -> {
             reasons.reportReasons(txn, transportData);
-            tramRouteEvaluator.dispose();
-            traversalState.dispose();
         });
 
         logger.info("Return traversal stream");
@@ -130,7 +135,7 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
             }
         }
 
-        Set<GraphBuilder.Labels> labels = GraphBuilder.Labels.from(endNode.getLabels());
+        Set<GraphBuilder.Labels> labels = nodeTypeRepository.getLabels(endNode);
 
         TraversalState traversalStateForChildren = traversalState.nextState(labels, endNode,
                 journeyStateForChildren, cost);
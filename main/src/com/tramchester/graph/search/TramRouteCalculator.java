@@ -2,6 +2,7 @@ package com.tramchester.graph.search;
 
 import com.tramchester.domain.Journey;
 import com.tramchester.domain.places.Station;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 
@@ -11,10 +12,12 @@ import java.util.stream.Stream;
 public interface TramRouteCalculator {
     Stream<Journey> calculateRoute(Transaction txn, Station startStation, Station destination, JourneyRequest journeyRequest);
 
-    Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Station start, Node destination, Set<Station> destStations, JourneyRequest journeyRequest);
+    Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, WalkingOverlay walks, Station start, Node destination,
+                                            Set<Station> destStations, JourneyRequest journeyRequest);
 
-    Stream<Journey> calculateRouteWalkAtStart(Transaction txn, Node startOfWalkNode, Station destination, JourneyRequest journeyRequest);
+    Stream<Journey> calculateRouteWalkAtStart(Transaction txn, WalkingOverlay walks, Node startOfWalkNode, Station destination,
+                                              JourneyRequest journeyRequest);
 
-    Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, Node startNode, Node endNode, Set<Station> destinationStations,
-                                                    JourneyRequest journeyRequest);
+    Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, WalkingOverlay walks, Node startNode, Node endNode,
+                                                    Set<Station> destinationStations, JourneyRequest journeyRequest);
 }
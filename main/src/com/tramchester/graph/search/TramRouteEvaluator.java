@@ -31,6 +31,8 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
     private final NodeTypeRepository nodeTypeRepository;
     private final ServiceReasons reasons;
     private final PreviousSuccessfulVisits previousSuccessfulVisit;
+    private final LowestCostsForQuery.ForSearch lowestCosts;
+    private final SearchBudget budget;
     private int success;
     private int currentLowestCost;
     private final Set<Long> stationNodes;
@@ -38,12 +40,14 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
 
     public TramRouteEvaluator(ServiceHeuristics serviceHeuristics, Set<Long> destinationNodeIds,
                               NodeTypeRepository nodeTypeRepository, ServiceReasons reasons, PreviousSuccessfulVisits previousSuccessfulVisit,
-                              TramchesterConfig config) {
+                              LowestCostsForQuery.ForSearch lowestCosts, SearchBudget budget, TramchesterConfig config) {
         this.serviceHeuristics = serviceHeuristics;
         this.destinationNodeIds = destinationNodeIds;
         this.nodeTypeRepository = nodeTypeRepository;
         this.reasons = reasons;
         this.previousSuccessfulVisit = previousSuccessfulVisit;
+        this.lowestCosts = lowestCosts;
+        this.budget = budget;
         Set<TransportMode> transportModes = config.getTransportModes();
 
         // TODO Should be by TransportMode AND Datasource
@@ -53,10 +57,6 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         stationNodes = new HashSet<>();
     }
 
-    public void dispose() {
-        previousSuccessfulVisit.clear();
-    }
-
     @Override
     public Evaluation evaluate(Path path) {
         return null;
@@ -64,21 +64,30 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
 
     @Override
     public Evaluation evaluate(Path path, BranchState<JourneyState> state) {
+        // out of time or nodes, or cancelled, pruning everything ends the traversal with the journeys found so far
+        if (!budget.tryExpand()) {
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
         ImmutableJourneyState journeyState = state.getState();
         TramTime journeyClock = journeyState.getJourneyClock();
 
         Node nextNode = path.endNode();
 
-        if (previousSuccessfulVisit.hasUsableResult(nextNode, journeyClock)) {
-            HowIGotHere howIGotHere = new HowIGotHere(path);
-            reasons.recordReason(ServiceReason.Cached(journeyClock, howIGotHere));
+        // shared with the other sub-searches for this request, see PreviousSuccessfulVisits
+        if (previousSuccessfulVisit.hasUsableResult(nextNode, journeyClock, journeyState.getNumberChanges())) {
+            if (reasons.isDiagnosticsEnabled()) {
+                reasons.recordReason(ServiceReason.Cached(journeyClock, new HowIGotHere(path)));
+            } else {
+                reasons.record(ServiceReason.ReasonCode.Cached);
+            }
             return Evaluation.EXCLUDE_AND_PRUNE;
         }
 
         ServiceReason.ReasonCode reasonCode = doEvaluate(path, journeyState, nextNode);
         Evaluation result = decideEvaluationAction(reasonCode);
 
-        previousSuccessfulVisit.recordVisitIfUseful(reasonCode, nextNode, journeyClock);
+        previousSuccessfulVisit.recordVisitIfUseful(reasonCode, nextNode, journeyClock, journeyState.getNumberChanges());
 
         return result;
     }
@@ -125,64 +134,69 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         long nextNodeId = nextNode.getId();
 
         TraversalState previousTraversalState = journeyState.getTraversalState();
-        HowIGotHere howIGotHere = new HowIGotHere(thePath);
         if (destinationNodeIds.contains(nextNodeId)) {
             // we've arrived
             int totalCost = previousTraversalState.getTotalCost();
-            if (totalCost <= currentLowestCost) {
+            if (totalCost <= currentLowestCost && !lowestCosts.isDominated(totalCost)) {
                 // a better route than seen so far
                 // <= equals so we include multiple options and routes in the results
                 // An alternative to this would be to search over a finer grained list of times and catch alternatives
                 // that way
                 success = success + 1;
                 currentLowestCost = totalCost;
+                lowestCosts.recordCost(totalCost);
                 reasons.recordSuccess();
                 return ServiceReason.ReasonCode.Arrived;
             } else {
                 // found a route, but longer than current shortest
-                reasons.recordReason(ServiceReason.Longer(howIGotHere));
-                return ServiceReason.ReasonCode.LongerPath;
+                return longer(thePath);
             }
         } else if (success>0) {
             // Not arrived, but we do have at least one successful route to our destination
             int totalCost = previousTraversalState.getTotalCost();
             if (totalCost>currentLowestCost) {
                 // already longer that current shortest, no need to continue
-                reasons.recordReason(ServiceReason.Longer(howIGotHere));
-                return ServiceReason.ReasonCode.LongerPath;
+                return longer(thePath);
             }
         }
 
+        // a search allowing fewer changes already arrived at least as soon
+        if (lowestCosts.isDominated(previousTraversalState.getTotalCost())) {
+            return longer(thePath);
+        }
+
         reasons.recordStat(journeyState);
 
         // no journey longer than N nodes
         if (thePath.length()>serviceHeuristics.getMaxPathLength()) {
             logger.warn("Hit max path length");
-            reasons.recordReason(ServiceReason.PathToLong(howIGotHere));
-            return ServiceReason.ReasonCode.PathTooLong;
+            if (reasons.isDiagnosticsEnabled()) {
+                return reasons.recordReason(ServiceReason.PathToLong(new HowIGotHere(thePath)));
+            }
+            return reasons.record(ServiceReason.ReasonCode.PathTooLong);
         }
 
         // number of changes?
-        if (!serviceHeuristics.checkNumberChanges(journeyState.getNumberChanges(), howIGotHere, reasons).isValid()) {
+        if (!serviceHeuristics.checkNumberChanges(journeyState.getNumberChanges(), thePath, reasons).isValid()) {
             return ServiceReason.ReasonCode.TooManyChanges;
         }
 
         // number of connections
-        if (!serviceHeuristics.checkNumberConnections(journeyState.getNumberConnections(), howIGotHere, reasons).isValid()) {
+        if (!serviceHeuristics.checkNumberConnections(journeyState.getNumberConnections(), thePath, reasons).isValid()) {
             return ServiceReason.ReasonCode.TooManyConnections;
         }
 
         // journey too long?
-        if (!serviceHeuristics.journeyDurationUnderLimit(previousTraversalState.getTotalCost(), howIGotHere, reasons).isValid()) {
+        if (!serviceHeuristics.journeyDurationUnderLimit(previousTraversalState.getTotalCost(), thePath, reasons).isValid()) {
             return ServiceReason.ReasonCode.TookTooLong;
         }
 
         // is even reachable from here? is the station open?
         if (nodeTypeRepository.isRouteStation(nextNode)) {
-            if (!serviceHeuristics.canReachDestination(nextNode, howIGotHere, reasons).isValid()) {
+            if (!serviceHeuristics.canReachDestination(nextNode, thePath, reasons).isValid()) {
                 return ServiceReason.ReasonCode.NotReachable;
             }
-            if (!serviceHeuristics.checkStationOpen(nextNode, howIGotHere, reasons).isValid()) {
+            if (!serviceHeuristics.checkStationOpen(nextNode, thePath, reasons).isValid()) {
                 return ServiceReason.ReasonCode.StationClosed;
             }
         }
@@ -190,7 +204,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         // is the service running today?
         boolean isService = nodeTypeRepository.isService(nextNode);
         if (isService) {
-            if (!serviceHeuristics.checkServiceDate(nextNode, howIGotHere, reasons).isValid()) {
+            if (!serviceHeuristics.checkServiceDate(nextNode, thePath, reasons).isValid()) {
                 return ServiceReason.ReasonCode.NotOnQueryDate;
             }
         }
@@ -199,8 +213,10 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         if (loopDetection) {
             if (nodeTypeRepository.isBusStation(nextNode) || nodeTypeRepository.isTrainStation(nextNode)) {
                 if (stationNodes.contains(nextNodeId)) {
-                    reasons.recordReason(ServiceReason.SeenBusStationBefore(howIGotHere));
-                    return ServiceReason.ReasonCode.SeenBusStationBefore;
+                    if (reasons.isDiagnosticsEnabled()) {
+                        return reasons.recordReason(ServiceReason.SeenBusStationBefore(new HowIGotHere(thePath)));
+                    }
+                    return reasons.record(ServiceReason.ReasonCode.SeenBusStationBefore);
                 }
                 stationNodes.add(nextNodeId);
             }
@@ -220,25 +236,31 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
 
         // service available to catch?
         if (isService) {
-            if (!serviceHeuristics.checkServiceTime(howIGotHere, nextNode, visitingTime, reasons).isValid()) {
+            if (!serviceHeuristics.checkServiceTime(thePath, nextNode, visitingTime, reasons).isValid()) {
                 return ServiceReason.ReasonCode.ServiceNotRunningAtTime;
             }
         }
 
         // check time, just hour first
         if (nodeTypeRepository.isHour(nextNode)) {
-            if (!serviceHeuristics.interestedInHour(howIGotHere, nextNode, visitingTime, reasons).isValid()) {
+            if (!serviceHeuristics.interestedInHour(thePath, nextNode, visitingTime, reasons).isValid()) {
                 return ServiceReason.ReasonCode.NotAtHour;
             }
         }
 
         // check time
         if (nodeTypeRepository.isTime(nextNode)) {
-            ServiceReason serviceReason = serviceHeuristics.checkTime(howIGotHere, nextNode, visitingTime, reasons);
-            return serviceReason.getReasonCode(); // valid, or not at time
+            return serviceHeuristics.checkTime(thePath, nextNode, visitingTime, reasons); // valid, or not at time
         }
 
         return ServiceReason.ReasonCode.Continue;
     }
 
+    private ServiceReason.ReasonCode longer(Path thePath) {
+        if (reasons.isDiagnosticsEnabled()) {
+            return reasons.recordReason(ServiceReason.Longer(new HowIGotHere(thePath)));
+        }
+        return reasons.record(ServiceReason.ReasonCode.LongerPath);
+    }
+
 }
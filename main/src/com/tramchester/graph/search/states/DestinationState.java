@@ -44,12 +44,17 @@ public class DestinationState extends TraversalState
         if (this == o) return true;
         if (!(o instanceof DestinationState)) return false;
         TraversalState that = (TraversalState) o;
-        return that.destinationNodeIds == this.destinationNodeIds;
+        return that.ops == this.ops;
+    }
+
+    @Override
+    public int hashCode() {
+        return ops.hashCode();
     }
 
     @Override
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
-        throw new RuntimeException("Already at destination, id is " + destinationNodeIds);
+        throw new RuntimeException("Already at destination, id is " + ops.destinationNodeIds);
     }
 
     @Override
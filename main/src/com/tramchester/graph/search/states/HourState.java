@@ -40,11 +40,11 @@ public class HourState extends TraversalState {
     }
 
     private TraversalState toMinute(Node node, JourneyState journeyState, int cost) throws TramchesterException {
-        TramTime time = nodeOperations.getTime(node);
+        TramTime time = ops.nodeOperations.getTime(node);
 
         journeyState.recordVehicleDetails(time, getTotalCost());
 
-        return builders.minute.fromHour(this, node, cost, maybeExistingTrip);
+        return ops.builders.minute.fromHour(this, node, cost, maybeExistingTrip);
     }
 
     @Override
@@ -39,7 +39,7 @@ public class MinuteState extends TraversalState {
             boolean changeAtInterchangeOnly = config.getChangeAtInterchangeOnly();
             if (maybeExistingTrip.isOnTrip()) {
                 IdFor<Trip> existingTripId = maybeExistingTrip.getTripId();
-                Iterable<Relationship> filterBySingleTripId = filterBySingleTripId(hourState.nodeOperations,
+                Iterable<Relationship> filterBySingleTripId = filterBySingleTripId(hourState.ops.nodeOperations,
                         relationships, existingTripId);
                 return new MinuteState(hourState, filterBySingleTripId, existingTripId, cost, changeAtInterchangeOnly);
             } else {
@@ -90,7 +90,7 @@ public class MinuteState extends TraversalState {
         List<Relationship> towardsDestination = getTowardsDestination(allDeparts);
         if (!towardsDestination.isEmpty()) {
             // we've nearly arrived
-            return builders.routeStation.fromMinuteState(this, node, cost, towardsDestination, tripId, transportMode);
+            return ops.builders.routeStation.fromMinuteState(this, node, cost, towardsDestination, tripId, transportMode);
         }
 
         // outbound service relationships that continue the current trip
@@ -107,9 +107,9 @@ public class MinuteState extends TraversalState {
 
         if (tripFinishedHere) {
             // for a change of trip id we need to get off vehicle, then back on to another service
-            return builders.routeStationEndTrip.fromMinuteState(this, cost, routeStationOutbounds, transportMode);
+            return ops.builders.routeStationEndTrip.fromMinuteState(this, cost, routeStationOutbounds, transportMode);
         } else {
-            return builders.routeStation.fromMinuteState(this, node, cost, routeStationOutbounds, tripId, transportMode);
+            return ops.builders.routeStation.fromMinuteState(this, node, cost, routeStationOutbounds, tripId, transportMode);
         }
     }
 
@@ -122,7 +122,7 @@ public class MinuteState extends TraversalState {
         List<Relationship> results = new ArrayList<>();
         svcRelationships.forEach(relationship -> {
             //String trips = nodeOperations.getTrips(relationship); /// <=== EXPENSIVE TODO
-            IdSet<Trip> trips = nodeOperations.getTrips(relationship);
+            IdSet<Trip> trips = ops.nodeOperations.getTrips(relationship);
             if (trips.contains(tripId)) {
                 results.add(relationship);
             }
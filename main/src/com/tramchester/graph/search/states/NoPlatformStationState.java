@@ -25,19 +25,19 @@ public class NoPlatformStationState extends TraversalState implements NodeId {
         }
 
         public NoPlatformStationState from(NotStartedState notStartedState, Node node, int cost) {
-            return new NoPlatformStationState(notStartedState, getAll(node),
+            return new NoPlatformStationState(notStartedState, getAll(notStartedState, node),
                     cost, node.getId());
         }
 
         public TraversalState fromRouteStation(RouteStationStateOnTrip onTrip, Node node, int cost) {
             // filter so we don't just get straight back on tram if just boarded, or if we are on an existing trip
-            List<Relationship> stationRelationships = filterExcludingEndNode(getAll(node), onTrip);
+            List<Relationship> stationRelationships = filterExcludingEndNode(getAll(onTrip, node), onTrip);
             return new NoPlatformStationState(onTrip, stationRelationships, cost, node.getId());
         }
 
         public TraversalState fromRouteStation(RouteStationStateEndTrip routeStationState, Node node, int cost) {
             // end of a trip, may need to go back to this route station to catch new service
-            return new NoPlatformStationState(routeStationState, getAll(node), cost, node.getId());
+            return new NoPlatformStationState(routeStationState, getAll(routeStationState, node), cost, node.getId());
         }
 
         public TraversalState fromNeighbour(NoPlatformStationState noPlatformStation, Node node, int cost) {
@@ -50,9 +50,9 @@ public class NoPlatformStationState extends TraversalState implements NodeId {
                     cost, node.getId());
         }
 
-        private Iterable<Relationship> getAll(Node node) {
-            return node.getRelationships(OUTGOING, INTERCHANGE_BOARD, BOARD, WALKS_FROM,
-                    BUS_NEIGHBOUR, TRAM_NEIGHBOUR, TRAIN_NEIGHBOUR);
+        private Iterable<Relationship> getAll(TraversalState parent, Node node) {
+            return parent.withWalksFrom(node, node.getRelationships(OUTGOING, INTERCHANGE_BOARD, BOARD, WALKS_FROM,
+                    BUS_NEIGHBOUR, TRAM_NEIGHBOUR, TRAIN_NEIGHBOUR));
         }
     }
 
@@ -67,33 +67,33 @@ public class NoPlatformStationState extends TraversalState implements NodeId {
     @Override
     public TraversalState createNextState(Set<GraphBuilder.Labels> nodeLabels, Node next, JourneyState journeyState, int cost) {
         long nodeId = next.getId();
-        if (destinationNodeIds.contains(nodeId)) {
+        if (ops.isDestination(nodeId)) {
             // TODO Cost of bus depart?
-            return builders.destination.from(this, cost);
+            return ops.builders.destination.from(this, cost);
         }
 
-        return builders.noPlatformStation.fromNeighbour(this, next, cost);
+        return ops.builders.noPlatformStation.fromNeighbour(this, next, cost);
     }
 
     @Override
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node next, JourneyState journeyState, int cost) {
         long nodeId = next.getId();
-        if (destinationNodeIds.contains(nodeId)) {
+        if (ops.isDestination(nodeId)) {
             // TODO Cost of bus depart?
-            return builders.destination.from(this, cost);
+            return ops.builders.destination.from(this, cost);
         }
 
         switch (nodeLabel) {
             case QUERY_NODE:
                 journeyState.connection();
-                return builders.walking.fromNoPlatformStation(this, next, cost);
+                return ops.builders.walking.fromNoPlatformStation(this, next, cost);
             case ROUTE_STATION:
                 return toRouteStation(next, journeyState, cost);
             case TRAM_STATION:
-                return builders.tramStation.fromNeighbour(this, next, cost);
+                return ops.builders.tramStation.fromNeighbour(this, next, cost);
             case BUS_STATION:
             case TRAIN_STATION:
-                return builders.noPlatformStation.fromNeighbour(this, next, cost);
+                return ops.builders.noPlatformStation.fromNeighbour(this, next, cost);
             default:
                 throw new RuntimeException("Unexpected node type: " + nodeLabel + " at " + toString());
         }
@@ -109,7 +109,7 @@ public class NoPlatformStationState extends TraversalState implements NodeId {
             throw new RuntimeException("unable to board vehicle", e);
         }
 
-        return builders.routeStationJustBoarded.fromNoPlatformStation(this, node, cost, actualMode);
+        return ops.builders.routeStationJustBoarded.fromNoPlatformStation(this, node, cost, actualMode);
     }
 
     @Override
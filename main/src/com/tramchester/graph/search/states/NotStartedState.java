@@ -6,6 +6,7 @@ import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.NodeContentsRepository;
 import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.JourneyState;
 import org.neo4j.graphdb.Node;
 
@@ -15,8 +16,9 @@ public class NotStartedState extends TraversalState {
 
     public NotStartedState(SortsPositions sortsPositions, NodeContentsRepository nodeOperations, Set<Long> destinationNodeIds,
                            Set<Station> destinationStation,
-                           LatLong destinationLatLonHint, TramchesterConfig config) {
-        super(sortsPositions, nodeOperations, destinationNodeIds, destinationStation, destinationLatLonHint, config);
+                           LatLong destinationLatLonHint, TramchesterConfig config, WalkingOverlay walkingOverlay) {
+        super(sortsPositions, nodeOperations, destinationNodeIds, destinationStation, destinationLatLonHint, config,
+                walkingOverlay);
     }
 
     @Override
@@ -31,20 +33,20 @@ public class NotStartedState extends TraversalState {
 
     public TraversalState createNextState(Set<GraphBuilder.Labels> nodeLabels, Node firstNode, JourneyState journeyState, int cost) {
         // should only be called for multi-mode stations
-        return builders.noPlatformStation.from(this, firstNode, cost);
+        return ops.builders.noPlatformStation.from(this, firstNode, cost);
     }
 
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node firstNode, JourneyState journeyState, int cost) {
         switch(nodeLabel) {
             case QUERY_NODE:
-                return builders.walking.fromStart(this, firstNode, cost);
+                return ops.builders.walking.fromStart(this, firstNode, cost);
             case TRAM_STATION:
-                return builders.tramStation.fromStart(this, firstNode, cost);
+                return ops.builders.tramStation.fromStart(this, firstNode, cost);
             case BUS_STATION:
             case TRAIN_STATION:
             case FERRY_STATION:
             case SUBWAY_STATION:
-                return builders.noPlatformStation.from(this, firstNode, cost);
+                return ops.builders.noPlatformStation.from(this, firstNode, cost);
         }
         throw new RuntimeException("Unexpected node type: " + nodeLabel);
     }
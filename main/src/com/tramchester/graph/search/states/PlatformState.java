@@ -67,10 +67,10 @@ public class PlatformState extends TraversalState implements NodeId {
         long nodeId = node.getId();
 
         if (nodeLabel == GraphBuilder.Labels.TRAM_STATION) {
-            if (destinationNodeIds.contains(nodeId)) {
-                return builders.destination.from(this, cost);
+            if (ops.isDestination(nodeId)) {
+                return ops.builders.destination.from(this, cost);
             } else {
-                return builders.tramStation.fromPlatform(this, node, cost);
+                return ops.builders.tramStation.fromPlatform(this, node, cost);
             }
         }
 
@@ -81,7 +81,7 @@ public class PlatformState extends TraversalState implements NodeId {
                 throw new RuntimeException("unable to board tram", e);
             }
 
-            return builders.routeStationJustBoarded.fromPlatformState(this, node, cost);
+            return ops.builders.routeStationJustBoarded.fromPlatformState(this, node, cost);
         }
 
         throw new RuntimeException("Unexpected node type: "+nodeLabel);
@@ -51,7 +51,7 @@ public class RouteStationStateEndTrip extends TraversalState {
             case PLATFORM:
                 return toPlatform(nextNode, journeyState, cost);
             case SERVICE:
-                return builders.service.fromRouteStation(this, nextNode, cost);
+                return ops.builders.service.fromRouteStation(this, nextNode, cost);
             case BUS_STATION:
             case TRAIN_STATION:
                 return toStation(nextNode, journeyState, cost);
@@ -71,11 +71,11 @@ public class RouteStationStateEndTrip extends TraversalState {
 
         // if bus station then may have arrived
         long busStationNodeId = nextNode.getId();
-        if (destinationNodeIds.contains(busStationNodeId)) {
-            return builders.destination.from(this, cost);
+        if (ops.isDestination(busStationNodeId)) {
+            return ops.builders.destination.from(this, cost);
         }
 
-        return builders.noPlatformStation.fromRouteStation(this, nextNode, cost);
+        return ops.builders.noPlatformStation.fromRouteStation(this, nextNode, cost);
     }
 
     private TraversalState toPlatform(Node platformNode, JourneyState journeyState, int cost) {
@@ -89,10 +89,10 @@ public class RouteStationStateEndTrip extends TraversalState {
         // TODO Push into PlatformState
         List<Relationship> towardsDest = getTowardsDestination(platformNode.getRelationships(OUTGOING, LEAVE_PLATFORM));
         if (!towardsDest.isEmpty()) {
-            return builders.platform.fromRouteStationTowardsDest(this, towardsDest, platformNode,  cost);
+            return ops.builders.platform.fromRouteStationTowardsDest(this, towardsDest, platformNode,  cost);
         }
 
-        return builders.platform.fromRouteStation(this, platformNode, cost);
+        return ops.builders.platform.fromRouteStation(this, platformNode, cost);
 
     }
 }
@@ -61,7 +61,7 @@ public class RouteStationStateOnTrip extends TraversalState implements NodeId {
             case PLATFORM:
                 return toPlatform(nextNode, journeyState, cost);
             case SERVICE:
-                return builders.service.fromRouteStation(this, tripId, nextNode, cost);
+                return ops.builders.service.fromRouteStation(this, tripId, nextNode, cost);
             case BUS_STATION:
             case TRAIN_STATION:
                 return toStation(nextNode, journeyState, cost);
@@ -80,11 +80,11 @@ public class RouteStationStateOnTrip extends TraversalState implements NodeId {
 
         // if bus station then may have arrived
         long busStationNodeId = stationNode.getId();
-        if (destinationNodeIds.contains(busStationNodeId)) {
-            return builders.destination.from(this, cost);
+        if (ops.isDestination(busStationNodeId)) {
+            return ops.builders.destination.from(this, cost);
         }
 
-        return builders.noPlatformStation.fromRouteStation(this, stationNode, cost);
+        return ops.builders.noPlatformStation.fromRouteStation(this, stationNode, cost);
     }
 
     private TraversalState toPlatform(Node platformNode, JourneyState journeyState, int cost) {
@@ -94,9 +94,9 @@ public class RouteStationStateOnTrip extends TraversalState implements NodeId {
             // TODO Push into PlatformState
             List<Relationship> towardsDest = getTowardsDestination(platformNode.getRelationships(OUTGOING, LEAVE_PLATFORM));
             if (!towardsDest.isEmpty()) {
-                return builders.platform.fromRouteStationTowardsDest(this, towardsDest, platformNode,  cost);
+                return ops.builders.platform.fromRouteStationTowardsDest(this, towardsDest, platformNode,  cost);
             }
-            return builders.platform.fromRouteStationOnTrip(this, platformNode, cost);
+            return ops.builders.platform.fromRouteStationOnTrip(this, platformNode, cost);
         }
         catch (TramchesterException exception) {
             throw new RuntimeException("Unable to process platform", exception);
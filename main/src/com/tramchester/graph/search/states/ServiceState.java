@@ -48,7 +48,7 @@ public class ServiceState extends TraversalState {
     @Override
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
         if (nodeLabel == GraphBuilder.Labels.HOUR) {
-            return builders.hour.FromService(this, node, cost, maybeExistingTrip);
+            return ops.builders.hour.FromService(this, node, cost, maybeExistingTrip);
         }
         throw new RuntimeException("Unexpected node type: "+nodeLabel);
     }
@@ -17,14 +17,14 @@ public class TramStationState extends TraversalState {
 
         public TraversalState fromPlatform(PlatformState platformState, Node node, int cost) {
             return new TramStationState(platformState,
-                    filterExcludingEndNode(
-                            node.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM, BUS_NEIGHBOUR, TRAIN_NEIGHBOUR), platformState),
+                    filterExcludingEndNode(platformState.withWalksFrom(node,
+                            node.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM, BUS_NEIGHBOUR, TRAIN_NEIGHBOUR)), platformState),
                     cost, node.getId());
         }
 
         public TraversalState fromStart(NotStartedState notStartedState, Node node, int cost) {
-            return new TramStationState(notStartedState,
-                    node.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM, BUS_NEIGHBOUR, TRAIN_NEIGHBOUR),
+            return new TramStationState(notStartedState, notStartedState.withWalksFrom(node,
+                    node.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM, BUS_NEIGHBOUR, TRAIN_NEIGHBOUR)),
                     cost, node.getId());
         }
 
@@ -52,20 +52,20 @@ public class TramStationState extends TraversalState {
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node node,
                                           JourneyState journeyState, int cost) {
         long nodeId = node.getId();
-        if (destinationNodeIds.contains(nodeId)) {
+        if (ops.isDestination(nodeId)) {
             // TODO Cost of platform depart?
-            return builders.destination.from(this, cost);
+            return ops.builders.destination.from(this, cost);
         }
 
         switch (nodeLabel) {
             case PLATFORM:
-                return builders.platform.from(this, node, cost);
+                return ops.builders.platform.from(this, node, cost);
             case QUERY_NODE:
                 journeyState.connection();
-                return builders.walking.fromTramStation(this, node, cost);
+                return ops.builders.walking.fromTramStation(this, node, cost);
             case BUS_STATION:
             case TRAIN_STATION:
-                return builders.noPlatformStation.fromNeighbour(this, node, cost);
+                return ops.builders.noPlatformStation.fromNeighbour(this, node, cost);
             default:
                 throw new RuntimeException("Unexpected node type: "+nodeLabel+ " at " + toString());
 
@@ -0,0 +1,70 @@
+package com.tramchester.graph.search.states;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.geo.SortsPositions;
+import com.tramchester.graph.NodeContentsRepository;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * Everything about a search that does not vary between branches, created once per search and shared by all the
+ * traversal states so each state only holds its own cost and outbound relationships
+ */
+class TraversalOps {
+    final NodeContentsRepository nodeOperations;
+    final Set<Long> destinationNodeIds;
+    final TraversalState.Builders builders;
+
+    private final IdSet<Station> destinationStationIds;
+    private final IdSet<Route> destinationRouteIds;
+    private final WalkingOverlay walkingOverlay;
+
+    TraversalOps(SortsPositions sortsPositions, NodeContentsRepository nodeOperations, Set<Long> destinationNodeIds,
+                 Set<Station> destinationStations, LatLong destinationLatLonHint, TramchesterConfig config,
+                 WalkingOverlay walkingOverlay) {
+        this.nodeOperations = nodeOperations;
+        this.destinationNodeIds = destinationNodeIds;
+        this.walkingOverlay = walkingOverlay;
+        this.destinationStationIds = destinationStations.stream().collect(IdSet.collector());
+        this.destinationRouteIds = destinationStations.stream().map(Station::getRoutes).flatMap(Collection::stream).
+                collect(IdSet.collector());
+        this.builders = new TraversalState.Builders(sortsPositions, destinationLatLonHint, config);
+    }
+
+    boolean isDestination(long nodeId) {
+        return destinationNodeIds.contains(nodeId);
+    }
+
+    boolean hasDestinationRoute(IdFor<Route> routeId) {
+        return destinationRouteIds.contains(routeId);
+    }
+
+    // walks to a destination location are not in the graph, see WalkingOverlay
+    Iterable<Relationship> withWalksFrom(Node node, Iterable<Relationship> relationships) {
+        return walkingOverlay.withOverlay(node, relationships);
+    }
+
+    List<Relationship> getTowardsDestination(Iterable<Relationship> outgoing) {
+        // towards final destination, just follow this one
+        List<Relationship> towardsDestination = new ArrayList<>();
+        outgoing.forEach(depart ->
+        {
+            if (destinationStationIds.contains(GraphProps.getStationIdFrom(depart))) {
+                towardsDestination.add(depart);
+            }
+        });
+        return towardsDestination;
+    }
+}
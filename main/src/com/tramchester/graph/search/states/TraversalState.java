@@ -3,13 +3,12 @@ package com.tramchester.graph.search.states;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.Route;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.NodeContentsRepository;
 import com.tramchester.graph.graphbuild.GraphBuilder;
-import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.JourneyState;
 import org.jetbrains.annotations.NotNull;
 import org.neo4j.graphdb.Node;
@@ -19,52 +18,31 @@ import java.util.*;
 
 import static java.lang.String.format;
 
+/***
+ * One per branch of the traversal so kept compact, per search details are shared via TraversalOps and there are
+ * no references to parent or child states, so finished branches can be collected during the search
+ */
 public abstract class TraversalState implements ImmuatableTraversalState {
 
     private final Iterable<Relationship> outbounds;
     private final int costForLastEdge;
     private final int parentCost;
-    private TraversalState child;
-    private final TraversalState parent;
 
-    private final IdSet<Station> destinationStationIds;
-    private final IdSet<Route> destinationRouteIds;
-
-    protected final NodeContentsRepository nodeOperations;
-    protected final Set<Long> destinationNodeIds;
-    protected final Builders builders;
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(parent);
-    }
+    protected final TraversalOps ops;
 
     // initial only
     protected TraversalState(SortsPositions sortsPositions, NodeContentsRepository nodeOperations,
                              Set<Long> destinationNodeIds, Set<Station> destinationStations,
-                             LatLong destinationLatLonHint, TramchesterConfig config) {
-        this.nodeOperations = nodeOperations;
-        this.destinationNodeIds = destinationNodeIds;
-        this.destinationStationIds = destinationStations.stream().collect(IdSet.collector());
-        this.destinationRouteIds = destinationStations.stream().map(Station::getRoutes).flatMap(Collection::stream).
-                collect(IdSet.collector());
-
+                             LatLong destinationLatLonHint, TramchesterConfig config, WalkingOverlay walkingOverlay) {
+        this.ops = new TraversalOps(sortsPositions, nodeOperations, destinationNodeIds, destinationStations,
+                destinationLatLonHint, config, walkingOverlay);
         this.costForLastEdge = 0;
         this.parentCost = 0;
-        this.parent = null;
-        this.outbounds = new ArrayList<>();
-
-        this.builders = new Builders(sortsPositions, destinationLatLonHint, config);
+        this.outbounds = Collections.emptyList();
     }
 
     protected TraversalState(TraversalState parent, Iterable<Relationship> outbounds, int costForLastEdge) {
-        this.nodeOperations = parent.nodeOperations;
-        this.destinationNodeIds = parent.destinationNodeIds;
-        this.destinationStationIds = parent.destinationStationIds;
-        this.destinationRouteIds = parent.destinationRouteIds;
-        this.builders = parent.builders;
-
-        this.parent = parent;
+        this.ops = parent.ops;
         this.outbounds = outbounds;
         this.costForLastEdge = costForLastEdge;
         this.parentCost = parent.getTotalCost();
@@ -83,25 +61,19 @@ public abstract class TraversalState implements ImmuatableTraversalState {
                                     JourneyState journeyState, int cost) {
         if (nodeLabels.size()==1) {
             GraphBuilder.Labels nodeLabel = nodeLabels.iterator().next();
-            child = createNextState(nodeLabel, node, journeyState, cost);
-        } else {
-            child = createNextState(nodeLabels, node, journeyState, cost);
-        }
-
-        return child;
-    }
-
-    public void dispose() {
-        if (child!=null) {
-            child.dispose();
-            child = null;
+            return createNextState(nodeLabel, node, journeyState, cost);
         }
+        return createNextState(nodeLabels, node, journeyState, cost);
     }
 
     public Iterable<Relationship> getOutbounds() {
         return outbounds;
     }
 
+    protected Iterable<Relationship> withWalksFrom(Node node, Iterable<Relationship> relationships) {
+        return ops.withWalksFrom(node, relationships);
+    }
+
     // TODO Return iterable instead?
     protected static List<Relationship> filterExcludingEndNode(Iterable<Relationship> relationships, NodeId hasNodeId) {
         long nodeId = hasNodeId.nodeId();
@@ -116,15 +88,7 @@ public abstract class TraversalState implements ImmuatableTraversalState {
 
     @NotNull
     protected List<Relationship> getTowardsDestination(Iterable<Relationship> outgoing) {
-        // towards final destination, just follow this one
-        List<Relationship> towardsDestination = new ArrayList<>();
-        outgoing.forEach(depart ->
-        {
-            if (destinationStationIds.contains(GraphProps.getStationIdFrom(depart))) {
-                towardsDestination.add(depart);
-            }
-        });
-        return towardsDestination;
+        return ops.getTowardsDestination(outgoing);
     }
 
     public int getTotalCost() {
@@ -139,13 +103,12 @@ public abstract class TraversalState implements ImmuatableTraversalState {
     public String toString() {
         return "TraversalState{" +
                 "costForLastEdge=" + costForLastEdge +
-                ", parentCost=" + parentCost + System.lineSeparator() +
-                ", parent=" + parent +
+                ", parentCost=" + parentCost +
                 '}';
     }
 
     public boolean hasDestinationRoute(IdFor<Route> routeId) {
-        return destinationRouteIds.contains(routeId);
+        return ops.hasDestinationRoute(routeId);
     }
 
     public static class Builders {
@@ -37,16 +37,16 @@ public class WalkingState extends TraversalState {
     @Override
     public TraversalState createNextState(GraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
         // could be we've walked to our destination
-        if (destinationNodeIds.contains(node.getId())) {
-            return builders.destination.from(this, cost);
+        if (ops.isDestination(node.getId())) {
+            return ops.builders.destination.from(this, cost);
         }
 
         switch (nodeLabel) {
             case TRAM_STATION:
-                return builders.tramStation.fromWalking(this, node, cost);
+                return ops.builders.tramStation.fromWalking(this, node, cost);
             case BUS_STATION:
             case TRAIN_STATION:
-                return builders.noPlatformStation.from(this, node, cost);
+                return ops.builders.noPlatformStation.from(this, node, cost);
             default:
                 throw new RuntimeException("Unexpected node type: " + nodeLabel + " at " + toString());
         }
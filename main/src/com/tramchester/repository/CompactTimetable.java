@@ -0,0 +1,540 @@
+package com.tramchester.repository;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.GraphProperty;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.ServiceCalendar;
+import com.tramchester.domain.id.HasId;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.metrics.Timing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+/***
+ * Read only copy of the timetable held in TransportData with stations, routes, route stations, services and trips
+ * mapped to dense int indexes. Stop calls are held in parallel int arrays, grouped by trip in calling order, and
+ * indexed per station by departure time. Times are minutes since the start of the service day, next day > 24*60.
+ */
+@LazySingleton
+public class CompactTimetable {
+    private static final Logger logger = LoggerFactory.getLogger(CompactTimetable.class);
+
+    public static final int MINS_IN_DAY = 24 * 60;
+
+    // approx. sizes on a 64 bit JVM with compressed oops, only used to report the saving over the object model
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int HASH_ENTRY = 32 + REFERENCE;
+    private static final int TREE_ENTRY = 40;
+    private static final int BOXED_INT = 16;
+    private static final int STOP_CALL = OBJECT_HEADER + (5 * REFERENCE) + 4 + REFERENCE;
+
+    private final TransportData transportData;
+
+    private final IndexOf<Station> stations;
+    private final IndexOf<Route> routes;
+    private final IndexOf<RouteStation> routeStations;
+    private final IndexOf<Service> services;
+    private final IndexOf<Trip> trips;
+
+    // per trip, calls for trip t are at tripFirstCall[t] until tripFirstCall[t+1]
+    private int[] tripFirstCall;
+    private int[] tripService;
+    private int[] tripRoute;
+
+    // per call
+    private int[] callStation;
+    private int[] callRouteStation;
+    private int[] callArrival;
+    private int[] callDeparture;
+
+    // per station, calls at station s are stationCalls[stationFirstCall[s]] until stationFirstCall[s+1], by departure
+    private int[] stationFirstCall;
+    private int[] stationCalls;
+
+    // per service
+    private int[] serviceEarliest;
+    private int[] serviceLatest;
+    private BitSet[] serviceOperatingDays;
+    private LocalDate firstDate;
+
+    // per route, from the trip with the most calls
+    private int[][] routeCallingStations;
+
+    @Inject
+    public CompactTimetable(TransportData transportData) {
+        this.transportData = transportData;
+        stations = new IndexOf<>();
+        routes = new IndexOf<>();
+        routeStations = new IndexOf<>();
+        services = new IndexOf<>();
+        trips = new IndexOf<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        try (Timing ignored = new Timing(logger, "build compact timetable")) {
+            transportData.getStations().forEach(stations::add);
+            transportData.getRoutes().forEach(routes::add);
+            transportData.getRouteStations().forEach(routeStations::add);
+            transportData.getServices().forEach(services::add);
+            transportData.getTrips().forEach(trips::add);
+
+            populateCalls();
+            populateStationCalls();
+            populateServices();
+            populateRouteCallingStations();
+        }
+        logger.info(format("Compact timetable for %s stations, %s services, %s trips and %s calls uses %s KB, " +
+                "object model approx. %s KB", stations.size(), services.size(), trips.size(), numberOfCalls(),
+                getFootprintBytes() / 1024, getObjectModelEstimateBytes() / 1024));
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        stations.clear();
+        routes.clear();
+        routeStations.clear();
+        services.clear();
+        trips.clear();
+        logger.info("disposed");
+    }
+
+    private void populateCalls() {
+        int numberOfTrips = trips.size();
+        tripFirstCall = new int[numberOfTrips + 1];
+        tripService = new int[numberOfTrips];
+        tripRoute = new int[numberOfTrips];
+
+        int total = 0;
+        for (int trip = 0; trip < numberOfTrips; trip++) {
+            tripFirstCall[trip] = total;
+            total = total + trips.get(trip).getStopCalls().numberOfCallingPoints();
+        }
+        tripFirstCall[numberOfTrips] = total;
+
+        callStation = new int[total];
+        callRouteStation = new int[total];
+        callArrival = new int[total];
+        callDeparture = new int[total];
+
+        for (int trip = 0; trip < numberOfTrips; trip++) {
+            Trip current = trips.get(trip);
+            Route route = current.getRoute();
+            tripService[trip] = services.indexOf(current.getService().getId());
+            tripRoute[trip] = routes.indexOf(route.getId());
+
+            List<StopCall> stopCalls = current.getStopCalls().stream().collect(Collectors.toList());
+            int call = tripFirstCall[trip];
+            int previous = 0;
+            for (StopCall stopCall : stopCalls) {
+                // some feeds do not mark times after midnight as next day, keep times increasing along the trip
+                int arrival = asMinutes(stopCall.getArrivalTime());
+                while (arrival < previous) {
+                    arrival = arrival + MINS_IN_DAY;
+                }
+                int departure = asMinutes(stopCall.getDepartureTime());
+                while (departure < arrival) {
+                    departure = departure + MINS_IN_DAY;
+                }
+                callStation[call] = stations.indexOf(stopCall.getStationId());
+                callRouteStation[call] = routeStations.indexOf(RouteStation.createId(stopCall.getStationId(), route.getId()));
+                callArrival[call] = arrival;
+                callDeparture[call] = departure;
+                previous = departure;
+                call++;
+            }
+        }
+    }
+
+    private void populateStationCalls() {
+        int numberOfStations = stations.size();
+        stationFirstCall = new int[numberOfStations + 1];
+        for (int station : callStation) {
+            if (station >= 0) {
+                stationFirstCall[station + 1]++;
+            }
+        }
+        for (int station = 0; station < numberOfStations; station++) {
+            stationFirstCall[station + 1] = stationFirstCall[station + 1] + stationFirstCall[station];
+        }
+
+        int[] next = Arrays.copyOf(stationFirstCall, numberOfStations);
+        stationCalls = new int[stationFirstCall[numberOfStations]];
+        for (int call = 0; call < callStation.length; call++) {
+            int station = callStation[call];
+            if (station >= 0) {
+                stationCalls[next[station]++] = call;
+            }
+        }
+
+        for (int station = 0; station < numberOfStations; station++) {
+            int from = stationFirstCall[station];
+            int to = stationFirstCall[station + 1];
+            int[] sorted = IntStream.of(Arrays.copyOfRange(stationCalls, from, to)).boxed().
+                    sorted(Comparator.comparingInt(call -> callDeparture[call])).
+                    mapToInt(Integer::intValue).toArray();
+            System.arraycopy(sorted, 0, stationCalls, from, sorted.length);
+        }
+    }
+
+    private void populateServices() {
+        int numberOfServices = services.size();
+        serviceEarliest = new int[numberOfServices];
+        serviceLatest = new int[numberOfServices];
+        Arrays.fill(serviceEarliest, Integer.MAX_VALUE);
+        Arrays.fill(serviceLatest, Integer.MIN_VALUE);
+
+        for (int trip = 0; trip < trips.size(); trip++) {
+            int service = tripService[trip];
+            if (service < 0) {
+                continue;
+            }
+            for (int call = tripFirstCall[trip]; call < tripFirstCall[trip + 1]; call++) {
+                serviceEarliest[service] = Math.min(serviceEarliest[service], callDeparture[call]);
+                serviceLatest[service] = Math.max(serviceLatest[service], callDeparture[call]);
+            }
+        }
+
+        firstDate = null;
+        for (int service = 0; service < numberOfServices; service++) {
+            Service current = services.get(service);
+            if (current.hasCalendar()) {
+                LocalDate start = current.getCalendar().getStartDate();
+                if (firstDate == null || start.isBefore(firstDate)) {
+                    firstDate = start;
+                }
+                for (LocalDate additional : current.getCalendar().getAdditional()) {
+                    if (additional.isBefore(firstDate)) {
+                        firstDate = additional;
+                    }
+                }
+            }
+        }
+
+        serviceOperatingDays = new BitSet[numberOfServices];
+        for (int service = 0; service < numberOfServices; service++) {
+            Service current = services.get(service);
+            BitSet days = new BitSet();
+            if (current.hasCalendar()) {
+                ServiceCalendar calendar = current.getCalendar();
+                for (LocalDate date = calendar.getStartDate(); !date.isAfter(calendar.getEndDate()); date = date.plusDays(1)) {
+                    if (calendar.operatesOn(date)) {
+                        days.set(dayOffset(date));
+                    }
+                }
+                calendar.getAdditional().stream().filter(calendar::operatesOn).
+                        forEach(date -> days.set(dayOffset(date)));
+            } else {
+                logger.warn("Missing calendar for service " + current.getId());
+            }
+            serviceOperatingDays[service] = days;
+        }
+    }
+
+    private void populateRouteCallingStations() {
+        routeCallingStations = new int[routes.size()][];
+        int[] longest = new int[routes.size()];
+        Arrays.fill(longest, -1);
+
+        for (int trip = 0; trip < trips.size(); trip++) {
+            int route = tripRoute[trip];
+            if (route < 0) {
+                continue;
+            }
+            // ASSUME: longest trips correspond to full end to end journeys on the whole route
+            if (longest[route] == -1 || numberOfCalls(trip) > numberOfCalls(longest[route])) {
+                longest[route] = trip;
+            }
+        }
+
+        for (int route = 0; route < routes.size(); route++) {
+            int trip = longest[route];
+            routeCallingStations[route] = (trip == -1) ? new int[0] :
+                    Arrays.copyOfRange(callStation, tripFirstCall[trip], tripFirstCall[trip + 1]);
+        }
+    }
+
+    private int dayOffset(LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(firstDate, date);
+    }
+
+    public int getStationIndex(IdFor<Station> stationId) {
+        return stations.indexOf(stationId);
+    }
+
+    public Station getStation(int station) {
+        return stations.get(station);
+    }
+
+    public int numberOfStations() {
+        return stations.size();
+    }
+
+    public int getRouteIndex(IdFor<Route> routeId) {
+        return routes.indexOf(routeId);
+    }
+
+    public Route getRoute(int route) {
+        return routes.get(route);
+    }
+
+    public int numberOfRoutes() {
+        return routes.size();
+    }
+
+    public int getRouteStationIndex(IdFor<RouteStation> routeStationId) {
+        return routeStations.indexOf(routeStationId);
+    }
+
+    public RouteStation getRouteStation(int routeStation) {
+        return routeStations.get(routeStation);
+    }
+
+    public int numberOfRouteStations() {
+        return routeStations.size();
+    }
+
+    public int getServiceIndex(IdFor<Service> serviceId) {
+        return services.indexOf(serviceId);
+    }
+
+    public Service getService(int service) {
+        return services.get(service);
+    }
+
+    public int numberOfServices() {
+        return services.size();
+    }
+
+    public int getTripIndex(IdFor<Trip> tripId) {
+        return trips.indexOf(tripId);
+    }
+
+    public boolean hasTripId(IdFor<Trip> tripId) {
+        return trips.indexOf(tripId) >= 0;
+    }
+
+    public Trip getTrip(int trip) {
+        return trips.get(trip);
+    }
+
+    public int numberOfTrips() {
+        return trips.size();
+    }
+
+    public int getServiceFor(int trip) {
+        return tripService[trip];
+    }
+
+    public int getRouteFor(int trip) {
+        return tripRoute[trip];
+    }
+
+    /***
+     * @return index of the first call of the trip, calls of a trip are contiguous and in calling order
+     */
+    public int getFirstCall(int trip) {
+        return tripFirstCall[trip];
+    }
+
+    public int numberOfCalls(int trip) {
+        return tripFirstCall[trip + 1] - tripFirstCall[trip];
+    }
+
+    public int numberOfCalls() {
+        return callStation.length;
+    }
+
+    public int getCallStation(int call) {
+        return callStation[call];
+    }
+
+    public int getCallRouteStation(int call) {
+        return callRouteStation[call];
+    }
+
+    public int getArrival(int call) {
+        return callArrival[call];
+    }
+
+    public int getDeparture(int call) {
+        return callDeparture[call];
+    }
+
+    /***
+     * @return calls at the station departing at or after minutes, in departure order
+     */
+    public IntStream getCallsDepartingFrom(int station, int minutes) {
+        int low = stationFirstCall[station];
+        int high = stationFirstCall[station + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (callDeparture[stationCalls[mid]] < minutes) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return IntStream.range(low, stationFirstCall[station + 1]).map(position -> stationCalls[position]);
+    }
+
+    public boolean isRunningOn(int service, LocalDate date) {
+        if (firstDate == null || date.isBefore(firstDate)) {
+            return false;
+        }
+        return serviceOperatingDays[service].get(dayOffset(date));
+    }
+
+    /***
+     * @return indexes of the services running on date
+     */
+    public BitSet getServicesRunningOn(LocalDate date) {
+        BitSet running = new BitSet(services.size());
+        for (int service = 0; service < services.size(); service++) {
+            if (isRunningOn(service, date)) {
+                running.set(service);
+            }
+        }
+        return running;
+    }
+
+    public int getServiceEarliest(int service) {
+        return serviceEarliest[service];
+    }
+
+    public int getServiceLatest(int service) {
+        return serviceLatest[service];
+    }
+
+    /***
+     * @return key for data derived from these indexes and saved to disk, changes if the data versions or the
+     * stations or route stations, or their order, change
+     */
+    public String getVersionKey() {
+        String versions = transportData.getDataSourceInfo().stream().
+                map(info -> info.getID().getName() + ":" + info.getVersion()).
+                sorted().
+                collect(Collectors.joining(","));
+        int stationsHash = Arrays.hashCode(IntStream.range(0, stations.size()).
+                mapToObj(station -> stations.get(station).getId().getGraphId()).toArray());
+        int routeStationsHash = Arrays.hashCode(IntStream.range(0, routeStations.size()).
+                mapToObj(routeStation -> routeStations.get(routeStation).getId().getGraphId()).toArray());
+        return format("%s|%s|%s|%s|%s", versions, stations.size(), stationsHash,
+                routeStations.size(), routeStationsHash);
+    }
+
+    /***
+     * @return station indexes in calling order, see RouteCallingStations
+     */
+    public int[] getCallingStationsFor(int route) {
+        return routeCallingStations[route];
+    }
+
+    /***
+     * @return bytes used by the arrays in this timetable, excluding the id to index lookups
+     */
+    public long getFootprintBytes() {
+        long ints = tripFirstCall.length + tripService.length + tripRoute.length
+                + callStation.length + callRouteStation.length + callArrival.length + callDeparture.length
+                + stationFirstCall.length + stationCalls.length
+                + serviceEarliest.length + serviceLatest.length;
+        long bytes = ints * Integer.BYTES;
+        for (BitSet days : serviceOperatingDays) {
+            bytes = bytes + OBJECT_HEADER + (days.size() / Byte.SIZE);
+        }
+        for (int[] callingStations : routeCallingStations) {
+            bytes = bytes + OBJECT_HEADER + ((long) callingStations.length * Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    /***
+     * @return rough size of the stop calls, their per trip ordering and the calendar of the object model this
+     * timetable was built from, times are shared so not counted
+     */
+    public long getObjectModelEstimateBytes() {
+        long bytes = (long) numberOfCalls() * (STOP_CALL + TREE_ENTRY + BOXED_INT);
+        for (int trip = 0; trip < trips.size(); trip++) {
+            // held by id and in the trips of the service and route
+            bytes = bytes + (3 * HASH_ENTRY) + idSize(trips.get(trip));
+        }
+        for (int service = 0; service < services.size(); service++) {
+            bytes = bytes + HASH_ENTRY + idSize(services.get(service));
+        }
+        return bytes;
+    }
+
+    private static long idSize(HasId<?> item) {
+        // StringIdFor, its String and the backing byte array
+        return OBJECT_HEADER + REFERENCE + OBJECT_HEADER + REFERENCE + 8 + OBJECT_HEADER + 4 +
+                item.getId().getGraphId().length();
+    }
+
+    public static int asMinutes(TramTime time) {
+        int minutes = time.getMinuteOfDay();
+        return time.isNextDay() ? minutes + MINS_IN_DAY : minutes;
+    }
+
+    public static TramTime asTramTime(int minutes) {
+        if (minutes >= 2 * MINS_IN_DAY) {
+            throw new RuntimeException("Cannot represent times more than a day ahead, minutes was " + minutes);
+        }
+        int minuteOfDay = minutes % MINS_IN_DAY;
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return minutes >= MINS_IN_DAY ? TramTime.nextDay(hour, minute) : TramTime.of(hour, minute);
+    }
+
+    private static class IndexOf<T extends HasId<T> & GraphProperty> {
+        private final Map<IdFor<T>, Integer> indexes;
+        private final List<T> items;
+
+        private IndexOf() {
+            indexes = new HashMap<>();
+            items = new ArrayList<>();
+        }
+
+        private void add(T item) {
+            indexes.put(item.getId(), items.size());
+            items.add(item);
+        }
+
+        private int indexOf(IdFor<T> id) {
+            return indexes.getOrDefault(id, -1);
+        }
+
+        private T get(int index) {
+            return items.get(index);
+        }
+
+        private int size() {
+            return items.size();
+        }
+
+        private void clear() {
+            indexes.clear();
+            items.clear();
+        }
+    }
+}
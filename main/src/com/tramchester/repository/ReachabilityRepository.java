@@ -7,15 +7,18 @@ import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.places.RouteStation;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
-import com.tramchester.graph.RouteReachable;
+import com.tramchester.metrics.Timing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 
@@ -23,110 +26,262 @@ import static java.lang.String.format;
 /**
 * Builds a matrix representing the reachability of any tram station from a specific route station
 * Used for journey planning optimisation.
+* One bit per route station and station, built from the calls in the CompactTimetable rather than the graph, and
+* saved next to the graph DB so a warm start with the same data versions only reads it back.
 */
 @LazySingleton
 public class ReachabilityRepository {
     private static final Logger logger = LoggerFactory.getLogger(ReachabilityRepository.class);
 
-    private final TransportData transportData;
+    public static final String FILE_SUFFIX = ".reachable";
+
+    private final CompactTimetable timetable;
+    private final InterchangeRepository interchangeRepository;
     private final TramchesterConfig config;
-    private final RouteReachable routeReachable;
-    private final Map<TransportMode, Repository> repositorys;
+    private final Set<TransportMode> modes;
+
+    private int wordsPerRow;
+    // route stations on a route that reaches an interchange, from there every station is reachable
+    private BitSet canReachInterchange;
+    // per route station, bits by station index, null if it can reach an interchange or is not for a configured mode
+    private long[][] reachableFrom;
 
     @Inject
-    public ReachabilityRepository(RouteReachable routeReachable, TransportData transportData, TramchesterConfig config) {
-        this.routeReachable = routeReachable;
-        this.transportData = transportData;
+    public ReachabilityRepository(CompactTimetable timetable, InterchangeRepository interchangeRepository,
+                                  TramchesterConfig config) {
+        this.timetable = timetable;
+        this.interchangeRepository = interchangeRepository;
         this.config = config;
-        repositorys = new HashMap<>();
+        modes = EnumSet.noneOf(TransportMode.class);
+        canReachInterchange = new BitSet();
+        reachableFrom = new long[0][];
     }
 
     @PreDestroy
     public void dispose() {
-        repositorys.values().forEach(Repository::dispose);
-        repositorys.clear();
+        modes.clear();
+        canReachInterchange = new BitSet();
+        reachableFrom = new long[0][];
     }
 
     @PostConstruct
     public void start() {
         logger.info("start");
-        config.getTransportModes().forEach(this::buildRepository);
-        //buildRepository(TransportMode.Tram);
-        logger.info("started");
-    }
-
-    private void buildRepository(TransportMode mode) {
-
-        logger.info("Building for " + mode);
-        Set<RouteStation> routeStations = transportData.getRouteStations()
-                .stream().
-                filter(routeStation -> routeStation.getTransportModes().contains(mode)).
-                collect(Collectors.toSet());
-
-        Repository repository = new Repository();
-        repositorys.put(mode, repository);
+        modes.addAll(config.getTransportModes());
+        wordsPerRow = (timetable.numberOfStations() + Long.SIZE - 1) / Long.SIZE;
 
-        repository.populateFor(routeStations, routeReachable);
-
-        logger.info("Done for " + mode);
+        Path file = getFile();
+        String key = createKey();
+        if (!load(file, key)) {
+            try (Timing ignored = new Timing(logger, "build reachability for " + modes)) {
+                build();
+            }
+            save(file, key);
+        }
+        logger.info(format("Reachability for %s route stations, %s can reach an interchange, matrix uses %s KB",
+                reachableFrom.length, canReachInterchange.cardinality(), getFootprintBytes() / 1024));
+        logger.info("started");
     }
 
     public boolean stationReachable(RouteStation routeStation, Station destinationStation) {
         TransportMode transportMode = routeStation.getRoute().getTransportMode();
 
-        if (!repositorys.containsKey(transportMode)) {
+        if (!modes.contains(transportMode)) {
             String msg = "Cannot find repository for " + transportMode;
             logger.error(msg);
             throw new RuntimeException(msg);
         }
 
-        return repositorys.get(transportMode).stationReachable(routeStation.getId(), destinationStation.getId());
+        int start = timetable.getRouteStationIndex(routeStation.getId());
+        if (start < 0) {
+            return false;
+        }
+        if (canReachInterchange.get(start)) {
+            return true;
+        }
+        long[] row = reachableFrom[start];
+        int destination = timetable.getStationIndex(destinationStation.getId());
+        if (row == null || destination < 0) {
+            return false;
+        }
+        return (row[destination / Long.SIZE] & (1L << destination)) != 0;
     }
 
-    private static class Repository {
-        private final IdSet<RouteStation> canReachInterchange;
-        private final Map<IdFor<RouteStation>, IdSet<Station>> reachableFrom;
+    private void build() {
+        int numberOfRouteStations = timetable.numberOfRouteStations();
+        int[][] next = createNextRouteStations(numberOfRouteStations);
+        Map<TransportMode, BitSet> interchanges = createInterchanges();
+        int[] stationFor = IntStream.range(0, numberOfRouteStations).
+                map(routeStation -> timetable.getStationIndex(timetable.getRouteStation(routeStation).getStationId())).
+                toArray();
+
+        BitSet reachesInterchange = new BitSet(numberOfRouteStations);
+        long[][] rows = new long[numberOfRouteStations][];
+
+        IntStream.range(0, numberOfRouteStations).parallel().forEach(start -> {
+            RouteStation routeStation = timetable.getRouteStation(start);
+            BitSet interchangesForMode = interchanges.get(routeStation.getTransportMode());
+            if (interchangesForMode == null) {
+                return;
+            }
+            long[] row = new long[wordsPerRow];
+            if (reachable(start, next, stationFor, interchangesForMode, row)) {
+                synchronized (reachesInterchange) {
+                    reachesInterchange.set(start);
+                }
+            } else {
+                rows[start] = row;
+            }
+        });
+
+        canReachInterchange = reachesInterchange;
+        reachableFrom = rows;
+    }
 
-        private Repository() {
-            canReachInterchange = new IdSet<>();
-            reachableFrom = new HashMap<>();
+    /***
+     * Stations reachable from start along the route, including start, go into row.
+     * @return true as soon as an interchange is found
+     */
+    private static boolean reachable(int start, int[][] next, int[] stationFor, BitSet interchanges, long[] row) {
+        BitSet visited = new BitSet();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(start);
+        visited.set(start);
+        while (!pending.isEmpty()) {
+            int routeStation = pending.pop();
+            int station = stationFor[routeStation];
+            if (interchanges.get(station)) {
+                return true;
+            }
+            row[station / Long.SIZE] |= (1L << station);
+            for (int following : next[routeStation]) {
+                if (!visited.get(following)) {
+                    visited.set(following);
+                    pending.push(following);
+                }
+            }
         }
+        return false;
+    }
 
-        public void dispose() {
-            canReachInterchange.clear();
-            reachableFrom.clear();
+    // per route station, the route stations called at next by any trip, same as the ON_ROUTE relationships
+    private int[][] createNextRouteStations(int numberOfRouteStations) {
+        List<Set<Integer>> next = new ArrayList<>(numberOfRouteStations);
+        for (int routeStation = 0; routeStation < numberOfRouteStations; routeStation++) {
+            next.add(new HashSet<>());
         }
+        for (int trip = 0; trip < timetable.numberOfTrips(); trip++) {
+            int first = timetable.getFirstCall(trip);
+            int last = first + timetable.numberOfCalls(trip);
+            for (int call = first; call + 1 < last; call++) {
+                next.get(timetable.getCallRouteStation(call)).add(timetable.getCallRouteStation(call + 1));
+            }
+        }
+        int[][] result = new int[numberOfRouteStations][];
+        for (int routeStation = 0; routeStation < numberOfRouteStations; routeStation++) {
+            result[routeStation] = next.get(routeStation).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
 
-        public void populateFor(Set<RouteStation> startingPoints, RouteReachable routeReachable) {
-            logger.info(format("Build repository for %s routestations", startingPoints.size()));
+    private Map<TransportMode, BitSet> createInterchanges() {
+        Map<TransportMode, BitSet> interchanges = new EnumMap<>(TransportMode.class);
+        modes.forEach(mode -> {
+            BitSet stations = new BitSet(timetable.numberOfStations());
+            IdSet<Station> forMode = interchangeRepository.getInterchangesFor(mode);
+            for (IdFor<Station> stationId : forMode) {
+                int station = timetable.getStationIndex(stationId);
+                if (station >= 0) {
+                    stations.set(station);
+                }
+            }
+            interchanges.put(mode, stations);
+        });
+        return interchanges;
+    }
 
-            Set<RouteStation> cannotReachInterchange = new HashSet<>();
+    public long getFootprintBytes() {
+        long bytes = canReachInterchange.size() / Byte.SIZE;
+        for (long[] row : reachableFrom) {
+            if (row != null) {
+                bytes = bytes + ((long) row.length * Long.BYTES);
+            }
+        }
+        return bytes;
+    }
 
-            startingPoints.forEach(start -> {
-                if (routeReachable.isInterchangeReachable(start))  {
-                    canReachInterchange.add(start.getId());
-                } else {
-                    cannotReachInterchange.add(start);
-                }
-            });
+    private Path getFile() {
+        Path dbPath = config.getGraphDBConfig().getDbPath().toAbsolutePath();
+        return dbPath.resolveSibling(dbPath.getFileName() + FILE_SUFFIX);
+    }
 
-            cannotReachInterchange.forEach(start -> {
-                IdSet<Station> reachableStations = routeReachable.getReachableStations(start);
-                reachableFrom.put(start.getId(), reachableStations);
-            });
+    // interchanges come from code and config as well as the data, so are part of the key
+    private String createKey() {
+        StringBuilder interchangesForModes = new StringBuilder();
+        createInterchanges().forEach((mode, stations) ->
+                interchangesForModes.append(mode.name()).append(stations).append(';'));
+        return timetable.getVersionKey() + "|" + interchangesForModes;
+    }
 
-            cannotReachInterchange.clear();
+    private boolean load(Path file, String key) {
+        if (!Files.exists(file)) {
+            logger.info("No saved reachability at " + file);
+            return false;
         }
-
-        private boolean stationReachable(IdFor<RouteStation> routeStationId, IdFor<Station> destinationStationId) {
-            if (canReachInterchange.contains(routeStationId)) {
-                return true;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String savedKey = input.readUTF();
+            if (!savedKey.equals(key)) {
+                logger.info(format("Saved reachability at %s is out of date", file));
+                return false;
             }
-            if (reachableFrom.containsKey(routeStationId)) {
-                return reachableFrom.get(routeStationId).contains(destinationStationId);
+            int numberOfRouteStations = timetable.numberOfRouteStations();
+            BitSet reachesInterchange = BitSet.valueOf(readWords(input, input.readInt()));
+            long[][] rows = new long[numberOfRouteStations][];
+            for (int routeStation = 0; routeStation < numberOfRouteStations; routeStation++) {
+                if (input.readBoolean()) {
+                    rows[routeStation] = readWords(input, wordsPerRow);
+                }
             }
+            canReachInterchange = reachesInterchange;
+            reachableFrom = rows;
+            logger.info("Loaded reachability from " + file);
+            return true;
+        } catch (IOException exception) {
+            logger.warn("Unable to load reachability from " + file, exception);
             return false;
         }
     }
 
+    private static long[] readWords(DataInputStream input, int count) throws IOException {
+        long[] words = new long[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = input.readLong();
+        }
+        return words;
+    }
+
+    private void save(Path file, String key) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            output.writeUTF(key);
+            long[] reachesInterchange = canReachInterchange.toLongArray();
+            output.writeInt(reachesInterchange.length);
+            writeWords(output, reachesInterchange);
+            for (long[] row : reachableFrom) {
+                output.writeBoolean(row != null);
+                if (row != null) {
+                    writeWords(output, row);
+                }
+            }
+            logger.info("Saved reachability to " + file);
+        } catch (IOException exception) {
+            logger.warn("Unable to save reachability to " + file, exception);
+        }
+    }
+
+    private static void writeWords(DataOutputStream output, long[] words) throws IOException {
+        for (long word : words) {
+            output.writeLong(word);
+        }
+    }
+
 }
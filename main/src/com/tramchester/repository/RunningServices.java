@@ -1,63 +1,66 @@
 package com.tramchester.repository;
 
-import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.domain.time.TramTime;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
 
+/***
+ * Services running on a date, as a bitset over the service indexes of the CompactTimetable. Immutable so one
+ * instance per date is shared by all requests, see RunningServicesRepository.
+ */
 public class RunningServices {
-    private static final Logger logger = LoggerFactory.getLogger(RunningServices.class);
-
-    private final IdSet<Service> serviceIds;
-    private final Map<IdFor<Service>, TramTime> latestTimeMap;
-    private final Map<IdFor<Service>, TramTime> earliestTimeMap;
-
-    public RunningServices(TramServiceDate date, TransportData transportData, TramchesterConfig config) {
-        serviceIds = new IdSet<>();
-        latestTimeMap = new HashMap<>();
-        earliestTimeMap = new HashMap<>();
-
-        TramTime earliest = TramTime.of(0, 0).plusMinutes(config.getMaxWait());
-
-        transportData.getServicesOnDate(date).forEach(svc -> {
-            IdFor<Service> serviceId = svc.getId();
-            serviceIds.add(serviceId);
-            latestTimeMap.put(serviceId, svc.latestDepartTime());
-            TramTime earliestDepartTime = svc.earliestDepartTime();
-            if (earliestDepartTime.isBefore(earliest)) {
-                earliestDepartTime = earliest;
-            }
-            earliestTimeMap.put(serviceId, earliestDepartTime);
-        });
-
-        if (serviceIds.size()>0) {
-            logger.info("Found " + serviceIds.size() + " running services for " + date);
-        } else
-        {
-            logger.warn("No running services found on " + date);
-        }
+
+    private final TramServiceDate date;
+    private final CompactTimetable timetable;
+    private final BitSet running;
+
+    // per service index, shared between dates
+    private final TramTime[] earliestTimes;
+    private final TramTime[] latestTimes;
+
+    RunningServices(TramServiceDate date, CompactTimetable timetable, BitSet running, TramTime[] earliestTimes,
+                    TramTime[] latestTimes) {
+        this.date = date;
+        this.timetable = timetable;
+        this.running = running;
+        this.earliestTimes = earliestTimes;
+        this.latestTimes = latestTimes;
     }
 
     public boolean isRunning(IdFor<Service> serviceId) {
-        return serviceIds.contains(serviceId);
+        return runningIndex(serviceId) >= 0;
     }
 
     public TramTime getServiceLatest(IdFor<Service> svcId) {
-        return latestTimeMap.get(svcId);
+        int index = runningIndex(svcId);
+        return index < 0 ? null : latestTimes[index];
     }
 
     public TramTime getServiceEarliest(IdFor<Service> svcId) {
-        return earliestTimeMap.get(svcId);
+        int index = runningIndex(svcId);
+        return index < 0 ? null : earliestTimes[index];
+    }
+
+    private int runningIndex(IdFor<Service> serviceId) {
+        int index = timetable.getServiceIndex(serviceId);
+        return (index >= 0 && running.get(index)) ? index : -1;
+    }
+
+    /***
+     * @return indexes into the CompactTimetable services, shared so must not be modified
+     */
+    public BitSet getRunningIndexes() {
+        return running;
     }
 
     public long count() {
-        return serviceIds.size();
+        return running.cardinality();
+    }
+
+    public TramServiceDate getDate() {
+        return date;
     }
 }
@@ -0,0 +1,151 @@
+package com.tramchester.repository;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.StationClosure;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.metrics.Timing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/***
+ * Running services and closed stations per date, built once for the days either side of today and shared between
+ * requests instead of each request scanning all the services. The window moves forward when the date changes, dates
+ * outside of it are computed on each call.
+ */
+@LazySingleton
+public class RunningServicesRepository {
+    private static final Logger logger = LoggerFactory.getLogger(RunningServicesRepository.class);
+
+    public static final int WINDOW_DAYS = 7;
+
+    private final TramchesterConfig config;
+    private final CompactTimetable timetable;
+    private final ProvidesNow providesNow;
+
+    private final Map<LocalDate, ServiceDay> serviceDays;
+    private TramTime[] earliestTimes;
+    private TramTime[] latestTimes;
+    private volatile LocalDate windowFor;
+
+    @Inject
+    public RunningServicesRepository(TramchesterConfig config, CompactTimetable timetable, ProvidesNow providesNow) {
+        this.config = config;
+        this.timetable = timetable;
+        this.providesNow = providesNow;
+        serviceDays = new ConcurrentHashMap<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        populateServiceTimes();
+        try (Timing ignored = new Timing(logger, "running services")) {
+            updateWindow(providesNow.getDate());
+        }
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        serviceDays.clear();
+        logger.info("disposed");
+    }
+
+    public RunningServices getRunningServices(TramServiceDate date) {
+        return getServiceDay(date.getDate()).runningServices;
+    }
+
+    public IdSet<Station> getClosedStations(TramServiceDate date) {
+        return getServiceDay(date.getDate()).closedStations;
+    }
+
+    private ServiceDay getServiceDay(LocalDate date) {
+        LocalDate today = providesNow.getDate();
+        if (!today.equals(windowFor)) {
+            updateWindow(today);
+        }
+        ServiceDay serviceDay = serviceDays.get(date);
+        if (serviceDay == null) {
+            logger.info(format("%s is outside of the cached dates around %s", date, windowFor));
+            return createFor(date);
+        }
+        return serviceDay;
+    }
+
+    private synchronized void updateWindow(LocalDate today) {
+        if (today.equals(windowFor)) {
+            return;
+        }
+        LocalDate first = today.minusDays(WINDOW_DAYS);
+        LocalDate last = today.plusDays(WINDOW_DAYS);
+        serviceDays.keySet().removeIf(date -> date.isBefore(first) || date.isAfter(last));
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            serviceDays.computeIfAbsent(date, this::createFor);
+        }
+        windowFor = today;
+        logger.info(format("Cached running services for %s to %s", first, last));
+    }
+
+    // earliest and latest do not depend on the date
+    private void populateServiceTimes() {
+        int numberOfServices = timetable.numberOfServices();
+        earliestTimes = new TramTime[numberOfServices];
+        latestTimes = new TramTime[numberOfServices];
+
+        TramTime earliest = TramTime.of(0, 0).plusMinutes(config.getMaxWait());
+        for (int index = 0; index < numberOfServices; index++) {
+            Service service = timetable.getService(index);
+            latestTimes[index] = service.latestDepartTime();
+            TramTime earliestDepartTime = service.earliestDepartTime();
+            if (earliestDepartTime.isBefore(earliest)) {
+                earliestDepartTime = earliest;
+            }
+            earliestTimes[index] = earliestDepartTime;
+        }
+    }
+
+    private ServiceDay createFor(LocalDate date) {
+        TramServiceDate serviceDate = new TramServiceDate(date);
+        RunningServices runningServices = new RunningServices(serviceDate, timetable,
+                timetable.getServicesRunningOn(date), earliestTimes, latestTimes);
+        if (runningServices.count() == 0) {
+            logger.warn("No running services found on " + date);
+        }
+
+        IdSet<Station> closedStations = config.getStationClosures().stream().
+                filter(closure -> !date.isBefore(closure.getBegin()) && !date.isAfter(closure.getEnd())).
+                map(StationClosure::getStation).
+                collect(IdSet.idCollector());
+        if (!closedStations.isEmpty()) {
+            logger.info(format("Have closed stations %s on %s", closedStations, date));
+        }
+
+        return new ServiceDay(runningServices, closedStations);
+    }
+
+    private static class ServiceDay {
+        private final RunningServices runningServices;
+        private final IdSet<Station> closedStations;
+
+        private ServiceDay(RunningServices runningServices, IdSet<Station> closedStations) {
+            this.runningServices = runningServices;
+            this.closedStations = closedStations;
+        }
+    }
+}
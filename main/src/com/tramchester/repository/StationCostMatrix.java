@@ -0,0 +1,246 @@
+package com.tramchester.repository;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.places.Station;
+import com.tramchester.metrics.Timing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import static com.tramchester.graph.graphbuild.GraphBuilder.BOARDING_COST;
+import static com.tramchester.graph.graphbuild.GraphBuilder.DEPARTS_COST;
+import static com.tramchester.graph.graphbuild.GraphBuilder.INTERCHANGE_BOARD_COST;
+import static com.tramchester.graph.graphbuild.GraphBuilder.INTERCHANGE_DEPART_COST;
+import static java.lang.String.format;
+
+/***
+ * Minimum cost in minutes between every pair of stations, ignoring timings, built from the timetable with the same
+ * board/depart costs as the graph. Saved next to the graph DB and reloaded if the data versions match.
+ * Lookups are a single array read, used in place of a dijkstra over the graph and as a lower bound for searches.
+ * Size grows with the square of the number of stations so only for small networks such as the trams, above
+ * MAX_STATIONS nothing is built and every cost is UNKNOWN, so callers fall back to their own estimates.
+ */
+@LazySingleton
+public class StationCostMatrix {
+    private static final Logger logger = LoggerFactory.getLogger(StationCostMatrix.class);
+
+    public static final int UNKNOWN = -1;
+
+    // 50MB of costs
+    public static final int MAX_STATIONS = 5000;
+
+    private static final char UNREACHABLE = Character.MAX_VALUE;
+    public static final String FILE_SUFFIX = ".costs";
+
+    private final CompactTimetable timetable;
+    private final InterchangeRepository interchangeRepository;
+    private final TramchesterConfig config;
+
+    private int numberOfStations;
+    private char[] costs;
+
+    @Inject
+    public StationCostMatrix(CompactTimetable timetable, InterchangeRepository interchangeRepository,
+                             TramchesterConfig config) {
+        this.timetable = timetable;
+        this.interchangeRepository = interchangeRepository;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        numberOfStations = timetable.numberOfStations();
+        if (numberOfStations > MAX_STATIONS) {
+            logger.warn(format("Not building cost matrix, %s stations is over the limit of %s", numberOfStations,
+                    MAX_STATIONS));
+            numberOfStations = 0;
+            costs = new char[0];
+            logger.info("started");
+            return;
+        }
+        Path file = getFile();
+        String key = timetable.getVersionKey();
+
+        if (!load(file, key)) {
+            try (Timing ignored = new Timing(logger, "build station cost matrix")) {
+                build();
+            }
+            save(file, key);
+        }
+        logger.info(format("Cost matrix for %s stations uses %s KB", numberOfStations,
+                ((long) costs.length * Character.BYTES) / 1024));
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        costs = new char[0];
+        numberOfStations = 0;
+    }
+
+    /***
+     * @return min cost in minutes, or UNKNOWN if either station is not in the matrix or there is no route between them
+     */
+    public int getMinCost(Station start, Station end) {
+        if (numberOfStations == 0) {
+            return UNKNOWN;
+        }
+        int from = timetable.getStationIndex(start.getId());
+        int to = timetable.getStationIndex(end.getId());
+        if (from < 0 || to < 0) {
+            return UNKNOWN;
+        }
+        char cost = costs[(from * numberOfStations) + to];
+        return cost == UNREACHABLE ? UNKNOWN : cost;
+    }
+
+    private void build() {
+        int numberOfRouteStations = timetable.numberOfRouteStations();
+        int numberOfNodes = numberOfStations + numberOfRouteStations;
+        // stations are nodes [0, numberOfStations), route stations follow
+        int[][] links = createLinks(numberOfNodes);
+
+        costs = new char[numberOfStations * numberOfStations];
+        Arrays.fill(costs, UNREACHABLE);
+
+        IntStream.range(0, numberOfStations).parallel().forEach(start -> {
+            int[] fromStart = shortestFrom(start, links, numberOfNodes);
+            int offset = start * numberOfStations;
+            for (int station = 0; station < numberOfStations; station++) {
+                int cost = fromStart[station];
+                if (cost != Integer.MAX_VALUE) {
+                    costs[offset + station] = (char) Math.min(cost, UNREACHABLE - 1);
+                }
+            }
+        });
+    }
+
+    // per node, pairs of (to, cost)
+    private int[][] createLinks(int numberOfNodes) {
+        int[][] links = new int[numberOfNodes][];
+        int[] sizes = new int[numberOfNodes];
+        Arrays.fill(links, new int[0]);
+
+        for (int trip = 0; trip < timetable.numberOfTrips(); trip++) {
+            int first = timetable.getFirstCall(trip);
+            int last = first + timetable.numberOfCalls(trip);
+            for (int call = first; call < last; call++) {
+                int station = timetable.getCallStation(call);
+                int routeStation = numberOfStations + timetable.getCallRouteStation(call);
+                boolean interchange = interchangeRepository.isInterchange(timetable.getStation(station));
+
+                addLink(links, sizes, station, routeStation, interchange ? INTERCHANGE_BOARD_COST : BOARDING_COST);
+                addLink(links, sizes, routeStation, station, interchange ? INTERCHANGE_DEPART_COST : DEPARTS_COST);
+                if (call + 1 < last) {
+                    int next = numberOfStations + timetable.getCallRouteStation(call + 1);
+                    int cost = Math.max(0, timetable.getArrival(call + 1) - timetable.getDeparture(call));
+                    addLink(links, sizes, routeStation, next, cost);
+                }
+            }
+        }
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            links[node] = Arrays.copyOf(links[node], sizes[node]);
+        }
+        return links;
+    }
+
+    private static void addLink(int[][] links, int[] sizes, int from, int to, int cost) {
+        int[] existing = links[from];
+        for (int i = 0; i < sizes[from]; i = i + 2) {
+            if (existing[i] == to) {
+                existing[i + 1] = Math.min(existing[i + 1], cost);
+                return;
+            }
+        }
+        if (sizes[from] + 2 > existing.length) {
+            existing = Arrays.copyOf(existing, Math.max(4, existing.length * 2));
+            links[from] = existing;
+        }
+        existing[sizes[from]] = to;
+        existing[sizes[from] + 1] = cost;
+        sizes[from] = sizes[from] + 2;
+    }
+
+    private static int[] shortestFrom(int start, int[][] links, int numberOfNodes) {
+        int[] best = new int[numberOfNodes];
+        Arrays.fill(best, Integer.MAX_VALUE);
+        best[start] = 0;
+
+        // cost in the high bits, node in the low
+        PriorityQueue<Long> queue = new PriorityQueue<>(Comparator.naturalOrder());
+        queue.add((long) start);
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int node = (int) entry;
+            int cost = (int) (entry >>> 32);
+            if (cost > best[node]) {
+                continue;
+            }
+            int[] outbound = links[node];
+            for (int i = 0; i < outbound.length; i = i + 2) {
+                int to = outbound[i];
+                int newCost = cost + outbound[i + 1];
+                if (newCost < best[to]) {
+                    best[to] = newCost;
+                    queue.add(((long) newCost << 32) | to);
+                }
+            }
+        }
+        return best;
+    }
+
+    private Path getFile() {
+        Path dbPath = config.getGraphDBConfig().getDbPath().toAbsolutePath();
+        return dbPath.resolveSibling(dbPath.getFileName() + FILE_SUFFIX);
+    }
+
+    private boolean load(Path file, String key) {
+        if (!Files.exists(file)) {
+            logger.info("No saved cost matrix at " + file);
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String savedKey = input.readUTF();
+            if (!savedKey.equals(key)) {
+                logger.info(format("Saved cost matrix at %s is out of date", file));
+                return false;
+            }
+            char[] loaded = new char[numberOfStations * numberOfStations];
+            for (int i = 0; i < loaded.length; i++) {
+                loaded[i] = input.readChar();
+            }
+            costs = loaded;
+            logger.info("Loaded cost matrix from " + file);
+            return true;
+        } catch (IOException exception) {
+            logger.warn("Unable to load cost matrix from " + file, exception);
+            return false;
+        }
+    }
+
+    private void save(Path file, String key) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            output.writeUTF(key);
+            for (char cost : costs) {
+                output.writeChar(cost);
+            }
+            logger.info("Saved cost matrix to " + file);
+        } catch (IOException exception) {
+            logger.warn("Unable to save cost matrix to " + file, exception);
+        }
+    }
+}
@@ -102,7 +102,7 @@ public class DeparturesResource extends TransportResource {
                                            @DefaultValue("1") @QueryParam("notes") String notesParam,
                                            @DefaultValue("") @QueryParam("querytime") String queryTimeRaw) {
 
-        StringIdFor<Station> stationId = StringIdFor.createId(stationIdText);
+        StringIdFor<Station> stationId = StringIdFor.forLookup(stationIdText);
         logger.info(format("Get departs for station %s at '%s' with notes enabled:'%s'", stationId, queryTimeRaw, notesParam));
         guardForStationNotExisting(stationRepository, stationId);
 
@@ -0,0 +1,100 @@
+package com.tramchester.resources;
+
+import com.codahale.metrics.annotation.Timed;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.router.raptor.EarliestArrivalSearch;
+import io.dropwizard.jersey.caching.CacheControl;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.tramchester.domain.places.MyLocation.MY_LOCATION_PLACEHOLDER_ID;
+import static java.lang.String.format;
+
+@Api
+@Path("/isochrone")
+@Produces(MediaType.APPLICATION_JSON)
+public class IsochroneResource {
+    private static final Logger logger = LoggerFactory.getLogger(IsochroneResource.class);
+
+    private final StationRepository repository;
+    private final Provider<EarliestArrivalSearch> search;
+    private final TramchesterConfig config;
+
+    @Inject
+    public IsochroneResource(StationRepository repository, Provider<EarliestArrivalSearch> search,
+                             TramchesterConfig config) {
+        this.repository = repository;
+        // provider so the timetable is only built if the endpoint is used
+        this.search = search;
+        this.config = config;
+    }
+
+    @GET
+    @Timed
+    @ApiOperation(value = "Minutes to the earliest arrival at every reachable station from a station or location",
+            response = Map.class)
+    @CacheControl(maxAge = 1, maxAgeUnit = TimeUnit.MINUTES)
+    public Response earliestArrivals(@QueryParam("start") String startId,
+                                     @QueryParam("departureTime") String departureTimeRaw,
+                                     @QueryParam("departureDate") String departureDateRaw,
+                                     @QueryParam("lat") @DefaultValue("0") String lat,
+                                     @QueryParam("lon") @DefaultValue("0") String lon,
+                                     @QueryParam("maxChanges") @DefaultValue("3") int maxChanges,
+                                     @QueryParam("maxDuration") @DefaultValue("0") int maxDuration) {
+        logger.info(format("Earliest arrivals from %s at %s on %s maxChanges=%s maxDuration=%s",
+                startId, departureTimeRaw, departureDateRaw, maxChanges, maxDuration));
+
+        Optional<TramTime> maybeDepartureTime = TramTime.parse(departureTimeRaw);
+        if (maybeDepartureTime.isEmpty()) {
+            logger.error("Could not parse departure time '" + departureTimeRaw + "'");
+            return Response.serverError().build();
+        }
+
+        try {
+            LocalDate date = LocalDate.parse(departureDateRaw);
+            int duration = maxDuration > 0 ? maxDuration : config.getMaxJourneyDuration();
+            JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(date), maybeDepartureTime.get(),
+                    false, maxChanges, duration);
+
+            Map<Station, Integer> arrivals;
+            if (MY_LOCATION_PLACEHOLDER_ID.equals(startId)) {
+                LatLong latLong = new LatLong(Double.parseDouble(lat), Double.parseDouble(lon));
+                arrivals = search.get().fromLocation(latLong, journeyRequest);
+            } else {
+                Station start = repository.getStationById(StringIdFor.forLookup(startId));
+                arrivals = search.get().fromStation(start, journeyRequest);
+            }
+
+            Map<String, Integer> results = new TreeMap<>();
+            arrivals.forEach((station, minutes) -> results.put(station.getId().forDTO(), minutes));
+            return Response.ok(results).build();
+        } catch (Exception exception) {
+            logger.error("Problem processing response", exception);
+            return Response.serverError().build();
+        }
+    }
+}
@@ -5,13 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tramchester.RedirectToHttpsUsingELBProtoHeader;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.UpdateRecentJourneys;
+import com.tramchester.domain.presentation.DTO.JourneyBatchResultDTO;
 import com.tramchester.domain.presentation.DTO.JourneyDTO;
 import com.tramchester.domain.presentation.DTO.JourneyPlanRepresentation;
+import com.tramchester.domain.presentation.DTO.JourneyQueryDTO;
 import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.CreateSearchBudget;
 import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.router.JourneyBatchPlanner;
 import com.tramchester.router.ProcessPlanRequest;
 import io.dropwizard.jersey.caching.CacheControl;
 import io.swagger.annotations.Api;
@@ -22,10 +26,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,15 +47,21 @@ public class JourneyPlannerResource extends UsesRecentCookie {
     private final ProcessPlanRequest processPlanRequest;
     private final GraphDatabase graphDatabaseService;
     private final TramchesterConfig config;
+    private final CreateSearchBudget createSearchBudget;
+    private final Provider<JourneyBatchPlanner> journeyBatchPlanner;
 
     @Inject
     public JourneyPlannerResource(UpdateRecentJourneys updateRecentJourneys,
                                   ObjectMapper objectMapper, GraphDatabase graphDatabaseService,
-                                  ProvidesNow providesNow, ProcessPlanRequest processPlanRequest, TramchesterConfig config) {
+                                  ProvidesNow providesNow, ProcessPlanRequest processPlanRequest, TramchesterConfig config,
+                                  CreateSearchBudget createSearchBudget, Provider<JourneyBatchPlanner> journeyBatchPlanner) {
         super(updateRecentJourneys, providesNow, objectMapper);
         this.processPlanRequest = processPlanRequest;
         this.graphDatabaseService = graphDatabaseService;
         this.config = config;
+        this.createSearchBudget = createSearchBudget;
+        // provider so the batch threads are only started if batches are used
+        this.journeyBatchPlanner = journeyBatchPlanner;
     }
 
     @GET
@@ -79,12 +91,17 @@ public class JourneyPlannerResource extends UsesRecentCookie {
                     queryTime, config.getMaxJourneyDuration());
 
             Stream<JourneyDTO> dtoStream = processPlanRequest.directRequest(tx, startId, endId, journeyRequest, lat, lon);
-            JourneyPlanRepresentation planRepresentation = new JourneyPlanRepresentation(dtoStream.collect(Collectors.toSet()));
+            JourneyPlanRepresentation planRepresentation = new JourneyPlanRepresentation(dtoStream.collect(Collectors.toSet()),
+                    journeyRequest.getBudget().isExhausted());
             dtoStream.close();
 
             if (planRepresentation.getJourneys().size()==0) {
                 logger.warn(format("No journeys found from %s to %s at %s on %s", startId, endId,departureTimeRaw, departureDateRaw));
             }
+            if (planRepresentation.isPartial()) {
+                logger.warn(format("Partial results from %s to %s at %s on %s, %s", startId, endId, departureTimeRaw,
+                        departureDateRaw, journeyRequest.getBudget()));
+            }
 
             Response.ResponseBuilder responseBuilder = Response.ok(planRepresentation);
             responseBuilder.cookie(createRecentCookie(cookie, startId, endId, secure, baseUri));
@@ -126,9 +143,11 @@ public class JourneyPlannerResource extends UsesRecentCookie {
         try {
             JourneyRequest journeyRequest = createJourneyRequest(departureDateRaw, arriveByRaw, maxChanges,
                     queryTime, config.getMaxJourneyDuration());
-            Stream<JourneyDTO> dtoStream = processPlanRequest.directRequest(tx, startId, endId, journeyRequest, lat, lon);
+            Stream<JourneyDTO> dtoStream = processPlanRequest.streamedRequest(tx, startId, endId, journeyRequest, lat, lon);
 
-            JsonStreamingOutput<JourneyDTO> jsonStreamingOutput = new JsonStreamingOutput<>(tx, dtoStream, super.mapper);
+            // stop searching if the client goes away
+            JsonStreamingOutput<JourneyDTO> jsonStreamingOutput = new JsonStreamingOutput<>(tx, dtoStream, super.mapper,
+                    journeyRequest.getBudget()::cancel);
 
             Response.ResponseBuilder responseBuilder = Response.ok(jsonStreamingOutput);
             responseBuilder.cookie(createRecentCookie(cookie, startId, endId, secure, baseUri));
@@ -140,6 +159,32 @@ public class JourneyPlannerResource extends UsesRecentCookie {
         }
     }
 
+    @POST
+    @Timed
+    @Path("/batch")
+    @ApiOperation(value = "Plan many journeys, one result per line in the order they complete",
+            response = JourneyBatchResultDTO.class)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(JsonStreamingOutput.NEWLINE_DELIMITED_JSON)
+    public Response batch(List<JourneyQueryDTO> queries) {
+        if (queries==null || queries.isEmpty()) {
+            logger.warn("Empty batch");
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (queries.size() > config.getMaxBatchSize()) {
+            logger.warn(format("Batch of %s journeys is over the limit of %s", queries.size(), config.getMaxBatchSize()));
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        logger.info(format("Plan batch of %s journeys", queries.size()));
+
+        Stream<JourneyBatchResultDTO> results = journeyBatchPlanner.get().plan(queries);
+        // stop planning the rest if the client goes away
+        JsonStreamingOutput<JourneyBatchResultDTO> jsonStreamingOutput = JsonStreamingOutput.newlineDelimited(results,
+                super.mapper, results::close);
+
+        return Response.ok(jsonStreamingOutput).build();
+    }
+
     @NotNull
     private JourneyRequest createJourneyRequest(String departureDateRaw, String arriveByRaw, int maxChanges,
                                                 TramTime queryTime, int maxJourneyDuration) {
@@ -147,7 +192,8 @@ public class JourneyPlannerResource extends UsesRecentCookie {
         TramServiceDate queryDate = new TramServiceDate(date);
 
         boolean arriveBy = Boolean.parseBoolean(arriveByRaw);
-        return new JourneyRequest(queryDate, queryTime, arriveBy, maxChanges, maxJourneyDuration);
+        return new JourneyRequest(queryDate, queryTime, arriveBy, maxChanges, maxJourneyDuration).
+                setBudget(createSearchBudget.create());
     }
 
 
@@ -59,15 +59,13 @@ public class JourneysForGridResource {
     //@CacheControl(maxAge = 30, maxAgeUnit = TimeUnit.SECONDS)
     public Response gridCosts(@QueryParam("gridSize") int gridSize,
                               @QueryParam("destination") String destinationIdText,
+                              @QueryParam("origin") String originIdText,
                               @QueryParam("departureTime") String departureTimeRaw,
                               @QueryParam("departureDate") String departureDateRaw,
                               @QueryParam("maxChanges") int maxChanges,
                               @QueryParam("maxDuration") int maxDuration) {
-        logger.info(format("Query for quicktimes to %s for grid of size %s at %s %s maxchanges %s max duration %s",
-                destinationIdText, gridSize, departureTimeRaw, departureDateRaw, maxChanges, maxDuration));
-
-        StringIdFor<Station> destinationId = StringIdFor.createId(destinationIdText);
-        Station destination = repository.getStationById(destinationId);
+        logger.info(format("Query for quicktimes to %s from %s for grid of size %s at %s %s maxchanges %s max duration %s",
+                destinationIdText, originIdText, gridSize, departureTimeRaw, departureDateRaw, maxChanges, maxDuration));
 
         Optional<TramTime> maybeDepartureTime = TramTime.parse(departureTimeRaw);
         if (maybeDepartureTime.isEmpty()) {
@@ -85,9 +83,17 @@ public class JourneysForGridResource {
         long numberToFind = maxChanges;
 
         logger.info("Create search");
-        Stream<BoxWithCostDTO> results = search.
-                findForGrid(destination, gridSize, journeyRequest, numberToFind).
-                map(box -> transformToDTO(box, tramServiceDate));
+        Stream<BoundingBoxWithCost> boxes;
+        if (originIdText != null) {
+            // from origin to every box, one search
+            Station origin = repository.getStationById(StringIdFor.forLookup(originIdText));
+            boxes = search.findForGridFrom(origin, gridSize, journeyRequest);
+        } else {
+            StringIdFor<Station> destinationId = StringIdFor.forLookup(destinationIdText);
+            Station destination = repository.getStationById(destinationId);
+            boxes = search.findForGrid(destination, gridSize, journeyRequest, numberToFind);
+        }
+        Stream<BoxWithCostDTO> results = boxes.map(box -> transformToDTO(box, tramServiceDate));
         logger.info("Creating stream");
         JsonStreamingOutput<BoxWithCostDTO> jsonStreamingOutput = new JsonStreamingOutput<>(results, objectMapper);
 
@@ -10,26 +10,53 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.stream.Stream;
 
 class JsonStreamingOutput<T> implements StreamingOutput {
     private static final Logger logger = LoggerFactory.getLogger(JsonStreamingOutput.class);
 
+    static final String NEWLINE_DELIMITED_JSON = "application/x-ndjson";
+
     private final Stream<T> theStream;
     private final Transaction txn;
+    private final Runnable onWriteFailed;
+    private final boolean newlineDelimited;
 
     private final JsonFactory jsonFactory ;
 
-    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper) {
+    private JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper, Runnable onWriteFailed,
+                                boolean newlineDelimited) {
         this.txn = txn;
         this.theStream = theStream;
+        this.onWriteFailed = onWriteFailed;
+        this.newlineDelimited = newlineDelimited;
         jsonFactory = mapper.getFactory();
     }
 
+    /***
+     * @param onWriteFailed called if an item cannot be written, usually as the client disconnected, the rest of the
+     *                      stream is then not consumed
+     */
+    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper, Runnable onWriteFailed) {
+        this(txn, theStream, mapper, onWriteFailed, false);
+    }
+
+    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper) {
+        this(txn, theStream, mapper, () -> {});
+    }
+
     JsonStreamingOutput(Stream<T> theStream, ObjectMapper mapper) {
         this(null, theStream, mapper);
     }
 
+    /***
+     * One item per line instead of an array, so a client can use each result as it arrives
+     */
+    static <T> JsonStreamingOutput<T> newlineDelimited(Stream<T> theStream, ObjectMapper mapper, Runnable onWriteFailed) {
+        return new JsonStreamingOutput<>(null, theStream, mapper, onWriteFailed, true);
+    }
+
     @Override
     public void write(final OutputStream outputStream)  {
         // NOTE: by default there is an 8K output buffer on outputStream
@@ -45,23 +72,36 @@ class JsonStreamingOutput<T> implements StreamingOutput {
 
 
         try (final JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream)) {
-            jsonGenerator.writeStartArray();
+            if (newlineDelimited) {
+                // items end with a newline, so no separator needed between them
+                jsonGenerator.setRootValueSeparator(null);
+            } else {
+                jsonGenerator.writeStartArray();
+            }
             theStream.forEach(item -> {
                 synchronized (outputStream) {
                     try {
                         jsonGenerator.writeObject(item);
-                        jsonGenerator.writeString(System.lineSeparator());
-                        jsonGenerator.writeString(System.lineSeparator());
+                        if (newlineDelimited) {
+                            jsonGenerator.writeRaw('\n');
+                        } else {
+                            jsonGenerator.writeString(System.lineSeparator());
+                            jsonGenerator.writeString(System.lineSeparator());
+                        }
                         jsonGenerator.flush();
                     } catch (IOException innerException) {
                         logger.error("Exception during streaming item " + item.toString(), innerException);
+                        onWriteFailed.run();
+                        throw new UncheckedIOException(innerException);
                     }
                 }
             });
-            jsonGenerator.writeEndArray();
+            if (!newlineDelimited) {
+                jsonGenerator.writeEndArray();
+            }
             jsonGenerator.flush();
         }
-        catch (IOException ioException) {
+        catch (IOException | UncheckedIOException ioException) {
            logger.warn("Exception during streaming", ioException);
         } finally {
             theStream.close();
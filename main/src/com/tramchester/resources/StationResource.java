@@ -64,7 +64,7 @@ public class StationResource extends UsesRecentCookie {
     @CacheControl(maxAge = 1, maxAgeUnit = TimeUnit.DAYS)
     public Response get(@PathParam("id") String text) {
         logger.info("Get station by id: " + text);
-        StringIdFor<Station> id = StringIdFor.createId(text);
+        StringIdFor<Station> id = StringIdFor.forLookup(text);
         guardForStationNotExisting(stationRepository, id);
 
         return Response.ok(new LocationDTO(stationRepository.getStationById(id))).build();
@@ -148,8 +148,8 @@ public class StationResource extends UsesRecentCookie {
         RecentJourneys recentJourneys = recentFromCookie(cookie);
 
         Set<Station> recent = recentJourneys.stream().map(Timestamped::getId).
-                filter(id -> stationRepository.hasStationId(StringIdFor.createId(id))).
-                map(id -> stationRepository.getStationById(StringIdFor.createId(id))).
+                filter(id -> stationRepository.hasStationId(StringIdFor.forLookup(id))).
+                map(id -> stationRepository.getStationById(StringIdFor.forLookup(id))).
                 collect(Collectors.toSet());
 
         List<StationRefDTO> results = toStationRefDTOList(recent);
@@ -0,0 +1,223 @@
+package com.tramchester.router;
+
+import com.codahale.metrics.MetricRegistry;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.SearchBudget;
+import com.tramchester.metrics.CacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Identical journey requests that arrive while one is already being calculated wait for, and share, that result
+ * instead of each running a search. Nothing is kept once the calculation completes, see JourneyResultCache for that.
+ * If the search ran out of budget the waiting requests are marked as having partial results as well, unless it was
+ * cancelled, in which case they calculate again rather than take results cut short for another client.
+ * Waiting requests only wait as long as their own budget allows, then search for themselves.
+ */
+@LazySingleton
+public class InFlightJourneyRequests {
+    private static final Logger logger = LoggerFactory.getLogger(InFlightJourneyRequests.class);
+
+    private static final long CHECK_BUDGET_MILLIS = 100;
+
+    private final ConcurrentMap<Key, CompletableFuture<Shared>> inFlight;
+    private final AtomicLong calculated;
+    private final AtomicLong coalesced;
+    private final AtomicLong gaveUpWaiting;
+
+    @Inject
+    public InFlightJourneyRequests(CacheMetrics.RegistersCacheMetrics registersMetrics) {
+        inFlight = new ConcurrentHashMap<>();
+        calculated = new AtomicLong(0);
+        coalesced = new AtomicLong(0);
+        gaveUpWaiting = new AtomicLong(0);
+
+        registersMetrics.register(MetricRegistry.name(InFlightJourneyRequests.class, "calculated"), calculated::get);
+        registersMetrics.register(MetricRegistry.name(InFlightJourneyRequests.class, "coalesced"), coalesced::get);
+        registersMetrics.register(MetricRegistry.name(InFlightJourneyRequests.class, "gaveUpWaiting"),
+                gaveUpWaiting::get);
+    }
+
+    /***
+     * @param calculate results for the request, collected before returning so must not need a transaction once
+     *                  returned
+     */
+    public Stream<JourneyDTO> getJourneys(String startId, String endId, String lat, String lon,
+                                          JourneyRequest journeyRequest, Supplier<Stream<JourneyDTO>> calculate) {
+        Key key = new Key(startId, endId, lat, lon, journeyRequest);
+        SearchBudget budget = journeyRequest.getBudget();
+
+        while (true) {
+            CompletableFuture<Shared> pending = new CompletableFuture<>();
+            CompletableFuture<Shared> existing = inFlight.putIfAbsent(key, pending);
+            if (existing == null) {
+                return calculate(key, pending, budget, calculate);
+            }
+
+            coalesced.incrementAndGet();
+            logger.info(format("Waiting for in flight request from %s to %s for %s", startId, endId, journeyRequest));
+            Optional<Shared> maybeShared = waitFor(existing, budget);
+            if (maybeShared.isEmpty()) {
+                gaveUpWaiting.incrementAndGet();
+                logger.warn(format("Gave up waiting for in flight request from %s to %s for %s, budget %s",
+                        startId, endId, journeyRequest, budget));
+                return calculateAlone(calculate);
+            }
+            Shared shared = maybeShared.get();
+            if (shared.partial == SearchBudget.Reason.Cancelled && !budget.isExhausted()) {
+                // the other request went away part way through, that should not cut this one short
+                logger.info(format("In flight request from %s to %s was cancelled, calculating again", startId, endId));
+                continue;
+            }
+            if (shared.partial != null) {
+                budget.sharedPartialResults(shared.partial);
+            }
+            return shared.journeys.stream();
+        }
+    }
+
+    private Stream<JourneyDTO> calculate(Key key, CompletableFuture<Shared> pending, SearchBudget budget,
+                                         Supplier<Stream<JourneyDTO>> calculate) {
+        calculated.incrementAndGet();
+        try (Stream<JourneyDTO> journeys = calculate.get()) {
+            List<JourneyDTO> results = Collections.unmodifiableList(journeys.collect(Collectors.toList()));
+            pending.complete(new Shared(results, budget.getReason()));
+            return results.stream();
+        } catch (RuntimeException exception) {
+            pending.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    // the other request is still in flight, so this one is not shared either
+    private Stream<JourneyDTO> calculateAlone(Supplier<Stream<JourneyDTO>> calculate) {
+        calculated.incrementAndGet();
+        try (Stream<JourneyDTO> journeys = calculate.get()) {
+            return journeys.collect(Collectors.toList()).stream();
+        }
+    }
+
+    /***
+     * @return empty if the budget for the waiting request ran out, or it was cancelled, first
+     */
+    private Optional<Shared> waitFor(CompletableFuture<Shared> existing, SearchBudget budget) {
+        while (!budget.isExhausted()) {
+            long remaining = budget.getRemainingMillis();
+            if (remaining <= 0) {
+                return Optional.empty();
+            }
+            try {
+                // checked every so often so a cancelled request stops waiting
+                return Optional.of(existing.get(Math.min(remaining, CHECK_BUDGET_MILLIS), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException notYet) {
+                // check budget again
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for in flight request", interrupted);
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException("In flight request failed", cause);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public long getCalculated() {
+        return calculated.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getGaveUpWaiting() {
+        return gaveUpWaiting.get();
+    }
+
+    private static class Shared {
+        private final List<JourneyDTO> journeys;
+        // null unless the search ran out of budget
+        private final SearchBudget.Reason partial;
+
+        private Shared(List<JourneyDTO> journeys, SearchBudget.Reason partial) {
+            this.journeys = journeys;
+            this.partial = partial;
+        }
+    }
+
+    /***
+     * The exact time rather than the JourneyResultCache bucket, results shared here are for the query time so are
+     * already filtered to journeys departing after it. Requests in the same bucket share the cached bucket search.
+     */
+    private static class Key {
+        private final String startId;
+        private final String endId;
+        private final String lat;
+        private final String lon;
+        private final LocalDate date;
+        private final TramTime time;
+        private final boolean arriveBy;
+        private final int maxChanges;
+        private final int maxJourneyDuration;
+
+        private Key(String startId, String endId, String lat, String lon, JourneyRequest journeyRequest) {
+            this.startId = startId;
+            this.endId = endId;
+            this.lat = lat;
+            this.lon = lon;
+            this.date = journeyRequest.getDate().getDate();
+            this.time = journeyRequest.getTime();
+            this.arriveBy = journeyRequest.getArriveBy();
+            this.maxChanges = journeyRequest.getMaxChanges();
+            this.maxJourneyDuration = journeyRequest.getMaxJourneyDuration();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return arriveBy == key.arriveBy &&
+                    maxChanges == key.maxChanges &&
+                    maxJourneyDuration == key.maxJourneyDuration &&
+                    startId.equals(key.startId) &&
+                    endId.equals(key.endId) &&
+                    Objects.equals(lat, key.lat) &&
+                    Objects.equals(lon, key.lon) &&
+                    date.equals(key.date) &&
+                    time.equals(key.time);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startId, endId, lat, lon, date, time, arriveBy, maxChanges, maxJourneyDuration);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.tramchester.router;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.presentation.DTO.JourneyBatchResultDTO;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.presentation.DTO.JourneyQueryDTO;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.CreateSearchBudget;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.SearchBudget;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.String.format;
+
+/***
+ * Plans the journeys of batch requests on a small fixed number of threads shared by all batches, so however many
+ * batches are running most cores are left for interactive requests. Only a few journeys per thread are queued at a
+ * time, the next is submitted as each result is consumed, results are returned in the order they complete.
+ * Journeys go through ProcessPlanRequest so share the running services per date, cached results and in flight
+ * requests with interactive traffic.
+ */
+@LazySingleton
+public class JourneyBatchPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(JourneyBatchPlanner.class);
+
+    // queued per thread for each batch, keeps threads busy without holding results for the whole batch
+    private static final int QUEUED_PER_THREAD = 2;
+
+    private final TramchesterConfig config;
+    private final GraphDatabase graphDatabase;
+    private final ProcessPlanRequest processPlanRequest;
+    private final CreateSearchBudget createSearchBudget;
+
+    private ExecutorService executor;
+    private int window;
+
+    @Inject
+    public JourneyBatchPlanner(TramchesterConfig config, GraphDatabase graphDatabase, ProcessPlanRequest processPlanRequest,
+                               CreateSearchBudget createSearchBudget) {
+        this.config = config;
+        this.graphDatabase = graphDatabase;
+        this.processPlanRequest = processPlanRequest;
+        this.createSearchBudget = createSearchBudget;
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = config.getBatchPlanningThreads();
+        logger.info("starting with " + threads + " batch threads");
+        AtomicInteger count = new AtomicInteger(0);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "journeyBatch-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        window = threads * QUEUED_PER_THREAD;
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (executor!=null) {
+            logger.info("dispose");
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /***
+     * @return lazy, closing the stream before the end cancels the rest of the batch
+     */
+    public Stream<JourneyBatchResultDTO> plan(List<JourneyQueryDTO> queries) {
+        logger.info(format("Plan batch of %s journeys", queries.size()));
+        Batch batch = new Batch(queries);
+        Spliterator<JourneyBatchResultDTO> spliterator = Spliterators.spliterator(batch, queries.size(),
+                Spliterator.SIZED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(batch::cancel);
+    }
+
+    private JourneyBatchResultDTO planJourney(JourneyQueryDTO query, SearchBudget budget) {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            JourneyRequest journeyRequest = createJourneyRequest(query).setBudget(budget);
+            journeyRequest.setWarnIfNoResults(false);
+            try (Stream<JourneyDTO> journeys = processPlanRequest.directRequest(txn, query.getStart(), query.getEnd(),
+                    journeyRequest, query.getLat(), query.getLon())) {
+                List<JourneyDTO> found = journeys.collect(Collectors.toList());
+                return JourneyBatchResultDTO.found(query, found, budget.isExhausted());
+            }
+        } catch (RuntimeException exception) {
+            logger.warn("Unable to plan " + query, exception);
+            return JourneyBatchResultDTO.failed(query, exception.getMessage());
+        }
+    }
+
+    private JourneyRequest createJourneyRequest(JourneyQueryDTO query) {
+        Optional<TramTime> maybeTime = TramTime.parse(query.getDepartureTime());
+        if (maybeTime.isEmpty()) {
+            throw new RuntimeException("Could not parse time '" + query.getDepartureTime() + "'");
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(query.getDepartureDate());
+        } catch (DateTimeParseException | NullPointerException exception) {
+            throw new RuntimeException("Could not parse date '" + query.getDepartureDate() + "'", exception);
+        }
+        return new JourneyRequest(date, maybeTime.get(), query.getArriveBy(), query.getMaxChanges(),
+                config.getMaxJourneyDuration());
+    }
+
+    private class Batch implements Iterator<JourneyBatchResultDTO> {
+        private final Iterator<JourneyQueryDTO> toSubmit;
+        private final CompletionService<JourneyBatchResultDTO> completion;
+        private final Map<Future<JourneyBatchResultDTO>, SearchBudget> outstanding;
+        private volatile boolean cancelled;
+
+        private Batch(List<JourneyQueryDTO> queries) {
+            toSubmit = queries.iterator();
+            completion = new ExecutorCompletionService<>(executor);
+            outstanding = new ConcurrentHashMap<>();
+            cancelled = false;
+            while (outstanding.size() < window && submitNext()) {
+                // fill window
+            }
+        }
+
+        private boolean submitNext() {
+            if (cancelled || !toSubmit.hasNext()) {
+                return false;
+            }
+            JourneyQueryDTO query = toSubmit.next();
+            SearchBudget budget = createSearchBudget.create();
+            Future<JourneyBatchResultDTO> future = completion.submit(() -> planJourney(query, budget));
+            outstanding.put(future, budget);
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cancelled && !outstanding.isEmpty();
+        }
+
+        @Override
+        public JourneyBatchResultDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Future<JourneyBatchResultDTO> done = take();
+            outstanding.remove(done);
+            submitNext();
+            try {
+                return done.get();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new RuntimeException("Interrupted waiting for batch", interrupted);
+            } catch (ExecutionException failed) {
+                // planJourney catches failures, so not expected
+                logger.error("Batch journey failed", failed.getCause());
+                throw new RuntimeException("Batch journey failed", failed.getCause());
+            }
+        }
+
+        private Future<JourneyBatchResultDTO> take() {
+            try {
+                return completion.take();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new RuntimeException("Interrupted waiting for batch", interrupted);
+            }
+        }
+
+        private void cancel() {
+            if (cancelled || outstanding.isEmpty()) {
+                return;
+            }
+            cancelled = true;
+            logger.warn(format("Cancelling batch, %s journeys outstanding", outstanding.size()));
+            outstanding.forEach((future, budget) -> {
+                future.cancel(false);
+                budget.cancel();
+            });
+            outstanding.clear();
+        }
+    }
+}
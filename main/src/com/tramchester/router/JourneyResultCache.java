@@ -0,0 +1,258 @@
+package com.tramchester.router;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.StationClosure;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.ReportsCacheStats;
+import com.tramchester.repository.TransportData;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Station to station results keyed by the stations, the services running on the day, the query time rounded down to
+ * the configured bucket, changes, duration and arrive by. Closures active on the day are part of the key and a change
+ * in the data source versions clears the cache.
+ * Depart after queries are calculated for the start of the bucket and the results used if none depart before the
+ * actual query time. Otherwise the query time is calculated and cached as well, the bucket's search only covers
+ * departures within the max wait of the start of the bucket so may not have found everything reachable later on.
+ */
+@LazySingleton
+public class JourneyResultCache implements ReportsCacheStats {
+    private static final Logger logger = LoggerFactory.getLogger(JourneyResultCache.class);
+
+    // only a few dates are queried at a time, mostly today and tomorrow
+    private static final int MAX_SERVICE_DAYS = 14;
+
+    private final TramchesterConfig config;
+    private final TransportData transportData;
+    private final Cache<Key, List<Journey>> journeys;
+    private final Cache<LocalDate, RunningServices> servicesForDates;
+    private final int bucketMinutes;
+
+    private volatile String dataVersions;
+
+    @Inject
+    public JourneyResultCache(TramchesterConfig config, TransportData transportData, CacheMetrics cacheMetrics) {
+        this.config = config;
+        this.transportData = transportData;
+        bucketMinutes = Math.max(1, config.getJourneyCacheBucketMinutes());
+        journeys = Caffeine.newBuilder().maximumSize(config.getJourneyCacheSize()).recordStats().build();
+        servicesForDates = Caffeine.newBuilder().maximumSize(MAX_SERVICE_DAYS).build();
+        dataVersions = "";
+
+        cacheMetrics.register(this);
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        journeys.invalidateAll();
+        servicesForDates.invalidateAll();
+    }
+
+    /***
+     * @param calculate finds journeys for the request given, results are collected so must not need a transaction
+     *                  once returned
+     */
+    public Stream<Journey> getJourneys(Station start, Station dest, JourneyRequest journeyRequest,
+                                       Function<JourneyRequest, Stream<Journey>> calculate) {
+        if (journeyRequest.getDiagnosticsEnabled()) {
+            return calculate.apply(journeyRequest);
+        }
+        checkDataVersions();
+
+        TramTime queryTime = journeyRequest.getTime();
+        TramTime bucketTime = journeyRequest.getArriveBy() ? queryTime : bucketStart(queryTime);
+        RunningServices runningServices = getRunningServices(journeyRequest.getDate());
+        Set<IdFor<Station>> closures = activeClosures(journeyRequest.getDate());
+
+        List<Journey> results = getFor(start, dest, journeyRequest, bucketTime, runningServices, closures, calculate);
+        if (journeyRequest.getArriveBy() || bucketTime.equals(queryTime)) {
+            return results.stream();
+        }
+
+        List<Journey> departAfter = results.stream().
+                filter(journey -> !departsBefore(journey, queryTime)).
+                collect(Collectors.toList());
+        if (departAfter.size() < results.size()) {
+            // the bucket's search only waited from the start of the bucket, so may have missed journeys reachable
+            // from the query time
+            return getFor(start, dest, journeyRequest, queryTime, runningServices, closures, calculate).stream();
+        }
+        return departAfter.stream();
+    }
+
+    private List<Journey> getFor(Station start, Station dest, JourneyRequest journeyRequest, TramTime time,
+                                 RunningServices runningServices, Set<IdFor<Station>> closures,
+                                 Function<JourneyRequest, Stream<Journey>> calculate) {
+        Key key = new Key(start.getId(), dest.getId(), journeyRequest, time, runningServices, closures);
+
+        List<Journey> results = journeys.getIfPresent(key);
+        if (results == null) {
+            JourneyRequest forTime = new JourneyRequest(journeyRequest.getDate(), time,
+                    journeyRequest.getArriveBy(), journeyRequest.getMaxChanges(), journeyRequest.getMaxJourneyDuration());
+            forTime.setWarnIfNoResults(journeyRequest.getWarnIfNoResults());
+            forTime.setBudget(journeyRequest.getBudget());
+            // the search is lazy, only find as many as will be returned
+            results = calculate.apply(forTime).limit(config.getMaxNumResults()).collect(Collectors.toList());
+            if (forTime.getBudget().isExhausted()) {
+                // best found before the search stopped, a later request may do better
+                logger.info(format("Not caching partial result for %s to %s %s", start.getId(), dest.getId(), forTime));
+            } else {
+                journeys.put(key, results);
+            }
+        } else {
+            logger.debug(format("Cached result for %s to %s %s", start.getId(), dest.getId(), journeyRequest));
+        }
+        return results;
+    }
+
+    private static boolean departsBefore(Journey journey, TramTime queryTime) {
+        if (journey.getStages().isEmpty()) {
+            return false;
+        }
+        return journey.getStages().get(0).getFirstDepartureTime().isBefore(queryTime);
+    }
+
+    private TramTime bucketStart(TramTime time) {
+        int minutes = CompactTimetable.asMinutes(time);
+        return CompactTimetable.asTramTime(minutes - (minutes % bucketMinutes));
+    }
+
+    private void checkDataVersions() {
+        String current = transportData.getDataSourceInfo().stream().
+                map(info -> info.getID().getName() + ":" + info.getVersion()).
+                sorted().
+                collect(Collectors.joining(","));
+        if (!current.equals(dataVersions)) {
+            synchronized (this) {
+                if (!current.equals(dataVersions)) {
+                    logger.info(format("Data versions now '%s', was '%s', clearing cache", current, dataVersions));
+                    journeys.invalidateAll();
+                    servicesForDates.invalidateAll();
+                    dataVersions = current;
+                }
+            }
+        }
+    }
+
+    private RunningServices getRunningServices(TramServiceDate date) {
+        return servicesForDates.get(date.getDate(), unused -> new RunningServices(
+                transportData.getServicesOnDate(date).stream().
+                        map(service -> service.getId().getGraphId()).
+                        sorted().
+                        collect(Collectors.toList())));
+    }
+
+    private Set<IdFor<Station>> activeClosures(TramServiceDate serviceDate) {
+        LocalDate date = serviceDate.getDate();
+        List<StationClosure> closures = config.getStationClosures();
+        if (closures.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return closures.stream().
+                filter(closure -> !date.isBefore(closure.getBegin()) && !date.isAfter(closure.getEnd())).
+                map(StationClosure::getStation).
+                collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<Pair<String, CacheStats>> stats() {
+        List<Pair<String, CacheStats>> result = new ArrayList<>();
+        result.add(Pair.of("journeys", journeys.stats()));
+        return result;
+    }
+
+    private static class Key {
+        private final IdFor<Station> start;
+        private final IdFor<Station> dest;
+        private final TramTime time;
+        private final boolean arriveBy;
+        private final int maxChanges;
+        private final int maxJourneyDuration;
+        private final RunningServices runningServices;
+        private final Set<IdFor<Station>> closures;
+
+        private Key(IdFor<Station> start, IdFor<Station> dest, JourneyRequest journeyRequest, TramTime time,
+                    RunningServices runningServices, Set<IdFor<Station>> closures) {
+            this.start = start;
+            this.dest = dest;
+            this.time = time;
+            this.arriveBy = journeyRequest.getArriveBy();
+            this.maxChanges = journeyRequest.getMaxChanges();
+            this.maxJourneyDuration = journeyRequest.getMaxJourneyDuration();
+            this.runningServices = runningServices;
+            this.closures = closures;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return arriveBy == key.arriveBy &&
+                    maxChanges == key.maxChanges &&
+                    maxJourneyDuration == key.maxJourneyDuration &&
+                    runningServices.equals(key.runningServices) &&
+                    start.equals(key.start) &&
+                    dest.equals(key.dest) &&
+                    time.equals(key.time) &&
+                    closures.equals(key.closures);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, dest, time, arriveBy, maxChanges, maxJourneyDuration, runningServices,
+                    closures);
+        }
+    }
+
+    /***
+     * Ids of the services running on a date, shared by the keys for that date. Dates running the same services
+     * share results.
+     */
+    private static class RunningServices {
+        private final List<String> serviceIds;
+        private final int hashCode;
+
+        private RunningServices(List<String> serviceIds) {
+            this.serviceIds = serviceIds;
+            hashCode = serviceIds.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RunningServices that = (RunningServices) o;
+            return hashCode == that.hashCode && serviceIds.equals(that.serviceIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tramchester.router;
 
 import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.PlanningEngine;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.id.StringIdFor;
 import com.tramchester.domain.Journey;
@@ -17,11 +18,15 @@ import com.tramchester.mappers.JourneyToDTOMapper;
 import com.tramchester.repository.PostcodeRepository;
 import com.tramchester.repository.TransportData;
 import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.TransferPatternRouteCalculator;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.util.stream.Stream;
 
 import static com.tramchester.domain.places.MyLocation.MY_LOCATION_PLACEHOLDER_ID;
@@ -35,26 +40,67 @@ public class ProcessPlanRequest {
     private final LocationJourneyPlanner locToLocPlanner;
     private final RouteCalculator routeCalculator;
     private final RouteCalculatorArriveBy routeCalculatorArriveBy;
+    private final Provider<RaptorRouteCalculator> raptorRouteCalculator;
+    private final Provider<TransferPatternRouteCalculator> transferPatternRouteCalculator;
     private final TransportData transportData;
     private final PostcodeRepository postcodeRepository;
     private final JourneyToDTOMapper journeyToDTOMapper;
+    private final Provider<JourneyResultCache> journeyResultCache;
+    private final InFlightJourneyRequests inFlightJourneyRequests;
 
     @Inject
     public ProcessPlanRequest(TramchesterConfig config, LocationJourneyPlanner locToLocPlanner, RouteCalculator routeCalculator,
-                              RouteCalculatorArriveBy routeCalculatorArriveBy, TransportData transportData,
-                              PostcodeRepository postcodeRepository, JourneyToDTOMapper journeyToDTOMapper) {
+                              RouteCalculatorArriveBy routeCalculatorArriveBy, Provider<RaptorRouteCalculator> raptorRouteCalculator,
+                              Provider<TransferPatternRouteCalculator> transferPatternRouteCalculator,
+                              TransportData transportData, PostcodeRepository postcodeRepository,
+                              JourneyToDTOMapper journeyToDTOMapper, Provider<JourneyResultCache> journeyResultCache,
+                              InFlightJourneyRequests inFlightJourneyRequests) {
         this.config = config;
         this.locToLocPlanner = locToLocPlanner;
 
         this.routeCalculator = routeCalculator;
         this.routeCalculatorArriveBy = routeCalculatorArriveBy;
+        // provider so the timetable is only built if the engine is in use
+        this.raptorRouteCalculator = raptorRouteCalculator;
+        // provider so the patterns are only built if the engine is in use
+        this.transferPatternRouteCalculator = transferPatternRouteCalculator;
         this.transportData = transportData;
         this.postcodeRepository = postcodeRepository;
         this.journeyToDTOMapper = journeyToDTOMapper;
+        // provider so the cache, and its metrics, only exist if enabled
+        this.journeyResultCache = journeyResultCache;
+        this.inFlightJourneyRequests = inFlightJourneyRequests;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (config.getPlanningEngine() == PlanningEngine.TransferPatterns) {
+            // building the patterns takes minutes, do it while the resources are created and not on the first query
+            logger.info("Loading transfer patterns");
+            transferPatternRouteCalculator.get();
+        }
     }
 
     public Stream<JourneyDTO> directRequest(Transaction txn, String startId, String endId, JourneyRequest journeyRequest,
                                             String lat, String lon) {
+        if (journeyRequest.getDiagnosticsEnabled()) {
+            return calculate(txn, startId, endId, journeyRequest, lat, lon, true);
+        }
+        return inFlightJourneyRequests.getJourneys(startId, endId, lat, lon, journeyRequest,
+                () -> calculate(txn, startId, endId, journeyRequest, lat, lon, true));
+    }
+
+    /***
+     * Journeys are found as the stream is consumed, so cancelling the request's budget stops the search part way.
+     * Not shared with identical requests or cached, as both need the results collected first.
+     */
+    public Stream<JourneyDTO> streamedRequest(Transaction txn, String startId, String endId, JourneyRequest journeyRequest,
+                                              String lat, String lon) {
+        return calculate(txn, startId, endId, journeyRequest, lat, lon, false);
+    }
+
+    private Stream<JourneyDTO> calculate(Transaction txn, String startId, String endId, JourneyRequest journeyRequest,
+                                         String lat, String lon, boolean cached) {
         Stream<Journey> journeys;
 
         if (isFromUserLocation(startId)) {
@@ -64,7 +110,7 @@ public class ProcessPlanRequest {
             LatLong latLong = decodeLatLong(lat, lon);
             journeys = endsWithPosition(txn, startId, latLong, journeyRequest);
         } else {
-            journeys = createJourneyPlan(txn, startId, endId, journeyRequest);
+            journeys = createJourneyPlan(txn, startId, endId, journeyRequest, cached);
         }
 
         return mapToDTOStream(journeyRequest.getDate(), journeys);
@@ -77,7 +123,8 @@ public class ProcessPlanRequest {
                 limit(config.getMaxNumResults());
     }
 
-    private Stream<Journey> createJourneyPlan(Transaction txn, String startId, String endId, JourneyRequest journeyRequest) {
+    private Stream<Journey> createJourneyPlan(Transaction txn, String startId, String endId, JourneyRequest journeyRequest,
+                                              boolean cached) {
         logger.info(format("Plan journey from %s to %s on %s", startId, endId, journeyRequest));
 
         boolean firstIsStation = !startId.startsWith(PostcodeDTO.PREFIX);
@@ -86,7 +133,7 @@ public class ProcessPlanRequest {
         if (firstIsStation && secondIsStation) {
             Station start = getStation(startId, "start");
             Station dest = getStation(endId, "end");
-            return stationToStation(txn, start, dest, journeyRequest);
+            return stationToStation(txn, start, dest, journeyRequest, cached);
         }
 
         // Station -> Postcode
@@ -127,10 +174,23 @@ public class ProcessPlanRequest {
         return locToLocPlanner.quickestRouteForLocation(txn, start, latLong, journeyRequest);
     }
 
-    private Stream<Journey> stationToStation(Transaction txn, Station start, Station dest, JourneyRequest journeyRequest) {
+    private Stream<Journey> stationToStation(Transaction txn, Station start, Station dest, JourneyRequest journeyRequest,
+                                             boolean cached) {
+        if (cached && config.getJourneyCacheSize() > 0) {
+            return journeyResultCache.get().getJourneys(start, dest, journeyRequest,
+                    request -> calculateStationToStation(txn, start, dest, request));
+        }
+        return calculateStationToStation(txn, start, dest, journeyRequest);
+    }
+
+    private Stream<Journey> calculateStationToStation(Transaction txn, Station start, Station dest, JourneyRequest journeyRequest) {
         Stream<Journey> journeys;
         if (journeyRequest.getArriveBy()) {
             journeys = routeCalculatorArriveBy.calculateRoute(txn, start, dest, journeyRequest);
+        } else if (config.getPlanningEngine() == PlanningEngine.Raptor) {
+            journeys = raptorRouteCalculator.get().calculateRoute(txn, start, dest, journeyRequest);
+        } else if (config.getPlanningEngine() == PlanningEngine.TransferPatterns) {
+            journeys = transferPatternRouteCalculator.get().calculateRoute(txn, start, dest, journeyRequest);
         } else {
             journeys = routeCalculator.calculateRoute(txn, start, dest, journeyRequest);
         }
@@ -140,7 +200,7 @@ public class ProcessPlanRequest {
     private PostcodeLocation getPostcode(String text, String diagnostic) {
         String prefixRemovedText = text.replaceFirst(PostcodeDTO.PREFIX, "");
 
-        StringIdFor<PostcodeLocation> postcodeId = StringIdFor.createId(prefixRemovedText);
+        StringIdFor<PostcodeLocation> postcodeId = StringIdFor.forLookup(prefixRemovedText);
         if (!postcodeRepository.hasPostcode(postcodeId)) {
             String msg = "Unable to find " + diagnostic +" postcode from:  "+ prefixRemovedText;
             logger.warn(msg);
@@ -151,7 +211,7 @@ public class ProcessPlanRequest {
 
     private Station getStation(String locationIdText, String diagnostic) {
 
-        StringIdFor<Station> locationId = StringIdFor.createId(locationIdText);
+        StringIdFor<Station> locationId = StringIdFor.forLookup(locationIdText);
         if (!transportData.hasStationId(locationId)) {
             String msg = "Unable to find " + diagnostic + " station from id: "+ locationIdText;
             logger.warn(msg);
@@ -0,0 +1,115 @@
+package com.tramchester.router.raptor;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.geo.StationLocationsRepository;
+import com.tramchester.graph.search.JourneyConstraints;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.RunningServicesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+
+import static com.tramchester.geo.CoordinateTransforms.calcCostInMinutes;
+import static java.lang.String.format;
+
+/***
+ * One to all earliest arrival, a single RAPTOR search with no destination from a station, or from the stations within
+ * walking distance of a location, gives the minutes from the query time to the earliest arrival at every station
+ * reachable within the max journey duration.
+ */
+@LazySingleton
+public class EarliestArrivalSearch {
+    private static final Logger logger = LoggerFactory.getLogger(EarliestArrivalSearch.class);
+
+    // same as RaptorRouteCalculator
+    private static final int CHANGE_MINS = 2;
+
+    private final RaptorTimetable timetable;
+    private final RunningServicesRepository runningServicesRepository;
+    private final TramchesterConfig config;
+    private final StationLocationsRepository stationLocations;
+
+    @Inject
+    public EarliestArrivalSearch(RaptorTimetable timetable, RunningServicesRepository runningServicesRepository,
+                                 TramchesterConfig config, StationLocationsRepository stationLocations) {
+        this.timetable = timetable;
+        this.runningServicesRepository = runningServicesRepository;
+        this.config = config;
+        this.stationLocations = stationLocations;
+    }
+
+    public Map<Station, Integer> fromStation(Station start, JourneyRequest journeyRequest) {
+        logger.info(format("Earliest arrivals from %s for %s", start.getId(), journeyRequest));
+        int index = timetable.getStationIndex(start);
+        if (index < 0) {
+            String msg = "Unable to find station in timetable " + start.getId();
+            logger.error(msg);
+            throw new RuntimeException(msg);
+        }
+        return search(new int[]{index}, new int[]{0}, journeyRequest);
+    }
+
+    public Map<Station, Integer> fromLocation(LatLong latLong, JourneyRequest journeyRequest) {
+        logger.info(format("Earliest arrivals from %s for %s", latLong, journeyRequest));
+        List<Station> nearby = stationLocations.nearestStationsSorted(latLong,
+                config.getNumOfNearestStopsForWalking(), config.getNearestStopForWalkingRangeKM());
+
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> walks = new ArrayList<>();
+        for (Station station : nearby) {
+            int index = timetable.getStationIndex(station);
+            if (index >= 0) {
+                starts.add(index);
+                walks.add(calcCostInMinutes(latLong, station, config.getWalkingMPH()));
+            }
+        }
+        if (starts.isEmpty()) {
+            logger.warn(format("No stations within walking distance of %s", latLong));
+            return Collections.emptyMap();
+        }
+        return search(starts.stream().mapToInt(Integer::intValue).toArray(),
+                walks.stream().mapToInt(Integer::intValue).toArray(), journeyRequest);
+    }
+
+    private Map<Station, Integer> search(int[] starts, int[] offsets, JourneyRequest journeyRequest) {
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                Collections.emptySet());
+
+        BitSet running = journeyConstraints.getRunningServiceIndexes();
+        RaptorSearch search = new RaptorSearch(timetable, running, closedStations(journeyConstraints),
+                config.getChangeAtInterchangeOnly(), config.getMaxWait(), CHANGE_MINS, journeyRequest.getMaxChanges());
+
+        int queryMinutes = CompactTimetable.asMinutes(journeyRequest.getTime());
+        int[] departAts = new int[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            departAts[i] = queryMinutes + offsets[i];
+        }
+        int latestArrival = queryMinutes + journeyRequest.getMaxJourneyDuration();
+        search.run(starts, departAts, RaptorSearch.NO_DESTINATION, latestArrival);
+
+        Map<Station, Integer> results = new HashMap<>();
+        for (int station = 0; station < timetable.numberOfStations(); station++) {
+            int arrival = search.getBestArrival(station);
+            if (arrival != RaptorSearch.UNREACHED && arrival <= latestArrival) {
+                results.put(timetable.getStation(station), arrival - queryMinutes);
+            }
+        }
+        logger.info(format("Reached %s of %s stations in %s rounds", results.size(), timetable.numberOfStations(),
+                search.getRoundsRun()));
+        return results;
+    }
+
+    private boolean[] closedStations(JourneyConstraints journeyConstraints) {
+        boolean[] closed = new boolean[timetable.numberOfStations()];
+        for (int i = 0; i < closed.length; i++) {
+            closed[i] = journeyConstraints.isClosed(timetable.getStation(i));
+        }
+        return closed;
+    }
+}
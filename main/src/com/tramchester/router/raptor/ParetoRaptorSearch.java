@@ -0,0 +1,419 @@
+package com.tramchester.router.raptor;
+
+import java.util.*;
+
+/***
+ * Multi criteria round based search, each station keeps a set of non-dominated labels over arrival time, minutes
+ * walked and departure time for each round, round k using k vehicles so the number of changes comes from the round.
+ * All query times and all walks to and from stations are searched in a single pass and getJourneys gives the
+ * journeys that are not dominated on departure, arrival, changes and walking, so a journey leaving later is kept
+ * even if it arrives later, as it would be by a search for a later query time on its own.
+ * Not thread safe, create one per query.
+ */
+class ParetoRaptorSearch {
+
+    private final RaptorTimetable timetable;
+    private final BitSet running;
+    private final boolean[] closed;
+    private final boolean changeAtInterchangeOnly;
+    private final int maxWait;
+    private final int changeMins;
+    private final int maxRounds;
+
+    // labels found in each round, null if none
+    private final Bag[][] bags;
+    // labels over all rounds so far, used to prune
+    private final Bag[] best;
+
+    private final boolean[] marked;
+    private final int[] markedStations;
+    private int numberMarked;
+
+    private final int[] queuePosition;
+    private final int[] queuedPatterns;
+    private int numberQueued;
+
+    private int roundsRun;
+    private int labelsCreated;
+
+    ParetoRaptorSearch(RaptorTimetable timetable, BitSet running, boolean[] closed, boolean changeAtInterchangeOnly,
+                       int maxWait, int changeMins, int maxChanges) {
+        this.timetable = timetable;
+        this.running = running;
+        this.closed = closed;
+        this.changeAtInterchangeOnly = changeAtInterchangeOnly;
+        this.maxWait = maxWait;
+        this.changeMins = changeMins;
+        this.maxRounds = maxChanges + 1;
+
+        int numberStations = timetable.numberOfStations();
+        int numberPatterns = timetable.numberOfPatterns();
+
+        bags = new Bag[maxRounds + 1][numberStations];
+        best = new Bag[numberStations];
+
+        marked = new boolean[numberStations];
+        markedStations = new int[numberStations];
+        queuePosition = new int[numberPatterns];
+        queuedPatterns = new int[numberPatterns];
+    }
+
+    /***
+     * @param starts station indexes to depart from
+     * @param startWalks minutes walked to reach each of starts, 0 when starting at the station
+     * @param departAts query times, minutes since start of the service day, the walk to the start begins at each
+     * @param maxJourneyDuration labels taking longer than this from their departure are discarded
+     */
+    void run(int[] starts, int[] startWalks, int[] departAts, int maxJourneyDuration) {
+        for (int round = 0; round <= maxRounds; round++) {
+            Arrays.fill(bags[round], null);
+        }
+        Arrays.fill(best, null);
+        Arrays.fill(marked, false);
+        Arrays.fill(queuePosition, -1);
+        numberMarked = 0;
+        numberQueued = 0;
+        roundsRun = 0;
+        labelsCreated = 0;
+
+        for (int departAt : departAts) {
+            for (int i = 0; i < starts.length; i++) {
+                int start = starts[i];
+                Label label = new Label(0, start, departAt + startWalks[i], startWalks[i], departAt, null, null);
+                if (addLabel(0, start, label)) {
+                    mark(start);
+                }
+            }
+        }
+
+        for (int round = 1; round <= maxRounds && numberMarked > 0; round++) {
+            queuePatternsForMarked();
+            for (int i = 0; i < numberQueued; i++) {
+                int patternIndex = queuedPatterns[i];
+                int fromPosition = queuePosition[patternIndex];
+                queuePosition[patternIndex] = -1;
+                scanPattern(round, timetable.getPattern(patternIndex), fromPosition, maxJourneyDuration);
+            }
+            numberQueued = 0;
+            roundsRun = round;
+        }
+    }
+
+    private boolean addLabel(int round, int station, Label label) {
+        if (best[station] == null) {
+            best[station] = new Bag();
+        }
+        if (!best[station].add(label)) {
+            return false;
+        }
+        if (bags[round][station] == null) {
+            bags[round][station] = new Bag();
+        }
+        bags[round][station].add(label);
+        labelsCreated++;
+        return true;
+    }
+
+    private void mark(int station) {
+        if (!marked[station]) {
+            marked[station] = true;
+            markedStations[numberMarked++] = station;
+        }
+    }
+
+    private void queuePatternsForMarked() {
+        for (int i = 0; i < numberMarked; i++) {
+            int station = markedStations[i];
+            marked[station] = false;
+            int[] patterns = timetable.getPatternsFor(station);
+            int[] positions = timetable.getPositionsFor(station);
+            for (int j = 0; j < patterns.length; j++) {
+                int pattern = patterns[j];
+                int current = queuePosition[pattern];
+                if (current == -1) {
+                    queuedPatterns[numberQueued++] = pattern;
+                    queuePosition[pattern] = positions[j];
+                } else if (positions[j] < current) {
+                    queuePosition[pattern] = positions[j];
+                }
+            }
+        }
+        numberMarked = 0;
+    }
+
+    private void scanPattern(int round, RaptorPattern pattern, int fromPosition, int maxJourneyDuration) {
+        Bag[] previousRound = bags[round - 1];
+        List<Boarded> routeBag = new ArrayList<>();
+
+        for (int position = fromPosition; position < pattern.numberOfStations(); position++) {
+            int station = pattern.getStation(position);
+
+            if (!routeBag.isEmpty() && !closed[station]) {
+                for (Boarded boarded : routeBag) {
+                    if (!boarded.trip.canAlight(position)) {
+                        continue;
+                    }
+                    int arrival = boarded.trip.getArrival(position);
+                    if (arrival - boarded.departure > maxJourneyDuration) {
+                        continue;
+                    }
+                    RaptorLeg leg = new RaptorLeg(pattern, boarded.trip, boarded.boardPosition, position);
+                    Label label = new Label(round, station, arrival, boarded.from.walk, boarded.departure,
+                            boarded.from, leg);
+                    if (addLabel(round, station, label) && canChangeAt(station)) {
+                        mark(station);
+                    }
+                }
+            }
+
+            Bag previous = previousRound[station];
+            if (previous != null && !closed[station]) {
+                boolean atStart = (round == 1);
+                if (!atStart && !canChangeAt(station)) {
+                    continue;
+                }
+                for (Label label : previous.labels) {
+                    int earliestBoard = atStart ? label.arrival : label.arrival + changeMins;
+                    int found = findTrip(pattern, position, earliestBoard);
+                    if (found != -1) {
+                        RaptorTrip trip = pattern.getTrip(found);
+                        // leave the start as late as possible to catch the first vehicle
+                        int departure = atStart ? trip.getDeparture(position) - label.walk : label.departure;
+                        addBoarded(routeBag, new Boarded(label, found, trip, position, departure));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addBoarded(List<Boarded> routeBag, Boarded candidate) {
+        for (Boarded existing : routeBag) {
+            if (existing.dominates(candidate)) {
+                return;
+            }
+        }
+        routeBag.removeIf(candidate::dominates);
+        routeBag.add(candidate);
+    }
+
+    private boolean canChangeAt(int station) {
+        return !changeAtInterchangeOnly || timetable.isInterchange(station);
+    }
+
+    /***
+     * @return earliest running trip that can be boarded at position within max wait of earliestBoard
+     */
+    private int findTrip(RaptorPattern pattern, int position, int earliestBoard) {
+        int latestBoard = earliestBoard + maxWait;
+        for (int index = pattern.firstDepartingAtOrAfter(position, earliestBoard); index < pattern.numberOfTrips(); index++) {
+            RaptorTrip candidate = pattern.getTrip(index);
+            if (candidate.getDeparture(position) > latestBoard) {
+                return -1;
+            }
+            if (running.get(candidate.getServiceIndex()) && candidate.canBoard(position)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    int getRoundsRun() {
+        return roundsRun;
+    }
+
+    int getLabelsCreated() {
+        return labelsCreated;
+    }
+
+    /***
+     * @param destinations station indexes to arrive at
+     * @param destinationWalks minutes to walk on from each of destinations, 0 when arriving at the station
+     * @return journeys not dominated on departure, arrival, number of changes and minutes walked, ordered by number of
+     * changes and then arrival
+     */
+    List<ParetoJourney> getJourneys(int[] destinations, int[] destinationWalks) {
+        List<ParetoJourney> results = new ArrayList<>();
+        for (int round = 1; round <= roundsRun; round++) {
+            for (int i = 0; i < destinations.length; i++) {
+                Bag bag = bags[round][destinations[i]];
+                if (bag == null) {
+                    continue;
+                }
+                for (Label label : bag.labels) {
+                    addJourney(results, new ParetoJourney(label, destinationWalks[i]));
+                }
+            }
+        }
+        results.sort(Comparator.comparingInt(ParetoJourney::getNumberChanges).
+                thenComparingInt(ParetoJourney::getArrival));
+        return results;
+    }
+
+    /***
+     * @return a journey for every label at destination in every round, without filtering, see TransferPatterns
+     */
+    List<ParetoJourney> getAllJourneys(int destination) {
+        List<ParetoJourney> results = new ArrayList<>();
+        for (int round = 1; round <= roundsRun; round++) {
+            Bag bag = bags[round][destination];
+            if (bag != null) {
+                for (Label label : bag.labels) {
+                    results.add(new ParetoJourney(label, 0));
+                }
+            }
+        }
+        return results;
+    }
+
+    private void addJourney(List<ParetoJourney> results, ParetoJourney candidate) {
+        for (ParetoJourney existing : results) {
+            if (existing.dominates(candidate)) {
+                return;
+            }
+        }
+        results.removeIf(candidate::dominates);
+        results.add(candidate);
+    }
+
+    private static class Label {
+        private final int round;
+        private final int station;
+        private final int arrival;
+        private final int walk;
+        private final int departure;
+        private final Label previous;
+        private final RaptorLeg leg;
+
+        private Label(int round, int station, int arrival, int walk, int departure, Label previous, RaptorLeg leg) {
+            this.round = round;
+            this.station = station;
+            this.arrival = arrival;
+            this.walk = walk;
+            this.departure = departure;
+            this.previous = previous;
+            this.leg = leg;
+        }
+
+        private boolean dominates(Label other) {
+            return arrival <= other.arrival && walk <= other.walk && departure >= other.departure;
+        }
+    }
+
+    private static class Bag {
+        private final List<Label> labels = new ArrayList<>(2);
+
+        /***
+         * @return true if label was not dominated and so was added, dominated labels are removed
+         */
+        private boolean add(Label label) {
+            for (Label existing : labels) {
+                if (existing.dominates(label)) {
+                    return false;
+                }
+            }
+            labels.removeIf(label::dominates);
+            labels.add(label);
+            return true;
+        }
+    }
+
+    // a trip boarded from a label, trips in a pattern do not overtake so an earlier trip arrives earlier everywhere
+    private static class Boarded {
+        private final Label from;
+        private final int tripIndex;
+        private final RaptorTrip trip;
+        private final int boardPosition;
+        private final int departure;
+
+        private Boarded(Label from, int tripIndex, RaptorTrip trip, int boardPosition, int departure) {
+            this.from = from;
+            this.tripIndex = tripIndex;
+            this.trip = trip;
+            this.boardPosition = boardPosition;
+            this.departure = departure;
+        }
+
+        private boolean dominates(Boarded other) {
+            return tripIndex <= other.tripIndex && from.walk <= other.from.walk && departure >= other.departure;
+        }
+    }
+
+    /***
+     * A journey found by the search, the legs ordered from the start
+     */
+    static class ParetoJourney {
+        private final int start;
+        private final int startWalk;
+        private final int destination;
+        private final int destinationWalk;
+        private final int arrival;
+        private final int walk;
+        private final int departure;
+        private final List<RaptorLeg> legs;
+
+        private ParetoJourney(Label label, int destinationWalk) {
+            LinkedList<RaptorLeg> found = new LinkedList<>();
+            Label current = label;
+            while (current.previous != null) {
+                found.addFirst(current.leg);
+                current = current.previous;
+            }
+            this.start = current.station;
+            this.startWalk = current.walk;
+            this.destination = label.station;
+            this.destinationWalk = destinationWalk;
+            this.arrival = label.arrival + destinationWalk;
+            this.walk = label.walk + destinationWalk;
+            this.departure = label.departure;
+            this.legs = found;
+        }
+
+        // no worse on every criterion, of journeys equal on all of them the first found is kept
+        private boolean dominates(ParetoJourney other) {
+            return departure >= other.departure && arrival <= other.arrival &&
+                    getNumberChanges() <= other.getNumberChanges() && walk <= other.walk;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getStartWalk() {
+            return startWalk;
+        }
+
+        int getDestination() {
+            return destination;
+        }
+
+        int getDestinationWalk() {
+            return destinationWalk;
+        }
+
+        /***
+         * @return arrival at the destination, including any walk from the last station
+         */
+        int getArrival() {
+            return arrival;
+        }
+
+        int getWalk() {
+            return walk;
+        }
+
+        /***
+         * @return when the journey leaves the start, before any walk to the first station
+         */
+        int getDeparture() {
+            return departure;
+        }
+
+        List<RaptorLeg> getLegs() {
+            return legs;
+        }
+
+        int getNumberChanges() {
+            return legs.size() - 1;
+        }
+    }
+}
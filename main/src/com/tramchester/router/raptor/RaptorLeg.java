@@ -0,0 +1,42 @@
+package com.tramchester.router.raptor;
+
+/***
+ * One vehicle ride found by a search, boarding and alighting are positions within the pattern
+ */
+class RaptorLeg {
+    private final RaptorPattern pattern;
+    private final RaptorTrip trip;
+    private final int boardPosition;
+    private final int alightPosition;
+
+    RaptorLeg(RaptorPattern pattern, RaptorTrip trip, int boardPosition, int alightPosition) {
+        this.pattern = pattern;
+        this.trip = trip;
+        this.boardPosition = boardPosition;
+        this.alightPosition = alightPosition;
+    }
+
+    RaptorPattern getPattern() {
+        return pattern;
+    }
+
+    RaptorTrip getTrip() {
+        return trip;
+    }
+
+    int getBoardPosition() {
+        return boardPosition;
+    }
+
+    int getAlightPosition() {
+        return alightPosition;
+    }
+
+    int getDepartTime() {
+        return trip.getDeparture(boardPosition);
+    }
+
+    int getArriveTime() {
+        return trip.getArrival(alightPosition);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.domain.Route;
+
+import java.util.List;
+
+/***
+ * Trips of one route that call at exactly the same sequence of stations, ordered by departure time with no
+ * trip overtaking another, so the earliest trip that can be boarded at any position can be found by binary search
+ */
+class RaptorPattern {
+    private final int index;
+    private final Route route;
+    private final int[] stations;
+    private final RaptorTrip[] trips;
+
+    RaptorPattern(int index, Route route, int[] stations, List<RaptorTrip> trips) {
+        this.index = index;
+        this.route = route;
+        this.stations = stations;
+        this.trips = trips.toArray(new RaptorTrip[0]);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    Route getRoute() {
+        return route;
+    }
+
+    int getStation(int position) {
+        return stations[position];
+    }
+
+    int numberOfStations() {
+        return stations.length;
+    }
+
+    RaptorTrip getTrip(int tripIndex) {
+        return trips[tripIndex];
+    }
+
+    int numberOfTrips() {
+        return trips.length;
+    }
+
+    /***
+     * @return index of the first trip departing position at or after time, or numberOfTrips() if none
+     */
+    int firstDepartingAtOrAfter(int position, int time) {
+        int low = 0;
+        int high = trips.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (trips[mid].getDeparture(position) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /***
+     * @return index of the last trip arriving at position at or before time, or -1 if none
+     */
+    int lastArrivingAtOrBefore(int position, int time) {
+        int low = 0;
+        int high = trips.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (trips[mid].getArrival(position) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -0,0 +1,328 @@
+package com.tramchester.router.raptor;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.VehicleStage;
+import com.tramchester.domain.WalkingFromStationStage;
+import com.tramchester.domain.WalkingToStationStage;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.MyLocation;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.graph.search.JourneyConstraints;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.TramRouteCalculator;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.RunningServicesRepository;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Journeys from the in memory timetable using RAPTOR, no graph traversal involved. Depart after journeys come from a
+ * single multi criteria search over all the query times, see ParetoRaptorSearch, walks at the start or end are read
+ * from the WalkingOverlay nodes of the query.
+ */
+@LazySingleton
+public class RaptorRouteCalculator implements TramRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(RaptorRouteCalculator.class);
+
+    // same as departing and then boarding at an interchange in the graph
+    static final int CHANGE_MINS = 2;
+
+    private final RaptorTimetable timetable;
+    private final RunningServicesRepository runningServicesRepository;
+    private final TramchesterConfig config;
+    private final CreateQueryTimes createQueryTimes;
+    private final MyLocationFactory myLocationFactory;
+
+    @Inject
+    public RaptorRouteCalculator(RaptorTimetable timetable, RunningServicesRepository runningServicesRepository,
+                                 TramchesterConfig config, CreateQueryTimes createQueryTimes,
+                                 MyLocationFactory myLocationFactory) {
+        this.timetable = timetable;
+        this.runningServicesRepository = runningServicesRepository;
+        this.config = config;
+        this.createQueryTimes = createQueryTimes;
+        this.myLocationFactory = myLocationFactory;
+    }
+
+    @Override
+    public Stream<Journey> calculateRoute(Transaction txn, Station startStation, Station destination, JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s (%s) --> %s (%s) for %s",
+                startStation.getName(), startStation.getId(), destination.getName(), destination.getId(), journeyRequest));
+
+        Walks starts = Walks.at(getIndexSafe(startStation));
+        Walks destinations = Walks.at(getIndexSafe(destination));
+        return search(starts, destinations, Collections.singleton(destination), journeyRequest, false, null, null);
+    }
+
+    /***
+     * Arrive by in a single backwards search from the destination, one journey per number of changes with the
+     * latest departure that arrives in time
+     */
+    public Stream<Journey> calculateRouteArriveBy(Station startStation, Station destination, JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s (%s) --> %s (%s) arriving by %s",
+                startStation.getName(), startStation.getId(), destination.getName(), destination.getId(), journeyRequest));
+
+        int start = getIndexSafe(startStation);
+        int dest = getIndexSafe(destination);
+
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                Collections.singleton(destination));
+
+        BitSet running = journeyConstraints.getRunningServiceIndexes();
+        ReverseRaptorSearch search = new ReverseRaptorSearch(timetable, running, closedStations(journeyConstraints),
+                config.getChangeAtInterchangeOnly(), config.getMaxWait(), CHANGE_MINS, journeyRequest.getMaxChanges());
+
+        int arriveBy = CompactTimetable.asMinutes(journeyRequest.getTime());
+        // no departures before the start of the service day
+        search.run(start, dest, arriveBy, Math.max(0, arriveBy - journeyRequest.getMaxJourneyDuration()));
+
+        List<RaptorResult> results = new ArrayList<>();
+        for (int round = 1; round <= search.getRoundsRun(); round++) {
+            int departure = search.getDeparture(round, start);
+            // more changes only if it means leaving later
+            if (departure != ReverseRaptorSearch.UNREACHED && departure > search.getDeparture(round - 1, start)) {
+                List<RaptorLeg> legs = search.getLegs(round, start);
+                results.add(new RaptorResult(CompactTimetable.asTramTime(departure), legs));
+            }
+        }
+
+        logger.info(format("Found %s journeys scanning %s patterns in %s rounds", results.size(),
+                search.getPatternsScanned(), search.getRoundsRun()));
+
+        return results.stream().map(this::createJourney);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, WalkingOverlay walks, Station start, Node destination,
+                                                   Set<Station> destStations, JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s (%s) --> %s for %s", start.getName(), start.getId(), destination,
+                journeyRequest));
+        Walks starts = Walks.at(getIndexSafe(start));
+        return search(starts, walksInto(destination), destStations, journeyRequest, false, null,
+                locationOf(destination));
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, WalkingOverlay walks, Node startOfWalkNode,
+                                                     Station destination, JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s --> %s (%s) for %s", startOfWalkNode, destination.getName(),
+                destination.getId(), journeyRequest));
+        Walks destinations = Walks.at(getIndexSafe(destination));
+        return search(walksOutOf(startOfWalkNode), destinations, Collections.singleton(destination), journeyRequest,
+                true, locationOf(startOfWalkNode), null);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, WalkingOverlay walks, Node startNode,
+                                                           Node endNode, Set<Station> destinationStations,
+                                                           JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s --> %s for %s", startNode, endNode, journeyRequest));
+        return search(walksOutOf(startNode), walksInto(endNode), destinationStations, journeyRequest, true,
+                locationOf(startNode), locationOf(endNode));
+    }
+
+    /***
+     * @param startLocation where the walk to the first station begins, null if starting at a station
+     * @param endLocation where the walk from the last station ends, null if finishing at a station
+     */
+    private Stream<Journey> search(Walks starts, Walks destinations, Set<Station> destinationStations,
+                                   JourneyRequest journeyRequest, boolean walkAtStart, MyLocation startLocation,
+                                   MyLocation endLocation) {
+        JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningServicesRepository, journeyRequest,
+                destinationStations);
+
+        BitSet running = journeyConstraints.getRunningServiceIndexes();
+        ParetoRaptorSearch search = new ParetoRaptorSearch(timetable, running, closedStations(journeyConstraints),
+                config.getChangeAtInterchangeOnly(), config.getMaxWait(), CHANGE_MINS, journeyRequest.getMaxChanges());
+
+        int[] departAts = createQueryTimes.generate(journeyRequest.getTime(), walkAtStart).stream().
+                mapToInt(CompactTimetable::asMinutes).toArray();
+        search.run(starts.stations, starts.costs, departAts, journeyRequest.getMaxJourneyDuration());
+
+        List<ParetoRaptorSearch.ParetoJourney> results = search.getJourneys(destinations.stations, destinations.costs);
+
+        logger.info(format("Found %s journeys for %s query times from %s labels in %s rounds", results.size(),
+                departAts.length, search.getLabelsCreated(), search.getRoundsRun()));
+
+        return results.stream().map(result -> createJourney(result, journeyRequest.getTime(), startLocation,
+                endLocation));
+    }
+
+    private int getIndexSafe(Station station) {
+        int index = timetable.getStationIndex(station);
+        if (index < 0) {
+            String msg = "Unable to find station in timetable " + station.getId();
+            logger.error(msg);
+            throw new RuntimeException(msg);
+        }
+        return index;
+    }
+
+    private boolean[] closedStations(JourneyConstraints journeyConstraints) {
+        boolean[] closed = new boolean[timetable.numberOfStations()];
+        for (int i = 0; i < closed.length; i++) {
+            closed[i] = journeyConstraints.isClosed(timetable.getStation(i));
+        }
+        return closed;
+    }
+
+    private Walks walksOutOf(Node startOfWalk) {
+        return walks(startOfWalk.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.WALKS_TO));
+    }
+
+    private Walks walksInto(Node endOfWalk) {
+        Iterable<Relationship> walksFrom = endOfWalk.getRelationships(Direction.INCOMING, TransportRelationshipTypes.WALKS_FROM);
+        if (walksFrom.iterator().hasNext()) {
+            return walks(walksFrom);
+        }
+        // walks from the stations end at a mid node, see LocationJourneyPlanner
+        Relationship finish = endOfWalk.getSingleRelationship(TransportRelationshipTypes.FINISH_WALK, Direction.INCOMING);
+        if (finish == null) {
+            String msg = "No walks into " + endOfWalk;
+            logger.error(msg);
+            throw new RuntimeException(msg);
+        }
+        return walks(finish.getStartNode().getRelationships(Direction.INCOMING, TransportRelationshipTypes.WALKS_FROM));
+    }
+
+    private Walks walks(Iterable<Relationship> relationships) {
+        List<Relationship> walks = new ArrayList<>();
+        relationships.forEach(walks::add);
+        Walks result = new Walks(walks.size());
+        for (int i = 0; i < walks.size(); i++) {
+            Relationship walk = walks.get(i);
+            int index = timetable.getStationIndex(GraphProps.getStationIdFrom(walk));
+            if (index < 0) {
+                String msg = "Unable to find station in timetable for walk " + walk;
+                logger.error(msg);
+                throw new RuntimeException(msg);
+            }
+            result.stations[i] = index;
+            result.costs[i] = GraphProps.getCost(walk);
+        }
+        return result;
+    }
+
+    private MyLocation locationOf(Node walkNode) {
+        return myLocationFactory.create(GraphProps.getLatLong(walkNode));
+    }
+
+    private Journey createJourney(ParetoRaptorSearch.ParetoJourney result, TramTime queryTime, MyLocation startLocation,
+                                  MyLocation endLocation) {
+        List<TransportStage<?, ?>> stages = new ArrayList<>();
+        List<Location<?>> path = new ArrayList<>();
+
+        if (startLocation != null) {
+            Station firstStation = timetable.getStation(result.getStart());
+            TramTime walkStarts = CompactTimetable.asTramTime(result.getDeparture());
+            stages.add(new WalkingToStationStage(startLocation, firstStation, result.getStartWalk(), walkStarts));
+            path.add(startLocation);
+        }
+
+        addVehicleStages(result.getLegs(), stages, path);
+
+        if (endLocation != null) {
+            Station lastStation = timetable.getStation(result.getDestination());
+            TramTime walkStarts = CompactTimetable.asTramTime(result.getArrival() - result.getDestinationWalk());
+            stages.add(new WalkingFromStationStage(lastStation, endLocation, result.getDestinationWalk(), walkStarts));
+            path.add(endLocation);
+        }
+
+        return new Journey(stages, queryTime, path);
+    }
+
+    private Journey createJourney(RaptorResult result) {
+        List<TransportStage<?, ?>> stages = new ArrayList<>();
+        List<Location<?>> path = new ArrayList<>();
+        addVehicleStages(result.getLegs(), stages, path);
+        return new Journey(stages, result.getQueryTime(), path);
+    }
+
+    static void addVehicleStages(List<RaptorLeg> legs, List<TransportStage<?, ?>> stages, List<Location<?>> path) {
+        for (RaptorLeg leg : legs) {
+            RaptorTrip raptorTrip = leg.getTrip();
+            Trip trip = raptorTrip.getTrip();
+            StopCall boardCall = raptorTrip.getCall(leg.getBoardPosition());
+            Station boardStation = boardCall.getStation();
+            Station alightStation = raptorTrip.getCall(leg.getAlightPosition()).getStation();
+
+            if (path.isEmpty() || !path.get(path.size() - 1).equals(boardStation)) {
+                path.add(boardStation);
+            }
+            List<Integer> passedStops = new ArrayList<>();
+            for (int position = leg.getBoardPosition() + 1; position < leg.getAlightPosition(); position++) {
+                StopCall passed = raptorTrip.getCall(position);
+                passedStops.add(passed.getGetSequenceNumber());
+                if (passed.callsAtStation()) {
+                    path.add(passed.getStation());
+                }
+            }
+            path.add(alightStation);
+
+            Route route = trip.getRoute();
+            VehicleStage stage = new VehicleStage(boardStation, route, route.getTransportMode(), trip,
+                    CompactTimetable.asTramTime(leg.getDepartTime()), alightStation, passedStops, boardStation.hasPlatforms());
+            if (boardStation.hasPlatforms() && boardCall.hasPlatfrom()) {
+                stage.setPlatform(boardCall.getPlatform());
+            }
+            stage.setCost(leg.getArriveTime() - leg.getDepartTime());
+            stages.add(stage);
+        }
+    }
+
+    private static class Walks {
+        private final int[] stations;
+        private final int[] costs;
+
+        private Walks(int size) {
+            stations = new int[size];
+            costs = new int[size];
+        }
+
+        private static Walks at(int station) {
+            Walks walks = new Walks(1);
+            walks.stations[0] = station;
+            return walks;
+        }
+    }
+
+    private static class RaptorResult {
+        private final TramTime queryTime;
+        private final List<RaptorLeg> legs;
+
+        private RaptorResult(TramTime queryTime, List<RaptorLeg> legs) {
+            this.queryTime = queryTime;
+            this.legs = legs;
+        }
+
+        public TramTime getQueryTime() {
+            return queryTime;
+        }
+
+        public List<RaptorLeg> getLegs() {
+            return legs;
+        }
+    }
+}
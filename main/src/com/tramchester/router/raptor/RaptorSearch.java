@@ -0,0 +1,275 @@
+package com.tramchester.router.raptor;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+/***
+ * Single round based search from one station at one departure time, round k finds the earliest arrival
+ * at each station using at most k vehicles. Not thread safe, create one per query.
+ * With NO_DESTINATION there is no target pruning and arrivals are recorded at every station, giving one to all.
+ */
+class RaptorSearch {
+    static final int UNREACHED = Integer.MAX_VALUE;
+    static final int NO_DESTINATION = -1;
+
+    private final RaptorTimetable timetable;
+    private final BitSet running;
+    private final boolean[] closed;
+    private final boolean changeAtInterchangeOnly;
+    private final int maxWait;
+    private final int changeMins;
+    private final int maxRounds;
+
+    private final int[][] arrivals;
+    private final int[] bestArrivals;
+    private final int[][] labelPattern;
+    private final int[][] labelTrip;
+    private final int[][] labelBoardPosition;
+    private final int[][] labelAlightPosition;
+
+    private final boolean[] marked;
+    private final int[] markedStations;
+    private int numberMarked;
+
+    private final int[] queuePosition;
+    private final int[] queuedPatterns;
+    private int numberQueued;
+
+    private int destination;
+    private int roundsRun;
+
+    RaptorSearch(RaptorTimetable timetable, BitSet running, boolean[] closed, boolean changeAtInterchangeOnly,
+                 int maxWait, int changeMins, int maxChanges) {
+        this.timetable = timetable;
+        this.running = running;
+        this.closed = closed;
+        this.changeAtInterchangeOnly = changeAtInterchangeOnly;
+        this.maxWait = maxWait;
+        this.changeMins = changeMins;
+        this.maxRounds = maxChanges + 1;
+
+        int numberStations = timetable.numberOfStations();
+        int numberPatterns = timetable.numberOfPatterns();
+
+        arrivals = new int[maxRounds + 1][numberStations];
+        bestArrivals = new int[numberStations];
+        labelPattern = new int[maxRounds + 1][numberStations];
+        labelTrip = new int[maxRounds + 1][numberStations];
+        labelBoardPosition = new int[maxRounds + 1][numberStations];
+        labelAlightPosition = new int[maxRounds + 1][numberStations];
+
+        marked = new boolean[numberStations];
+        markedStations = new int[numberStations];
+        queuePosition = new int[numberPatterns];
+        queuedPatterns = new int[numberPatterns];
+    }
+
+    /***
+     * @param start station index to depart from
+     * @param destination station index to arrive at, used for target pruning
+     * @param departAt earliest departure, minutes since start of the service day
+     * @param latestArrival arrivals after this are discarded, minutes since start of the service day
+     */
+    void run(int start, int destination, int departAt, int latestArrival) {
+        run(new int[]{start}, new int[]{departAt}, destination, latestArrival);
+    }
+
+    /***
+     * @param starts station indexes to depart from, for example those within walking distance of a location
+     * @param departAts earliest departure from each of starts
+     * @param destination station index to arrive at or NO_DESTINATION
+     * @param latestArrival arrivals after this are discarded, minutes since start of the service day
+     */
+    void run(int[] starts, int[] departAts, int destination, int latestArrival) {
+        this.destination = destination;
+
+        for (int round = 0; round <= maxRounds; round++) {
+            Arrays.fill(arrivals[round], UNREACHED);
+            Arrays.fill(labelPattern[round], -1);
+        }
+        Arrays.fill(bestArrivals, UNREACHED);
+        Arrays.fill(marked, false);
+        Arrays.fill(queuePosition, -1);
+        numberMarked = 0;
+        numberQueued = 0;
+        roundsRun = 0;
+
+        for (int i = 0; i < starts.length; i++) {
+            int start = starts[i];
+            if (departAts[i] < arrivals[0][start]) {
+                arrivals[0][start] = departAts[i];
+                bestArrivals[start] = departAts[i];
+                mark(start);
+            }
+        }
+
+        for (int round = 1; round <= maxRounds && numberMarked > 0; round++) {
+            System.arraycopy(arrivals[round - 1], 0, arrivals[round], 0, arrivals[round].length);
+            queuePatternsForMarked();
+            for (int i = 0; i < numberQueued; i++) {
+                int patternIndex = queuedPatterns[i];
+                int fromPosition = queuePosition[patternIndex];
+                queuePosition[patternIndex] = -1;
+                scanPattern(round, timetable.getPattern(patternIndex), fromPosition, latestArrival);
+            }
+            numberQueued = 0;
+            roundsRun = round;
+        }
+    }
+
+    private void mark(int station) {
+        if (!marked[station]) {
+            marked[station] = true;
+            markedStations[numberMarked++] = station;
+        }
+    }
+
+    private void queuePatternsForMarked() {
+        for (int i = 0; i < numberMarked; i++) {
+            int station = markedStations[i];
+            marked[station] = false;
+            int[] patterns = timetable.getPatternsFor(station);
+            int[] positions = timetable.getPositionsFor(station);
+            for (int j = 0; j < patterns.length; j++) {
+                int pattern = patterns[j];
+                int current = queuePosition[pattern];
+                if (current == -1) {
+                    queuedPatterns[numberQueued++] = pattern;
+                    queuePosition[pattern] = positions[j];
+                } else if (positions[j] < current) {
+                    queuePosition[pattern] = positions[j];
+                }
+            }
+        }
+        numberMarked = 0;
+    }
+
+    private void scanPattern(int round, RaptorPattern pattern, int fromPosition, int latestArrival) {
+        int[] previousRound = arrivals[round - 1];
+
+        int tripIndex = -1;
+        int boardPosition = -1;
+        RaptorTrip trip = null;
+
+        for (int position = fromPosition; position < pattern.numberOfStations(); position++) {
+            int station = pattern.getStation(position);
+
+            if (trip != null && canAlightAt(station) && trip.canAlight(position)) {
+                int arrival = trip.getArrival(position);
+                if (arrival <= latestArrival && arrival < bestArrivals[station] && beforeDestination(arrival)) {
+                    arrivals[round][station] = arrival;
+                    bestArrivals[station] = arrival;
+                    labelPattern[round][station] = pattern.getIndex();
+                    labelTrip[round][station] = tripIndex;
+                    labelBoardPosition[round][station] = boardPosition;
+                    labelAlightPosition[round][station] = position;
+                    if (station != destination && canChangeAt(station)) {
+                        mark(station);
+                    }
+                }
+            }
+
+            int previousArrival = previousRound[station];
+            if (previousArrival != UNREACHED && !closed[station]) {
+                boolean atStart = isStart(station, previousArrival);
+                if (!atStart && !canChangeAt(station)) {
+                    continue;
+                }
+                int earliestBoard = atStart ? previousArrival : previousArrival + changeMins;
+                if (trip == null || earliestBoard <= trip.getDeparture(position)) {
+                    int found = findTrip(pattern, position, earliestBoard, tripIndex);
+                    if (found != -1) {
+                        tripIndex = found;
+                        trip = pattern.getTrip(found);
+                        boardPosition = position;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean canAlightAt(int station) {
+        if (closed[station]) {
+            return false;
+        }
+        if (destination == NO_DESTINATION) {
+            return true;
+        }
+        return station == destination || canChangeAt(station);
+    }
+
+    private boolean canChangeAt(int station) {
+        return !changeAtInterchangeOnly || timetable.isInterchange(station);
+    }
+
+    private boolean beforeDestination(int arrival) {
+        return destination == NO_DESTINATION || arrival < bestArrivals[destination];
+    }
+
+    // still at one of the starting stations, so not a change
+    private boolean isStart(int station, int arrival) {
+        return arrival != UNREACHED && arrivals[0][station] == arrival;
+    }
+
+    /***
+     * @return earliest running trip that can be boarded at position within max wait of earliestBoard, and before
+     * the currently boarded trip if there is one
+     */
+    private int findTrip(RaptorPattern pattern, int position, int earliestBoard, int currentTrip) {
+        int latestBoard = earliestBoard + maxWait;
+        int limit = currentTrip == -1 ? pattern.numberOfTrips() : currentTrip;
+        for (int index = pattern.firstDepartingAtOrAfter(position, earliestBoard); index < limit; index++) {
+            RaptorTrip candidate = pattern.getTrip(index);
+            if (candidate.getDeparture(position) > latestBoard) {
+                return -1;
+            }
+            if (running.get(candidate.getServiceIndex()) && candidate.canBoard(position)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    int getRoundsRun() {
+        return roundsRun;
+    }
+
+    int getArrival(int round, int station) {
+        return arrivals[round][station];
+    }
+
+    /***
+     * @return earliest arrival at station over all rounds run, or UNREACHED
+     */
+    int getBestArrival(int station) {
+        return bestArrivals[station];
+    }
+
+    /***
+     * @return the legs of the journey to station found in the given round, ordered from the start
+     */
+    List<RaptorLeg> getLegs(int round, int station) {
+        LinkedList<RaptorLeg> legs = new LinkedList<>();
+        int current = station;
+        int currentRound = round;
+        while (!isStart(current, arrivals[currentRound][current])) {
+            while (currentRound > 0 && labelPattern[currentRound][current] == -1) {
+                currentRound--;
+            }
+            if (currentRound == 0) {
+                throw new RuntimeException("No route back to start from station index " + current);
+            }
+            RaptorPattern pattern = timetable.getPattern(labelPattern[currentRound][current]);
+            int boardPosition = labelBoardPosition[currentRound][current];
+            RaptorLeg leg = new RaptorLeg(pattern, pattern.getTrip(labelTrip[currentRound][current]), boardPosition,
+                    labelAlightPosition[currentRound][current]);
+            legs.addFirst(leg);
+            current = pattern.getStation(boardPosition);
+            currentRound--;
+        }
+        return legs;
+    }
+
+}
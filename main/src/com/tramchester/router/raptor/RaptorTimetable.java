@@ -0,0 +1,236 @@
+package com.tramchester.router.raptor;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.metrics.Timing;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.util.*;
+
+import static java.lang.String.format;
+
+/***
+ * Timetable in the form needed for round based (RAPTOR) searches, trips from the CompactTimetable grouped into
+ * patterns, built at start up
+ */
+@LazySingleton
+public class RaptorTimetable {
+    private static final Logger logger = LoggerFactory.getLogger(RaptorTimetable.class);
+
+    private final CompactTimetable compactTimetable;
+    private final InterchangeRepository interchangeRepository;
+
+    private final List<RaptorPattern> patterns;
+
+    private int[][] patternsForStation;
+    private int[][] positionsForStation;
+    private boolean[] interchanges;
+
+    @Inject
+    public RaptorTimetable(CompactTimetable compactTimetable, InterchangeRepository interchangeRepository) {
+        this.compactTimetable = compactTimetable;
+        this.interchangeRepository = interchangeRepository;
+        patterns = new ArrayList<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        try (Timing ignored = new Timing(logger, "build raptor timetable")) {
+            indexInterchanges();
+            createPatterns();
+            indexPatternsByStation();
+        }
+        logger.info(format("Created %s patterns for %s stations and %s services", patterns.size(), numberOfStations(),
+                numberOfServices()));
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        patterns.clear();
+        logger.info("disposed");
+    }
+
+    private void indexInterchanges() {
+        interchanges = new boolean[numberOfStations()];
+        for (int i = 0; i < interchanges.length; i++) {
+            interchanges[i] = interchangeRepository.isInterchange(compactTimetable.getStation(i));
+        }
+    }
+
+    private void createPatterns() {
+        Map<PatternKey, List<RaptorTrip>> tripsByPattern = new HashMap<>();
+
+        for (int tripIndex = 0; tripIndex < compactTimetable.numberOfTrips(); tripIndex++) {
+            Trip trip = compactTimetable.getTrip(tripIndex);
+            int size = compactTimetable.numberOfCalls(tripIndex);
+            if (size < 2) {
+                logger.warn("Not enough stop calls for trip " + trip.getId());
+                continue;
+            }
+            int serviceIndex = compactTimetable.getServiceFor(tripIndex);
+            if (serviceIndex < 0) {
+                logger.warn(format("Missing service %s for trip %s", trip.getService().getId(), trip.getId()));
+                continue;
+            }
+
+            StopCall[] calls = trip.getStopCalls().stream().toArray(StopCall[]::new);
+            int firstCall = compactTimetable.getFirstCall(tripIndex);
+            int[] callingStations = new int[size];
+            int[] arrivals = new int[size];
+            int[] departures = new int[size];
+            boolean missingStation = false;
+            for (int i = 0; i < size; i++) {
+                int call = firstCall + i;
+                callingStations[i] = compactTimetable.getCallStation(call);
+                arrivals[i] = compactTimetable.getArrival(call);
+                departures[i] = compactTimetable.getDeparture(call);
+                if (callingStations[i] < 0) {
+                    logger.warn(format("Missing station %s for trip %s", calls[i].getStationId(), trip.getId()));
+                    missingStation = true;
+                }
+            }
+            if (missingStation) {
+                continue;
+            }
+
+            PatternKey key = new PatternKey(trip.getRoute(), callingStations);
+            tripsByPattern.computeIfAbsent(key, unused -> new ArrayList<>()).
+                    add(new RaptorTrip(trip, serviceIndex, calls, arrivals, departures));
+        }
+
+        tripsByPattern.forEach(this::addPatterns);
+    }
+
+    private void addPatterns(PatternKey key, List<RaptorTrip> trips) {
+        trips.sort(Comparator.comparingInt(trip -> trip.getDeparture(0)));
+
+        // split so no trip within a pattern overtakes another
+        List<List<RaptorTrip>> lanes = new ArrayList<>();
+        for (RaptorTrip trip : trips) {
+            Optional<List<RaptorTrip>> lane = lanes.stream().
+                    filter(existing -> trip.notBefore(existing.get(existing.size() - 1))).
+                    findFirst();
+            if (lane.isPresent()) {
+                lane.get().add(trip);
+            } else {
+                List<RaptorTrip> newLane = new ArrayList<>();
+                newLane.add(trip);
+                lanes.add(newLane);
+            }
+        }
+
+        lanes.forEach(lane -> patterns.add(new RaptorPattern(patterns.size(), key.route, key.stations, lane)));
+    }
+
+    private void indexPatternsByStation() {
+        List<List<int[]>> byStation = new ArrayList<>(numberOfStations());
+        for (int i = 0; i < numberOfStations(); i++) {
+            byStation.add(new ArrayList<>());
+        }
+
+        patterns.forEach(pattern -> {
+            for (int position = 0; position < pattern.numberOfStations(); position++) {
+                byStation.get(pattern.getStation(position)).add(new int[]{pattern.getIndex(), position});
+            }
+        });
+
+        patternsForStation = new int[numberOfStations()][];
+        positionsForStation = new int[numberOfStations()][];
+        for (int i = 0; i < numberOfStations(); i++) {
+            List<int[]> pairs = byStation.get(i);
+            patternsForStation[i] = pairs.stream().mapToInt(pair -> pair[0]).toArray();
+            positionsForStation[i] = pairs.stream().mapToInt(pair -> pair[1]).toArray();
+        }
+    }
+
+    public int getStationIndex(Station station) {
+        return getStationIndex(station.getId());
+    }
+
+    public int getStationIndex(IdFor<Station> stationId) {
+        return compactTimetable.getStationIndex(stationId);
+    }
+
+    public Station getStation(int index) {
+        return compactTimetable.getStation(index);
+    }
+
+    public int numberOfStations() {
+        return compactTimetable.numberOfStations();
+    }
+
+    public Service getService(int index) {
+        return compactTimetable.getService(index);
+    }
+
+    public int numberOfServices() {
+        return compactTimetable.numberOfServices();
+    }
+
+    public BitSet getServicesRunningOn(LocalDate date) {
+        return compactTimetable.getServicesRunningOn(date);
+    }
+
+    public int numberOfPatterns() {
+        return patterns.size();
+    }
+
+    RaptorPattern getPattern(int index) {
+        return patterns.get(index);
+    }
+
+    int[] getPatternsFor(int station) {
+        return patternsForStation[station];
+    }
+
+    int[] getPositionsFor(int station) {
+        return positionsForStation[station];
+    }
+
+    public boolean isInterchange(int station) {
+        return interchanges[station];
+    }
+
+    private static class PatternKey {
+        private final Route route;
+        private final int[] stations;
+
+        private PatternKey(Route route, int[] stations) {
+            this.route = route;
+            this.stations = stations;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            PatternKey that = (PatternKey) o;
+
+            if (!route.equals(that.route)) return false;
+            return Arrays.equals(stations, that.stations);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = route.hashCode();
+            result = 31 * result + Arrays.hashCode(stations);
+            return result;
+        }
+    }
+}
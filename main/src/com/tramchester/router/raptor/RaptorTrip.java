@@ -0,0 +1,79 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.Trip;
+
+import static com.tramchester.domain.reference.GTFSPickupDropoffType.None;
+
+/***
+ * A trip's calls with times as minutes since start of the service day, see CompactTimetable
+ */
+class RaptorTrip {
+    private final Trip trip;
+    private final int serviceIndex;
+    private final StopCall[] calls;
+    private final int[] arrivals;
+    private final int[] departures;
+    private final boolean[] pickUp;
+    private final boolean[] dropOff;
+
+    RaptorTrip(Trip trip, int serviceIndex, StopCall[] calls, int[] arrivals, int[] departures) {
+        this.trip = trip;
+        this.serviceIndex = serviceIndex;
+        this.calls = calls;
+        this.arrivals = arrivals;
+        this.departures = departures;
+
+        int size = calls.length;
+        pickUp = new boolean[size];
+        dropOff = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            pickUp[i] = calls[i].getPickupType() != None;
+            dropOff[i] = calls[i].getDropoffType() != None;
+        }
+    }
+
+    Trip getTrip() {
+        return trip;
+    }
+
+    int getServiceIndex() {
+        return serviceIndex;
+    }
+
+    StopCall getCall(int position) {
+        return calls[position];
+    }
+
+    int getArrival(int position) {
+        return arrivals[position];
+    }
+
+    int getDeparture(int position) {
+        return departures[position];
+    }
+
+    boolean canBoard(int position) {
+        return pickUp[position];
+    }
+
+    boolean canAlight(int position) {
+        return dropOff[position];
+    }
+
+    int numberOfCalls() {
+        return calls.length;
+    }
+
+    /***
+     * @return true if this trip is at or after the other at every call, i.e. does not overtake it
+     */
+    boolean notBefore(RaptorTrip other) {
+        for (int i = 0; i < departures.length; i++) {
+            if (departures[i] < other.departures[i] || arrivals[i] < other.arrivals[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
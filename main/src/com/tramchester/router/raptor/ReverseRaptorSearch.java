@@ -0,0 +1,254 @@
+package com.tramchester.router.raptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/***
+ * RaptorSearch run backwards in time for arrive by queries, from the destination at the arrival deadline, round k
+ * finds the latest departure from each station that still arrives in time using at most k vehicles. Patterns are
+ * scanned from the last position towards the first, riding the latest trip that can be alighted in time.
+ * Not thread safe, create one per query.
+ */
+class ReverseRaptorSearch {
+    static final int UNREACHED = Integer.MIN_VALUE;
+
+    private final RaptorTimetable timetable;
+    private final BitSet running;
+    private final boolean[] closed;
+    private final boolean changeAtInterchangeOnly;
+    private final int maxWait;
+    private final int changeMins;
+    private final int maxRounds;
+
+    private final int[][] departures;
+    private final int[] bestDepartures;
+    private final int[][] labelPattern;
+    private final int[][] labelTrip;
+    private final int[][] labelBoardPosition;
+    private final int[][] labelAlightPosition;
+
+    private final boolean[] marked;
+    private final int[] markedStations;
+    private int numberMarked;
+
+    private final int[] queuePosition;
+    private final int[] queuedPatterns;
+    private int numberQueued;
+
+    private int start;
+    private int roundsRun;
+    private long patternsScanned;
+
+    ReverseRaptorSearch(RaptorTimetable timetable, BitSet running, boolean[] closed, boolean changeAtInterchangeOnly,
+                        int maxWait, int changeMins, int maxChanges) {
+        this.timetable = timetable;
+        this.running = running;
+        this.closed = closed;
+        this.changeAtInterchangeOnly = changeAtInterchangeOnly;
+        this.maxWait = maxWait;
+        this.changeMins = changeMins;
+        this.maxRounds = maxChanges + 1;
+
+        int numberStations = timetable.numberOfStations();
+        int numberPatterns = timetable.numberOfPatterns();
+
+        departures = new int[maxRounds + 1][numberStations];
+        bestDepartures = new int[numberStations];
+        labelPattern = new int[maxRounds + 1][numberStations];
+        labelTrip = new int[maxRounds + 1][numberStations];
+        labelBoardPosition = new int[maxRounds + 1][numberStations];
+        labelAlightPosition = new int[maxRounds + 1][numberStations];
+
+        marked = new boolean[numberStations];
+        markedStations = new int[numberStations];
+        queuePosition = new int[numberPatterns];
+        queuedPatterns = new int[numberPatterns];
+    }
+
+    /***
+     * @param start station index to depart from, used for target pruning
+     * @param destination station index to arrive at
+     * @param arriveBy latest arrival, minutes since start of the service day
+     * @param earliestDeparture departures before this are discarded, minutes since start of the service day
+     */
+    void run(int start, int destination, int arriveBy, int earliestDeparture) {
+        this.start = start;
+
+        for (int round = 0; round <= maxRounds; round++) {
+            Arrays.fill(departures[round], UNREACHED);
+            Arrays.fill(labelPattern[round], -1);
+        }
+        Arrays.fill(bestDepartures, UNREACHED);
+        Arrays.fill(marked, false);
+        Arrays.fill(queuePosition, -1);
+        numberMarked = 0;
+        numberQueued = 0;
+        roundsRun = 0;
+        patternsScanned = 0;
+
+        departures[0][destination] = arriveBy;
+        bestDepartures[destination] = arriveBy;
+        mark(destination);
+
+        for (int round = 1; round <= maxRounds && numberMarked > 0; round++) {
+            System.arraycopy(departures[round - 1], 0, departures[round], 0, departures[round].length);
+            queuePatternsForMarked();
+            for (int i = 0; i < numberQueued; i++) {
+                int patternIndex = queuedPatterns[i];
+                int fromPosition = queuePosition[patternIndex];
+                queuePosition[patternIndex] = -1;
+                scanPattern(round, timetable.getPattern(patternIndex), fromPosition, earliestDeparture);
+                patternsScanned++;
+            }
+            numberQueued = 0;
+            roundsRun = round;
+        }
+    }
+
+    private void mark(int station) {
+        if (!marked[station]) {
+            marked[station] = true;
+            markedStations[numberMarked++] = station;
+        }
+    }
+
+    // scan from the last marked position in each pattern
+    private void queuePatternsForMarked() {
+        for (int i = 0; i < numberMarked; i++) {
+            int station = markedStations[i];
+            marked[station] = false;
+            int[] patterns = timetable.getPatternsFor(station);
+            int[] positions = timetable.getPositionsFor(station);
+            for (int j = 0; j < patterns.length; j++) {
+                int pattern = patterns[j];
+                int current = queuePosition[pattern];
+                if (current == -1) {
+                    queuedPatterns[numberQueued++] = pattern;
+                    queuePosition[pattern] = positions[j];
+                } else if (positions[j] > current) {
+                    queuePosition[pattern] = positions[j];
+                }
+            }
+        }
+        numberMarked = 0;
+    }
+
+    private void scanPattern(int round, RaptorPattern pattern, int fromPosition, int earliestDeparture) {
+        int[] previousRound = departures[round - 1];
+
+        int tripIndex = -1;
+        int alightPosition = -1;
+        RaptorTrip trip = null;
+
+        for (int position = fromPosition; position >= 0; position--) {
+            int station = pattern.getStation(position);
+
+            if (trip != null && canBoardAt(station) && trip.canBoard(position)) {
+                int departure = trip.getDeparture(position);
+                if (departure >= earliestDeparture && departure > bestDepartures[station] &&
+                        departure > bestDepartures[start]) {
+                    departures[round][station] = departure;
+                    bestDepartures[station] = departure;
+                    labelPattern[round][station] = pattern.getIndex();
+                    labelTrip[round][station] = tripIndex;
+                    labelBoardPosition[round][station] = position;
+                    labelAlightPosition[round][station] = alightPosition;
+                    if (station != start && canChangeAt(station)) {
+                        mark(station);
+                    }
+                }
+            }
+
+            int previousDeparture = previousRound[station];
+            if (previousDeparture != UNREACHED && !closed[station]) {
+                boolean atDestination = isDestination(station, previousDeparture);
+                if (!atDestination && !canChangeAt(station)) {
+                    continue;
+                }
+                int latestAlight = atDestination ? previousDeparture : previousDeparture - changeMins;
+                if (trip == null || latestAlight >= trip.getArrival(position)) {
+                    int found = findTrip(pattern, position, latestAlight, tripIndex);
+                    if (found != -1) {
+                        tripIndex = found;
+                        trip = pattern.getTrip(found);
+                        alightPosition = position;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean canBoardAt(int station) {
+        if (closed[station]) {
+            return false;
+        }
+        return station == start || canChangeAt(station);
+    }
+
+    private boolean canChangeAt(int station) {
+        return !changeAtInterchangeOnly || timetable.isInterchange(station);
+    }
+
+    // still at the destination, so no change needed
+    private boolean isDestination(int station, int departure) {
+        return departure != UNREACHED && departures[0][station] == departure;
+    }
+
+    /***
+     * @return latest running trip that can be alighted at position by latestAlight and no more than max wait before
+     * it, and after the currently ridden trip if there is one
+     */
+    private int findTrip(RaptorPattern pattern, int position, int latestAlight, int currentTrip) {
+        int earliestAlight = latestAlight - maxWait;
+        int limit = currentTrip == -1 ? 0 : currentTrip + 1;
+        for (int index = pattern.lastArrivingAtOrBefore(position, latestAlight); index >= limit; index--) {
+            RaptorTrip candidate = pattern.getTrip(index);
+            if (candidate.getArrival(position) < earliestAlight) {
+                return -1;
+            }
+            if (running.get(candidate.getServiceIndex()) && candidate.canAlight(position)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    int getRoundsRun() {
+        return roundsRun;
+    }
+
+    long getPatternsScanned() {
+        return patternsScanned;
+    }
+
+    int getDeparture(int round, int station) {
+        return departures[round][station];
+    }
+
+    /***
+     * @return the legs of the journey from station found in the given round, ordered from station
+     */
+    List<RaptorLeg> getLegs(int round, int station) {
+        List<RaptorLeg> legs = new ArrayList<>();
+        int current = station;
+        int currentRound = round;
+        while (!isDestination(current, departures[currentRound][current])) {
+            while (currentRound > 0 && labelPattern[currentRound][current] == -1) {
+                currentRound--;
+            }
+            if (currentRound == 0) {
+                throw new RuntimeException("No route on to destination from station index " + current);
+            }
+            RaptorPattern pattern = timetable.getPattern(labelPattern[currentRound][current]);
+            int alightPosition = labelAlightPosition[currentRound][current];
+            int boardPosition = labelBoardPosition[currentRound][current];
+            legs.add(new RaptorLeg(pattern, pattern.getTrip(labelTrip[currentRound][current]), boardPosition,
+                    alightPosition));
+            current = pattern.getStation(alightPosition);
+            currentRound--;
+        }
+        return legs;
+    }
+}
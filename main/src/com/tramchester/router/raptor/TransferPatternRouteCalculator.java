@@ -0,0 +1,257 @@
+package com.tramchester.router.raptor;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.RunningServicesRepository;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Station to station journeys from the stored TransferPatterns, each pattern is checked against the timetable by
+ * taking the first vehicle for every leg between the stations it changes at, so only a handful of legs are looked at
+ * instead of searching. Uses RaptorRouteCalculator when the patterns cannot be used, such as closed stations or more
+ * changes than were stored, or when none of them give a journey.
+ */
+@LazySingleton
+public class TransferPatternRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(TransferPatternRouteCalculator.class);
+
+    private final RaptorTimetable timetable;
+    private final TransferPatterns transferPatterns;
+    private final RaptorRouteCalculator raptorRouteCalculator;
+    private final RunningServicesRepository runningServicesRepository;
+    private final TramchesterConfig config;
+    private final CreateQueryTimes createQueryTimes;
+
+    @Inject
+    public TransferPatternRouteCalculator(RaptorTimetable timetable, TransferPatterns transferPatterns,
+                                          RaptorRouteCalculator raptorRouteCalculator,
+                                          RunningServicesRepository runningServicesRepository,
+                                          TramchesterConfig config, CreateQueryTimes createQueryTimes) {
+        this.timetable = timetable;
+        this.transferPatterns = transferPatterns;
+        this.raptorRouteCalculator = raptorRouteCalculator;
+        this.runningServicesRepository = runningServicesRepository;
+        this.config = config;
+        this.createQueryTimes = createQueryTimes;
+    }
+
+    public Stream<Journey> calculateRoute(Transaction txn, Station startStation, Station destination,
+                                          JourneyRequest journeyRequest) {
+        logger.info(format("Finding journeys for %s (%s) --> %s (%s) for %s",
+                startStation.getName(), startStation.getId(), destination.getName(), destination.getId(), journeyRequest));
+
+        List<Found> found = findJourneys(startStation, destination, journeyRequest);
+        if (found.isEmpty()) {
+            return raptorRouteCalculator.calculateRoute(txn, startStation, destination, journeyRequest);
+        }
+        return found.stream().map(journey -> createJourney(journey, journeyRequest));
+    }
+
+    /***
+     * @return journeys not dominated on arrival and number of changes, for equal journeys the one departing latest,
+     * ordered by changes then arrival, empty if the patterns cannot be used
+     */
+    private List<Found> findJourneys(Station startStation, Station destination, JourneyRequest journeyRequest) {
+        if (journeyRequest.getMaxChanges() > TransferPatterns.MAX_CHANGES ||
+                journeyRequest.getMaxJourneyDuration() > config.getMaxJourneyDuration()) {
+            logger.info("Patterns were not stored for " + journeyRequest);
+            return Collections.emptyList();
+        }
+        if (!runningServicesRepository.getClosedStations(journeyRequest.getDate()).isEmpty()) {
+            logger.info("Closed stations on " + journeyRequest.getDate());
+            return Collections.emptyList();
+        }
+
+        int start = timetable.getStationIndex(startStation);
+        int dest = timetable.getStationIndex(destination);
+        if (start < 0 || dest < 0) {
+            logger.warn(format("No patterns for %s to %s as not in timetable", startStation.getId(), destination.getId()));
+            return Collections.emptyList();
+        }
+
+        BitSet running = runningServicesRepository.getRunningServices(journeyRequest.getDate()).getRunningIndexes();
+        int[][] patterns = transferPatterns.getPatterns(running, start, dest);
+        if (patterns == null) {
+            logger.info("Patterns were not stored for the services running on " + journeyRequest.getDate());
+            return Collections.emptyList();
+        }
+
+        int[] departAts = createQueryTimes.generate(journeyRequest.getTime(), false).stream().
+                mapToInt(CompactTimetable::asMinutes).toArray();
+
+        List<Found> results = new ArrayList<>();
+        for (int[] changes : patterns) {
+            if (changes.length > journeyRequest.getMaxChanges()) {
+                continue;
+            }
+            int[] stops = new int[changes.length + 2];
+            stops[0] = start;
+            System.arraycopy(changes, 0, stops, 1, changes.length);
+            stops[stops.length - 1] = dest;
+
+            for (int departAt : departAts) {
+                for (RaptorLeg first : firstLegs(stops[0], stops[1], departAt, running)) {
+                    Found journey = complete(first, stops, running, journeyRequest.getMaxJourneyDuration());
+                    if (journey != null) {
+                        addJourney(results, journey);
+                    }
+                }
+            }
+        }
+
+        results.sort(Comparator.comparingInt(Found::getNumberChanges).thenComparingInt(Found::getArrival));
+        logger.info(format("Found %s journeys from %s patterns", results.size(), patterns.length));
+        return results;
+    }
+
+    // as the search, the first vehicle on each route from the start within max wait, so one leg per route
+    private List<RaptorLeg> firstLegs(int from, int to, int departAt, BitSet running) {
+        List<RaptorLeg> legs = new ArrayList<>();
+        int[] patternsForStation = timetable.getPatternsFor(from);
+        int[] positions = timetable.getPositionsFor(from);
+        for (int i = 0; i < patternsForStation.length; i++) {
+            RaptorPattern pattern = timetable.getPattern(patternsForStation[i]);
+            int boardPosition = positions[i];
+            int alightPosition = positionAfter(pattern, boardPosition, to);
+            if (alightPosition < 0) {
+                continue;
+            }
+            RaptorTrip trip = findTrip(pattern, boardPosition, departAt, running);
+            if (trip != null && trip.canAlight(alightPosition)) {
+                legs.add(new RaptorLeg(pattern, trip, boardPosition, alightPosition));
+            }
+        }
+        return legs;
+    }
+
+    // the rest of the pattern from the first leg, earliest arrival at each change
+    private Found complete(RaptorLeg first, int[] stops, BitSet running, int maxJourneyDuration) {
+        int departure = first.getDepartTime();
+        List<RaptorLeg> legs = new ArrayList<>(stops.length - 1);
+        legs.add(first);
+
+        RaptorLeg previous = first;
+        for (int stop = 1; stop < stops.length - 1; stop++) {
+            if (previous.getArriveTime() - departure > maxJourneyDuration) {
+                return null;
+            }
+            RaptorLeg next = earliestLeg(stops[stop], stops[stop + 1],
+                    previous.getArriveTime() + RaptorRouteCalculator.CHANGE_MINS, running);
+            if (next == null) {
+                return null;
+            }
+            legs.add(next);
+            previous = next;
+        }
+
+        if (previous.getArriveTime() - departure > maxJourneyDuration) {
+            return null;
+        }
+        return new Found(legs);
+    }
+
+    private RaptorLeg earliestLeg(int from, int to, int earliestBoard, BitSet running) {
+        RaptorLeg earliest = null;
+        int[] patternsForStation = timetable.getPatternsFor(from);
+        int[] positions = timetable.getPositionsFor(from);
+        for (int i = 0; i < patternsForStation.length; i++) {
+            RaptorPattern pattern = timetable.getPattern(patternsForStation[i]);
+            int boardPosition = positions[i];
+            int alightPosition = positionAfter(pattern, boardPosition, to);
+            if (alightPosition < 0) {
+                continue;
+            }
+            RaptorTrip trip = findTrip(pattern, boardPosition, earliestBoard, running);
+            if (trip != null && trip.canAlight(alightPosition) &&
+                    (earliest == null || trip.getArrival(alightPosition) < earliest.getArriveTime())) {
+                earliest = new RaptorLeg(pattern, trip, boardPosition, alightPosition);
+            }
+        }
+        return earliest;
+    }
+
+    private int positionAfter(RaptorPattern pattern, int position, int station) {
+        for (int later = position + 1; later < pattern.numberOfStations(); later++) {
+            if (pattern.getStation(later) == station) {
+                return later;
+            }
+        }
+        return -1;
+    }
+
+    // same rules as ParetoRaptorSearch, earliest running trip that can be boarded within max wait
+    private RaptorTrip findTrip(RaptorPattern pattern, int position, int earliestBoard, BitSet running) {
+        int latestBoard = earliestBoard + config.getMaxWait();
+        for (int index = pattern.firstDepartingAtOrAfter(position, earliestBoard); index < pattern.numberOfTrips(); index++) {
+            RaptorTrip candidate = pattern.getTrip(index);
+            if (candidate.getDeparture(position) > latestBoard) {
+                return null;
+            }
+            if (running.get(candidate.getServiceIndex()) && candidate.canBoard(position)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void addJourney(List<Found> results, Found candidate) {
+        for (Found existing : results) {
+            if (existing.dominates(candidate)) {
+                return;
+            }
+        }
+        results.removeIf(candidate::dominates);
+        results.add(candidate);
+    }
+
+    private Journey createJourney(Found found, JourneyRequest journeyRequest) {
+        List<TransportStage<?, ?>> stages = new ArrayList<>();
+        List<Location<?>> path = new ArrayList<>();
+        RaptorRouteCalculator.addVehicleStages(found.legs, stages, path);
+        return new Journey(stages, journeyRequest.getTime(), path);
+    }
+
+    private static class Found {
+        private final List<RaptorLeg> legs;
+
+        private Found(List<RaptorLeg> legs) {
+            this.legs = legs;
+        }
+
+        // equal on arrival and changes, prefer the later departure
+        private boolean dominates(Found other) {
+            if (getArrival() > other.getArrival() || getNumberChanges() > other.getNumberChanges()) {
+                return false;
+            }
+            boolean same = getArrival() == other.getArrival() && getNumberChanges() == other.getNumberChanges();
+            return !same || getDeparture() >= other.getDeparture();
+        }
+
+        private int getArrival() {
+            return legs.get(legs.size() - 1).getArriveTime();
+        }
+
+        private int getDeparture() {
+            return legs.get(0).getDepartTime();
+        }
+
+        private int getNumberChanges() {
+            return legs.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.tramchester.router.raptor;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.metrics.Timing;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+/***
+ * For each pair of stations and each day type, the sequences of stations changed at by the optimal journeys between
+ * them, found by a multi criteria RAPTOR search from every departure at each station. Day types are the distinct
+ * sets of running services over the week from when built, dates running anything else have no patterns. Saved next
+ * to the graph DB and reloaded if the data versions, interchanges and day types for the week match. Station pairs
+ * are stored in full so only suited to small networks such as the trams, see TransferPatternRouteCalculator. Built
+ * or loaded at startup by ProcessPlanRequest when that is the planning engine.
+ */
+@LazySingleton
+public class TransferPatterns {
+    private static final Logger logger = LoggerFactory.getLogger(TransferPatterns.class);
+
+    // queries allowing more changes than this cannot use the patterns
+    public static final int MAX_CHANGES = 3;
+
+    public static final String FILE_SUFFIX = ".transfers";
+    private static final int DAYS_IN_WEEK = 7;
+    private static final int[][] NONE = new int[0][];
+
+    private final RaptorTimetable timetable;
+    private final CompactTimetable compactTimetable;
+    private final InterchangeRepository interchangeRepository;
+    private final TramchesterConfig config;
+    private final ProvidesNow providesNow;
+
+    private int numberOfStations;
+    // running services for each day type
+    private List<BitSet> dayTypes;
+    // by day type then origin * numberOfStations + destination, the stations changed at for each pattern in order
+    private int[][][][] patterns;
+
+    @Inject
+    public TransferPatterns(RaptorTimetable timetable, CompactTimetable compactTimetable,
+                            InterchangeRepository interchangeRepository, TramchesterConfig config, ProvidesNow providesNow) {
+        this.timetable = timetable;
+        this.compactTimetable = compactTimetable;
+        this.interchangeRepository = interchangeRepository;
+        this.config = config;
+        this.providesNow = providesNow;
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        numberOfStations = timetable.numberOfStations();
+        List<BitSet> forWeek = runningForWeek();
+        Path file = getFile();
+        String key = createKey(forWeek);
+
+        if (!load(file, key)) {
+            try (Timing ignored = new Timing(logger, "build transfer patterns")) {
+                build(forWeek);
+            }
+            save(file, key);
+        }
+        logger.info(format("Have %s transfer patterns for %s stations and %s day types", numberOfPatterns(),
+                numberOfStations, patterns.length));
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        logger.info("dispose");
+        patterns = new int[0][][][];
+        dayTypes = Collections.emptyList();
+        numberOfStations = 0;
+    }
+
+    /***
+     * @param running services running on the date of the query
+     * @return for each pattern the stations changed at in order, empty for a direct journey, no patterns if the
+     * destination cannot be reached, null if patterns were not built for those running services
+     */
+    int[][] getPatterns(BitSet running, int origin, int destination) {
+        int dayType = dayTypes.indexOf(running);
+        if (dayType < 0) {
+            return null;
+        }
+        return patterns[dayType][(origin * numberOfStations) + destination];
+    }
+
+    public long numberOfPatterns() {
+        long count = 0;
+        for (int[][][] forDayType : patterns) {
+            for (int[][] forPair : forDayType) {
+                count = count + forPair.length;
+            }
+        }
+        return count;
+    }
+
+    // patterns depend on the timetable, the interchanges, the search settings and the day types for the week from now
+    private String createKey(List<BitSet> forWeek) {
+        StringBuilder interchanges = new StringBuilder();
+        for (int station = 0; station < numberOfStations; station++) {
+            if (interchangeRepository.isInterchange(timetable.getStation(station))) {
+                interchanges.append(station).append(',');
+            }
+        }
+        return format("%s|%s|%s|%s|%s|%s|%s", compactTimetable.getVersionKey(), interchanges,
+                config.getChangeAtInterchangeOnly(), config.getMaxWait(), config.getMaxJourneyDuration(), MAX_CHANGES,
+                digest(forWeek));
+    }
+
+    // the running services in full could be too long for the key
+    private String digest(List<BitSet> forWeek) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            for (BitSet running : forWeek) {
+                long[] words = running.toLongArray();
+                messageDigest.update(buffer.clear().putLong(words.length).array());
+                for (long word : words) {
+                    messageDigest.update(buffer.clear().putLong(word).array());
+                }
+            }
+            return Base64.encodeBase64String(messageDigest.digest());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new RuntimeException("Unable to create key for transfer patterns", exception);
+        }
+    }
+
+    // distinct sets of running services over the week from now, each is a day type
+    private List<BitSet> runningForWeek() {
+        List<BitSet> runningForDayTypes = new ArrayList<>();
+        LocalDate date = providesNow.getDate();
+        for (int day = 0; day < DAYS_IN_WEEK; day++, date = date.plusDays(1)) {
+            BitSet running = timetable.getServicesRunningOn(date);
+            if (!running.isEmpty() && !runningForDayTypes.contains(running)) {
+                runningForDayTypes.add(running);
+            }
+        }
+        return runningForDayTypes;
+    }
+
+    private void build(List<BitSet> forWeek) {
+        List<int[][][]> built = new ArrayList<>();
+        for (BitSet running : forWeek) {
+            logger.info(format("Building transfer patterns for day type %s of %s", built.size() + 1, forWeek.size()));
+            built.add(buildFor(running));
+        }
+        dayTypes = forWeek;
+        patterns = built.toArray(new int[0][][][]);
+    }
+
+    private int[][][] buildFor(BitSet running) {
+        int[][][] forDayType = new int[numberOfStations * numberOfStations][][];
+        Arrays.fill(forDayType, NONE);
+        boolean[] noneClosed = new boolean[numberOfStations];
+
+        IntStream.range(0, numberOfStations).parallel().forEach(origin -> {
+            ParetoRaptorSearch search = new ParetoRaptorSearch(timetable, running, noneClosed,
+                    config.getChangeAtInterchangeOnly(), config.getMaxWait(), RaptorRouteCalculator.CHANGE_MINS, MAX_CHANGES);
+
+            List<Set<List<Integer>>> found = new ArrayList<>(numberOfStations);
+            for (int station = 0; station < numberOfStations; station++) {
+                found.add(new HashSet<>());
+            }
+
+            // one search per departure, a single search over all of them keeps far more labels at every station
+            int[] start = new int[]{origin};
+            int[] noWalk = new int[]{0};
+            for (int departure : departuresFrom(origin, running)) {
+                search.run(start, noWalk, new int[]{departure}, config.getMaxJourneyDuration());
+                for (int destination = 0; destination < numberOfStations; destination++) {
+                    if (destination != origin) {
+                        for (ParetoRaptorSearch.ParetoJourney journey : search.getAllJourneys(destination)) {
+                            found.get(destination).add(changesFor(journey));
+                        }
+                    }
+                }
+            }
+
+            int offset = origin * numberOfStations;
+            for (int destination = 0; destination < numberOfStations; destination++) {
+                Set<List<Integer>> forPair = found.get(destination);
+                if (!forPair.isEmpty()) {
+                    forDayType[offset + destination] = forPair.stream().
+                            sorted(Comparator.comparingInt(List::size)).
+                            map(changes -> changes.stream().mapToInt(Integer::intValue).toArray()).
+                            toArray(int[][]::new);
+                }
+            }
+        });
+        return forDayType;
+    }
+
+    private List<Integer> changesFor(ParetoRaptorSearch.ParetoJourney journey) {
+        List<RaptorLeg> legs = journey.getLegs();
+        List<Integer> changes = new ArrayList<>(legs.size() - 1);
+        for (int i = 0; i < legs.size() - 1; i++) {
+            RaptorLeg leg = legs.get(i);
+            changes.add(leg.getPattern().getStation(leg.getAlightPosition()));
+        }
+        return changes;
+    }
+
+    private int[] departuresFrom(int station, BitSet running) {
+        int[] patternsForStation = timetable.getPatternsFor(station);
+        int[] positions = timetable.getPositionsFor(station);
+        Set<Integer> departures = new TreeSet<>();
+        for (int i = 0; i < patternsForStation.length; i++) {
+            RaptorPattern pattern = timetable.getPattern(patternsForStation[i]);
+            int position = positions[i];
+            if (position == pattern.numberOfStations() - 1) {
+                continue;
+            }
+            for (int tripIndex = 0; tripIndex < pattern.numberOfTrips(); tripIndex++) {
+                RaptorTrip trip = pattern.getTrip(tripIndex);
+                if (running.get(trip.getServiceIndex()) && trip.canBoard(position)) {
+                    departures.add(trip.getDeparture(position));
+                }
+            }
+        }
+        return departures.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private Path getFile() {
+        Path dbPath = config.getGraphDBConfig().getDbPath().toAbsolutePath();
+        return dbPath.resolveSibling(dbPath.getFileName() + FILE_SUFFIX);
+    }
+
+    private boolean load(Path file, String key) {
+        if (!Files.exists(file)) {
+            logger.info("No saved transfer patterns at " + file);
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String savedKey = input.readUTF();
+            if (!savedKey.equals(key)) {
+                logger.info(format("Saved transfer patterns at %s are out of date", file));
+                return false;
+            }
+            int[][][][] loaded = new int[input.readInt()][][][];
+            List<BitSet> loadedDayTypes = new ArrayList<>(loaded.length);
+            for (int dayType = 0; dayType < loaded.length; dayType++) {
+                long[] running = new long[input.readInt()];
+                for (int i = 0; i < running.length; i++) {
+                    running[i] = input.readLong();
+                }
+                loadedDayTypes.add(BitSet.valueOf(running));
+                loaded[dayType] = new int[numberOfStations * numberOfStations][][];
+                for (int pair = 0; pair < loaded[dayType].length; pair++) {
+                    int[][] forPair = new int[input.readInt()][];
+                    for (int pattern = 0; pattern < forPair.length; pattern++) {
+                        forPair[pattern] = new int[input.readInt()];
+                        for (int change = 0; change < forPair[pattern].length; change++) {
+                            forPair[pattern][change] = input.readInt();
+                        }
+                    }
+                    loaded[dayType][pair] = forPair.length == 0 ? NONE : forPair;
+                }
+            }
+            dayTypes = loadedDayTypes;
+            patterns = loaded;
+            logger.info("Loaded transfer patterns from " + file);
+            return true;
+        } catch (IOException exception) {
+            logger.warn("Unable to load transfer patterns from " + file, exception);
+            return false;
+        }
+    }
+
+    private void save(Path file, String key) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            output.writeUTF(key);
+            output.writeInt(patterns.length);
+            for (int dayType = 0; dayType < patterns.length; dayType++) {
+                long[] running = dayTypes.get(dayType).toLongArray();
+                output.writeInt(running.length);
+                for (long word : running) {
+                    output.writeLong(word);
+                }
+                for (int[][] forPair : patterns[dayType]) {
+                    output.writeInt(forPair.length);
+                    for (int[] changes : forPair) {
+                        output.writeInt(changes.length);
+                        for (int change : changes) {
+                            output.writeInt(change);
+                        }
+                    }
+                }
+            }
+            logger.info("Saved transfer patterns to " + file);
+        } catch (IOException exception) {
+            logger.warn("Unable to save transfer patterns to " + file, exception);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.tramchester.testSupport;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.GraphDBConfig;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * Tram only config with the graph DB, and so anything saved next to it, at the path given, usually in a TempDir
+ */
+public class TempDirTramTestConfig extends TestConfig {
+
+    private final Path dbPath;
+
+    public TempDirTramTestConfig(Path dbPath) {
+        this.dbPath = dbPath;
+    }
+
+    @Override
+    protected List<DataSourceConfig> getDataSourceFORTESTING() {
+        return Collections.singletonList(new TFGMTestDataSourceConfig("data/tram",
+                GTFSTransportationType.tram, TransportMode.Tram));
+    }
+
+    @Override
+    public GraphDBConfig getGraphDBConfig() {
+        return new GraphDBConfig() {
+            @Override
+            public Path getDbPath() {
+                return dbPath;
+            }
+
+            @Override
+            public String getNeo4jPagecacheMemory() {
+                return "100m";
+            }
+        };
+    }
+}
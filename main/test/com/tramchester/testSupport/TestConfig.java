@@ -3,6 +3,7 @@ package com.tramchester.testSupport;
 import com.tramchester.config.AppConfiguration;
 import com.tramchester.config.DataSourceConfig;
 import com.tramchester.config.LiveDataConfig;
+import com.tramchester.config.PlanningEngine;
 import com.tramchester.domain.StationClosure;
 import com.tramchester.geo.BoundingBox;
 import io.dropwizard.server.DefaultServerFactory;
@@ -155,4 +156,64 @@ public abstract class TestConfig extends AppConfiguration {
     public LiveDataConfig getLiveDataConfig() {
         return null;
     }
+
+    @Override
+    public PlanningEngine getPlanningEngine() {
+        return PlanningEngine.Graph;
+    }
+
+    @Override
+    public boolean getPreloadNodeContents() {
+        return false;
+    }
+
+    @Override
+    public int getParallelSearchThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean getIncrementalSearch() {
+        return false;
+    }
+
+    @Override
+    public boolean getBestFirstSearch() {
+        return false;
+    }
+
+    @Override
+    public boolean getPrecomputeStationCosts() {
+        return false;
+    }
+
+    @Override
+    public int getJourneyCacheSize() {
+        return 0;
+    }
+
+    @Override
+    public int getJourneyCacheBucketMinutes() {
+        return 1;
+    }
+
+    @Override
+    public long getSearchBudgetMillis() {
+        return 0;
+    }
+
+    @Override
+    public long getSearchBudgetNodes() {
+        return 0;
+    }
+
+    @Override
+    public int getBatchPlanningThreads() {
+        return 2;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return 10;
+    }
 }
@@ -21,6 +21,9 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.BoundingBox;
 import com.tramchester.geo.CoordinateTransforms;
 import com.tramchester.geo.GridPosition;
+import com.tramchester.repository.ReachabilityRepository;
+import com.tramchester.repository.StationCostMatrix;
+import com.tramchester.router.raptor.TransferPatterns;
 import com.tramchester.testSupport.reference.TramStations;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.LoggerFactory;
@@ -76,6 +79,10 @@ public class TestEnv {
     public final static HashSet<GTFSTransportationType> tramAndBus =
             new HashSet<>(Arrays.asList(GTFSTransportationType.tram, GTFSTransportationType.bus));
 
+    // files saved next to the graph DB, see the FILE_SUFFIX of each
+    private static final List<String> savedNextToDB = Arrays.asList(StationCostMatrix.FILE_SUFFIX,
+            ReachabilityRepository.FILE_SUFFIX, TransferPatterns.FILE_SUFFIX);
+
 
     public static AppConfiguration GET() {
         return new TestConfig() {
@@ -249,6 +256,10 @@ public class TestEnv {
         if (Files.exists(dbPath)) {
             FileUtils.deleteDirectory(dbPath.toFile());
         }
+        Path absolute = dbPath.toAbsolutePath();
+        for (String suffix : savedNextToDB) {
+            Files.deleteIfExists(absolute.resolveSibling(absolute.getFileName() + suffix));
+        }
     }
 
     public static void assertLatLongEquals(LatLong a, LatLong b, double delta, String message) {
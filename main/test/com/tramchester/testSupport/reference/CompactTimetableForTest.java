@@ -0,0 +1,36 @@
+package com.tramchester.testSupport.reference;
+
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.repository.CompactTimetable;
+
+/***
+ * The tram test data and a CompactTimetable built from it, start before each test and stop after
+ */
+public class CompactTimetableForTest {
+
+    private final TramTransportDataForTestFactory factory;
+    private CompactTimetable timetable;
+
+    public CompactTimetableForTest() {
+        factory = new TramTransportDataForTestFactory(new ProvidesLocalNow());
+    }
+
+    public void start() {
+        factory.start();
+        timetable = new CompactTimetable(factory.getTestData());
+        timetable.start();
+    }
+
+    public void stop() {
+        timetable.dispose();
+        factory.stop();
+    }
+
+    public TramTransportDataForTestFactory.TramTransportDataForTest getTransportData() {
+        return factory.getTestData();
+    }
+
+    public CompactTimetable getTimetable() {
+        return timetable;
+    }
+}
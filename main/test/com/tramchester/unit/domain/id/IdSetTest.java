@@ -0,0 +1,171 @@
+package com.tramchester.unit.domain.id;
+
+import com.tramchester.domain.Route;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdSetTest {
+
+    @Test
+    void shouldInternIds() {
+        StringIdFor<Station> idA = StringIdFor.createId("stationA");
+        StringIdFor<Station> idB = StringIdFor.createId(new String("stationA"));
+
+        assertSame(idA, idB);
+        assertEquals(idA.getIndex(), idB.getIndex());
+        assertEquals("stationA", idB.forDTO());
+        assertEquals("stationA", idB.getGraphId());
+
+        StringIdFor<Station> other = StringIdFor.createId("stationB");
+        assertNotEquals(idA, other);
+        assertNotEquals(idA.getIndex(), other.getIndex());
+        assertTrue(StringIdFor.numberInterned() > other.getIndex());
+    }
+
+    @Test
+    void shouldNotInternIdsForLookup() {
+        StringIdFor<Station> known = StringIdFor.createId("stationKnown");
+        assertSame(known, StringIdFor.forLookup("stationKnown"));
+
+        int before = StringIdFor.numberInterned();
+        StringIdFor<Station> unknown = StringIdFor.forLookup("stationNeverLoaded");
+        assertEquals(before, StringIdFor.numberInterned());
+        assertFalse(unknown.isInterned());
+        assertEquals("stationNeverLoaded", unknown.forDTO());
+
+        StringIdFor<Station> again = StringIdFor.forLookup("stationNeverLoaded");
+        assertNotSame(unknown, again);
+        assertEquals(unknown, again);
+        assertEquals(unknown.hashCode(), again.hashCode());
+        assertNotEquals(known, unknown);
+
+        IdSet<Station> idSet = IdSet.singleton(known);
+        assertFalse(idSet.contains(unknown));
+        idSet.add(unknown);
+        assertTrue(idSet.contains(again));
+        assertEquals(2, idSet.size());
+        idSet.remove(again);
+        assertFalse(idSet.contains(unknown));
+        assertTrue(idSet.contains(known));
+    }
+
+    @Test
+    void shouldEqualInternedIdWhenLookupWasBeforeInterning() {
+        StringIdFor<Station> lookup = StringIdFor.forLookup("stationLoadedAfterLookup");
+        assertFalse(lookup.isInterned());
+
+        IdSet<Station> idSet = IdSet.singleton(lookup);
+
+        StringIdFor<Station> loaded = StringIdFor.createId("stationLoadedAfterLookup");
+        assertTrue(loaded.isInterned());
+        assertEquals(lookup, loaded);
+        assertEquals(loaded, lookup);
+        assertEquals(lookup.hashCode(), loaded.hashCode());
+
+        assertTrue(idSet.contains(loaded));
+        idSet.add(loaded);
+        assertEquals(1, idSet.size());
+        assertTrue(idSet.contains(lookup));
+        assertEquals(IdSet.singleton(loaded), idSet);
+
+        Set<IdFor<Station>> hashSet = new HashSet<>();
+        hashSet.add(lookup);
+        assertTrue(hashSet.contains(loaded));
+
+        idSet.remove(lookup);
+        assertTrue(idSet.isEmpty());
+    }
+
+    @Test
+    void shouldAddContainsAndRemove() {
+        IdSet<Station> idSet = new IdSet<>();
+        assertTrue(idSet.isEmpty());
+
+        Set<IdFor<Station>> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            StringIdFor<Station> id = StringIdFor.createId("idSetTest" + i);
+            idSet.add(id);
+            expected.add(id);
+        }
+        idSet.add(StringIdFor.createId("idSetTest0"));
+
+        assertEquals(1000, idSet.size());
+        expected.forEach(id -> assertTrue(idSet.contains(id)));
+        assertFalse(idSet.contains(StringIdFor.createId("idSetTestMissing")));
+        assertEquals(expected, idSet.stream().collect(Collectors.toSet()));
+
+        for (int i = 0; i < 1000; i = i + 2) {
+            idSet.remove(StringIdFor.createId("idSetTest" + i));
+        }
+        assertEquals(500, idSet.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, idSet.contains(StringIdFor.createId("idSetTest" + i)), "for " + i);
+        }
+
+        idSet.clear();
+        assertTrue(idSet.isEmpty());
+        assertFalse(idSet.contains(StringIdFor.createId("idSetTest1")));
+    }
+
+    @Test
+    void shouldHoldCompositeIds() {
+        IdFor<RouteStation> composite = RouteStation.createId(StringIdFor.createId("stationA"),
+                StringIdFor.<Route>createId("routeA"));
+        IdSet<RouteStation> idSet = IdSet.singleton(composite);
+
+        assertEquals(1, idSet.size());
+        assertTrue(idSet.contains(RouteStation.createId(StringIdFor.createId("stationA"),
+                StringIdFor.<Route>createId("routeA"))));
+        assertFalse(idSet.contains(StringIdFor.createId("stationA_routeA")));
+
+        idSet.remove(composite);
+        assertTrue(idSet.isEmpty());
+    }
+
+    @Test
+    void shouldHaveSetEquality() {
+        IdSet<Station> setA = new IdSet<>();
+        IdSet<Station> setB = new IdSet<>(100);
+        for (int i = 0; i < 50; i++) {
+            setA.add(StringIdFor.createId("equalityTest" + i));
+        }
+        for (int i = 49; i >= 0; i--) {
+            setB.add(StringIdFor.createId("equalityTest" + i));
+        }
+
+        assertEquals(setA, setB);
+        assertEquals(setA.hashCode(), setB.hashCode());
+        assertTrue(setA.containsAll(setB));
+
+        setB.remove(StringIdFor.createId("equalityTest7"));
+        assertNotEquals(setA, setB);
+        assertTrue(setA.containsAll(setB));
+        assertFalse(setB.containsAll(setA));
+    }
+
+    @Test
+    void shouldEstimateBytesGrowingWithSize() {
+        IdSet<RouteStation> idSet = new IdSet<>();
+        long empty = idSet.estimateBytes();
+        assertTrue(empty > 0);
+
+        for (int i = 0; i < 100; i++) {
+            idSet.add(StringIdFor.createId("estimateTest" + i));
+        }
+        long withInterned = idSet.estimateBytes();
+        assertTrue(withInterned > empty);
+
+        idSet.add(RouteStation.createId(StringIdFor.createId("stationA"), StringIdFor.<Route>createId("routeA")));
+        assertTrue(idSet.estimateBytes() > withInterned);
+    }
+}
@@ -11,6 +11,7 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.CachedNodeOperations;
 import com.tramchester.graph.HourNodeCache;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.search.states.NotStartedState;
 import com.tramchester.repository.StationRepository;
@@ -52,7 +53,7 @@ class JourneyStateTest {
         HourNodeCache hourNodeCache = null;
         traversalState = new NotStartedState(sortsPositions,
                 new CachedNodeOperations(new CacheMetrics(TestEnv.NoopRegisterMetrics()), hourNodeCache),
-                destinationNodeIds, destinations, latLongHint, TestEnv.GET());
+                destinationNodeIds, destinations, latLongHint, TestEnv.GET(), WalkingOverlay.empty());
         queryTime = TramTime.of(9, 15);
     }
 
@@ -0,0 +1,67 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.LowestCostsForQuery;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LowestCostsForQueryTest {
+
+    private final TramTime queryTime = TramTime.of(8, 15);
+
+    @Test
+    void shouldBeDominatedByFewerChangesOnly() {
+        LowestCostsForQuery lowestCosts = new LowestCostsForQuery(3);
+
+        LowestCostsForQuery.ForSearch noChanges = lowestCosts.forSearch(queryTime, 0);
+        LowestCostsForQuery.ForSearch oneChange = lowestCosts.forSearch(queryTime, 1);
+        LowestCostsForQuery.ForSearch threeChanges = lowestCosts.forSearch(queryTime, 3);
+
+        assertFalse(oneChange.isDominated(20));
+
+        noChanges.recordCost(20);
+
+        assertFalse(noChanges.isDominated(20));
+        assertFalse(noChanges.isDominated(25));
+
+        assertTrue(oneChange.isDominated(20));
+        assertTrue(oneChange.isDominated(25));
+        assertFalse(oneChange.isDominated(19));
+
+        oneChange.recordCost(15);
+        assertTrue(threeChanges.isDominated(15));
+        assertFalse(threeChanges.isDominated(14));
+    }
+
+    @Test
+    void shouldKeepLowestCost() {
+        LowestCostsForQuery lowestCosts = new LowestCostsForQuery(1);
+
+        lowestCosts.recordCost(queryTime, 0, 20);
+        lowestCosts.recordCost(queryTime, 0, 30);
+
+        assertTrue(lowestCosts.isDominated(queryTime, 1, 20));
+        assertFalse(lowestCosts.isDominated(queryTime, 1, 19));
+    }
+
+    @Test
+    void shouldBeByQueryTime() {
+        LowestCostsForQuery lowestCosts = new LowestCostsForQuery(2);
+
+        lowestCosts.recordCost(queryTime, 0, 20);
+
+        assertTrue(lowestCosts.isDominated(queryTime, 1, 30));
+        assertFalse(lowestCosts.isDominated(TramTime.of(8, 21), 1, 30));
+    }
+
+    @Test
+    void shouldNeverBeDominatedIfDisabled() {
+        LowestCostsForQuery.ForSearch noChanges = LowestCostsForQuery.disabled().forSearch(queryTime, 0);
+        LowestCostsForQuery.ForSearch oneChange = LowestCostsForQuery.disabled().forSearch(queryTime, 1);
+
+        noChanges.recordCost(10);
+        assertFalse(oneChange.isDominated(100));
+    }
+}
@@ -0,0 +1,120 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.graph.NodeIdLabelMask;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.tramchester.graph.graphbuild.GraphBuilder.Labels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeIdLabelMaskTest extends EasyMockSupport {
+
+    private NodeIdLabelMask labelMask;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        labelMask = new NodeIdLabelMask();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        labelMask.dispose();
+    }
+
+    private Node nodeWithId(long id) {
+        Node node = createMock(Node.class);
+        EasyMock.expect(node.getId()).andStubReturn(id);
+        return node;
+    }
+
+    @Test
+    void shouldAnswerTypeChecksFromMask() {
+        labelMask.put(42L, HOUR);
+        labelMask.put(43L, MINUTE);
+        labelMask.put(44L, SERVICE);
+        labelMask.put(45L, EnumSet.of(ROUTE_STATION));
+        labelMask.put(46L, EnumSet.of(BUS_STATION, TRAIN_STATION));
+
+        Node hour = nodeWithId(42L);
+        Node minute = nodeWithId(43L);
+        Node service = nodeWithId(44L);
+        Node routeStation = nodeWithId(45L);
+        Node station = nodeWithId(46L);
+
+        replayAll();
+        assertTrue(labelMask.isHour(hour));
+        assertFalse(labelMask.isTime(hour));
+
+        assertTrue(labelMask.isTime(minute));
+        assertTrue(labelMask.isService(service));
+        assertTrue(labelMask.isRouteStation(routeStation));
+        assertFalse(labelMask.isService(routeStation));
+
+        assertTrue(labelMask.isBusStation(station));
+        assertTrue(labelMask.isTrainStation(station));
+        assertFalse(labelMask.isHour(station));
+        verifyAll();
+    }
+
+    @Test
+    void shouldGrowBeyondInitialCapacity() {
+        long bigId = 2_000_000L;
+        labelMask.put(bigId, SERVICE);
+
+        Node node = nodeWithId(bigId);
+        Node beyond = nodeWithId(bigId + 1);
+
+        replayAll();
+        assertTrue(labelMask.isService(node));
+        assertFalse(labelMask.isService(beyond));
+        verifyAll();
+
+        assertTrue(labelMask.getFootprintBytes() >= (bigId + 1) * Short.BYTES);
+    }
+
+    @Test
+    void shouldHaveLabelsWithoutStoreRead() {
+        labelMask.put(10L, EnumSet.of(TRAM_STATION, BUS_STATION));
+        labelMask.put(11L, EnumSet.of(BUS_STATION, TRAM_STATION));
+
+        Node nodeA = nodeWithId(10L);
+        Node nodeB = nodeWithId(11L);
+
+        replayAll();
+        Set<GraphBuilder.Labels> labels = labelMask.getLabels(nodeA);
+        assertEquals(EnumSet.of(TRAM_STATION, BUS_STATION), labels);
+        assertSame(labels, labelMask.getLabels(nodeB));
+        verifyAll();
+    }
+
+    @Test
+    void shouldFallBackToNodeLabelsIfNotSeen() {
+        Node node = nodeWithId(99L);
+        Iterable<Label> fromStore = Collections.singletonList(VERSION);
+        EasyMock.expect(node.getLabels()).andReturn(fromStore);
+
+        replayAll();
+        assertEquals(new HashSet<>(Arrays.asList(VERSION)), labelMask.getLabels(node));
+        verifyAll();
+    }
+
+    @Test
+    void shouldHaveBoxedEstimateLargerThanMasks() {
+        for (long id = 0; id < 1000; id++) {
+            labelMask.put(id, MINUTE);
+        }
+        assertTrue(labelMask.getBoxedEstimateBytes() > labelMask.getFootprintBytes());
+    }
+}
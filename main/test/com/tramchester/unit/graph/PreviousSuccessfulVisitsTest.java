@@ -0,0 +1,122 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.NodeContentsRepository;
+import com.tramchester.graph.PreviousSuccessfulVisits;
+import com.tramchester.graph.search.ServiceReason;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviousSuccessfulVisitsTest extends EasyMockSupport {
+
+    private static final int MAX_WAIT = 25;
+
+    private PreviousSuccessfulVisits visits;
+    private NodeContentsRepository nodeOperations;
+    private Node node;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        nodeOperations = createMock(NodeContentsRepository.class);
+        node = createMock(Node.class);
+        EasyMock.expect(node.getId()).andStubReturn(42L);
+
+        visits = new PreviousSuccessfulVisits(nodeOperations, MAX_WAIT);
+    }
+
+    @Test
+    void shouldPruneTimeNodeIfVisitedWithNoMoreChanges() {
+        replayAll();
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.TimeOk, node, TramTime.of(8,20), 1);
+
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,20), 1));
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,20), 2));
+
+        assertFalse(visits.hasUsableResult(node, TramTime.of(8,20), 0), "fewer changes");
+        verifyAll();
+
+        assertEquals(2, visits.getPrunedCount());
+    }
+
+    @Test
+    void shouldPruneMoreForEachLaterQueryTime() {
+        Node hourNode = createMock(Node.class);
+        EasyMock.expect(hourNode.getId()).andStubReturn(43L);
+        Node laterTimeNode = createMock(Node.class);
+        EasyMock.expect(laterTimeNode.getId()).andStubReturn(44L);
+
+        replayAll();
+
+        // sub-search for 8:00 boards the 8:20 and reaches the hour node for 9
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.TimeOk, node, TramTime.of(8,20), 0);
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.HourOk, hourNode, TramTime.of(9,0), 0);
+        assertEquals(0, visits.getPrunedCount());
+
+        // sub-search for 8:10 reaches the same tram and hour, nothing new to find
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,20), 0));
+        assertTrue(visits.hasUsableResult(hourNode, TramTime.of(9,0), 0));
+        assertFalse(visits.hasUsableResult(laterTimeNode, TramTime.of(8,32), 0));
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.TimeOk, laterTimeNode, TramTime.of(8,32), 0);
+        int afterSecond = visits.getPrunedCount();
+        assertEquals(2, afterSecond);
+
+        // sub-search for 8:20 is covered by both earlier sub-searches
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,20), 1));
+        assertTrue(visits.hasUsableResult(hourNode, TramTime.of(9,0), 0));
+        assertTrue(visits.hasUsableResult(laterTimeNode, TramTime.of(8,32), 0));
+        verifyAll();
+
+        assertTrue(visits.getPrunedCount() > afterSecond);
+    }
+
+    @Test
+    void shouldPruneTooEarlyOnlyOnClock() {
+        replayAll();
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.NotAtQueryTime, node, TramTime.of(8,5), 0);
+
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,5), 3));
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,1), 0));
+        assertFalse(visits.hasUsableResult(node, TramTime.of(8,6), 0));
+        verifyAll();
+    }
+
+    @Test
+    void shouldPruneHourNodeAtSameTime() {
+        replayAll();
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.HourOk, node, TramTime.of(8,10), 0);
+
+        assertTrue(visits.hasUsableResult(node, TramTime.of(8,10), 1));
+        assertFalse(visits.hasUsableResult(node, TramTime.of(8,5), 1), "earlier");
+        verifyAll();
+    }
+
+    @Test
+    void shouldOnlyPruneLaterHourVisitIfEarlierCanReachRestOfHour() {
+        Node otherNode = createMock(Node.class);
+        EasyMock.expect(otherNode.getId()).andStubReturn(43L);
+        EasyMock.expect(nodeOperations.getHour(node)).andStubReturn(8);
+        EasyMock.expect(nodeOperations.getHour(otherNode)).andStubReturn(8);
+
+        replayAll();
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.HourOk, node, TramTime.of(8,10), 0);
+        // 8:10 can only wait until 8:35, so 8:40 could catch later departures
+        assertFalse(visits.hasUsableResult(node, TramTime.of(8,40), 0));
+
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.HourOk, otherNode, TramTime.of(8,34), 0);
+        assertTrue(visits.hasUsableResult(otherNode, TramTime.of(8,40), 0));
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotRecordOtherReasons() {
+        replayAll();
+        visits.recordVisitIfUseful(ServiceReason.ReasonCode.Continue, node, TramTime.of(8,10), 0);
+        assertFalse(visits.hasUsableResult(node, TramTime.of(8,10), 0));
+        verifyAll();
+    }
+}
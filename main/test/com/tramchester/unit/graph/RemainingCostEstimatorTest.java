@@ -0,0 +1,93 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.graph.search.RemainingCostEstimator;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.tramchester.testSupport.reference.TramTransportDataForTestFactory.TramTransportDataForTest.TRIP_A_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemainingCostEstimatorTest {
+
+    private TramTransportDataForTestFactory factory;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private RemainingCostEstimator estimator;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        factory = new TramTransportDataForTestFactory(new ProvidesLocalNow());
+        factory.start();
+        transportData = factory.getTestData();
+
+        TramchesterConfig config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.singletonList(new TFGMTestDataSourceConfig("data/tram",
+                        GTFSTransportationType.tram, TransportMode.Tram));
+            }
+        };
+
+        estimator = new RemainingCostEstimator(transportData, config, () -> null);
+        estimator.start();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        factory.stop();
+    }
+
+    @Test
+    void shouldBeAtLeastWalkingSpeed() {
+        // 3 mph
+        assertTrue(estimator.getMetersPerMinute() >= 80D);
+    }
+
+    @Test
+    void shouldBeZeroAtDestination() {
+        Station first = transportData.getFirst();
+        assertEquals(0, estimator.lowerBound(first, Collections.singleton(first)));
+    }
+
+    @Test
+    void shouldNeverOverEstimateTimetabledTrip() {
+        Trip trip = transportData.getTripById(StringIdFor.createId(TRIP_A_ID));
+
+        List<StopCalls.StopLeg> legs = trip.getStopCalls().getLegs();
+        int remaining = 0;
+        for (int i = legs.size() - 1; i >= 0; i--) {
+            StopCalls.StopLeg leg = legs.get(i);
+            remaining = remaining + leg.getCost();
+            Station destination = legs.get(legs.size() - 1).getSecondStation();
+            assertTrue(estimator.lowerBound(leg.getFirstStation(), Collections.singleton(destination)) <= remaining);
+        }
+    }
+
+    @Test
+    void shouldUseNearestDestination() {
+        Station first = transportData.getFirst();
+        int toFive = estimator.lowerBound(first, Collections.singleton(transportData.getFifthStation()));
+        int toSecond = estimator.lowerBound(first, Collections.singleton(transportData.getSecond()));
+
+        int toEither = estimator.lowerBound(first, new HashSet<>(List.of(transportData.getFifthStation(),
+                transportData.getSecond())));
+        assertEquals(Math.min(toFive, toSecond), toEither);
+    }
+}
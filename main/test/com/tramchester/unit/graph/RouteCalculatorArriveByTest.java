@@ -1,5 +1,6 @@
 package com.tramchester.unit.graph;
 
+import com.tramchester.config.PlanningEngine;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.Journey;
 import com.tramchester.domain.places.Station;
@@ -9,6 +10,7 @@ import com.tramchester.graph.RouteCostCalculator;
 import com.tramchester.graph.search.JourneyRequest;
 import com.tramchester.graph.search.RouteCalculator;
 import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
 import com.tramchester.testSupport.TestEnv;
 import com.tramchester.testSupport.reference.TramStations;
 import org.easymock.EasyMock;
@@ -27,6 +29,7 @@ class RouteCalculatorArriveByTest extends EasyMockSupport {
     private RouteCalculatorArriveBy routeCalculatorArriveBy;
     private RouteCalculator routeCalculator;
     private RouteCostCalculator costCalculator;
+    private RaptorRouteCalculator raptorRouteCalculator;
     private int costBetweenStartDest;
     private TramchesterConfig config;
     private Transaction txn;
@@ -37,7 +40,9 @@ class RouteCalculatorArriveByTest extends EasyMockSupport {
         costCalculator = createStrictMock(RouteCostCalculator.class);
         routeCalculator = createStrictMock(RouteCalculator.class);
         config = createStrictMock(TramchesterConfig.class);
-        routeCalculatorArriveBy = new RouteCalculatorArriveBy(costCalculator, routeCalculator, config);
+        raptorRouteCalculator = createStrictMock(RaptorRouteCalculator.class);
+        routeCalculatorArriveBy = new RouteCalculatorArriveBy(costCalculator, routeCalculator, config,
+                () -> raptorRouteCalculator);
         costBetweenStartDest = 15;
     }
 
@@ -54,6 +59,7 @@ class RouteCalculatorArriveByTest extends EasyMockSupport {
 
         //EasyMock.expect(config.getTransportModes()).andReturn(Arrays.asList(GTFSTransportationType.tram));
 
+        EasyMock.expect(config.getPlanningEngine()).andReturn(PlanningEngine.Graph);
         EasyMock.expect(costCalculator.getApproxCostBetween(txn, start, destinationId)).andReturn(costBetweenStartDest);
         TramTime requiredDepartTime = arriveBy.minusMinutes(costBetweenStartDest).minusMinutes(17); // 17 = 34/2
         JourneyRequest updatedWithComputedDepartTime = new JourneyRequest(serviceDate, requiredDepartTime, true,
@@ -68,4 +74,24 @@ class RouteCalculatorArriveByTest extends EasyMockSupport {
         assertSame(journeyStream, result);
     }
 
+    @Test
+    void shouldSearchBackwardsFromArrivalTimeForRaptor() {
+        TramTime arriveBy = TramTime.of(14,35);
+        TramServiceDate serviceDate = TramServiceDate.of(TestEnv.testDay());
+
+        Station start = TramStations.of(TramStations.Bury);
+        Station destinationId = TramStations.of(TramStations.Cornbrook);
+
+        Stream<Journey> journeyStream = Stream.empty();
+        JourneyRequest originalRequest = new JourneyRequest(serviceDate, arriveBy, true, 5, 120);
+
+        EasyMock.expect(config.getPlanningEngine()).andReturn(PlanningEngine.Raptor);
+        EasyMock.expect(raptorRouteCalculator.calculateRouteArriveBy(start, destinationId, originalRequest)).andReturn(journeyStream);
+
+        replayAll();
+        Stream<Journey> result = routeCalculatorArriveBy.calculateRoute(txn, start, destinationId, originalRequest);
+        verifyAll();
+        assertSame(journeyStream, result);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.graph.search.CreateSearchBudget;
+import com.tramchester.graph.search.SearchBudget;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchBudgetTest {
+
+    @Test
+    void shouldNotLimitUnlimited() {
+        SearchBudget budget = SearchBudget.unlimited();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(budget.tryExpand());
+        }
+        assertFalse(budget.isExhausted());
+        assertNull(budget.getReason());
+        assertEquals(10000, budget.getExpanded());
+    }
+
+    @Test
+    void shouldStopAfterMaxNodesAndTellListenerOnce() {
+        List<SearchBudget.Reason> reasons = new ArrayList<>();
+        SearchBudget budget = new SearchBudget(0, 3, reasons::add);
+
+        assertTrue(budget.tryExpand());
+        assertTrue(budget.tryExpand());
+        assertTrue(budget.tryExpand());
+        assertFalse(budget.isExhausted());
+
+        assertFalse(budget.tryExpand());
+        assertFalse(budget.tryExpand());
+
+        assertTrue(budget.isExhausted());
+        assertEquals(SearchBudget.Reason.Nodes, budget.getReason());
+        assertEquals(Collections.singletonList(SearchBudget.Reason.Nodes), reasons);
+    }
+
+    @Test
+    void shouldStopAfterDeadline() throws InterruptedException {
+        List<SearchBudget.Reason> reasons = new ArrayList<>();
+        SearchBudget budget = new SearchBudget(1, 0, reasons::add);
+
+        Thread.sleep(5);
+
+        // clock only checked every so often
+        boolean expanded = true;
+        for (int i = 0; i < 1000 && expanded; i++) {
+            expanded = budget.tryExpand();
+        }
+
+        assertFalse(expanded);
+        assertEquals(SearchBudget.Reason.Time, budget.getReason());
+        assertEquals(Collections.singletonList(SearchBudget.Reason.Time), reasons);
+    }
+
+    @Test
+    void shouldStopWhenCancelled() {
+        List<SearchBudget.Reason> reasons = new ArrayList<>();
+        SearchBudget budget = new SearchBudget(0, 0, reasons::add);
+
+        assertTrue(budget.tryExpand());
+        budget.cancel();
+
+        assertFalse(budget.tryExpand());
+        assertEquals(SearchBudget.Reason.Cancelled, budget.getReason());
+        assertEquals(Collections.singletonList(SearchBudget.Reason.Cancelled), reasons);
+    }
+
+    @Test
+    void shouldMarkSharedPartialResultsWithoutTellingListener() {
+        List<SearchBudget.Reason> reasons = new ArrayList<>();
+        SearchBudget budget = new SearchBudget(0, 0, reasons::add);
+
+        budget.sharedPartialResults(SearchBudget.Reason.Time);
+
+        assertTrue(budget.isExhausted());
+        assertEquals(SearchBudget.Reason.Time, budget.getReason());
+        assertTrue(reasons.isEmpty());
+    }
+
+    @Test
+    void shouldCreateFromConfigAndCountExhausted() {
+        TestConfig config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public long getSearchBudgetNodes() {
+                return 2;
+            }
+        };
+        CreateSearchBudget createSearchBudget = new CreateSearchBudget(config, TestEnv.NoopRegisterMetrics());
+
+        SearchBudget budget = createSearchBudget.create();
+        assertTrue(budget.tryExpand());
+        assertTrue(budget.tryExpand());
+        assertFalse(budget.tryExpand());
+
+        createSearchBudget.create().cancel();
+
+        assertEquals(1, createSearchBudget.getExhausted(SearchBudget.Reason.Nodes));
+        assertEquals(1, createSearchBudget.getExhausted(SearchBudget.Reason.Cancelled));
+        assertEquals(0, createSearchBudget.getExhausted(SearchBudget.Reason.Time));
+    }
+}
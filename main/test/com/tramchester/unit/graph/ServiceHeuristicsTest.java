@@ -11,7 +11,6 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.CachedNodeOperations;
 import com.tramchester.graph.NodeContentsRepository;
 import com.tramchester.graph.search.*;
-import com.tramchester.graph.search.states.HowIGotHere;
 import com.tramchester.integration.testSupport.IntegrationTramTestConfig;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.ReachabilityRepository;
@@ -23,6 +22,7 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
 
 import java.time.LocalTime;
 import java.util.Collections;
@@ -40,7 +40,7 @@ class ServiceHeuristicsTest extends EasyMockSupport {
 
     private final TramchesterConfig config30MinsWait = new NeedMaxWaitConfig(MAX_WAIT);
     private NodeContentsRepository nodeOperations;
-    private HowIGotHere path;
+    private Path path;
     private ReachabilityRepository reachabilityRepository;
     private StationRepository stationRepository;
     private ProvidesLocalNow providesLocalNow;
@@ -58,7 +58,7 @@ class ServiceHeuristicsTest extends EasyMockSupport {
         serviceIdB = StringIdFor.createId("serviceIdB");
 
         nodeOperations = createMock(CachedNodeOperations.class);
-        path = createMock(HowIGotHere.class);
+        path = createMock(Path.class);
         reachabilityRepository = createMock(ReachabilityRepository.class);
         stationRepository = createMock(StationRepository.class);
 
@@ -95,11 +95,11 @@ class ServiceHeuristicsTest extends EasyMockSupport {
         EasyMock.expect(nodeOperations.getServiceId(node)).andReturn(serviceIdB);
 
         replayAll();
-        ServiceReason result = serviceHeuristics.checkServiceDate(node, path, reasons);
+        ServiceReason.ReasonCode result = serviceHeuristics.checkServiceDate(node, path, reasons);
         assertTrue(result.isValid());
 
         result = serviceHeuristics.checkServiceDate(node, path, reasons);
-        assertEquals(ServiceReason.ReasonCode.NotOnQueryDate, result.getReasonCode());
+        assertEquals(ServiceReason.ReasonCode.NotOnQueryDate, result);
         verifyAll();
     }
 
@@ -126,11 +126,11 @@ class ServiceHeuristicsTest extends EasyMockSupport {
         EasyMock.expect(stationRepository.getRouteStationById(routeStationB.getId())).andReturn(routeStationB);
 
         replayAll();
-        ServiceReason result = serviceHeuristics.checkStationOpen(node, path, reasons);
+        ServiceReason.ReasonCode result = serviceHeuristics.checkStationOpen(node, path, reasons);
         assertTrue(result.isValid());
 
         result = serviceHeuristics.checkStationOpen(node, path, reasons);
-        assertEquals(ServiceReason.ReasonCode.StationClosed, result.getReasonCode());
+        assertEquals(ServiceReason.ReasonCode.StationClosed, result);
         verifyAll();
 
     }
@@ -186,9 +186,9 @@ class ServiceHeuristicsTest extends EasyMockSupport {
         EasyMock.expect(journeyConstraints.getServiceLatest(serviceIdA)).andReturn(TramTime.nextDay(0,1));
 
         replayAll();
-        assertEquals(ServiceReason.DoesNotOperateOnTime(elaspsedTramTime, path),
+        assertEquals(ServiceReason.ReasonCode.ServiceNotRunningAtTime,
                 serviceHeuristics.checkServiceTime(path, tooEarlyNode, elaspsedTramTime, reasons));
-        assertEquals(ServiceReason.DoesNotOperateOnTime(elaspsedTramTime, path),
+        assertEquals(ServiceReason.ReasonCode.ServiceNotRunningAtTime,
                 serviceHeuristics.checkServiceTime(path, tooLateNode, elaspsedTramTime, reasons));
 
         assertTrue(serviceHeuristics.checkServiceTime(path, overlapStartsBefore, elaspsedTramTime, reasons).isValid());
@@ -495,6 +495,49 @@ class ServiceHeuristicsTest extends EasyMockSupport {
         assertFalse(serviceHeuristics.checkNumberChanges(3, path, reasons).isValid());
     }
 
+    @Test
+    void shouldOnlyCountReasonCodesWhenDiagnosticsDisabled() {
+        TramTime queryTime = TramTime.of(11,20);
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(TestEnv.nextSaturday()), queryTime,
+                false, 2, 160);
+        ServiceReasons reasons = new ServiceReasons(journeyRequest, queryTime, providesLocalNow, numChanges);
+
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, reachabilityRepository,
+                journeyConstraints, queryTime, 2);
+
+        replayAll(); // path is never used
+        assertEquals(ServiceReason.ReasonCode.NumChangesOK, serviceHeuristics.checkNumberChanges(1, path, reasons));
+        assertEquals(ServiceReason.ReasonCode.TooManyChanges, serviceHeuristics.checkNumberChanges(3, path, reasons));
+        assertEquals(ServiceReason.ReasonCode.TooManyChanges, serviceHeuristics.checkNumberChanges(4, path, reasons));
+        verifyAll();
+
+        assertEquals(3, reasons.getTotalChecked());
+        assertEquals(1, reasons.getCount(ServiceReason.ReasonCode.NumChangesOK));
+        assertEquals(2, reasons.getCount(ServiceReason.ReasonCode.TooManyChanges));
+    }
+
+    @Test
+    void shouldCreateReasonsFromPathWhenDiagnosticsEnabled() {
+        TramTime queryTime = TramTime.of(11,20);
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(TestEnv.nextSaturday()), queryTime,
+                false, 2, 160).setDiag(true);
+        ServiceReasons reasons = new ServiceReasons(journeyRequest, queryTime, providesLocalNow, numChanges);
+
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, reachabilityRepository,
+                journeyConstraints, queryTime, 2);
+
+        Node endNode = createMock(Node.class);
+        EasyMock.expect(endNode.getId()).andReturn(42L);
+        EasyMock.expect(path.endNode()).andReturn(endNode);
+        EasyMock.expect(path.lastRelationship()).andReturn(null);
+
+        replayAll();
+        assertEquals(ServiceReason.ReasonCode.TooManyChanges, serviceHeuristics.checkNumberChanges(3, path, reasons));
+        verifyAll();
+
+        assertEquals(1, reasons.getCount(ServiceReason.ReasonCode.TooManyChanges));
+    }
+
     @Test
     void shouldCheckMaximumDurationCorrectlyAcrossMidnight() {
         TramTime queryTime = TramTime.of(23,20);
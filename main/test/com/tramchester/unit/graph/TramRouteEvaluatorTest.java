@@ -14,8 +14,8 @@ import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.*;
+import com.tramchester.graph.overlay.WalkingOverlay;
 import com.tramchester.graph.search.*;
-import com.tramchester.graph.search.states.HowIGotHere;
 import com.tramchester.graph.search.states.NotStartedState;
 import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
 import com.tramchester.testSupport.TestConfig;
@@ -39,8 +39,8 @@ import java.util.List;
 import java.util.Set;
 
 import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO;
-import static com.tramchester.testSupport.reference.TramStations.Shudehill;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TramRouteEvaluatorTest extends EasyMockSupport {
 
@@ -48,7 +48,6 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
     private ServiceHeuristics serviceHeuristics;
     private NodeContentsRepository nodeOperations;
     private Path path;
-    private HowIGotHere howIGotHere;
     private Node node;
     private NodeIdLabelMap nodeIdLabelMap;
     private ServiceReasons reasons;
@@ -93,8 +92,6 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         node = createMock(Node.class);
         lastRelationship = createMock(Relationship.class);
 
-        howIGotHere = HowIGotHere.forTest(42L, 24L);
-
         EasyMock.expect(node.getId()).andStubReturn(42L);
         EasyMock.expect(lastRelationship.getId()).andStubReturn(24L);
 
@@ -107,14 +104,21 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
     private NotStartedState getNotStartedState() {
         Set<Long> destinationNodeIds = new HashSet<>();
         destinationNodeIds.add(destinationNodeId);
-        return new NotStartedState(sortsPositions, nodeOperations, destinationNodeIds, destinationStations, latLongHint, config);
+        return new NotStartedState(sortsPositions, nodeOperations, destinationNodeIds, destinationStations, latLongHint, config,
+                WalkingOverlay.empty());
     }
 
     @NotNull
     private TramRouteEvaluator getEvaluator(long destinationNodeId) {
+        return getEvaluator(destinationNodeId, SearchBudget.unlimited());
+    }
+
+    @NotNull
+    private TramRouteEvaluator getEvaluator(long destinationNodeId, SearchBudget budget) {
         Set<Long> destinationNodeIds = new HashSet<>();
         destinationNodeIds.add(destinationNodeId);
-        return new TramRouteEvaluator(serviceHeuristics, destinationNodeIds, nodeIdLabelMap, reasons, previousSuccessfulVisit, config);
+        return new TramRouteEvaluator(serviceHeuristics, destinationNodeIds, nodeIdLabelMap, reasons, previousSuccessfulVisit,
+                LowestCostsForQuery.disabled().forSearch(TramTime.of(8,15), 3), budget, config);
     }
 
     @Test
@@ -163,8 +167,8 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.Arrived, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.Arrived, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -184,7 +188,7 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(true);
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(true);
 
         replayAll();
         Evaluation result = evaluator.evaluate(path, state);
@@ -192,6 +196,28 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         verifyAll();
     }
 
+    @Test
+    void shouldPruneOnceBudgetUsed() {
+        SearchBudget budget = new SearchBudget(0, 1, reason -> {});
+        TramRouteEvaluator evaluator = getEvaluator(destinationNodeId, budget);
+
+        BranchState<JourneyState> state = new TestBranchState();
+        TramTime time = TramTime.of(8, 15);
+        NotStartedState traversalState = getNotStartedState();
+        state.setState(new JourneyState(time, traversalState));
+
+        // only the first evaluation is within budget
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andReturn(true);
+
+        replayAll();
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, evaluator.evaluate(path, state));
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, evaluator.evaluate(path, state));
+        verifyAll();
+
+        assertTrue(budget.isExhausted());
+        assertEquals(SearchBudget.Reason.Nodes, budget.getReason());
+    }
+
     @Test
     void shouldPruneIfTooLong() {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
@@ -204,8 +230,8 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
 
         EasyMock.expect(path.length()).andReturn(201);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.PathTooLong, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.PathTooLong, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -218,23 +244,23 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
     void shouldExcludeIfServiceNotRunningToday() {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.DurationOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(nodeIdLabelMap.isRouteStation(node)).andReturn(false);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andStubReturn(true);
 
-        EasyMock.expect(serviceHeuristics.checkServiceDate(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.DoesNotRunOnQueryDate(howIGotHere, StringIdFor.createId("nodeServiceId")));
+        EasyMock.expect(serviceHeuristics.checkServiceDate(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.NotOnQueryDate);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotOnQueryDate, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotOnQueryDate, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -252,12 +278,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.DurationOk);
 
         TramTime time = TramTime.of(8, 15);
         NotStartedState traversalState = getNotStartedState();
@@ -268,10 +294,10 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isRouteStation(node)).andReturn(true);
 
-        EasyMock.expect(serviceHeuristics.canReachDestination(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.StationNotReachable(howIGotHere));
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotReachable, node, TramTime.of(8,15));
+        EasyMock.expect(serviceHeuristics.canReachDestination(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.NotReachable);
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotReachable, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -285,12 +311,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.DurationOk);
 
         TramTime time = TramTime.of(8, 15);
         NotStartedState traversalState = getNotStartedState();
@@ -301,12 +327,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isRouteStation(node)).andReturn(true);
 
-        EasyMock.expect(serviceHeuristics.canReachDestination(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.Reachable, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkStationOpen(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.StationClosed(howIGotHere, TramStations.of(Shudehill)));
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.StationClosed, node, TramTime.of(8,15));
+        EasyMock.expect(serviceHeuristics.canReachDestination(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.Reachable);
+        EasyMock.expect(serviceHeuristics.checkStationOpen(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.StationClosed);
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.StationClosed, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -320,12 +346,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.DurationOk);
 
         TramTime time = TramTime.of(8, 15);
         NotStartedState traversalState = getNotStartedState();
@@ -339,13 +365,13 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
 
         EasyMock.expect(lastRelationship.isType(WALKS_TO)).andReturn(true);
 
-        EasyMock.expect(serviceHeuristics.canReachDestination(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.Reachable, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkStationOpen(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.StationOpen, howIGotHere));
+        EasyMock.expect(serviceHeuristics.canReachDestination(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.Reachable);
+        EasyMock.expect(serviceHeuristics.checkStationOpen(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.StationOpen);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.WalkOk, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.WalkOk, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -359,12 +385,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.DurationOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andReturn(false);
@@ -375,8 +401,8 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramTime time = TramTime.of(8, 15);
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.WalkOk, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.WalkOk, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -393,19 +419,19 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.length()).andReturn(50);
 
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
 
         TramTime time = TramTime.of(8, 15);
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,howIGotHere, reasons)).
-                andReturn(ServiceReason.TookTooLong(time, howIGotHere));
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path, reasons)).
+                andReturn(ServiceReason.ReasonCode.TookTooLong);
 
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.TookTooLong, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.TookTooLong, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -423,12 +449,12 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
 
         TramTime time = TramTime.of(8, 15);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).andStubReturn(ServiceReason.TooManyChanges(howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).andStubReturn(ServiceReason.ReasonCode.TooManyChanges);
 
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.TooManyChanges, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.TooManyChanges, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -442,10 +468,10 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andReturn(true);
@@ -457,15 +483,15 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         NotStartedState traversalState = getNotStartedState();
 
         state.setState(new JourneyState(time, traversalState));
-        EasyMock.expect(serviceHeuristics.checkServiceDate(node, howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.ServiceDateOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkServiceTime(howIGotHere, node, time, reasons)).
-                andReturn(ServiceReason.DoesNotOperateOnTime(time, howIGotHere));
-
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.ServiceNotRunningAtTime, node, TramTime.of(8,15));
+        EasyMock.expect(serviceHeuristics.checkServiceDate(node, path, reasons)).
+                andReturn(ServiceReason.ReasonCode.ServiceDateOk);
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path, reasons)).
+                andReturn(ServiceReason.ReasonCode.DurationOk);
+        EasyMock.expect(serviceHeuristics.checkServiceTime(path, node, time, reasons)).
+                andReturn(ServiceReason.ReasonCode.NotAtQueryTime);
+
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.ServiceNotRunningAtTime, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -479,10 +505,10 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andReturn(false);
@@ -495,13 +521,13 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramTime time = TramTime.of(8, 15);
 
         state.setState(new JourneyState(time, traversalState));
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.interestedInHour(howIGotHere, node, time, reasons)).
-                andReturn(ServiceReason.DoesNotOperateOnTime(time, howIGotHere));
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path, reasons)).
+                andReturn(ServiceReason.ReasonCode.DurationOk);
+        EasyMock.expect(serviceHeuristics.interestedInHour(path, node, time, reasons)).
+                andReturn(ServiceReason.ReasonCode.NotAtQueryTime);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotAtHour, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotAtHour, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -515,10 +541,10 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andReturn(false);
@@ -533,13 +559,13 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         state.setState(new JourneyState(time, traversalState));
 
         //TramTime tramTime = TramTime.of(time);
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0 ,howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkTime(howIGotHere, node, time, reasons)).
-                andReturn(ServiceReason.DoesNotOperateOnTime(time, howIGotHere));
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0 ,path, reasons)).
+                andReturn(ServiceReason.ReasonCode.DurationOk);
+        EasyMock.expect(serviceHeuristics.checkTime(path, node, time, reasons)).
+                andReturn(ServiceReason.ReasonCode.NotAtQueryTime);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotAtQueryTime, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.NotAtQueryTime, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -553,10 +579,10 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         TramRouteEvaluator evaluator = getEvaluator(destinationNodeId);
         BranchState<JourneyState> state = new TestBranchState();
         EasyMock.expect(serviceHeuristics.getMaxPathLength()).andStubReturn(400);
-        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumChangesOK, howIGotHere));
-        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, howIGotHere, reasons)).
-                andStubReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.NumConnectionsOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumChangesOK);
+        EasyMock.expect(serviceHeuristics.checkNumberConnections(0, path, reasons)).
+                andStubReturn(ServiceReason.ReasonCode.NumConnectionsOk);
 
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.isService(node)).andReturn(false);
@@ -570,11 +596,11 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         NotStartedState traversalState = getNotStartedState();
         state.setState(new JourneyState(time, traversalState));
 
-        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,howIGotHere, reasons)).
-                andReturn(ServiceReason.IsValid(ServiceReason.ReasonCode.DurationOk, howIGotHere));
+        EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path, reasons)).
+                andReturn(ServiceReason.ReasonCode.DurationOk);
 
-        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15))).andStubReturn(false);
-        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.Continue, node, TramTime.of(8,15));
+        EasyMock.expect(previousSuccessfulVisit.hasUsableResult(node, TramTime.of(8,15), 0)).andStubReturn(false);
+        previousSuccessfulVisit.recordVisitIfUseful(ServiceReason.ReasonCode.Continue, node, TramTime.of(8,15), 0);
         EasyMock.expectLastCall();
 
         replayAll();
@@ -0,0 +1,108 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkingOverlayTest extends EasyMockSupport {
+
+    private WalkingOverlay overlay;
+    private Node stationNode;
+    private StationWalk stationWalk;
+    private final LatLong latLong = TestEnv.nearAltrincham;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        overlay = new WalkingOverlay();
+        stationNode = createMock(Node.class);
+        EasyMock.expect(stationNode.getId()).andStubReturn(42L);
+
+        Station station = TramStations.of(TramStations.Altrincham);
+        stationWalk = new StationWalk(station, 7);
+    }
+
+    @Test
+    void shouldCreateQueryNodeNotInGraph() {
+        replayAll();
+        Node walkNode = overlay.createWalkingNode(latLong, UUID.randomUUID());
+        verifyAll();
+
+        assertTrue(walkNode.hasLabel(GraphBuilder.Labels.QUERY_NODE));
+        assertEquals(latLong, GraphProps.getLatLong(walkNode));
+        assertTrue(WalkingOverlay.isVirtual(walkNode));
+        assertFalse(WalkingOverlay.isVirtual(stationNode.getId()));
+    }
+
+    @Test
+    void shouldHaveWalkOutOfWalkingNode() {
+        replayAll();
+        Node walkNode = overlay.createWalkingNode(latLong, UUID.randomUUID());
+        Relationship walk = overlay.addWalkTo(walkNode, stationNode, stationWalk);
+        verifyAll();
+
+        List<Relationship> outbound = toList(walkNode.getRelationships(Direction.OUTGOING,
+                TransportRelationshipTypes.WALKS_TO));
+        assertEquals(Collections.singletonList(walk), outbound);
+        assertSame(stationNode, walk.getOtherNode(walkNode));
+        assertEquals(7, GraphProps.getCost(walk));
+        assertEquals(stationWalk.getStation().getId(), GraphProps.getStationIdFrom(walk));
+
+        assertFalse(walkNode.getRelationships(Direction.INCOMING).iterator().hasNext());
+    }
+
+    @Test
+    void shouldAddWalkFromStationNodeToOverlayOnly() {
+        Node otherStationNode = createMock(Node.class);
+        EasyMock.expect(otherStationNode.getId()).andStubReturn(43L);
+
+        replayAll();
+        Node walkNode = overlay.createWalkingNode(latLong, UUID.randomUUID());
+        Relationship walk = overlay.addWalkFrom(stationNode, walkNode, stationWalk);
+
+        List<Relationship> fromStation = toList(overlay.withOverlay(stationNode, Collections.emptyList()));
+        List<Relationship> fromOther = toList(overlay.withOverlay(otherStationNode, Collections.emptyList()));
+        List<Relationship> intoStation = toList(overlay.withOverlayIncoming(stationNode, Collections.emptyList()));
+        verifyAll();
+
+        assertEquals(Collections.singletonList(walk), fromStation);
+        assertTrue(fromOther.isEmpty());
+        assertTrue(intoStation.isEmpty());
+        assertEquals(Collections.singletonList(walk), toList(walkNode.getRelationships(Direction.INCOMING)));
+    }
+
+    @Test
+    void shouldHaveUniqueIdsAcrossOverlays() {
+        replayAll();
+        Node first = overlay.createWalkingNode(latLong, UUID.randomUUID());
+        Node second = new WalkingOverlay().createWalkingNode(latLong, UUID.randomUUID());
+        verifyAll();
+
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    private List<Relationship> toList(Iterable<Relationship> relationships) {
+        List<Relationship> results = new ArrayList<>();
+        relationships.forEach(results::add);
+        return results;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tramchester.unit.graph.calculation;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BestFirstRouteCalculatorTest {
+
+    private static ComponentContainer componentContainer;
+    private static SimpleGraphConfig config;
+
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private RouteCalculator calculator;
+    private Transaction txn;
+
+    private final TramServiceDate queryDate = new TramServiceDate(LocalDate.of(2014,6,30));
+    private final TramTime queryTime = TramTime.of(7, 57);
+
+    @BeforeAll
+    static void onceBeforeAllTestRuns() throws IOException {
+        config = new SimpleGraphConfig("bestfirstroutetest.db") {
+            @Override
+            public boolean getBestFirstSearch() {
+                return true;
+            }
+        };
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder<TramTransportDataForTestFactory>().
+                overrideProvider(TramTransportDataForTestFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void onceAfterAllTestsRun() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        transportData = (TramTransportDataForTestFactory.TramTransportDataForTest) componentContainer.get(TransportData.class);
+        calculator = componentContainer.get(RouteCalculator.class);
+        txn = componentContainer.get(GraphDatabase.class).beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    private JourneyRequest createJourneyRequest(TramTime queryTime, int maxChanges) {
+        return new JourneyRequest(queryDate, queryTime, false, maxChanges, config.getMaxJourneyDuration());
+    }
+
+    @Test
+    void shouldFindSimpleJourney() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getSecond(),
+                createJourneyRequest(queryTime, 0)).collect(Collectors.toList());
+
+        assertEquals(1, journeys.size());
+        assertEquals(1, journeys.get(0).getStages().size());
+    }
+
+    @Test
+    void shouldFindJourneyViaInterchange() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFourthStation(),
+                createJourneyRequest(queryTime, 3)).collect(Collectors.toList());
+
+        assertFalse(journeys.isEmpty());
+        assertTrue(journeys.size() <= config.getMaxNumResults());
+        journeys.forEach(journey -> assertEquals(2, journey.getStages().size()));
+    }
+
+    @Test
+    void shouldFindNoJourneyWhenNoneRunning() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getInterchange(),
+                createJourneyRequest(TramTime.of(9, 0), 3)).collect(Collectors.toList());
+
+        assertTrue(journeys.isEmpty());
+    }
+}
@@ -34,6 +34,7 @@ import static com.tramchester.domain.reference.TransportMode.Tram;
 import static com.tramchester.graph.TransportRelationshipTypes.TO_HOUR;
 import static com.tramchester.graph.TransportRelationshipTypes.TO_SERVICE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GraphQueriesTests {
@@ -147,6 +148,8 @@ class GraphQueriesTests {
         assertEquals(2, found.size());
         assertTrue(found.contains(8));
         assertTrue(found.contains(9));
+
+        assertThrows(RuntimeException.class, () -> hourNodeCache.getHourFor(-1));
     }
 
     IdSet<Station> createSet(Station...stations) {
@@ -0,0 +1,165 @@
+package com.tramchester.unit.graph.calculation;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphQuery;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelRouteCalculatorTest {
+
+    private static ComponentContainer componentContainer;
+    private static SimpleGraphConfig config;
+
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private RouteCalculator calculator;
+    private Transaction txn;
+
+    private final TramServiceDate queryDate = new TramServiceDate(LocalDate.of(2014,6,30));
+    private final TramTime queryTime = TramTime.of(7, 57);
+
+    @BeforeAll
+    static void onceBeforeAllTestRuns() throws IOException {
+        config = new SimpleGraphConfig("parallelroutetest.db") {
+            @Override
+            public int getParallelSearchThreads() {
+                return 2;
+            }
+        };
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder<TramTransportDataForTestFactory>().
+                overrideProvider(TramTransportDataForTestFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void onceAfterAllTestsRun() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        transportData = (TramTransportDataForTestFactory.TramTransportDataForTest) componentContainer.get(TransportData.class);
+        calculator = componentContainer.get(RouteCalculator.class);
+        txn = componentContainer.get(GraphDatabase.class).beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    private JourneyRequest createJourneyRequest(TramTime queryTime, int maxChanges) {
+        return new JourneyRequest(queryDate, queryTime, false, maxChanges, config.getMaxJourneyDuration());
+    }
+
+    @Test
+    void shouldFindSimpleJourney() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getSecond(),
+                createJourneyRequest(queryTime, 0)).collect(Collectors.toList());
+
+        assertEquals(1, journeys.size());
+        assertEquals(1, journeys.get(0).getStages().size());
+    }
+
+    @Test
+    void shouldFindJourneyViaInterchangeAcrossSubSearches() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFourthStation(),
+                createJourneyRequest(queryTime, 3)).collect(Collectors.toList());
+
+        assertFalse(journeys.isEmpty());
+        assertTrue(journeys.size() <= config.getMaxNumResults());
+        journeys.forEach(journey -> assertEquals(2, journey.getStages().size()));
+    }
+
+    @Test
+    void shouldStopRemainingSubSearchesWhenStreamClosedEarly() {
+        try (Stream<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(),
+                transportData.getFourthStation(), createJourneyRequest(queryTime, 3))) {
+            assertTrue(journeys.findFirst().isPresent());
+        }
+
+        // executor is free for the next request
+        List<Journey> again = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getSecond(),
+                createJourneyRequest(queryTime, 0)).collect(Collectors.toList());
+        assertEquals(1, again.size());
+    }
+
+    @Test
+    void shouldFindSameJourneysAsSequentialSearch() {
+        List<Station> stations = List.of(transportData.getFirst(), transportData.getSecond(), transportData.getInterchange(),
+                transportData.getLast(), transportData.getFourthStation(), transportData.getFifthStation());
+        List<TramTime> times = List.of(TramTime.of(7, 57), TramTime.of(8, 5), TramTime.of(8, 15));
+
+        for (Station start : stations) {
+            for (Station destination : stations) {
+                if (start.equals(destination)) {
+                    continue;
+                }
+                for (TramTime time : times) {
+                    for (int maxChanges = 0; maxChanges <= 3; maxChanges++) {
+                        JourneyRequest request = createJourneyRequest(time, maxChanges);
+                        String message = start.getId() + " to " + destination.getId() + " at " + time + " changes " + maxChanges;
+                        assertEquals(sequential(start, destination, request), parallel(start, destination, request), message);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> parallel(Station start, Station destination, JourneyRequest request) {
+        return summarise(calculator.calculateRoute(txn, start, destination, request).collect(Collectors.toList()));
+    }
+
+    // a single query time, so the same search as calculateRoute but without the executor
+    private List<String> sequential(Station start, Station destination, JourneyRequest request) {
+        GraphQuery graphQuery = componentContainer.get(GraphQuery.class);
+        List<Journey> journeys = calculator.calculateRouteWalkAtStartAndEnd(txn, WalkingOverlay.empty(),
+                graphQuery.getStationNode(txn, start), graphQuery.getStationNode(txn, destination),
+                Collections.singleton(destination), request).
+                limit(config.getMaxNumResults()).
+                collect(Collectors.toList());
+        return summarise(journeys);
+    }
+
+    private List<String> summarise(List<Journey> journeys) {
+        return journeys.stream().
+                map(journey -> journey.getStages().stream().
+                        map(stage -> stage.getFirstStation().getId() + "@" + stage.getFirstDepartureTime() + "->" +
+                                stage.getLastStation().getId() + "@" + stage.getExpectedArrivalTime()).
+                        collect(Collectors.joining(","))).
+                sorted().
+                collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldFindNoJourneyWhenNoneRunning() {
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getInterchange(),
+                createJourneyRequest(TramTime.of(9, 0), 3)).collect(Collectors.toList());
+
+        assertTrue(journeys.isEmpty());
+    }
+}
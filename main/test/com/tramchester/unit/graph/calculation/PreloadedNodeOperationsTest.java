@@ -0,0 +1,125 @@
+package com.tramchester.unit.graph.calculation;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphPropertyKey;
+import com.tramchester.graph.NodeContentsDirect;
+import com.tramchester.graph.PreloadedNodeOperations;
+import com.tramchester.graph.graphbuild.GraphBuilder;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreloadedNodeOperationsTest {
+
+    private static ComponentContainer componentContainer;
+    private static SimpleGraphConfig config;
+
+    private PreloadedNodeOperations preloaded;
+    private NodeContentsDirect direct;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAllTestRuns() throws IOException {
+        config = new SimpleGraphConfig("preloadedNodeOperationsTest.db");
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder<TramTransportDataForTestFactory>().
+                overrideProvider(TramTransportDataForTestFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void onceAfterAllTestsRun() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        preloaded = componentContainer.get(PreloadedNodeOperations.class);
+        direct = new NodeContentsDirect();
+        txn = componentContainer.get(GraphDatabase.class).beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldHaveSameNodeContentsAsGraph() {
+        int hours = 0;
+        int minutes = 0;
+        for (Node node : txn.getAllNodes()) {
+            if (node.hasLabel(GraphBuilder.Labels.HOUR)) {
+                assertEquals(direct.getHour(node), preloaded.getHour(node));
+                hours++;
+            }
+            if (node.hasLabel(GraphBuilder.Labels.MINUTE)) {
+                assertEquals(direct.getTime(node), preloaded.getTime(node));
+                minutes++;
+            }
+            if (GraphProps.hasProperty(GraphPropertyKey.SERVICE_ID, node)) {
+                assertEquals(direct.getServiceId(node), preloaded.getServiceId(node));
+            }
+        }
+        assertTrue(hours > 0);
+        assertTrue(minutes > 0);
+    }
+
+    @Test
+    void shouldHaveSameRelationshipContentsAsGraph() {
+        int costs = 0;
+        for (Relationship relationship : txn.getAllRelationships()) {
+            if (GraphProps.hasProperty(GraphPropertyKey.COST, relationship)) {
+                assertEquals(direct.getCost(relationship), preloaded.getCost(relationship));
+                costs++;
+            }
+            if (GraphProps.hasProperty(GraphPropertyKey.TRIP_ID, relationship)) {
+                assertEquals(direct.getTrip(relationship), preloaded.getTrip(relationship));
+            }
+            if (GraphProps.hasProperty(GraphPropertyKey.TRIPS, relationship)) {
+                assertEquals(direct.getTrips(relationship), preloaded.getTrips(relationship));
+            }
+        }
+        assertTrue(costs > 0);
+    }
+
+    @Test
+    void shouldReadVirtualWalksFromTheirProperties() {
+        WalkingOverlay overlay = new WalkingOverlay();
+        Node stationNode = txn.getAllNodes().iterator().next();
+        Node walkNode = overlay.createWalkingNode(TestEnv.nearAltrincham, UUID.randomUUID());
+        Relationship walk = overlay.addWalkTo(walkNode, stationNode,
+                new StationWalk(TramStations.of(TramStations.Altrincham), 7));
+
+        // virtual ids are negative so are never in the loaded arrays
+        assertTrue(walkNode.getId() < 0);
+        assertEquals(7, preloaded.getCost(walk));
+        assertEquals(direct.getCost(walk), preloaded.getCost(walk));
+        preloaded.deleteFromCostCache(walk);
+        assertEquals(7, preloaded.getCost(walk));
+    }
+
+    @Test
+    void shouldReportLoad() {
+        assertTrue(preloaded.getMemoryBytes() > 0);
+        assertTrue(preloaded.getLoadTimeMillis() >= 0);
+    }
+}
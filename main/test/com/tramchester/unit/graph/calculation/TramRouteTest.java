@@ -4,6 +4,7 @@ import com.tramchester.ComponentContainer;
 import com.tramchester.ComponentsBuilder;
 import com.tramchester.DiagramCreator;
 import com.tramchester.domain.Journey;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
 import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.domain.presentation.TransportStage;
 import com.tramchester.domain.reference.TransportMode;
@@ -12,9 +13,11 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.GraphDatabase;
 import com.tramchester.graph.search.JourneyRequest;
 import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.SearchBudget;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.TransportData;
 import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.router.ProcessPlanRequest;
 import com.tramchester.testSupport.LocationJourneyPlannerTestFacade;
 import com.tramchester.testSupport.TestEnv;
 import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
@@ -24,9 +27,11 @@ import org.neo4j.graphdb.Transaction;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.tramchester.testSupport.reference.TramTransportDataForTestFactory.TramTransportDataForTest.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -196,6 +201,21 @@ class TramRouteTest {
         journeys.forEach(journey-> Assertions.assertEquals(2, journey.getStages().size()));
     }
 
+    @Test
+    void shouldFindJourneyWithChangeAfterSearchWithFewerChanges() {
+        // the no change search visits the same nodes first and finds nothing
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 2);
+
+        Set<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(),
+                transportData.getFourthStation(), journeyRequest).collect(Collectors.toSet());
+        assertTrue(journeys.size()>=1);
+        journeys.forEach(journey-> {
+            List<TransportStage<?,?>> stages = journey.getStages();
+            Assertions.assertEquals(2, stages.size());
+            Assertions.assertEquals(INTERCHANGE, stages.get(0).getLastStation().forDTO());
+        });
+    }
+
     @Test
     void shouldTestJourneyAnotherWaitLimitViaInterchangeIsPossible() {
         JourneyRequest journeyRequest = createJourneyRequest(queryTime, 1);
@@ -207,6 +227,42 @@ class TramRouteTest {
         journeys.forEach(journey-> Assertions.assertEquals(2, journey.getStages().size()));
     }
 
+    @Test
+    void shouldOnlySearchAsStreamedJourneysAreConsumed() {
+        SearchBudget budget = SearchBudget.unlimited();
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 3).setBudget(budget);
+        ProcessPlanRequest processPlanRequest = componentContainer.get(ProcessPlanRequest.class);
+
+        try (Stream<JourneyDTO> journeys = processPlanRequest.streamedRequest(txn, FIRST_STATION, LAST_STATION,
+                journeyRequest, "0", "0")) {
+            Assertions.assertEquals(0, budget.getExpanded());
+            assertTrue(journeys.findFirst().isPresent());
+            assertTrue(budget.getExpanded() > 0);
+        }
+    }
+
+    @Test
+    void shouldReturnJourneysFoundBeforeCancel() {
+        SearchBudget budget = new SearchBudget(0, 0, reason -> {});
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 3).setBudget(budget);
+        ProcessPlanRequest processPlanRequest = componentContainer.get(ProcessPlanRequest.class);
+
+        try (Stream<JourneyDTO> journeys = processPlanRequest.streamedRequest(txn, FIRST_STATION, LAST_STATION,
+                journeyRequest, "0", "0")) {
+            Iterator<JourneyDTO> iterator = journeys.iterator();
+            assertTrue(iterator.hasNext());
+            iterator.next();
+
+            // as when the client goes away after the first journey is written
+            budget.cancel();
+            long expandedAtCancel = budget.getExpanded();
+            iterator.forEachRemaining(journey -> {});
+
+            Assertions.assertEquals(expandedAtCancel, budget.getExpanded());
+            Assertions.assertEquals(SearchBudget.Reason.Cancelled, budget.getReason());
+        }
+    }
+
     @Test
     void createDiagramOfTestNetwork() {
         DiagramCreator creator = componentContainer.get(DiagramCreator.class);
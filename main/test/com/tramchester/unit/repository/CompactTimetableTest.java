@@ -0,0 +1,142 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.domain.Route;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.RouteCallingStations;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.tramchester.testSupport.reference.TramTransportDataForTestFactory.TramTransportDataForTest.TRIP_A_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTimetableTest {
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable timetable;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        timetable = compactTimetableForTest.getTimetable();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        compactTimetableForTest.stop();
+    }
+
+    @Test
+    void shouldHaveIndexesForAll() {
+        assertEquals(transportData.getStations().size(), timetable.numberOfStations());
+        assertEquals(transportData.getServices().size(), timetable.numberOfServices());
+        assertEquals(transportData.getTrips().size(), timetable.numberOfTrips());
+        assertEquals(transportData.getRoutes().size(), timetable.numberOfRoutes());
+
+        Station first = transportData.getFirst();
+        assertEquals(first, timetable.getStation(timetable.getStationIndex(first.getId())));
+        assertEquals(-1, timetable.getStationIndex(StringIdFor.createId("notAStation")));
+    }
+
+    @Test
+    void shouldHaveCallsForTripInOrder() {
+        StringIdFor<Trip> tripId = StringIdFor.createId(TRIP_A_ID);
+        assertTrue(timetable.hasTripId(tripId));
+        assertFalse(timetable.hasTripId(StringIdFor.createId("notATrip")));
+
+        int trip = timetable.getTripIndex(tripId);
+        assertEquals(transportData.getTripById(tripId), timetable.getTrip(trip));
+        assertEquals(4, timetable.numberOfCalls(trip));
+
+        int first = timetable.getFirstCall(trip);
+        assertEquals(transportData.getFirst(), timetable.getStation(timetable.getCallStation(first)));
+        assertEquals(transportData.getLast(), timetable.getStation(timetable.getCallStation(first + 3)));
+        assertEquals(8 * 60, timetable.getDeparture(first));
+        assertEquals((8 * 60) + 11, timetable.getArrival(first + 1));
+
+        int routeStation = timetable.getCallRouteStation(first);
+        assertEquals(transportData.getFirst(), timetable.getRouteStation(routeStation).getStation());
+
+        Route route = timetable.getRoute(timetable.getRouteFor(trip));
+        assertEquals(transportData.getTripById(tripId).getRoute(), route);
+    }
+
+    @Test
+    void shouldHaveCallsAtStationByDeparture() {
+        int interchange = timetable.getStationIndex(transportData.getInterchange().getId());
+
+        List<Integer> departures = timetable.getCallsDepartingFrom(interchange, (8 * 60) + 28).
+                map(timetable::getDeparture).boxed().collect(Collectors.toList());
+
+        assertEquals(3, departures.size());
+        assertEquals((8 * 60) + 31, departures.get(0));
+        assertEquals((9 * 60) + 15, departures.get(1));
+        assertEquals((9 * 60) + 25, departures.get(2));
+
+        assertEquals(5, timetable.getCallsDepartingFrom(interchange, 0).count());
+        assertEquals(0, timetable.getCallsDepartingFrom(interchange, 10 * 60).count());
+    }
+
+    @Test
+    void shouldHaveRunningServicesMatchingCalendar() {
+        // test data services only run on mondays
+        LocalDate monday = LocalDate.of(2014, 6, 30);
+        BitSet running = timetable.getServicesRunningOn(monday);
+        assertEquals(transportData.getServices().size(), running.cardinality());
+
+        assertTrue(timetable.getServicesRunningOn(monday.plusDays(1)).isEmpty());
+        assertTrue(timetable.getServicesRunningOn(LocalDate.of(2020, 8, 17)).isEmpty());
+        assertTrue(timetable.getServicesRunningOn(LocalDate.of(2013, 6, 3)).isEmpty());
+
+        transportData.getServices().forEach(service -> {
+            int index = timetable.getServiceIndex(service.getId());
+            assertEquals(CompactTimetable.asMinutes(service.earliestDepartTime()), timetable.getServiceEarliest(index));
+        });
+    }
+
+    @Test
+    void shouldHaveCallingStationsMatchingRouteCallingStations() {
+        RouteCallingStations routeCallingStations = new RouteCallingStations(transportData);
+        routeCallingStations.start();
+
+        transportData.getRoutes().forEach(route -> {
+            int[] stations = timetable.getCallingStationsFor(timetable.getRouteIndex(route.getId()));
+            List<Station> expected = routeCallingStations.getStationsFor(route);
+            assertEquals(expected.size(), stations.length);
+            for (int i = 0; i < stations.length; i++) {
+                assertEquals(expected.get(i), timetable.getStation(stations[i]));
+            }
+        });
+    }
+
+    @Test
+    void shouldBeSmallerThanObjectModel() {
+        assertTrue(timetable.getFootprintBytes() > 0);
+        assertTrue(timetable.getFootprintBytes() < timetable.getObjectModelEstimateBytes());
+    }
+
+    @Test
+    void shouldConvertTimesIncludingNextDay() {
+        assertEquals((8 * 60) + 11, CompactTimetable.asMinutes(TramTime.of(8, 11)));
+        assertEquals(TramTime.of(8, 11), CompactTimetable.asTramTime((8 * 60) + 11));
+
+        TramTime nextDay = TramTime.nextDay(0, 15);
+        int minutes = CompactTimetable.asMinutes(nextDay);
+        assertEquals(CompactTimetable.MINS_IN_DAY + 15, minutes);
+        assertEquals(nextDay, CompactTimetable.asTramTime(minutes));
+    }
+}
@@ -0,0 +1,129 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.ReachabilityRepository;
+import com.tramchester.testSupport.TempDirTramTestConfig;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.tramchester.testSupport.reference.TramTransportDataForTestFactory.TramTransportDataForTest.TRIP_A_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityRepositoryTest extends EasyMockSupport {
+
+    @TempDir
+    Path tempDir;
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable timetable;
+    private InterchangeRepository interchangeRepository;
+    private TramchesterConfig config;
+    private Route routeA;
+    private Route routeC;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        timetable = compactTimetableForTest.getTimetable();
+
+        routeA = transportData.getTripById(StringIdFor.createId(TRIP_A_ID)).getRoute();
+        routeC = transportData.getTripById(StringIdFor.createId("tripCId")).getRoute();
+
+        IdSet<Station> interchanges = IdSet.singleton(transportData.getInterchange().getId());
+        interchangeRepository = createMock(InterchangeRepository.class);
+        EasyMock.expect(interchangeRepository.getInterchangesFor(TransportMode.Tram)).andStubReturn(interchanges);
+
+        config = new TempDirTramTestConfig(tempDir.resolve("reachabilitytest.db"));
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        compactTimetableForTest.stop();
+    }
+
+    private ReachabilityRepository createRepository() {
+        ReachabilityRepository repository = new ReachabilityRepository(timetable, interchangeRepository, config);
+        repository.start();
+        return repository;
+    }
+
+    private RouteStation routeStation(Station station, Route route) {
+        return transportData.getRouteStation(station, route);
+    }
+
+    @Test
+    void shouldReachAnyStationIfInterchangeOnRoute() {
+        replayAll();
+        ReachabilityRepository repository = createRepository();
+
+        RouteStation first = routeStation(transportData.getFirst(), routeA);
+        assertTrue(repository.stationReachable(first, transportData.getSecond()));
+        assertTrue(repository.stationReachable(first, transportData.getFifthStation()));
+        assertTrue(repository.stationReachable(first, transportData.getFourthStation()));
+        verifyAll();
+    }
+
+    @Test
+    void shouldOnlyReachStationsOnRouteOtherwise() {
+        replayAll();
+        ReachabilityRepository repository = createRepository();
+
+        RouteStation last = routeStation(transportData.getLast(), routeA);
+        assertTrue(repository.stationReachable(last, transportData.getLast()));
+        assertFalse(repository.stationReachable(last, transportData.getFirst()));
+        assertFalse(repository.stationReachable(last, transportData.getFifthStation()));
+
+        RouteStation five = routeStation(transportData.getFifthStation(), routeC);
+        assertTrue(repository.stationReachable(five, transportData.getFifthStation()));
+        assertFalse(repository.stationReachable(five, transportData.getInterchange()));
+        verifyAll();
+    }
+
+    @Test
+    void shouldSaveAndReload() {
+        replayAll();
+        ReachabilityRepository built = createRepository();
+        assertTrue(Files.exists(tempDir.resolve("reachabilitytest.db.reachable")));
+
+        ReachabilityRepository loaded = createRepository();
+        transportData.getRouteStations().forEach(start -> transportData.getStations().forEach(dest ->
+                assertEquals(built.stationReachable(start, dest), loaded.stationReachable(start, dest))));
+        verifyAll();
+    }
+
+    @Test
+    void shouldRebuildIfInterchangesChange() {
+        InterchangeRepository noInterchanges = createMock(InterchangeRepository.class);
+        EasyMock.expect(noInterchanges.getInterchangesFor(TransportMode.Tram)).andStubReturn(IdSet.emptySet());
+
+        replayAll();
+        RouteStation first = routeStation(transportData.getFirst(), routeA);
+        ReachabilityRepository built = createRepository();
+        assertTrue(built.stationReachable(first, transportData.getFourthStation()));
+
+        ReachabilityRepository rebuilt = new ReachabilityRepository(timetable, noInterchanges, config);
+        rebuilt.start();
+        assertFalse(rebuilt.stationReachable(first, transportData.getFourthStation()));
+        verifyAll();
+    }
+}
@@ -0,0 +1,137 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.RunningServices;
+import com.tramchester.repository.RunningServicesRepository;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningServicesRepositoryTest extends EasyMockSupport {
+
+    // test data services only run on mondays
+    private static final LocalDate monday = LocalDate.of(2014, 6, 30);
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable timetable;
+    private TramchesterConfig config;
+    private ProvidesNow providesNow;
+    private RunningServicesRepository repository;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        timetable = compactTimetableForTest.getTimetable();
+
+        config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.emptyList();
+            }
+        };
+
+        providesNow = createMock(ProvidesNow.class);
+        repository = new RunningServicesRepository(config, timetable, providesNow);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        repository.dispose();
+        compactTimetableForTest.stop();
+    }
+
+    @Test
+    void shouldHaveRunningServicesAndTimes() {
+        EasyMock.expect(providesNow.getDate()).andStubReturn(monday);
+
+        replayAll();
+        repository.start();
+        RunningServices running = repository.getRunningServices(new TramServiceDate(monday));
+        RunningServices tuesday = repository.getRunningServices(new TramServiceDate(monday.plusDays(1)));
+        verifyAll();
+
+        assertEquals(transportData.getServices().size(), running.count());
+        assertEquals(0, tuesday.count());
+
+        TramTime earliest = TramTime.of(0, 0).plusMinutes(config.getMaxWait());
+        for (Service service : transportData.getServices()) {
+            assertTrue(running.isRunning(service.getId()));
+            assertFalse(tuesday.isRunning(service.getId()));
+            assertEquals(service.latestDepartTime(), running.getServiceLatest(service.getId()));
+            TramTime expected = service.earliestDepartTime().isBefore(earliest) ? earliest : service.earliestDepartTime();
+            assertEquals(expected, running.getServiceEarliest(service.getId()));
+            assertNull(tuesday.getServiceEarliest(service.getId()));
+        }
+    }
+
+    @Test
+    void shouldShareResultsWithinWindow() {
+        EasyMock.expect(providesNow.getDate()).andStubReturn(monday);
+
+        replayAll();
+        repository.start();
+        TramServiceDate date = new TramServiceDate(monday.plusDays(RunningServicesRepository.WINDOW_DAYS));
+        RunningServices first = repository.getRunningServices(date);
+        RunningServices second = repository.getRunningServices(date);
+
+        TramServiceDate outside = new TramServiceDate(monday.plusDays(RunningServicesRepository.WINDOW_DAYS + 1));
+        RunningServices outsideFirst = repository.getRunningServices(outside);
+        RunningServices outsideSecond = repository.getRunningServices(outside);
+        verifyAll();
+
+        assertSame(first, second);
+        assertNotSame(outsideFirst, outsideSecond);
+        assertEquals(outsideFirst.count(), outsideSecond.count());
+    }
+
+    @Test
+    void shouldMoveWindowWhenDateChanges() {
+        LocalDate later = monday.plusDays(RunningServicesRepository.WINDOW_DAYS + 7);
+        EasyMock.expect(providesNow.getDate()).andReturn(monday).times(2);
+        EasyMock.expect(providesNow.getDate()).andStubReturn(later);
+
+        replayAll();
+        repository.start();
+        TramServiceDate nextWeek = new TramServiceDate(monday.plusDays(7));
+        RunningServices beforeMidnight = repository.getRunningServices(nextWeek);
+        RunningServices afterMidnight = repository.getRunningServices(nextWeek);
+        RunningServices dropped = repository.getRunningServices(new TramServiceDate(monday));
+        RunningServices droppedAgain = repository.getRunningServices(new TramServiceDate(monday));
+        verifyAll();
+
+        // still in the window, so not rebuilt
+        assertSame(beforeMidnight, afterMidnight);
+        assertNotSame(dropped, droppedAgain);
+        assertEquals(transportData.getServices().size(), dropped.count());
+    }
+
+    @Test
+    void shouldHaveNoClosedStationsWhenNoneConfigured() {
+        EasyMock.expect(providesNow.getDate()).andStubReturn(monday);
+
+        replayAll();
+        repository.start();
+        assertTrue(repository.getClosedStations(new TramServiceDate(monday)).isEmpty());
+        verifyAll();
+    }
+}
@@ -0,0 +1,106 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.places.Station;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.StationCostMatrix;
+import com.tramchester.testSupport.TempDirTramTestConfig;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StationCostMatrixTest extends EasyMockSupport {
+
+    @TempDir
+    Path tempDir;
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable timetable;
+    private InterchangeRepository interchangeRepository;
+    private TramchesterConfig config;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        timetable = compactTimetableForTest.getTimetable();
+
+        Station interchange = transportData.getInterchange();
+        interchangeRepository = createMock(InterchangeRepository.class);
+        EasyMock.expect(interchangeRepository.isInterchange(EasyMock.anyObject(Station.class))).
+                andStubAnswer(() -> interchange.equals(EasyMock.getCurrentArgument(0)));
+
+        config = new TempDirTramTestConfig(tempDir.resolve("costmatrixtest.db"));
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        compactTimetableForTest.stop();
+    }
+
+    private StationCostMatrix createMatrix() {
+        StationCostMatrix matrix = new StationCostMatrix(timetable, interchangeRepository, config);
+        matrix.start();
+        return matrix;
+    }
+
+    @Test
+    void shouldHaveMinCostsIncludingBoardAndDepart() {
+        replayAll();
+        StationCostMatrix matrix = createMatrix();
+
+        // board 2, 8:00 to 8:11, depart 1
+        assertEquals(14, matrix.getMinCost(transportData.getFirst(), transportData.getSecond()));
+        // board at interchange 1, 8:27 to 8:31, depart 1
+        assertEquals(6, matrix.getMinCost(transportData.getInterchange(), transportData.getFifthStation()));
+        // via the interchange
+        assertEquals(matrix.getMinCost(transportData.getFirst(), transportData.getInterchange()) +
+                        matrix.getMinCost(transportData.getInterchange(), transportData.getFifthStation()),
+                matrix.getMinCost(transportData.getFirst(), transportData.getFifthStation()));
+
+        assertEquals(0, matrix.getMinCost(transportData.getFirst(), transportData.getFirst()));
+        assertEquals(StationCostMatrix.UNKNOWN, matrix.getMinCost(transportData.getSecond(), transportData.getFirst()));
+        verifyAll();
+    }
+
+    @Test
+    void shouldSaveAndReload() {
+        replayAll();
+        StationCostMatrix built = createMatrix();
+        assertTrue(Files.exists(tempDir.resolve("costmatrixtest.db.costs")));
+
+        StationCostMatrix loaded = createMatrix();
+        transportData.getStations().forEach(start -> transportData.getStations().forEach(end ->
+                assertEquals(built.getMinCost(start, end), loaded.getMinCost(start, end))));
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotBuildForLargeNetworks() {
+        CompactTimetable largeTimetable = createMock(CompactTimetable.class);
+        EasyMock.expect(largeTimetable.numberOfStations()).andStubReturn(StationCostMatrix.MAX_STATIONS + 1);
+
+        replayAll();
+        StationCostMatrix matrix = new StationCostMatrix(largeTimetable, interchangeRepository, config);
+        matrix.start();
+
+        assertEquals(StationCostMatrix.UNKNOWN, matrix.getMinCost(transportData.getFirst(), transportData.getSecond()));
+        assertFalse(Files.exists(tempDir.resolve("costmatrixtest.db.costs")));
+        verifyAll();
+    }
+}
@@ -0,0 +1,143 @@
+package com.tramchester.unit.router;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.StationLocationsRepository;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.RunningServicesRepository;
+import com.tramchester.router.raptor.EarliestArrivalSearch;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarliestArrivalSearchTest extends EasyMockSupport {
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable compactTimetable;
+    private RaptorTimetable timetable;
+    private EarliestArrivalSearch search;
+    private StationLocationsRepository stationLocations;
+    private TramchesterConfig config;
+    private TramServiceDate queryDate;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        compactTimetable = compactTimetableForTest.getTimetable();
+
+        config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.singletonList(new TFGMTestDataSourceConfig("data/tram",
+                        GTFSTransportationType.tram, TransportMode.Tram));
+            }
+        };
+
+        Station interchange = transportData.getInterchange();
+        InterchangeRepository interchangeRepository = createMock(InterchangeRepository.class);
+        EasyMock.expect(interchangeRepository.isInterchange(EasyMock.anyObject(Station.class))).
+                andStubAnswer(() -> interchange.equals(EasyMock.getCurrentArgument(0)));
+        stationLocations = createMock(StationLocationsRepository.class);
+
+        RunningServicesRepository runningServices = new RunningServicesRepository(config, compactTimetable,
+                new ProvidesLocalNow());
+        runningServices.start();
+        timetable = new RaptorTimetable(compactTimetable, interchangeRepository);
+
+        search = new EarliestArrivalSearch(timetable, runningServices, config, stationLocations);
+
+        // services in the test data only run on mondays
+        queryDate = new TramServiceDate(LocalDate.of(2014, 6, 30));
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        timetable.dispose();
+        compactTimetableForTest.stop();
+    }
+
+    private JourneyRequest createRequest(int maxChanges) {
+        return new JourneyRequest(queryDate, TramTime.of(7, 57), false, maxChanges, config.getMaxJourneyDuration());
+    }
+
+    @Test
+    void shouldHaveEarliestArrivalAtEveryStation() {
+        replayAll();
+        timetable.start();
+        Map<Station, Integer> arrivals = search.fromStation(transportData.getFirst(), createRequest(1));
+        verifyAll();
+
+        assertEquals(0, arrivals.get(transportData.getFirst()));
+        assertEquals(14, arrivals.get(transportData.getSecond()));
+        assertEquals(23, arrivals.get(transportData.getInterchange()));
+        assertEquals(43, arrivals.get(transportData.getLast()));
+        // change at the interchange
+        assertEquals(34, arrivals.get(transportData.getFourthStation()));
+        assertEquals(34, arrivals.get(transportData.getFifthStation()));
+    }
+
+    @Test
+    void shouldNotReachStationsNeedingChangeIfNoChangesAllowed() {
+        replayAll();
+        timetable.start();
+        Map<Station, Integer> arrivals = search.fromStation(transportData.getFirst(), createRequest(0));
+        verifyAll();
+
+        assertEquals(43, arrivals.get(transportData.getLast()));
+        assertFalse(arrivals.containsKey(transportData.getFourthStation()));
+        assertFalse(arrivals.containsKey(transportData.getFifthStation()));
+    }
+
+    @Test
+    void shouldNotReachEarlierStationsOnRoute() {
+        replayAll();
+        timetable.start();
+        Map<Station, Integer> arrivals = search.fromStation(transportData.getSecond(), createRequest(1));
+        verifyAll();
+
+        assertFalse(arrivals.containsKey(transportData.getFirst()));
+        assertEquals(23, arrivals.get(transportData.getInterchange()));
+    }
+
+    @Test
+    void shouldSearchFromNearbyStationsForLocation() {
+        Station first = transportData.getFirst();
+        LatLong location = first.getLatLong();
+        EasyMock.expect(stationLocations.nearestStationsSorted(location, config.getNumOfNearestStopsForWalking(),
+                config.getNearestStopForWalkingRangeKM())).andReturn(Collections.singletonList(first));
+
+        replayAll();
+        timetable.start();
+        Map<Station, Integer> arrivals = search.fromLocation(location, createRequest(1));
+        verifyAll();
+
+        assertEquals(0, arrivals.get(first));
+        assertEquals(14, arrivals.get(transportData.getSecond()));
+    }
+}
@@ -0,0 +1,261 @@
+package com.tramchester.unit.router;
+
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.SearchBudget;
+import com.tramchester.router.InFlightJourneyRequests;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightJourneyRequestsTest {
+
+    private InFlightJourneyRequests inFlight;
+    private ExecutorService executor;
+    private JourneyRequest journeyRequest;
+    private AtomicInteger calculations;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        inFlight = new InFlightJourneyRequests(TestEnv.NoopRegisterMetrics());
+        executor = Executors.newFixedThreadPool(2);
+        journeyRequest = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 15), false, 3, 120);
+        calculations = new AtomicInteger(0);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareResultOfInFlightRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JourneyDTO journey = new JourneyDTO();
+
+        Future<List<JourneyDTO>> first = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, () -> {
+                    calculations.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return Stream.of(journey);
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<JourneyDTO>> second = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, this::calculate)));
+
+        // second request waits on the first
+        waitForCoalesced();
+        release.countDown();
+
+        assertEquals(Collections.singletonList(journey), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(journey), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calculations.get());
+        assertEquals(1, inFlight.getCalculated());
+        assertEquals(1, inFlight.getCoalesced());
+    }
+
+    @Test
+    void shouldNotShareOnceCompleted() {
+        collect(inFlight.getJourneys("start", "end", "0", "0", journeyRequest, this::calculate));
+        collect(inFlight.getJourneys("start", "end", "0", "0", journeyRequest, this::calculate));
+
+        assertEquals(2, calculations.get());
+        assertEquals(0, inFlight.getCoalesced());
+    }
+
+    @Test
+    void shouldNotShareDifferentRequests() {
+        JourneyRequest otherTime = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 16),
+                false, 3, 120);
+
+        collect(inFlight.getJourneys("start", "end", "0", "0", journeyRequest, this::calculate));
+        collect(inFlight.getJourneys("start", "end", "0", "0", otherTime, this::calculate));
+        collect(inFlight.getJourneys("start", "other", "0", "0", journeyRequest, this::calculate));
+
+        assertEquals(3, inFlight.getCalculated());
+    }
+
+    @Test
+    void shouldPassFailureToWaitingRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<JourneyDTO>> first = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new RuntimeException("failed");
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<JourneyDTO>> second = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, this::calculate)));
+
+        waitForCoalesced();
+        release.countDown();
+
+        ExecutionException firstFailed = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondFailed = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("failed", firstFailed.getCause().getMessage());
+        assertEquals("failed", secondFailed.getCause().getMessage());
+        assertEquals(0, calculations.get());
+    }
+
+    @Test
+    void shouldCalculateAgainIfInFlightRequestIsCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SearchBudget ownerBudget = SearchBudget.unlimited();
+        JourneyRequest ownerRequest = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 15),
+                false, 3, 120).setBudget(ownerBudget);
+        JourneyDTO cutShort = new JourneyDTO();
+
+        Future<List<JourneyDTO>> owner = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                ownerRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    return Stream.of(cutShort);
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<JourneyDTO>> waiter = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, this::calculate)));
+
+        waitForCoalesced();
+        // owner's client goes away while the waiter is blocked
+        ownerBudget.cancel();
+        release.countDown();
+
+        assertEquals(Collections.singletonList(cutShort), owner.get(5, TimeUnit.SECONDS));
+        List<JourneyDTO> waited = waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, waited.size());
+        assertNotSame(cutShort, waited.get(0));
+        assertEquals(1, calculations.get());
+        assertEquals(2, inFlight.getCalculated());
+        assertFalse(journeyRequest.getBudget().isExhausted());
+    }
+
+    @Test
+    void shouldShareResultsOfSearchThatRanOutOfBudget() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SearchBudget ownerBudget = new SearchBudget(0, 1, reason -> {});
+        JourneyRequest ownerRequest = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 15),
+                false, 3, 120).setBudget(ownerBudget);
+
+        Future<List<JourneyDTO>> owner = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                ownerRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    ownerBudget.tryExpand();
+                    ownerBudget.tryExpand();
+                    return Stream.of(new JourneyDTO());
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<JourneyDTO>> waiter = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, this::calculate)));
+
+        waitForCoalesced();
+        release.countDown();
+
+        assertEquals(1, owner.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, waiter.get(5, TimeUnit.SECONDS).size());
+        assertEquals(0, calculations.get());
+        assertEquals(SearchBudget.Reason.Nodes, journeyRequest.getBudget().getReason());
+    }
+
+    @Test
+    void shouldCalculateAloneIfBudgetRunsOutWhileWaiting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<JourneyDTO>> owner = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    return Stream.of(new JourneyDTO());
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        JourneyRequest waiterRequest = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 15),
+                false, 3, 120).setBudget(new SearchBudget(200, 0, reason -> {}));
+
+        // owner is still blocked, so the waiter gives up once its own budget runs out
+        List<JourneyDTO> waited = collect(inFlight.getJourneys("start", "end", "0", "0", waiterRequest,
+                this::calculate));
+        release.countDown();
+
+        assertEquals(1, waited.size());
+        assertEquals(1, calculations.get());
+        assertEquals(1, inFlight.getGaveUpWaiting());
+        assertEquals(1, owner.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void shouldStopWaitingIfCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<JourneyDTO>> owner = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0", "0",
+                journeyRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    return Stream.of(new JourneyDTO());
+                })));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        SearchBudget waiterBudget = SearchBudget.unlimited();
+        JourneyRequest waiterRequest = new JourneyRequest(new TramServiceDate(TestEnv.testDay()), TramTime.of(8, 15),
+                false, 3, 120).setBudget(waiterBudget);
+        Future<List<JourneyDTO>> waiter = executor.submit(() -> collect(inFlight.getJourneys("start", "end", "0",
+                "0", waiterRequest, this::calculate)));
+
+        waitForCoalesced();
+        waiterBudget.cancel();
+
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, inFlight.getGaveUpWaiting());
+        release.countDown();
+        owner.get(5, TimeUnit.SECONDS);
+    }
+
+    private Stream<JourneyDTO> calculate() {
+        calculations.incrementAndGet();
+        return Stream.of(new JourneyDTO());
+    }
+
+    private List<JourneyDTO> collect(Stream<JourneyDTO> journeys) {
+        return journeys.collect(Collectors.toList());
+    }
+
+    private void waitForCoalesced() throws InterruptedException {
+        for (int i = 0; i < 500 && inFlight.getCoalesced() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, inFlight.getCoalesced());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.tramchester.unit.router;
+
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.domain.presentation.DTO.JourneyBatchResultDTO;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.presentation.DTO.JourneyQueryDTO;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.CreateSearchBudget;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.router.JourneyBatchPlanner;
+import com.tramchester.router.ProcessPlanRequest;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneyBatchPlannerTest extends EasyMockSupport {
+
+    private ProcessPlanRequest processPlanRequest;
+    private Transaction txn;
+    private JourneyBatchPlanner planner;
+    private String date;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        TestConfig config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.emptyList();
+            }
+        };
+
+        GraphDatabase graphDatabase = createMock(GraphDatabase.class);
+        processPlanRequest = createMock(ProcessPlanRequest.class);
+        txn = createMock(Transaction.class);
+
+        EasyMock.expect(graphDatabase.beginTx()).andStubReturn(txn);
+        txn.close();
+        EasyMock.expectLastCall().anyTimes();
+
+        planner = new JourneyBatchPlanner(config, graphDatabase, processPlanRequest,
+                new CreateSearchBudget(config, TestEnv.NoopRegisterMetrics()));
+        planner.start();
+
+        date = TestEnv.testDay().toString();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        planner.dispose();
+    }
+
+    @Test
+    void shouldPlanAllJourneysInBatch() {
+        List<JourneyQueryDTO> queries = new ArrayList<>();
+        // more than are queued at once
+        for (int i = 0; i < 10; i++) {
+            JourneyQueryDTO query = new JourneyQueryDTO("id" + i, "start" + i, "end", "08:15", date, false, 3);
+            queries.add(query);
+            EasyMock.expect(processPlanRequest.directRequest(EasyMock.eq(txn), EasyMock.eq("start" + i), EasyMock.eq("end"),
+                    EasyMock.anyObject(JourneyRequest.class), EasyMock.eq("0"), EasyMock.eq("0"))).
+                    andReturn(Stream.of(new JourneyDTO()));
+        }
+
+        replayAll();
+        List<JourneyBatchResultDTO> results;
+        try (Stream<JourneyBatchResultDTO> stream = planner.plan(queries)) {
+            results = stream.collect(Collectors.toList());
+        }
+        verifyAll();
+
+        assertEquals(10, results.size());
+        Set<String> ids = results.stream().map(JourneyBatchResultDTO::getId).collect(Collectors.toSet());
+        assertEquals(queries.stream().map(JourneyQueryDTO::getId).collect(Collectors.toSet()), ids);
+        results.forEach(result -> {
+            assertEquals(1, result.getJourneys().size());
+            assertNull(result.getError());
+            assertFalse(result.isPartial());
+        });
+    }
+
+    @Test
+    void shouldReturnFailuresForEachJourney() {
+        JourneyQueryDTO unknownStation = new JourneyQueryDTO("unknown", "notAStation", "end", "08:15", date, false, 3);
+        JourneyQueryDTO badTime = new JourneyQueryDTO("badTime", "start", "end", "notATime", date, false, 3);
+        JourneyQueryDTO badDate = new JourneyQueryDTO("badDate", "start", "end", "08:15", "notADate", false, 3);
+
+        EasyMock.expect(processPlanRequest.directRequest(EasyMock.eq(txn), EasyMock.eq("notAStation"), EasyMock.eq("end"),
+                EasyMock.anyObject(JourneyRequest.class), EasyMock.eq("0"), EasyMock.eq("0"))).
+                andThrow(new RuntimeException("Unable to find start station"));
+
+        replayAll();
+        Map<String, JourneyBatchResultDTO> results;
+        try (Stream<JourneyBatchResultDTO> stream = planner.plan(Arrays.asList(unknownStation, badTime, badDate))) {
+            results = stream.collect(Collectors.toMap(JourneyBatchResultDTO::getId, result -> result));
+        }
+        verifyAll();
+
+        assertEquals("Unable to find start station", results.get("unknown").getError());
+        assertEquals("Could not parse time 'notATime'", results.get("badTime").getError());
+        assertEquals("Could not parse date 'notADate'", results.get("badDate").getError());
+        results.values().forEach(result -> assertTrue(result.getJourneys().isEmpty()));
+    }
+
+    @Test
+    void shouldNotPlanRestOfBatchOnceClosed() {
+        AtomicInteger planned = new AtomicInteger(0);
+        List<JourneyQueryDTO> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            queries.add(new JourneyQueryDTO("id" + i, "start", "end", "08:15", date, false, 3));
+        }
+        EasyMock.expect(processPlanRequest.directRequest(EasyMock.eq(txn), EasyMock.eq("start"), EasyMock.eq("end"),
+                EasyMock.anyObject(JourneyRequest.class), EasyMock.eq("0"), EasyMock.eq("0"))).
+                andStubAnswer(() -> {
+                    planned.incrementAndGet();
+                    return Stream.of(new JourneyDTO());
+                });
+
+        replayAll();
+        Stream<JourneyBatchResultDTO> stream = planner.plan(queries);
+        Optional<JourneyBatchResultDTO> first = stream.findFirst();
+        stream.close();
+
+        assertTrue(first.isPresent());
+        // 2 threads with 2 queued each, plus one submitted as the first was taken
+        assertTrue(planned.get() <= 5, "planned " + planned.get());
+    }
+}
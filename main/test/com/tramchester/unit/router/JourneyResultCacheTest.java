@@ -0,0 +1,216 @@
+package com.tramchester.unit.router;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.DataSourceID;
+import com.tramchester.domain.DataSourceInfo;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.repository.TransportData;
+import com.tramchester.router.JourneyResultCache;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JourneyResultCacheTest extends EasyMockSupport {
+
+    private final LocalDate when = TestEnv.testDay();
+    private final Station start = TramStations.of(TramStations.Altrincham);
+    private final Station dest = TramStations.of(TramStations.Bury);
+
+    private JourneyResultCache cache;
+    private Set<DataSourceInfo> dataSourceInfo;
+    private List<TramTime> calculatedFor;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        TramchesterConfig config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.singletonList(new TFGMTestDataSourceConfig("data/tram",
+                        GTFSTransportationType.tram, TransportMode.Tram));
+            }
+
+            @Override
+            public int getJourneyCacheSize() {
+                return 10;
+            }
+
+            @Override
+            public int getJourneyCacheBucketMinutes() {
+                return 5;
+            }
+        };
+
+        dataSourceInfo = new HashSet<>();
+        dataSourceInfo.add(createInfo("version1"));
+
+        TransportData transportData = createMock(TransportData.class);
+        EasyMock.expect(transportData.getDataSourceInfo()).andStubAnswer(() -> dataSourceInfo);
+        EasyMock.expect(transportData.getServicesOnDate(EasyMock.anyObject(TramServiceDate.class))).
+                andStubReturn(Collections.emptySet());
+
+        cache = new JourneyResultCache(config, transportData, new CacheMetrics(TestEnv.NoopRegisterMetrics()));
+        calculatedFor = new ArrayList<>();
+    }
+
+    private DataSourceInfo createInfo(String version) {
+        return new DataSourceInfo(DataSourceID.TFGM(), version, LocalDateTime.of(when, TramTime.of(1, 0).asLocalTime()),
+                Collections.singleton(TransportMode.Tram));
+    }
+
+    private Journey createJourney(TramTime departs) {
+        TransportStage<?, ?> stage = createMock(TransportStage.class);
+        EasyMock.expect(stage.getFirstDepartureTime()).andStubReturn(departs);
+        return new Journey(Collections.singletonList(stage), departs, Collections.emptyList());
+    }
+
+    private List<Journey> getJourneys(TramTime time, int maxChanges, List<Journey> calculated) {
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(when), time, false, maxChanges,
+                120);
+        return cache.getJourneys(start, dest, journeyRequest, request -> {
+            calculatedFor.add(request.getTime());
+            return calculated.stream();
+        }).collect(Collectors.toList());
+    }
+
+    private CacheStats getStats() {
+        return cache.stats().get(0).getRight();
+    }
+
+    @Test
+    void shouldCalculateOncePerBucket() {
+        Journey early = createJourney(TramTime.of(8, 3));
+        Journey late = createJourney(TramTime.of(8, 4));
+        List<Journey> calculated = Arrays.asList(early, late);
+
+        replayAll();
+        List<Journey> first = getJourneys(TramTime.of(8, 0), 3, calculated);
+        List<Journey> second = getJourneys(TramTime.of(8, 3), 3, calculated);
+        verifyAll();
+
+        assertEquals(Collections.singletonList(TramTime.of(8, 0)), calculatedFor);
+        assertEquals(calculated, first);
+        assertEquals(calculated, second);
+
+        assertEquals(1, getStats().hitCount());
+        assertEquals(1, getStats().missCount());
+    }
+
+    @Test
+    void shouldCalculateForQueryTimeIfAllBucketJourneysDepartBeforeIt() {
+        List<Journey> bucket = Arrays.asList(createJourney(TramTime.of(8, 1)), createJourney(TramTime.of(8, 2)));
+        List<Journey> forQueryTime = Collections.singletonList(createJourney(TramTime.of(8, 20)));
+
+        replayAll();
+        getJourneys(TramTime.of(8, 0), 3, bucket);
+        List<Journey> later = getJourneys(TramTime.of(8, 4), 3, forQueryTime);
+        verifyAll();
+
+        assertEquals(forQueryTime, later);
+        assertEquals(Arrays.asList(TramTime.of(8, 0), TramTime.of(8, 4)), calculatedFor);
+    }
+
+    @Test
+    void shouldCalculateForQueryTimeIfAnyBucketJourneyDepartsBeforeIt() {
+        Journey early = createJourney(TramTime.of(8, 1));
+        Journey late = createJourney(TramTime.of(8, 4));
+
+        replayAll();
+        getJourneys(TramTime.of(8, 0), 3, Arrays.asList(early, late));
+        List<Journey> later = getJourneys(TramTime.of(8, 3), 3, Collections.singletonList(late));
+        verifyAll();
+
+        assertEquals(Collections.singletonList(late), later);
+        assertEquals(Arrays.asList(TramTime.of(8, 0), TramTime.of(8, 3)), calculatedFor);
+    }
+
+    @Test
+    void shouldCalculateForQueryTimeFromFullResults() {
+        List<Journey> calculated = new ArrayList<>();
+        for (int minute = 0; minute < 5; minute++) {
+            calculated.add(createJourney(TramTime.of(8, minute)));
+        }
+
+        replayAll();
+        getJourneys(TramTime.of(8, 0), 3, calculated);
+        List<Journey> later = getJourneys(TramTime.of(8, 3), 3, calculated);
+        getJourneys(TramTime.of(8, 3), 3, calculated);
+        verifyAll();
+
+        // not filtered, as calculated for the query time
+        assertEquals(calculated, later);
+        assertEquals(Arrays.asList(TramTime.of(8, 0), TramTime.of(8, 3)), calculatedFor);
+    }
+
+    @Test
+    void shouldCalculateForStartOfBucket() {
+        replayAll();
+        getJourneys(TramTime.of(8, 7), 3, Collections.emptyList());
+        getJourneys(TramTime.of(8, 10), 3, Collections.emptyList());
+        verifyAll();
+
+        assertEquals(Arrays.asList(TramTime.of(8, 5), TramTime.of(8, 10)), calculatedFor);
+    }
+
+    @Test
+    void shouldKeyOnChanges() {
+        replayAll();
+        getJourneys(TramTime.of(8, 0), 3, Collections.emptyList());
+        getJourneys(TramTime.of(8, 0), 2, Collections.emptyList());
+        verifyAll();
+
+        assertEquals(2, calculatedFor.size());
+        assertEquals(0, getStats().hitCount());
+    }
+
+    @Test
+    void shouldClearWhenDataVersionChanges() {
+        replayAll();
+        getJourneys(TramTime.of(8, 0), 3, Collections.emptyList());
+        getJourneys(TramTime.of(8, 0), 3, Collections.emptyList());
+
+        dataSourceInfo.clear();
+        dataSourceInfo.add(createInfo("version2"));
+        getJourneys(TramTime.of(8, 0), 3, Collections.emptyList());
+        verifyAll();
+
+        assertEquals(2, calculatedFor.size());
+    }
+
+    @Test
+    void shouldBypassForDiagnostics() {
+        replayAll();
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(when), TramTime.of(8, 0), false,
+                3, 120).setDiag(true);
+        cache.getJourneys(start, dest, journeyRequest, request -> {
+            calculatedFor.add(request.getTime());
+            return Stream.empty();
+        });
+        verifyAll();
+
+        assertEquals(1, calculatedFor.size());
+        assertEquals(0, getStats().missCount());
+    }
+}
@@ -0,0 +1,272 @@
+package com.tramchester.unit.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.config.DataSourceConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.VehicleStage;
+import com.tramchester.domain.WalkingFromStationStage;
+import com.tramchester.domain.WalkingToStationStage;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.reference.GTFSTransportationType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.overlay.WalkingOverlay;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.integration.testSupport.TFGMTestDataSourceConfig;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.RunningServicesRepository;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RaptorRouteCalculatorTest extends EasyMockSupport {
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable compactTimetable;
+    private RaptorTimetable timetable;
+    private RaptorRouteCalculator calculator;
+    private TramchesterConfig config;
+    private TramServiceDate queryDate;
+    private Node stationNode;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        compactTimetable = compactTimetableForTest.getTimetable();
+
+        config = new TestConfig() {
+            @Override
+            protected List<DataSourceConfig> getDataSourceFORTESTING() {
+                return Collections.singletonList(new TFGMTestDataSourceConfig("data/tram",
+                        GTFSTransportationType.tram, TransportMode.Tram));
+            }
+        };
+
+        Station interchange = transportData.getInterchange();
+        InterchangeRepository interchangeRepository = createMock(InterchangeRepository.class);
+        EasyMock.expect(interchangeRepository.isInterchange(EasyMock.anyObject(Station.class))).
+                andStubAnswer(() -> interchange.equals(EasyMock.getCurrentArgument(0)));
+        // walks are found from the relationship properties, the node is not used
+        stationNode = createMock(Node.class);
+        EasyMock.expect(stationNode.getId()).andStubReturn(42L);
+        replayAll();
+
+        RunningServicesRepository runningServices = new RunningServicesRepository(config, compactTimetable,
+                new ProvidesLocalNow());
+        runningServices.start();
+        timetable = new RaptorTimetable(compactTimetable, interchangeRepository);
+        timetable.start();
+
+        calculator = new RaptorRouteCalculator(timetable, runningServices, config, new CreateQueryTimes(config),
+                new MyLocationFactory(new ObjectMapper()));
+
+        // services in the test data only run on mondays
+        queryDate = new TramServiceDate(LocalDate.of(2014, 6, 30));
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        timetable.dispose();
+        compactTimetableForTest.stop();
+    }
+
+    @Test
+    void shouldHaveSimpleJourney() {
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getSecond(), TramTime.of(7, 57), 0);
+
+        assertEquals(1, journeys.size());
+        List<TransportStage<?, ?>> stages = journeys.get(0).getStages();
+        assertEquals(1, stages.size());
+
+        VehicleStage stage = (VehicleStage) stages.get(0);
+        assertEquals(transportData.getFirst(), stage.getFirstStation());
+        assertEquals(transportData.getSecond(), stage.getLastStation());
+        assertEquals(TramTime.of(8, 0), stage.getFirstDepartureTime());
+        assertEquals(TramTime.of(8, 11), stage.getExpectedArrivalTime());
+        assertEquals(0, stage.getPassedStopsCount());
+        assertTrue(stage.hasBoardingPlatform());
+    }
+
+    @Test
+    void shouldHavePassedStopsForLongerJourney() {
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getLast(), TramTime.of(7, 57), 0);
+
+        assertEquals(1, journeys.size());
+        VehicleStage stage = (VehicleStage) journeys.get(0).getStages().get(0);
+        assertEquals(transportData.getLast(), stage.getLastStation());
+        assertEquals(2, stage.getPassedStopsCount());
+        assertEquals(40, stage.getCost());
+    }
+
+    @Test
+    void shouldHaveJourneyWithChangeAtInterchange() {
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getFourthStation(), TramTime.of(7, 57), 1);
+
+        assertEquals(1, journeys.size());
+        List<TransportStage<?, ?>> stages = journeys.get(0).getStages();
+        assertEquals(2, stages.size());
+
+        TransportStage<?, ?> change = stages.get(1);
+        assertEquals(transportData.getInterchange(), change.getFirstStation());
+        assertEquals(transportData.getFourthStation(), change.getLastStation());
+        assertEquals(TramTime.of(8, 31), change.getFirstDepartureTime());
+    }
+
+    @Test
+    void shouldNotFindJourneyNeedingChangeIfNoChangesAllowed() {
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getFourthStation(), TramTime.of(7, 57), 0);
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldNotFindJourneyIfWaitTooLong() {
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getSecond(), TramTime.of(6, 0), 0);
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldNotFindJourneyWhenServicesNotRunning() {
+        queryDate = new TramServiceDate(LocalDate.of(2014, 7, 1));
+        List<Journey> journeys = calculate(transportData.getFirst(), transportData.getSecond(), TramTime.of(7, 57), 0);
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldHaveLatestDepartureForArriveBy() {
+        List<Journey> journeys = calculateArriveBy(transportData.getFirst(), transportData.getSecond(), TramTime.of(8, 15), 0);
+
+        assertEquals(1, journeys.size());
+        VehicleStage stage = (VehicleStage) journeys.get(0).getStages().get(0);
+        assertEquals(transportData.getFirst(), stage.getFirstStation());
+        assertEquals(transportData.getSecond(), stage.getLastStation());
+        assertEquals(TramTime.of(8, 0), stage.getFirstDepartureTime());
+        assertEquals(TramTime.of(8, 11), stage.getExpectedArrivalTime());
+    }
+
+    @Test
+    void shouldHaveArriveByJourneyWithChangeAtInterchange() {
+        List<Journey> journeys = calculateArriveBy(transportData.getFirst(), transportData.getFourthStation(), TramTime.of(8, 40), 1);
+
+        assertEquals(1, journeys.size());
+        List<TransportStage<?, ?>> stages = journeys.get(0).getStages();
+        assertEquals(2, stages.size());
+
+        assertEquals(TramTime.of(8, 0), stages.get(0).getFirstDepartureTime());
+        TransportStage<?, ?> change = stages.get(1);
+        assertEquals(transportData.getInterchange(), change.getFirstStation());
+        assertEquals(transportData.getFourthStation(), change.getLastStation());
+        assertEquals(TramTime.of(8, 31), change.getFirstDepartureTime());
+    }
+
+    @Test
+    void shouldNotFindArriveByJourneyIfTooEarly() {
+        List<Journey> journeys = calculateArriveBy(transportData.getFirst(), transportData.getSecond(), TramTime.of(8, 10), 0);
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldNotFindArriveByJourneyNeedingChangeIfNoChangesAllowed() {
+        List<Journey> journeys = calculateArriveBy(transportData.getFirst(), transportData.getFourthStation(), TramTime.of(8, 40), 0);
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldHaveJourneyWithWalkAtStart() {
+        WalkingOverlay walks = new WalkingOverlay();
+        Node start = walks.createWalkingNode(TestEnv.nearAltrincham, UUID.randomUUID());
+        walks.addWalkTo(start, stationNode, new StationWalk(transportData.getFirst(), 3));
+
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, TramTime.of(7, 50), false, 0,
+                config.getMaxJourneyDuration());
+        List<Journey> journeys = calculator.calculateRouteWalkAtStart(null, walks, start, transportData.getSecond(),
+                journeyRequest).collect(Collectors.toList());
+
+        assertEquals(1, journeys.size());
+        List<TransportStage<?, ?>> stages = journeys.get(0).getStages();
+        assertEquals(2, stages.size());
+        WalkingToStationStage walk = (WalkingToStationStage) stages.get(0);
+        assertEquals(transportData.getFirst(), walk.getLastStation());
+        assertEquals(TramTime.of(7, 57), walk.getFirstDepartureTime());
+        assertEquals(TramTime.of(8, 0), stages.get(1).getFirstDepartureTime());
+    }
+
+    @Test
+    void shouldHaveJourneysNotDominatedOnArrivalAndWalking() {
+        WalkingOverlay walks = new WalkingOverlay();
+        Node end = walks.createWalkingNode(TestEnv.nearPiccGardens, UUID.randomUUID());
+        walks.addWalkFrom(stationNode, end, new StationWalk(transportData.getSecond(), 20));
+        walks.addWalkFrom(stationNode, end, new StationWalk(transportData.getLast(), 2));
+        // arrives 8:20 at the interchange, so always later than walking from second and more walking than from last
+        walks.addWalkFrom(stationNode, end, new StationWalk(transportData.getInterchange(), 25));
+
+        Set<Station> destinations = new HashSet<>(Arrays.asList(transportData.getSecond(), transportData.getLast(),
+                transportData.getInterchange()));
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, TramTime.of(7, 57), false, 0,
+                config.getMaxJourneyDuration());
+        List<Journey> journeys = calculator.calculateRouteWalkAtEnd(null, walks, transportData.getFirst(), end,
+                destinations, journeyRequest).collect(Collectors.toList());
+
+        assertEquals(2, journeys.size());
+        Set<Station> walkedFrom = journeys.stream().
+                map(journey -> journey.getStages().get(journey.getStages().size() - 1)).
+                map(stage -> ((WalkingFromStationStage) stage).getFirstStation()).
+                collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList(transportData.getSecond(), transportData.getLast())), walkedFrom);
+    }
+
+    @Test
+    void shouldKeepLaterDepartureThatArrivesLater() {
+        // interchange to station four leaves at 9:15 and 9:25, both within max wait of 9:00
+        List<Journey> journeys = calculate(transportData.getInterchange(), transportData.getFourthStation(),
+                TramTime.of(9, 0), 0);
+
+        assertEquals(2, journeys.size());
+        List<TramTime> departures = journeys.stream().
+                map(journey -> journey.getStages().get(0).getFirstDepartureTime()).
+                collect(Collectors.toList());
+        assertEquals(Arrays.asList(TramTime.of(9, 15), TramTime.of(9, 25)), departures);
+    }
+
+    private List<Journey> calculateArriveBy(Station start, Station dest, TramTime time, int maxChanges) {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, time, true, maxChanges,
+                config.getMaxJourneyDuration());
+        return calculator.calculateRouteArriveBy(start, dest, journeyRequest).collect(Collectors.toList());
+    }
+
+    private List<Journey> calculate(Station start, Station dest, TramTime time, int maxChanges) {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, time, false, maxChanges,
+                config.getMaxJourneyDuration());
+        return calculator.calculateRoute(null, start, dest, journeyRequest).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,234 @@
+package com.tramchester.unit.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.CompactTimetable;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.RunningServicesRepository;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.router.raptor.TransferPatternRouteCalculator;
+import com.tramchester.router.raptor.TransferPatterns;
+import com.tramchester.testSupport.TempDirTramTestConfig;
+import com.tramchester.testSupport.reference.CompactTimetableForTest;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferPatternsTest extends EasyMockSupport {
+
+    @TempDir
+    Path tempDir;
+
+    private CompactTimetableForTest compactTimetableForTest;
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private CompactTimetable compactTimetable;
+    private RaptorTimetable timetable;
+    private InterchangeRepository interchangeRepository;
+    private RunningServicesRepository runningServices;
+    private ProvidesNow providesNow;
+    private TramchesterConfig config;
+    private RaptorRouteCalculator raptor;
+    private RaptorRouteCalculator fallback;
+    private TramServiceDate queryDate;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        compactTimetableForTest = new CompactTimetableForTest();
+        compactTimetableForTest.start();
+        transportData = compactTimetableForTest.getTransportData();
+        compactTimetable = compactTimetableForTest.getTimetable();
+
+        config = new TempDirTramTestConfig(tempDir.resolve("transferpatternstest.db"));
+
+        // services in the test data only run on mondays
+        LocalDate monday = LocalDate.of(2014, 6, 30);
+        queryDate = new TramServiceDate(monday);
+
+        Station interchange = transportData.getInterchange();
+        interchangeRepository = createMock(InterchangeRepository.class);
+        EasyMock.expect(interchangeRepository.isInterchange(EasyMock.anyObject(Station.class))).
+                andStubAnswer(() -> interchange.equals(EasyMock.getCurrentArgument(0)));
+        providesNow = createMock(ProvidesNow.class);
+        EasyMock.expect(providesNow.getDate()).andStubReturn(monday);
+        fallback = createMock(RaptorRouteCalculator.class);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        timetable.dispose();
+        compactTimetableForTest.stop();
+    }
+
+    private void start() {
+        replayAll();
+        // same day as the patterns, so the running services for the query date come from its window
+        runningServices = new RunningServicesRepository(config, compactTimetable, providesNow);
+        runningServices.start();
+        timetable = new RaptorTimetable(compactTimetable, interchangeRepository);
+        timetable.start();
+        raptor = new RaptorRouteCalculator(timetable, runningServices, config, new CreateQueryTimes(config),
+                new MyLocationFactory(new ObjectMapper()));
+    }
+
+    private TransferPatterns createPatterns() {
+        TransferPatterns patterns = new TransferPatterns(timetable, compactTimetable, interchangeRepository, config,
+                providesNow);
+        patterns.start();
+        return patterns;
+    }
+
+    private TransferPatternRouteCalculator createCalculator(TransferPatterns patterns) {
+        return new TransferPatternRouteCalculator(timetable, patterns, fallback, runningServices, config,
+                new CreateQueryTimes(config));
+    }
+
+    @Test
+    void shouldHaveJourneyWithChangeAtInterchangeFromPatterns() {
+        start();
+        TransferPatternRouteCalculator calculator = createCalculator(createPatterns());
+
+        List<Journey> journeys = calculate(calculator, transportData.getFirst(), transportData.getFourthStation(),
+                TramTime.of(7, 57), 1);
+
+        assertEquals(1, journeys.size());
+        List<TransportStage<?, ?>> stages = journeys.get(0).getStages();
+        assertEquals(2, stages.size());
+        assertEquals(TramTime.of(8, 0), stages.get(0).getFirstDepartureTime());
+        assertEquals(transportData.getInterchange(), stages.get(1).getFirstStation());
+        assertEquals(transportData.getFourthStation(), stages.get(1).getLastStation());
+        assertEquals(TramTime.of(8, 31), stages.get(1).getFirstDepartureTime());
+        verifyAll();
+    }
+
+    @Test
+    void shouldMatchRaptorForAllStations() {
+        // when the patterns give nothing the fallback is used, so any journey raptor finds was missing
+        EasyMock.expect(fallback.calculateRoute(EasyMock.isNull(), EasyMock.anyObject(Station.class),
+                EasyMock.anyObject(Station.class), EasyMock.anyObject(JourneyRequest.class))).
+                andStubAnswer(Stream::empty);
+        start();
+        TransferPatternRouteCalculator calculator = createCalculator(createPatterns());
+
+        List<TramTime> queryTimes = List.of(TramTime.of(7, 50), TramTime.of(8, 0), TramTime.of(8, 15),
+                TramTime.of(8, 45), TramTime.of(9, 0));
+        int compared = 0;
+        for (Station start : transportData.getStations()) {
+            for (Station end : transportData.getStations()) {
+                if (start.equals(end)) {
+                    continue;
+                }
+                for (TramTime queryTime : queryTimes) {
+                    for (int maxChanges = 0; maxChanges <= 2; maxChanges++) {
+                        JourneyRequest journeyRequest = new JourneyRequest(queryDate, queryTime, false, maxChanges,
+                                config.getMaxJourneyDuration());
+                        List<String> expected = summarise(raptor.calculateRoute(null, start, end, journeyRequest));
+                        List<String> result = summarise(calculator.calculateRoute(null, start, end, journeyRequest));
+                        assertEquals(expected, result, start.getName() + " to " + end.getName() + " " + journeyRequest);
+                        compared = compared + expected.size();
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 0);
+        verifyAll();
+    }
+
+    @Test
+    void shouldFallBackForMoreChangesThanStored() {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, TramTime.of(7, 57), false,
+                TransferPatterns.MAX_CHANGES + 1, config.getMaxJourneyDuration());
+        EasyMock.expect(fallback.calculateRoute(null, transportData.getFirst(), transportData.getSecond(),
+                journeyRequest)).andReturn(Stream.empty());
+        start();
+        TransferPatternRouteCalculator calculator = createCalculator(createPatterns());
+
+        assertTrue(calculator.calculateRoute(null, transportData.getFirst(), transportData.getSecond(), journeyRequest).
+                findAny().isEmpty());
+        verifyAll();
+    }
+
+    @Test
+    void shouldFallBackWhenPatternsNotBuiltForServicesRunning() {
+        // nothing runs on tuesdays in the test data
+        queryDate = new TramServiceDate(LocalDate.of(2014, 7, 1));
+        EasyMock.expect(fallback.calculateRoute(EasyMock.isNull(), EasyMock.anyObject(Station.class),
+                EasyMock.anyObject(Station.class), EasyMock.anyObject(JourneyRequest.class))).
+                andReturn(Stream.empty());
+        start();
+        TransferPatternRouteCalculator calculator = createCalculator(createPatterns());
+
+        assertTrue(calculate(calculator, transportData.getFirst(), transportData.getSecond(), TramTime.of(7, 57), 0).
+                isEmpty());
+        verifyAll();
+    }
+
+    @Test
+    void shouldSaveAndReload() {
+        start();
+        TransferPatterns built = createPatterns();
+        assertTrue(Files.exists(tempDir.resolve("transferpatternstest.db.transfers")));
+        assertTrue(built.numberOfPatterns() > 0);
+
+        TransferPatterns loaded = createPatterns();
+        assertEquals(built.numberOfPatterns(), loaded.numberOfPatterns());
+
+        List<Journey> journeys = calculate(createCalculator(loaded), transportData.getFirst(),
+                transportData.getFourthStation(), TramTime.of(7, 57), 1);
+        assertEquals(1, journeys.size());
+        verifyAll();
+    }
+
+    @Test
+    void shouldRebuildWhenDayTypesForTheWeekChange() {
+        // test data services end in august 2020
+        ProvidesNow afterServicesEnd = createMock(ProvidesNow.class);
+        EasyMock.expect(afterServicesEnd.getDate()).andStubReturn(LocalDate.of(2020, 9, 7));
+        start();
+        TransferPatterns built = createPatterns();
+        assertTrue(built.numberOfPatterns() > 0);
+
+        TransferPatterns rebuilt = new TransferPatterns(timetable, compactTimetable, interchangeRepository, config,
+                afterServicesEnd);
+        rebuilt.start();
+        assertEquals(0, rebuilt.numberOfPatterns());
+        verifyAll();
+    }
+
+    private List<String> summarise(Stream<Journey> journeys) {
+        return journeys.map(journey -> journey.getStages().stream().
+                map(stage -> stage.getFirstStation().getId() + " " + stage.getFirstDepartureTime() + " " +
+                        stage.getLastStation().getId() + " " + stage.getExpectedArrivalTime()).
+                collect(Collectors.joining(", "))).
+                collect(Collectors.toList());
+    }
+
+    private List<Journey> calculate(TransferPatternRouteCalculator calculator, Station start, Station dest,
+                                    TramTime time, int maxChanges) {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, time, false, maxChanges,
+                config.getMaxJourneyDuration());
+        return calculator.calculateRoute(null, start, dest, journeyRequest).collect(Collectors.toList());
+    }
+}